@@ -3,6 +3,7 @@ package com.TranAn.BackEnd_Works.advice;
 import com.TranAn.BackEnd_Works.advice.exception.ImmutableFieldException;
 import com.TranAn.BackEnd_Works.advice.exception.InvalidImageDataException;
 import com.TranAn.BackEnd_Works.advice.exception.ResourceAlreadyExistsException;
+import com.TranAn.BackEnd_Works.advice.exception.TooManyRequestsException;
 import com.TranAn.BackEnd_Works.dto.response.ApiResponse;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.context.support.DefaultMessageSourceResolvable;
@@ -147,6 +148,18 @@ public class GlobalExceptionHandler {
                 ));
     }
 
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<ApiResponse<?>> handleTooManyRequestsException(
+            TooManyRequestsException ex
+    ) {
+        return ResponseEntity
+                .status(HttpStatus.TOO_MANY_REQUESTS)
+                .body(new ApiResponse<>(
+                        ex.getMessage(),
+                        "TOO_MANY_REQUESTS"
+                ));
+    }
+
     @ExceptionHandler(InvalidImageDataException.class)
     public ResponseEntity<ApiResponse<?>> handleInvalidImageDataException(
             InvalidImageDataException ex
@@ -0,0 +1,62 @@
+package com.TranAn.BackEnd_Works.config.data;
+
+import com.TranAn.BackEnd_Works.repository.ChatSessionRepository;
+import com.TranAn.BackEnd_Works.service.DistributedLockService;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Bảng chat_sessions chỉ được cập nhật khi có message mới. Lần khởi động đầu tiên sau khi thêm bảng, tạo tóm tắt
+ * cho các session cũ chưa có bản ghi; xong thì đặt key đánh dấu trên Redis để các lần khởi động sau không quét lại
+ * toàn bộ chat_messages. Câu lệnh bỏ qua session đã có bản ghi nên chạy lại (vd. khi Redis mất key) vẫn an toàn.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ChatSessionSummaryInitializer {
+
+    private static final String DONE_KEY = "chat-sessions:summary-backfill:done";
+    private static final String LOCK_KEY = "chat-sessions:summary-backfill:lock";
+    private static final Duration LOCK_TTL = Duration.ofMinutes(2);
+
+    // Phụ thuộc EntityManagerFactory để chạy sau khi Hibernate cập nhật schema (tạo bảng chat_sessions)
+    private final EntityManagerFactory entityManagerFactory;
+    private final ChatSessionRepository chatSessionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final DistributedLockService distributedLockService;
+
+    @PostConstruct
+    void backfillSummaries() {
+        try {
+            if (Boolean.TRUE.equals(redisTemplate.hasKey(DONE_KEY)))
+                return;
+
+            // Node khác đang chạy thì bỏ qua, kết quả dùng chung một database
+            Optional<DistributedLockService.Lease> acquired = distributedLockService.tryAcquire(LOCK_KEY, LOCK_TTL);
+            if (acquired.isEmpty())
+                return;
+
+            try (DistributedLockService.Lease lease = acquired.get()) {
+                Integer created = transactionTemplate.execute(tx -> chatSessionRepository.backfillMissing());
+                if (created != null && created > 0)
+                    log.info("Đã tạo tóm tắt cho {} session chat cũ", created);
+
+                redisTemplate.opsForValue().set(DONE_KEY, Instant.now().toString());
+            }
+        } catch (DataAccessException e) {
+            // Chưa đặt key đánh dấu nên lần khởi động sau sẽ thử lại
+            log.error("Không thể tạo tóm tắt session chat: {}", e.getMessage());
+        }
+    }
+}
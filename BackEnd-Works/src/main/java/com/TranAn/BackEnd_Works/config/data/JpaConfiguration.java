@@ -1,6 +1,9 @@
 package com.TranAn.BackEnd_Works.config.data;
 
 
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.domain.AuditorAware;
@@ -23,4 +26,17 @@ public class JpaConfiguration {
 
     }
 
+    // Gom insert/update thành JDBC batch (các entity ghi nhiều dùng id pooled, xem PooledIds).
+    // Cấu hình trong spring.jpa.properties.* vẫn được ưu tiên.
+    @Bean
+    public HibernatePropertiesCustomizer batchingHibernatePropertiesCustomizer(
+            @Value("${jpa.batch-size:50}") int batchSize) {
+        return properties -> {
+            properties.putIfAbsent(AvailableSettings.STATEMENT_BATCH_SIZE, batchSize);
+            properties.putIfAbsent(AvailableSettings.ORDER_INSERTS, true);
+            properties.putIfAbsent(AvailableSettings.ORDER_UPDATES, true);
+            properties.putIfAbsent(AvailableSettings.BATCH_VERSIONED_DATA, true);
+        };
+    }
+
 }
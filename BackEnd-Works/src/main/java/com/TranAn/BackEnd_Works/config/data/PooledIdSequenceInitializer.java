@@ -0,0 +1,44 @@
+package com.TranAn.BackEnd_Works.config.data;
+
+import com.TranAn.BackEnd_Works.model.common.PooledIds;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bảng sequence mới được Hibernate tạo bắt đầu từ 1, trong khi bảng dữ liệu đã có id cấp bằng AUTO_INCREMENT.
+ * Trước khi nhận request, đẩy mỗi sequence lên quá id lớn nhất hiện có (cộng một khối, vì optimizer pooled cấp
+ * các id ngay dưới giá trị đọc được). Chỉ tăng, không bao giờ giảm, nên chạy đồng thời trên nhiều node vẫn an toàn.
+ * Không đồng bộ được thì ứng dụng không khởi động.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PooledIdSequenceInitializer {
+
+    // Phụ thuộc EntityManagerFactory để chạy sau khi Hibernate cập nhật schema (tạo các bảng sequence)
+    private final EntityManagerFactory entityManagerFactory;
+    private final JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    void alignSequences() {
+        PooledIds.SEQUENCE_TABLES.forEach((sequence, table) -> {
+            try {
+                Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+                long floor = (maxId != null ? maxId : 0L) + PooledIds.ALLOCATION_SIZE + 1;
+
+                int updated = jdbcTemplate.update(
+                        "UPDATE " + sequence + " SET next_val = ? WHERE next_val < ?", floor, floor);
+                if (updated > 0)
+                    log.info("Đã đẩy sequence {} lên {} (id lớn nhất của {} là {})", sequence, floor, table, maxId);
+            } catch (DataAccessException e) {
+                // Chạy tiếp với sequence thấp hơn id đã có sẽ cấp id trùng khóa chính: dừng khởi động thay vì chỉ log
+                throw new IllegalStateException("Không thể đồng bộ sequence " + sequence + " với bảng " + table, e);
+            }
+        });
+    }
+}
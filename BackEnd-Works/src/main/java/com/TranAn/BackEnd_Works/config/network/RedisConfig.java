@@ -1,6 +1,5 @@
 package com.TranAn.BackEnd_Works.config.network;
 
-import com.TranAn.BackEnd_Works.model.ChatMessage;
 import com.TranAn.BackEnd_Works.model.SessionMeta;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -19,7 +18,7 @@ import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
@@ -126,37 +125,7 @@ public class RedisConfig {
     }
 
     // =====================================================================
-    // 4. RedisTemplate cho Chat History (List<ChatMessage>)
-    //    - Lưu lịch sử chat của user với AI
-    //    - Key: chat::history:userId:sessionId
-    //    - Value: List<ChatMessage>
-    // =====================================================================
-    @Bean
-    public RedisTemplate<String, List<ChatMessage>> redisChatTemplate(RedisConnectionFactory connectionFactory) {
-        RedisTemplate<String, List<ChatMessage>> template = new RedisTemplate<>();
-        template.setConnectionFactory(connectionFactory);
-
-        // KEY
-        template.setKeySerializer(new StringRedisSerializer());
-        template.setHashKeySerializer(new StringRedisSerializer());
-
-        // VALUE - Serialize List<ChatMessage> thành JSON
-        // Sử dụng GenericJackson2JsonRedisSerializer để giữ được generic type
-        ObjectMapper objectMapper = new ObjectMapper();
-        objectMapper.registerModule(new JavaTimeModule());
-        // Disable tính năng tự động phát hiện properties để tránh serialize lazy loaded entities
-        objectMapper.configure(com.fasterxml.jackson.databind.DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-        GenericJackson2JsonRedisSerializer valueSerializer = new GenericJackson2JsonRedisSerializer(objectMapper);
-
-        template.setValueSerializer(valueSerializer);
-        template.setHashValueSerializer(valueSerializer);
-
-        return template;
-    }
-
-
-    // =====================================================================
-    // 5. Cấu hình Spring Cache với Redis
+    // 4. Cấu hình Spring Cache với Redis
     //    - Thiết lập thời gian sống mặc định cho cache (TTL)
     //    - Chỉ áp dụng cho các cache dùng annotation (@Cacheable, @CacheEvict...)
     // =====================================================================
@@ -168,7 +137,7 @@ public class RedisConfig {
     }
 
     // =====================================================================
-    // 6. Khởi tạo CacheManager sử dụng Redis
+    // 5. Khởi tạo CacheManager sử dụng Redis
     //    - Quản lý cache thông qua Spring Cache (annotation)
     //    - Tự động áp dụng các cấu hình phía trên cho toàn bộ cache
     // =====================================================================
@@ -181,4 +150,16 @@ public class RedisConfig {
                 .transactionAware()
                 .build();
     }
+
+    // =====================================================================
+    // 6. Container lắng nghe Redis pub/sub
+    //    - Dùng để xóa cache L1 của job trên mọi node khi job thay đổi
+    //    - Phát thông báo realtime tới kết nối SSE đang mở trên mọi node
+    // =====================================================================
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        return container;
+    }
 }
\ No newline at end of file
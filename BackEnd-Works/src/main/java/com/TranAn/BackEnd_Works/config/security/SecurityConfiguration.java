@@ -44,6 +44,8 @@ public class SecurityConfiguration {
                         "/auth/password/verify-otp",
                         "/auth/password/reset",
                         "/auth/password/resend-otp",
+                        // SSE: xác thực bằng ticket dùng một lần (EventSource không gửi được header)
+                        "/notifications/stream",
                         // "/api/chat-messages",
                         // PUBLIC RESOURCES
                         "/companies/**",
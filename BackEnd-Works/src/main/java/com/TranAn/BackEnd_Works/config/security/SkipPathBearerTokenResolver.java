@@ -27,4 +27,4 @@ public class SkipPathBearerTokenResolver implements BearerTokenResolver {
 
         return delegate.resolve(request);
     }
-}
\ No newline at end of file
+}
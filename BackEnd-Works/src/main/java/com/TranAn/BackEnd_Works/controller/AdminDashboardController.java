@@ -4,7 +4,10 @@ package com.TranAn.BackEnd_Works.controller;
 import com.TranAn.BackEnd_Works.annotation.ApiMessage;
 import com.TranAn.BackEnd_Works.dto.admin.DashboardStatsResponseDto;
 import com.TranAn.BackEnd_Works.dto.response.ApiResponse;
+import com.TranAn.BackEnd_Works.model.constant.ChartGranularity;
+import com.TranAn.BackEnd_Works.model.constant.RollupMetric;
 import com.TranAn.BackEnd_Works.service.AdminDashboardService;
+import com.TranAn.BackEnd_Works.service.DashboardRollupService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
@@ -12,8 +15,11 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.LocalDate;
+
 @Tag(name = "Admin Dashboard")
 @RestController
 @RequestMapping("/admin/dashboard")
@@ -21,6 +27,7 @@ import org.springframework.web.bind.annotation.RestController;
 public class AdminDashboardController {
 
     private final AdminDashboardService adminDashboardService;
+    private final DashboardRollupService dashboardRollupService;
 
     @GetMapping("/stats")
     @ApiMessage("Lấy thống kê dashboard")
@@ -35,6 +42,25 @@ public class AdminDashboardController {
         );
     }
 
+    @GetMapping("/charts")
+    @ApiMessage("Lấy dữ liệu biểu đồ theo thời gian")
+    @PreAuthorize("hasAuthority('GET /admin/dashboard/stats')")
+    @Operation(
+            summary = "Lấy chuỗi thời gian users/jobs/resumes từ bảng tổng hợp theo ngày",
+            description = "Yêu cầu quyền: <b>GET /admin/dashboard/stats</b>. "
+                    + "<b>granularity</b>: DAY, WEEK hoặc MONTH. Mặc định 30 ngày gần nhất."
+    )
+    public ResponseEntity<?> getChartSeries(
+            @RequestParam RollupMetric metric,
+            @RequestParam(required = false) LocalDate from,
+            @RequestParam(required = false) LocalDate to,
+            @RequestParam(defaultValue = "DAY") ChartGranularity granularity) {
+        LocalDate end = to != null ? to : dashboardRollupService.today();
+        LocalDate start = from != null ? from : end.minusDays(29);
+
+        return ResponseEntity.ok(dashboardRollupService.getSeries(metric, start, end, granularity));
+    }
+
 //    public ResponseEntity<ApiResponse<Object>> getDashboardStats() {
 //        return ResponseEntity.ok(new ApiResponse<>(
 //                "Lấy thống kê dashboard thành công",
@@ -14,6 +14,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 import java.util.Map;
@@ -44,6 +45,23 @@ public class ChatController {
         return ResponseEntity.ok(response);
     }
 
+    @PostMapping(value = "/chat-message/stream", consumes = {
+            org.springframework.http.MediaType.APPLICATION_JSON_VALUE,
+            org.springframework.http.MediaType.MULTIPART_FORM_DATA_VALUE
+    }, produces = org.springframework.http.MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasAuthority('POST /chat-message')")
+    @Operation(summary = "Gửi tin nhắn tới AI và nhận câu trả lời dạng stream (SSE)", description = "Yêu cầu quyền: <b>POST /chat-message</b>. "
+            + "Câu trả lời được gửi dần qua các sự kiện <b>token</b> ({content}), kết thúc bằng <b>done</b> "
+            + "(message đã lưu) hoặc <b>error</b> ({message}).")
+    public SseEmitter streamChatMessage(
+            @Valid @ModelAttribute ChatRequest request,
+            @RequestPart(required = false) List<org.springframework.web.multipart.MultipartFile> files,
+            Authentication authentication) {
+
+        String userEmail = authentication.getName();
+        return chatService.streamGeneration(request, files, userEmail);
+    }
+
     @GetMapping("/chat-history/{sessionId}")
     @ApiMessage(value = "Lấy lịch sử chat thành công")
     @PreAuthorize("hasAuthority('GET /chat-history')")
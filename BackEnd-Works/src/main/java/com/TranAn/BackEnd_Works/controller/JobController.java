@@ -5,6 +5,9 @@ import com.TranAn.BackEnd_Works.dto.request.job.JobRequestDto;
 import com.TranAn.BackEnd_Works.dto.response.PageResponseDto;
 import com.TranAn.BackEnd_Works.dto.response.job.JobResponseDto;
 import com.TranAn.BackEnd_Works.model.Job;
+import com.TranAn.BackEnd_Works.model.constant.ChartGranularity;
+import com.TranAn.BackEnd_Works.model.constant.RollupMetric;
+import com.TranAn.BackEnd_Works.service.DashboardRollupService;
 import com.TranAn.BackEnd_Works.service.JobService;
 import com.turkraft.springfilter.boot.Filter;
 import io.swagger.v3.oas.annotations.Operation;
@@ -20,6 +23,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
+
 @Tag(name = "Job")
 @RestController
 @RequestMapping("/jobs")
@@ -27,6 +32,7 @@ import org.springframework.web.bind.annotation.*;
 public class JobController {
 
         private final JobService jobService;
+        private final DashboardRollupService dashboardRollupService;
 
         @PostMapping
         @ApiMessage(value = "Tạo Job")
@@ -47,12 +53,26 @@ public class JobController {
         @GetMapping
         @ApiMessage(value = "Lấy danh sách Job")
         @PreAuthorize("hasAuthority('GET /jobs') OR isAnonymous()")
-        @Operation(summary = "Lấy danh sách Job", description = "Yêu cầu quyền: <b>GET /jobs</b>")
+        @Operation(summary = "Lấy danh sách Job", description = "Yêu cầu quyền: <b>GET /jobs</b>. "
+                        + "Truyền <b>keyword</b> để tìm kiếm toàn văn (không phân biệt dấu), kết quả sắp xếp theo độ liên quan. "
+                        + "Truyền <b>cursor</b> (để trống ở trang đầu) để phân trang keyset theo thời gian tạo, "
+                        + "trả về <b>nextCursor</b> thay cho tổng số trang.")
         @SecurityRequirements()
         public ResponseEntity<?> findAllJobs(
                         @Filter Specification<Job> spec,
+                        @RequestParam(required = false) String keyword,
+                        @RequestParam(required = false) String cursor,
                         @PageableDefault(size = 5) Pageable pageable) {
-                Page<JobResponseDto> page = jobService.findAllJobs(spec, pageable);
+                boolean hasKeyword = keyword != null && !keyword.isBlank();
+
+                // Chế độ cursor: không COUNT, mỗi trang chi phí như nhau dù cuộn sâu tới đâu
+                if (cursor != null && !hasKeyword)
+                        return ResponseEntity.ok(jobService.findAllJobsByCursor(spec, cursor, pageable.getPageSize()));
+
+                // Có keyword thì tìm qua chỉ mục trong bộ nhớ (xếp hạng theo độ liên quan)
+                Page<JobResponseDto> page = hasKeyword
+                                ? jobService.searchJobs(keyword.trim(), spec, pageable)
+                                : jobService.findAllJobs(spec, pageable);
 
                 PageResponseDto<JobResponseDto> res = new PageResponseDto<>(
                                 page.getContent(),
@@ -154,4 +174,20 @@ public class JobController {
                 return ResponseEntity.ok(jobService.getJobStatsByLevelForRecruiterCompany());
         }
 
+        @GetMapping("/company/stats/timeline")
+        @ApiMessage(value = "Thống kê theo thời gian của công ty")
+        @PreAuthorize("hasAuthority('GET /jobs/company')")
+        @Operation(summary = "Chuỗi thời gian số job/hồ sơ của công ty Recruiter", description = "Đọc từ bảng tổng hợp theo ngày. <b>metric</b>: JOBS hoặc RESUMES; <b>granularity</b>: DAY, WEEK hoặc MONTH. Mặc định 30 ngày gần nhất.")
+        public ResponseEntity<?> getTimelineForRecruiterCompany(
+                        @RequestParam RollupMetric metric,
+                        @RequestParam(required = false) LocalDate from,
+                        @RequestParam(required = false) LocalDate to,
+                        @RequestParam(defaultValue = "DAY") ChartGranularity granularity) {
+                LocalDate end = to != null ? to : dashboardRollupService.today();
+                LocalDate start = from != null ? from : end.minusDays(29);
+
+                return ResponseEntity.ok(
+                                dashboardRollupService.getSeriesForRecruiterCompany(metric, start, end, granularity));
+        }
+
 }
@@ -10,9 +10,11 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 import java.util.Map;
@@ -28,10 +30,15 @@ public class NotificationController {
     @GetMapping
     @ApiMessage("Lấy danh sách thông báo thành công")
     @PreAuthorize("hasAuthority('GET /notifications')")
-    @Operation(summary = "Lấy danh sách thông báo (có phân trang)", description = "Yêu cầu quyền: <b>GET /notifications</b>")
+    @Operation(summary = "Lấy danh sách thông báo (có phân trang)", description = "Yêu cầu quyền: <b>GET /notifications</b>. "
+            + "Truyền <b>cursor</b> (để trống ở trang đầu) để phân trang keyset, trả về <b>nextCursor</b> thay cho tổng số trang.")
     public ResponseEntity<?> getNotifications(
             @RequestParam(defaultValue = "1") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor) {
+        if (cursor != null)
+            return ResponseEntity.ok(notificationService.getNotificationsByCursor(cursor, Math.max(size, 1)));
+
         Pageable pageable = PageRequest.of(page - 1, size);
         Page<NotificationResponseDto> pageResult = notificationService.getNotifications(pageable);
 
@@ -63,12 +70,32 @@ public class NotificationController {
         return ResponseEntity.ok(Map.of("count", count));
     }
 
+    @PostMapping("/stream-ticket")
+    @ApiMessage("Cấp ticket kết nối thông báo thành công")
+    @PreAuthorize("hasAuthority('GET /notifications/unread-count')")
+    @Operation(summary = "Cấp ticket mở kết nối SSE", description = "Yêu cầu quyền: <b>GET /notifications/unread-count</b>. "
+            + "Ticket dùng một lần và hết hạn sau 30 giây; truyền vào tham số <b>ticket</b> của <b>/notifications/stream</b>.")
+    public ResponseEntity<?> createStreamTicket() {
+        return ResponseEntity.ok(Map.of("ticket", notificationService.createStreamTicket()));
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Nhận thông báo mới theo thời gian thực (SSE)", description = "EventSource không gửi được header "
+            + "nên xác thực bằng tham số <b>ticket</b> lấy từ <b>/notifications/stream-ticket</b> thay cho access token. "
+            + "Mỗi thông báo mới được gửi dưới dạng sự kiện <b>notification</b>.")
+    public SseEmitter streamNotifications(@RequestParam String ticket) {
+        return notificationService.subscribe(ticket);
+    }
+
     @PutMapping("/{id}/read")
     @ApiMessage("Đã đánh dấu đã đọc")
     @PreAuthorize("hasAuthority('PUT /notifications/{id}/read')")
-    @Operation(summary = "Đánh dấu 1 thông báo đã đọc", description = "Yêu cầu quyền: <b>PUT /notifications/{id}/read</b>")
-    public ResponseEntity<?> markAsRead(@PathVariable Long id) {
-        notificationService.markAsRead(id);
+    @Operation(summary = "Đánh dấu 1 thông báo đã đọc", description = "Yêu cầu quyền: <b>PUT /notifications/{id}/read</b>. "
+            + "Truyền <b>broadcast=true</b> với thông báo nhóm (trường <b>broadcast</b> của thông báo).")
+    public ResponseEntity<?> markAsRead(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "false") boolean broadcast) {
+        notificationService.markAsRead(id, broadcast);
         return ResponseEntity.ok("OK");
     }
 
@@ -4,10 +4,10 @@ import com.TranAn.BackEnd_Works.annotation.ApiMessage;
 import com.TranAn.BackEnd_Works.dto.request.resume.ResumeRequestDto;
 import com.TranAn.BackEnd_Works.dto.request.resume.UpdateResumeStatusRequestDto;
 import com.TranAn.BackEnd_Works.dto.response.PageResponseDto;
-import com.TranAn.BackEnd_Works.dto.response.resume.CVAnalysisResponseDto;
 import com.TranAn.BackEnd_Works.dto.response.resume.ResumeForDisplayResponseDto;
 import com.TranAn.BackEnd_Works.model.Resume;
-import com.TranAn.BackEnd_Works.service.CVAnalysisService;
+import com.TranAn.BackEnd_Works.service.ApplicantRankingService;
+import com.TranAn.BackEnd_Works.service.CVAnalysisJobService;
 import com.TranAn.BackEnd_Works.service.ResumeService;
 import com.turkraft.springfilter.boot.Filter;
 import io.swagger.v3.oas.annotations.Operation;
@@ -31,7 +31,8 @@ import org.springframework.web.multipart.MultipartFile;
 public class ResumeController {
 
         private final ResumeService resumeService;
-        private final CVAnalysisService cvAnalysisService;
+        private final CVAnalysisJobService cvAnalysisJobService;
+        private final ApplicantRankingService applicantRankingService;
 
         @PostMapping
         @ApiMessage(value = "Tạo Resume")
@@ -75,10 +76,16 @@ public class ResumeController {
         @GetMapping("/company")
         @ApiMessage(value = "Lấy danh sách resume thuộc company của người dùng hiện tại")
         @PreAuthorize("hasAuthority('GET /resumes/company')")
-        @Operation(summary = "Lấy danh sách resume theo company của người dùng hiện tại", description = "Yêu cầu quyền: <b>GET /resumes/company</b>")
+        @Operation(summary = "Lấy danh sách resume theo company của người dùng hiện tại", description = "Yêu cầu quyền: <b>GET /resumes/company</b>. Truyền <b>cursor</b> (để trống ở trang đầu) để phân trang keyset.")
         public ResponseEntity<?> findAllResumesForRecruiterCompany(
                         @Filter Specification<Resume> spec,
+                        @RequestParam(required = false) String cursor,
                         @PageableDefault(size = 5) Pageable pageable) {
+                // Chế độ cursor: không COUNT, phù hợp cho cuộn vô hạn
+                if (cursor != null)
+                        return ResponseEntity.ok(resumeService.findAllResumesForRecruiterCompanyByCursor(
+                                        spec, cursor, pageable.getPageSize()));
+
                 Page<ResumeForDisplayResponseDto> page = resumeService.findAllResumesForRecruiterCompany(spec,
                                 pageable);
 
@@ -95,10 +102,16 @@ public class ResumeController {
         @GetMapping("/me")
         @ApiMessage(value = "Lấy resume theo người dùng")
         @PreAuthorize("hasAuthority('GET /resumes/me')")
-        @Operation(summary = "Lấy resume của người dùng hiện tại", description = "Yêu cầu quyền: <b>GET /resumes/me</b>")
+        @Operation(summary = "Lấy resume của người dùng hiện tại", description = "Yêu cầu quyền: <b>GET /resumes/me</b>. Truyền <b>cursor</b> (để trống ở trang đầu) để phân trang keyset.")
         public ResponseEntity<?> findSelfResumes(
                         @Filter Specification<Resume> spec,
+                        @RequestParam(required = false) String cursor,
                         @PageableDefault(size = 5) Pageable pageable) {
+                // Chế độ cursor: không COUNT, phù hợp cho cuộn vô hạn
+                if (cursor != null)
+                        return ResponseEntity.ok(resumeService.findSelfResumesByCursor(
+                                        spec, cursor, pageable.getPageSize()));
+
                 Page<ResumeForDisplayResponseDto> page = resumeService.findSelfResumes(spec, pageable);
 
                 PageResponseDto<ResumeForDisplayResponseDto> res = new PageResponseDto<>(
@@ -174,21 +187,51 @@ public class ResumeController {
         }
 
         @PostMapping("/{id}/analyze")
-        @ApiMessage(value = "Phân tích CV bằng AI")
+        @ApiMessage(value = "Đã nhận yêu cầu phân tích CV")
         @PreAuthorize("hasAuthority('GET /resumes/company')")
-        @Operation(summary = "Phân tích CV đã nộp bằng AI", description = "Sử dụng AI để phân tích độ phù hợp của CV với công việc. Yêu cầu quyền: <b>GET /resumes/company</b>")
+        @Operation(summary = "Phân tích CV đã nộp bằng AI", description = "Đưa CV vào hàng đợi phân tích độ phù hợp với công việc, trả về jobId để hỏi kết quả qua <b>GET /resumes/analysis-jobs/{jobId}</b>. Yêu cầu quyền: <b>GET /resumes/company</b>")
         public ResponseEntity<?> analyzeResume(@PathVariable Long id) {
-                return ResponseEntity.ok(cvAnalysisService.analyzeResume(id));
+                return ResponseEntity
+                                .status(HttpStatus.ACCEPTED)
+                                .body(cvAnalysisJobService.submitAnalysis(id));
         }
 
         @PostMapping("/analyze-preview")
-        @ApiMessage(value = "Phân tích CV preview bằng AI")
+        @ApiMessage(value = "Đã nhận yêu cầu phân tích CV")
         @PreAuthorize("hasAuthority('POST /resumes')")
-        @Operation(summary = "Phân tích CV trước khi nộp", description = "Cho phép người dùng phân tích độ phù hợp của CV với công việc trước khi nộp đơn. Yêu cầu quyền: <b>POST /resumes</b>")
+        @Operation(summary = "Phân tích CV trước khi nộp", description = "Đưa CV vào hàng đợi phân tích độ phù hợp với công việc trước khi nộp đơn, trả về jobId để hỏi kết quả qua <b>GET /resumes/analysis-jobs/{jobId}</b>. Yêu cầu quyền: <b>POST /resumes</b>")
         public ResponseEntity<?> analyzeResumePreview(
                         @RequestPart("pdfFile") MultipartFile pdfFile,
                         @RequestParam Long jobId) {
-                return ResponseEntity.ok(cvAnalysisService.analyzeResumePreview(pdfFile, jobId));
+                return ResponseEntity
+                                .status(HttpStatus.ACCEPTED)
+                                .body(cvAnalysisJobService.submitPreview(pdfFile, jobId));
+        }
+
+        @PostMapping("/company/jobs/{jobId}/ranking")
+        @ApiMessage(value = "Bắt đầu xếp hạng ứng viên")
+        @PreAuthorize("hasAuthority('GET /resumes/company')")
+        @Operation(summary = "Xếp hạng tất cả ứng viên của công việc bằng AI", description = "Chấm điểm tất cả CV đã nộp cho công việc của công ty, chạy nền; theo dõi tiến độ và danh sách xếp hạng qua <b>GET /resumes/company/jobs/{jobId}/ranking</b>. Yêu cầu quyền: <b>GET /resumes/company</b>")
+        public ResponseEntity<?> startApplicantRanking(@PathVariable Long jobId) {
+                return ResponseEntity
+                                .status(HttpStatus.ACCEPTED)
+                                .body(applicantRankingService.startRanking(jobId));
+        }
+
+        @GetMapping("/company/jobs/{jobId}/ranking")
+        @ApiMessage(value = "Lấy bảng xếp hạng ứng viên")
+        @PreAuthorize("hasAuthority('GET /resumes/company')")
+        @Operation(summary = "Lấy bảng xếp hạng ứng viên", description = "Tiến độ lần xếp hạng gần nhất và các ứng viên đã có điểm, điểm cao nhất trước. Yêu cầu quyền: <b>GET /resumes/company</b>")
+        public ResponseEntity<?> getApplicantRanking(@PathVariable Long jobId) {
+                return ResponseEntity.ok(applicantRankingService.getRanking(jobId));
+        }
+
+        @GetMapping("/analysis-jobs/{jobId}")
+        @ApiMessage(value = "Lấy trạng thái phân tích CV")
+        @PreAuthorize("hasAuthority('GET /resumes/company') or hasAuthority('POST /resumes')")
+        @Operation(summary = "Lấy trạng thái phân tích CV", description = "Trả về trạng thái (QUEUED, RUNNING, COMPLETED, FAILED) và kết quả của yêu cầu phân tích do user hiện tại tạo")
+        public ResponseEntity<?> getAnalysisJob(@PathVariable String jobId) {
+                return ResponseEntity.ok(cvAnalysisJobService.getJob(jobId));
         }
 
 }
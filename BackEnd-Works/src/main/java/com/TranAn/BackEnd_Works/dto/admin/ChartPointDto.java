@@ -0,0 +1,13 @@
+package com.TranAn.BackEnd_Works.dto.admin;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChartPointDto {
+    private String period; // "2024-01-15" (ngày/tuần, tuần lấy ngày thứ Hai) hoặc "2024-01" (tháng)
+    private Long count;
+}
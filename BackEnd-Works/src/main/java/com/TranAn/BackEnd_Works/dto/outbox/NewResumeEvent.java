@@ -0,0 +1,13 @@
+package com.TranAn.BackEnd_Works.dto.outbox;
+
+/**
+ * Payload outbox khi ứng viên nộp CV mới
+ */
+public record NewResumeEvent(
+        Long resumeId,
+        Long jobId,
+        Long companyId,
+        Long applicantId,
+        String applicantName,
+        String jobName) {
+}
@@ -0,0 +1,9 @@
+package com.TranAn.BackEnd_Works.dto.outbox;
+
+/**
+ * Payload outbox để chấm điểm sơ bộ file CV vừa upload
+ */
+public record ResumeScreeningEvent(
+        Long resumeId,
+        String fileKey) {
+}
@@ -0,0 +1,14 @@
+package com.TranAn.BackEnd_Works.dto.outbox;
+
+/**
+ * Payload outbox khi trạng thái CV được cập nhật (dùng cho cả thông báo in-app và email)
+ */
+public record ResumeStatusEvent(
+        Long resumeId,
+        Long applicantId,
+        Long actorId,
+        String recipientEmail,
+        String jobName,
+        String companyName,
+        String newStatus) {
+}
@@ -0,0 +1,51 @@
+package com.TranAn.BackEnd_Works.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.function.Function;
+
+
+/**
+ * Trang kết quả theo cursor (keyset), không kèm tổng số bản ghi.
+ * Client truyền lại {@code nextCursor} để lấy trang kế tiếp.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class CursorPageResponseDto<T> {
+
+    private List<T> content;
+
+    private int size;
+    private String nextCursor;
+    private boolean hasNext;
+
+    /**
+     * Cắt danh sách đã lấy dư 1 phần tử (limit = size + 1) thành một trang cursor.
+     *
+     * @param rows     Kết quả truy vấn theo thứ tự của cursor, tối đa size + 1 phần tử
+     * @param cursorOf Chuỗi cursor của một phần tử, dùng cho phần tử cuối trang để lấy trang sau
+     * @param mapper   Chuyển phần tử sang DTO trả về
+     */
+    public static <T, R> CursorPageResponseDto<R> fromRows(
+            List<T> rows,
+            int size,
+            Function<T, String> cursorOf,
+            Function<T, R> mapper) {
+        boolean hasNext = rows.size() > size;
+        List<T> pageRows = hasNext ? rows.subList(0, size) : rows;
+
+        String nextCursor = hasNext
+                ? cursorOf.apply(pageRows.get(pageRows.size() - 1))
+                : null;
+
+        return new CursorPageResponseDto<>(
+                pageRows.stream().map(mapper).toList(),
+                size,
+                nextCursor,
+                hasNext);
+    }
+}
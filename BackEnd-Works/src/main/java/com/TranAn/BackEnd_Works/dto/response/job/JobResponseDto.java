@@ -5,7 +5,9 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 @Data
 @AllArgsConstructor
@@ -21,10 +23,23 @@ public class JobResponseDto {
     private Instant startDate;
     private Instant endDate;
     private String status;
+    private Instant createdAt;
 
     private CompanyDto company;
     private List<SkillDto> skills;
 
+    /**
+     * Bản sao sâu (kể cả company và skills), để bản được cache không bị bên gọi sửa
+     */
+    public JobResponseDto copy() {
+        return new JobResponseDto(id, name, location, salary, quantity, level, description, startDate, endDate,
+                status, createdAt,
+                company != null ? new CompanyDto(company.getId(), company.getName(), company.getLogoUrl(),
+                        company.getAddress()) : null,
+                skills != null ? skills.stream().map(skill -> new SkillDto(skill.getId(), skill.getName()))
+                        .collect(Collectors.toCollection(ArrayList::new)) : null);
+    }
+
     @Data
     @AllArgsConstructor
     @NoArgsConstructor
@@ -22,6 +22,9 @@ public class NotificationResponseDto {
     private Long referenceId;
     private Instant createdAt;
 
+    // Thông báo nhóm (gửi theo role/công ty), có dãy id riêng với thông báo cá nhân
+    private Boolean broadcast;
+
     // Thông tin người gửi (nếu có)
     private SenderInfo sender;
 
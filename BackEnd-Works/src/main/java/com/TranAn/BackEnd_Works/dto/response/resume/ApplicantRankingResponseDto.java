@@ -0,0 +1,44 @@
+package com.TranAn.BackEnd_Works.dto.response.resume;
+
+import com.TranAn.BackEnd_Works.model.constant.CVAnalysisJobStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ApplicantRankingResponseDto {
+
+    private Long jobId;
+
+    /**
+     * Trạng thái lần xếp hạng gần nhất (RUNNING, COMPLETED), null nếu chưa chạy
+     */
+    private CVAnalysisJobStatus status;
+
+    private int total;
+
+    private int completed;
+
+    private int failed;
+
+    /**
+     * Số resume có điểm sơ bộ dưới ngưỡng, không được gửi cho AI
+     */
+    private int screenedOut;
+
+    private Instant startedAt;
+
+    private Instant finishedAt;
+
+    /**
+     * Ứng viên đã có điểm, điểm cao nhất trước
+     */
+    private List<RankedApplicantResponseDto> applicants;
+}
@@ -0,0 +1,37 @@
+package com.TranAn.BackEnd_Works.dto.response.resume;
+
+import com.TranAn.BackEnd_Works.model.constant.CVAnalysisJobStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class CVAnalysisJobResponseDto {
+
+    /**
+     * ID của yêu cầu phân tích, dùng để hỏi trạng thái
+     */
+    private String jobId;
+
+    private CVAnalysisJobStatus status;
+
+    /**
+     * Kết quả phân tích (khi status = COMPLETED)
+     */
+    private CVAnalysisResponseDto result;
+
+    /**
+     * Lý do thất bại (khi status = FAILED)
+     */
+    private String error;
+
+    private Instant submittedAt;
+
+    private Instant completedAt;
+}
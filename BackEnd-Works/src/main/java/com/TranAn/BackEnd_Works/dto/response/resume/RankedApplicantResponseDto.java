@@ -0,0 +1,31 @@
+package com.TranAn.BackEnd_Works.dto.response.resume;
+
+import com.TranAn.BackEnd_Works.model.constant.ResumeStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RankedApplicantResponseDto {
+
+    private Long resumeId;
+
+    private String email;
+
+    private ResumeStatus status;
+
+    /**
+     * Điểm phù hợp (0-100%) của lần phân tích gần nhất
+     */
+    private Integer matchScore;
+
+    private String summary;
+
+    private Instant scoredAt;
+}
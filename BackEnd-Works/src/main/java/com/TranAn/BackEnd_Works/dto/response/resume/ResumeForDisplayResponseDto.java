@@ -17,6 +17,7 @@ public class ResumeForDisplayResponseDto {
     private Long id;
     private String status;
     private String pdfUrl;
+    private Integer screeningScore;
 
     private User user;
     private Job job;
@@ -0,0 +1,56 @@
+package com.TranAn.BackEnd_Works.model;
+
+import com.TranAn.BackEnd_Works.model.common.BaseEntity;
+import com.TranAn.BackEnd_Works.model.constant.NotificationType;
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Thông báo gửi cho cả một nhóm người nhận (theo role và/hoặc công ty): mỗi sự kiện chỉ ghi một dòng,
+ * trạng thái đã đọc của từng user được lưu riêng (xem {@link NotificationReadState} và {@link BroadcastRead})
+ */
+@Entity
+@Table(name = "broadcast_notifications", indexes = {
+        @Index(name = "idx_broadcast_notifications_role_keyset", columnList = "audience_role, created_at, id"),
+        @Index(name = "idx_broadcast_notifications_company_keyset", columnList = "audience_company_id, created_at, id")
+})
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@EqualsAndHashCode(onlyExplicitlyIncluded = true, callSuper = false)
+@Builder
+public class BroadcastNotification extends BaseEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @EqualsAndHashCode.Include
+    private Long id;
+
+    @Column(nullable = false)
+    private String title;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String message;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private NotificationType type;
+
+    private String actionUrl;
+
+    private Long referenceId;
+
+    // Người nhận: mọi user có role này (null nếu không gửi theo role)
+    @Column(name = "audience_role", length = 50)
+    private String audienceRole;
+
+    // Người nhận: mọi user thuộc công ty này (null nếu không gửi theo công ty)
+    @Column(name = "audience_company_id")
+    private Long audienceCompanyId;
+
+    // Người gửi/tạo thông báo (có thể null nếu là system notification)
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "sender_id")
+    @ToString.Exclude
+    private User sender;
+}
@@ -0,0 +1,29 @@
+package com.TranAn.BackEnd_Works.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Thông báo nhóm được user đánh dấu đã đọc riêng lẻ (nằm trên mốc đã đọc của user)
+ */
+@Entity
+@Table(name = "broadcast_reads", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_broadcast_reads_user_broadcast", columnNames = { "user_id", "broadcast_id" })
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BroadcastRead {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "broadcast_id", nullable = false)
+    private Long broadcastId;
+}
@@ -0,0 +1,48 @@
+package com.TranAn.BackEnd_Works.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Kết quả phân tích CV bằng AI, dùng lại khi CV (file/phiên bản), công việc và prompt đều chưa thay đổi
+ */
+@Entity
+@Table(name = "cv_analysis_results", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_cv_analysis_results_key", columnNames = { "analysis_key" })
+}, indexes = {
+        @Index(name = "idx_cv_analysis_results_resume", columnList = "resume_id"),
+        @Index(name = "idx_cv_analysis_results_job", columnList = "job_id, resume_id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CVAnalysisResult {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // SHA-256 của (phiên bản prompt, fileKey, version của resume, id và thời điểm cập nhật của job)
+    @Column(name = "analysis_key", nullable = false, length = 64)
+    private String analysisKey;
+
+    @Column(name = "resume_id", nullable = false)
+    private Long resumeId;
+
+    @Column(name = "job_id", nullable = false)
+    private Long jobId;
+
+    @Column(name = "match_score")
+    private Integer matchScore;
+
+    // CVAnalysisResponseDto dạng JSON
+    @Column(name = "result", nullable = false, columnDefinition = "TEXT")
+    private String result;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+}
@@ -1,6 +1,7 @@
 package com.TranAn.BackEnd_Works.model;
 
 import com.TranAn.BackEnd_Works.model.common.BaseEntity;
+import com.TranAn.BackEnd_Works.model.common.PooledIds;
 import com.TranAn.BackEnd_Works.model.constant.MessageRole;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
@@ -19,7 +20,9 @@ import lombok.*;
 public class ChatMessage extends BaseEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Cấp id theo khối (pooled) thay cho IDENTITY để Hibernate gom insert thành batch
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "chat_message_id")
+    @SequenceGenerator(name = "chat_message_id", sequenceName = "chat_messages_id_seq", allocationSize = PooledIds.ALLOCATION_SIZE)
     @EqualsAndHashCode.Include
     private Long id;
 
@@ -0,0 +1,62 @@
+package com.TranAn.BackEnd_Works.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Tóm tắt một session chat (message đầu, message cuối, số message, thời gian), được cập nhật cùng mỗi message
+ * để danh sách session chỉ cần một truy vấn
+ */
+@Entity
+@Table(name = "chat_sessions", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_chat_sessions_user_session", columnNames = { "user_id", "session_id" })
+}, indexes = {
+        @Index(name = "idx_chat_sessions_user_last", columnList = "user_id, last_message_at")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ChatSession {
+
+    // Độ dài tối đa của đoạn trích message đầu/cuối
+    public static final int PREVIEW_LENGTH = 255;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "session_id", nullable = false, length = 100)
+    private String sessionId;
+
+    // Null khi message đầu tiên không phải của user
+    @Column(name = "first_message", length = PREVIEW_LENGTH)
+    private String firstMessage;
+
+    @Column(name = "last_message", length = PREVIEW_LENGTH)
+    private String lastMessage;
+
+    @Column(name = "message_count", nullable = false)
+    private long messageCount;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "last_message_at", nullable = false)
+    private Instant lastMessageAt;
+
+    // Tóm tắt các message cũ (không còn được gửi nguyên văn cho AI)
+    @Column(name = "summary", columnDefinition = "TEXT")
+    private String summary;
+
+    // Thời điểm (tới mili giây) của message cuối cùng đã được gộp vào bản tóm tắt.
+    // Không dùng id vì id cấp theo khối (pooled) không tăng dần theo thời gian giữa các node.
+    @Column(name = "summary_until")
+    private Instant summaryUntil;
+}
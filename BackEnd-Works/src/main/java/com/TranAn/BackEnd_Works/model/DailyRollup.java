@@ -0,0 +1,44 @@
+package com.TranAn.BackEnd_Works.model;
+
+import com.TranAn.BackEnd_Works.model.constant.RollupMetric;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+
+/**
+ * Số lượng theo ngày của một chỉ số (toàn hệ thống hoặc theo công ty)
+ */
+@Entity
+@Table(name = "daily_rollups", uniqueConstraints = @UniqueConstraint(
+        name = "uk_daily_rollups_metric_company_date",
+        columnNames = { "metric", "company_id", "rollup_date" }))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DailyRollup {
+
+    /**
+     * companyId dùng cho số liệu toàn hệ thống
+     */
+    public static final long ALL_COMPANIES = 0L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private RollupMetric metric;
+
+    @Column(name = "company_id", nullable = false)
+    private Long companyId;
+
+    @Column(name = "rollup_date", nullable = false)
+    private LocalDate rollupDate;
+
+    @Column(nullable = false)
+    private Long count;
+}
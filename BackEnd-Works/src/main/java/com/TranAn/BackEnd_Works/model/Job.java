@@ -10,7 +10,11 @@ import java.time.Instant;
 import java.util.List;
 
 @Entity
-@Table(name = "jobs")
+@Table(name = "jobs", indexes = {
+        @Index(name = "idx_jobs_status_end_date", columnList = "status, end_date"),
+        // Phân trang keyset theo (created_at, id)
+        @Index(name = "idx_jobs_created_at_id", columnList = "created_at, id")
+})
 @AllArgsConstructor
 @NoArgsConstructor
 @Data
@@ -1,12 +1,16 @@
 package com.TranAn.BackEnd_Works.model;
 
 import com.TranAn.BackEnd_Works.model.common.BaseEntity;
+import com.TranAn.BackEnd_Works.model.common.PooledIds;
 import com.TranAn.BackEnd_Works.model.constant.NotificationType;
 import jakarta.persistence.*;
 import lombok.*;
 
 @Entity
-@Table(name = "notifications")
+@Table(name = "notifications", indexes = {
+        // Phân trang keyset thông báo của một người nhận theo (created_at, id)
+        @Index(name = "idx_notifications_recipient_created_at_id", columnList = "recipient_id, created_at, id")
+})
 @AllArgsConstructor
 @NoArgsConstructor
 @Data
@@ -15,7 +19,9 @@ import lombok.*;
 public class Notification extends BaseEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Cấp id theo khối (pooled) thay cho IDENTITY để Hibernate gom insert thành batch
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "notification_id")
+    @SequenceGenerator(name = "notification_id", sequenceName = "notifications_id_seq", allocationSize = PooledIds.ALLOCATION_SIZE)
     @EqualsAndHashCode.Include
     private Long id;
 
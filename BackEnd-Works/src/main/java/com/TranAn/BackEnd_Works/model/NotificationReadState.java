@@ -0,0 +1,25 @@
+package com.TranAn.BackEnd_Works.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Mốc đã đọc thông báo nhóm của một user: mọi thông báo nhóm có id không lớn hơn mốc được coi là đã đọc
+ */
+@Entity
+@Table(name = "notification_read_states")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class NotificationReadState {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "broadcast_watermark", nullable = false)
+    @Builder.Default
+    private Long broadcastWatermark = 0L;
+}
@@ -0,0 +1,62 @@
+package com.TranAn.BackEnd_Works.model;
+
+import com.TranAn.BackEnd_Works.model.constant.OutboxEventType;
+import com.TranAn.BackEnd_Works.model.constant.OutboxStatus;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Tác vụ phụ (email, thông báo) ghi cùng transaction với thay đổi nghiệp vụ, được dispatcher xử lý bất đồng bộ
+ */
+@Entity
+@Table(name = "outbox_events", indexes = {
+        @Index(name = "idx_outbox_events_status_next_attempt", columnList = "status, next_attempt_at"),
+        @Index(name = "idx_outbox_events_claim_token", columnList = "claim_token")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 40)
+    private OutboxEventType type;
+
+    // Dữ liệu của tác vụ dạng JSON
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    @Builder.Default
+    private OutboxStatus status = OutboxStatus.PENDING;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Integer attempts = 0;
+
+    // Thời điểm sớm nhất được xử lý; khi đang được một node giữ thì là hạn giữ (lease)
+    @Column(name = "next_attempt_at", nullable = false)
+    private Instant nextAttemptAt;
+
+    // Token của lượt lấy việc gần nhất, dùng để node biết những bản ghi nào mình vừa giành được
+    @Column(name = "claim_token", length = 36)
+    private String claimToken;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+
+    @Column(name = "processed_at")
+    private Instant processedAt;
+}
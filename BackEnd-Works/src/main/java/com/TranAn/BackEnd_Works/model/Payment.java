@@ -1,6 +1,7 @@
 package com.TranAn.BackEnd_Works.model;
 
 import com.TranAn.BackEnd_Works.model.common.BaseEntity;
+import com.TranAn.BackEnd_Works.model.common.PooledIds;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -16,7 +17,9 @@ import java.time.LocalDateTime;
 public class Payment extends BaseEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Cấp id theo khối (pooled) thay cho IDENTITY để Hibernate gom insert thành batch
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "payment_id")
+    @SequenceGenerator(name = "payment_id", sequenceName = "payments_id_seq", allocationSize = PooledIds.ALLOCATION_SIZE)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -1,12 +1,17 @@
 package com.TranAn.BackEnd_Works.model;
 
 import com.TranAn.BackEnd_Works.model.common.BaseEntity;
+import com.TranAn.BackEnd_Works.model.common.PooledIds;
 import com.TranAn.BackEnd_Works.model.constant.ResumeStatus;
 import jakarta.persistence.*;
 import lombok.*;
 
 @Entity
-@Table(name = "resumes")
+@Table(name = "resumes", indexes = {
+        // Phân trang keyset theo (created_at, id): danh sách resume của user và của toàn hệ thống
+        @Index(name = "idx_resumes_user_created_at_id", columnList = "user_id, created_at, id"),
+        @Index(name = "idx_resumes_created_at_id", columnList = "created_at, id")
+})
 @AllArgsConstructor
 @NoArgsConstructor
 @Data
@@ -14,7 +19,9 @@ import lombok.*;
 public class Resume extends BaseEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Cấp id theo khối (pooled) thay cho IDENTITY để Hibernate gom insert thành batch
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "resume_id")
+    @SequenceGenerator(name = "resume_id", sequenceName = "resumes_id_seq", allocationSize = PooledIds.ALLOCATION_SIZE)
     @EqualsAndHashCode.Include
     private Long id;
 
@@ -37,6 +44,10 @@ public class Resume extends BaseEntity {
 
     private Long version;
 
+    // Điểm sơ bộ (0-100) theo kỹ năng và cấp bậc, chấm tại máy chủ khi nộp/cập nhật CV; null nếu không đọc được file
+    @Column(name = "screening_score")
+    private Integer screeningScore;
+
     public Resume(String email, ResumeStatus status, Long version) {
         this.email = email;
         this.status = status;
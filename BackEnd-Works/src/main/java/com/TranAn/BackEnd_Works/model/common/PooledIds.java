@@ -0,0 +1,24 @@
+package com.TranAn.BackEnd_Works.model.common;
+
+import java.util.Map;
+
+/**
+ * Cấp id theo khối cho các entity ghi nhiều. IDENTITY buộc Hibernate insert từng dòng để lấy id và tắt JDBC batch;
+ * với {@code @SequenceGenerator} trên MySQL (không có sequence), Hibernate dùng một bảng một dòng làm sequence và
+ * mỗi node giữ trước {@link #ALLOCATION_SIZE} id trong bộ nhớ (optimizer pooled), nên insert được gom thành batch
+ * và các node không cấp trùng id.
+ */
+public final class PooledIds {
+
+    public static final int ALLOCATION_SIZE = 50;
+
+    // Bảng sequence → bảng dữ liệu dùng nó, để đẩy sequence vượt id đã có khi chuyển từ IDENTITY
+    public static final Map<String, String> SEQUENCE_TABLES = Map.of(
+            "notifications_id_seq", "notifications",
+            "chat_messages_id_seq", "chat_messages",
+            "resumes_id_seq", "resumes",
+            "payments_id_seq", "payments");
+
+    private PooledIds() {
+    }
+}
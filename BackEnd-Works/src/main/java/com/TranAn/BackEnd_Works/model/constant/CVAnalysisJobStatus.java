@@ -0,0 +1,23 @@
+package com.TranAn.BackEnd_Works.model.constant;
+
+public enum CVAnalysisJobStatus {
+    /**
+     * Đang chờ trong hàng đợi phân tích
+     */
+    QUEUED,
+
+    /**
+     * Đang được phân tích
+     */
+    RUNNING,
+
+    /**
+     * Phân tích xong, có kết quả
+     */
+    COMPLETED,
+
+    /**
+     * Phân tích thất bại, xem error
+     */
+    FAILED
+}
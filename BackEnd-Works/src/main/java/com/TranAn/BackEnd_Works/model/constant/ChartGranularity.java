@@ -0,0 +1,15 @@
+package com.TranAn.BackEnd_Works.model.constant;
+
+/**
+ * Độ chi tiết của chuỗi thời gian trên biểu đồ
+ */
+public enum ChartGranularity {
+    DAY,
+
+    /**
+     * Tuần ISO, bắt đầu từ thứ Hai
+     */
+    WEEK,
+
+    MONTH
+}
@@ -0,0 +1,26 @@
+package com.TranAn.BackEnd_Works.model.constant;
+
+/**
+ * Loại tác vụ phụ được ghi vào outbox, mỗi loại ứng với một handler của dispatcher
+ */
+public enum OutboxEventType {
+    /**
+     * Thông báo in-app cho recruiter/admin khi có CV mới
+     */
+    NEW_RESUME_NOTIFICATION,
+
+    /**
+     * Thông báo in-app cho ứng viên khi trạng thái CV thay đổi
+     */
+    RESUME_STATUS_NOTIFICATION,
+
+    /**
+     * Email cho ứng viên khi trạng thái CV thay đổi
+     */
+    RESUME_STATUS_EMAIL,
+
+    /**
+     * Chấm điểm sơ bộ file CV vừa upload (đọc PDF từ S3)
+     */
+    RESUME_SCREENING
+}
@@ -0,0 +1,18 @@
+package com.TranAn.BackEnd_Works.model.constant;
+
+public enum OutboxStatus {
+    /**
+     * Chờ xử lý (hoặc chờ thử lại sau nextAttemptAt)
+     */
+    PENDING,
+
+    /**
+     * Đã xử lý thành công
+     */
+    DONE,
+
+    /**
+     * Thất bại quá số lần thử, cần kiểm tra thủ công
+     */
+    DEAD
+}
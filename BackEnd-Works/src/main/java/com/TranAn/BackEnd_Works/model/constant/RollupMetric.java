@@ -0,0 +1,21 @@
+package com.TranAn.BackEnd_Works.model.constant;
+
+/**
+ * Chỉ số được tổng hợp theo ngày cho biểu đồ dashboard
+ */
+public enum RollupMetric {
+    /**
+     * Số người dùng đăng ký mới
+     */
+    USERS,
+
+    /**
+     * Số công việc được đăng
+     */
+    JOBS,
+
+    /**
+     * Số hồ sơ ứng tuyển được nộp
+     */
+    RESUMES
+}
@@ -0,0 +1,125 @@
+package com.TranAn.BackEnd_Works.model.listener;
+
+import com.TranAn.BackEnd_Works.model.*;
+import com.TranAn.BackEnd_Works.model.constant.JobStatus;
+import com.TranAn.BackEnd_Works.model.constant.Level;
+import com.TranAn.BackEnd_Works.model.constant.ResumeStatus;
+import com.TranAn.BackEnd_Works.service.StatsCounterService;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.*;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Cập nhật bộ đếm thống kê theo vòng đời entity (tạo, đổi trạng thái/level/role, xóa).
+ * Đăng ký trực tiếp với Hibernate: giá trị cũ khi cập nhật lấy từ snapshot của persistence context
+ * ({@link PostUpdateEvent#getOldState()}), nên entity không phải giữ thêm trường nào.
+ * Các thay đổi chỉ được ghi vào bộ đếm sau khi transaction commit.
+ */
+@Component
+@RequiredArgsConstructor
+public class StatsEntityListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private static final Set<Class<?>> TRACKED = Set.of(User.class, Job.class, Resume.class, Company.class,
+            Subscriber.class);
+
+    private final EntityManagerFactory entityManagerFactory;
+    // Lấy lazy vì listener được tạo cùng lúc với EntityManagerFactory, trước các service
+    private final ObjectProvider<StatsCounterService> statsCounterService;
+
+    @PostConstruct
+    void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (!TRACKED.contains(event.getEntity().getClass()))
+            return;
+
+        keysOf(event.getEntity(), state(event.getPersister(), event.getState()))
+                .forEach(key -> counters().increment(key, 1));
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        // Không có snapshot (entity không được nạp trong session này) thì không biết giá trị cũ
+        if (!TRACKED.contains(event.getEntity().getClass()) || event.getOldState() == null)
+            return;
+
+        List<String> oldKeys = keysOf(event.getEntity(), state(event.getPersister(), event.getOldState()));
+        List<String> newKeys = keysOf(event.getEntity(), state(event.getPersister(), event.getState()));
+
+        oldKeys.stream().filter(key -> !newKeys.contains(key)).forEach(key -> counters().increment(key, -1));
+        newKeys.stream().filter(key -> !oldKeys.contains(key)).forEach(key -> counters().increment(key, 1));
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (!TRACKED.contains(event.getEntity().getClass()))
+            return;
+
+        keysOf(event.getEntity(), state(event.getPersister(), event.getDeletedState()))
+                .forEach(key -> counters().increment(key, -1));
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    private StatsCounterService counters() {
+        return statsCounterService.getObject();
+    }
+
+    // Đọc giá trị thuộc tính theo tên từ mảng trạng thái của Hibernate
+    private static Function<String, Object> state(EntityPersister persister, Object[] values) {
+        List<String> names = Arrays.asList(persister.getPropertyNames());
+        return name -> {
+            int index = names.indexOf(name);
+            return index >= 0 && values != null ? values[index] : null;
+        };
+    }
+
+    private List<String> keysOf(Object entity, Function<String, Object> state) {
+        List<String> keys = new ArrayList<>();
+
+        if (entity instanceof User) {
+            keys.add(StatsCounterService.USERS_TOTAL);
+            if (state.apply("role") instanceof Role role && role.getName() != null)
+                keys.add(StatsCounterService.userRoleKey(role.getName()));
+        } else if (entity instanceof Job) {
+            keys.add(StatsCounterService.JOBS_TOTAL);
+            if (state.apply("level") instanceof Level level)
+                keys.add(StatsCounterService.jobLevelKey(level));
+            if (state.apply("status") instanceof JobStatus status)
+                keys.add(StatsCounterService.jobStatusKey(status));
+        } else if (entity instanceof Resume) {
+            keys.add(StatsCounterService.RESUMES_TOTAL);
+            if (state.apply("status") instanceof ResumeStatus status)
+                keys.add(StatsCounterService.resumeStatusKey(status));
+        } else if (entity instanceof Company) {
+            keys.add(StatsCounterService.COMPANIES_TOTAL);
+        } else if (entity instanceof Subscriber) {
+            keys.add(StatsCounterService.SUBSCRIBERS_TOTAL);
+        }
+
+        return keys;
+    }
+}
@@ -0,0 +1,54 @@
+package com.TranAn.BackEnd_Works.repository;
+
+import com.TranAn.BackEnd_Works.model.BroadcastNotification;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Repository
+public interface BroadcastNotificationRepository extends
+        JpaRepository<BroadcastNotification, Long>,
+        JpaSpecificationExecutor<BroadcastNotification> {
+
+    // Thông báo nhóm gửi tới role hoặc công ty (tham số null thì bỏ qua), mới nhất trước, sau cursor
+    default List<BroadcastNotification> findForAudience(String role, Long companyId, String cursor, int limit) {
+        return findBy(audience(role, companyId).and(KeysetCursor.after(cursor)),
+                q -> q.sortBy(KeysetCursor.SORT).limit(limit).all());
+    }
+
+    default long countForAudience(String role, Long companyId) {
+        return count(audience(role, companyId));
+    }
+
+    // Đếm thông báo nhóm chưa đọc: nằm trên mốc đã đọc và chưa được đánh dấu đọc riêng lẻ
+    @Query("SELECT COUNT(b) FROM BroadcastNotification b " +
+            "WHERE (b.audienceRole = :role OR b.audienceCompanyId = :companyId) " +
+            "AND b.id > :watermark " +
+            "AND NOT EXISTS (SELECT r.id FROM BroadcastRead r WHERE r.userId = :userId AND r.broadcastId = b.id)")
+    long countUnreadForAudience(
+            @Param("role") String role,
+            @Param("companyId") Long companyId,
+            @Param("userId") Long userId,
+            @Param("watermark") Long watermark);
+
+    @Query("SELECT MAX(b.id) FROM BroadcastNotification b")
+    Long findMaxId();
+
+    private static Specification<BroadcastNotification> audience(String role, Long companyId) {
+        return (root, q, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (role != null)
+                predicates.add(cb.equal(root.get("audienceRole"), role));
+            if (companyId != null)
+                predicates.add(cb.equal(root.get("audienceCompanyId"), companyId));
+            return predicates.isEmpty() ? cb.disjunction() : cb.or(predicates.toArray(Predicate[]::new));
+        };
+    }
+}
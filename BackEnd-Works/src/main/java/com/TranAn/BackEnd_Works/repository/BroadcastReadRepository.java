@@ -0,0 +1,25 @@
+package com.TranAn.BackEnd_Works.repository;
+
+import com.TranAn.BackEnd_Works.model.BroadcastRead;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface BroadcastReadRepository extends JpaRepository<BroadcastRead, Long> {
+
+    boolean existsByUserIdAndBroadcastId(Long userId, Long broadcastId);
+
+    // Id các thông báo nhóm user đã đọc riêng lẻ nằm trên mốc đã đọc
+    @Query("SELECT r.broadcastId FROM BroadcastRead r WHERE r.userId = :userId AND r.broadcastId > :watermark")
+    List<Long> findBroadcastIdsAbove(@Param("userId") Long userId, @Param("watermark") Long watermark);
+
+    // Dọn các bản ghi đã nằm dưới mốc đã đọc mới
+    @Modifying
+    @Query("DELETE FROM BroadcastRead r WHERE r.userId = :userId AND r.broadcastId <= :watermark")
+    int deleteUpTo(@Param("userId") Long userId, @Param("watermark") Long watermark);
+}
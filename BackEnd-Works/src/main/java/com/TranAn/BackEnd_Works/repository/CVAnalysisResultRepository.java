@@ -0,0 +1,25 @@
+package com.TranAn.BackEnd_Works.repository;
+
+import com.TranAn.BackEnd_Works.model.CVAnalysisResult;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface CVAnalysisResultRepository extends JpaRepository<CVAnalysisResult, Long> {
+
+    Optional<CVAnalysisResult> findByAnalysisKey(String analysisKey);
+
+    // Kết quả mới nhất của từng resume còn thuộc job: resumeId, email, trạng thái resume, điểm, JSON, thời điểm chấm
+    @Query("SELECT r.id, r.email, r.status, a.matchScore, a.result, a.createdAt " +
+            "FROM CVAnalysisResult a, Resume r " +
+            "WHERE a.jobId = :jobId AND r.id = a.resumeId AND r.job.id = :jobId " +
+            "AND a.createdAt = (SELECT MAX(b.createdAt) FROM CVAnalysisResult b " +
+            "WHERE b.resumeId = a.resumeId AND b.jobId = :jobId) " +
+            "ORDER BY a.matchScore DESC, a.createdAt ASC")
+    List<Object[]> findLatestScoresByJobId(@Param("jobId") Long jobId);
+}
@@ -2,6 +2,7 @@ package com.TranAn.BackEnd_Works.repository;
 
 import com.TranAn.BackEnd_Works.model.ChatMessage;
 import com.TranAn.BackEnd_Works.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -19,10 +20,11 @@ public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long>
     // Lấy N message gần nhất (để giới hạn context)
     @Query("SELECT cm FROM ChatMessage cm " +
             "WHERE cm.user = :user AND cm.sessionId = :sessionId " +
-            "ORDER BY cm.createdAt DESC")
+            "ORDER BY cm.createdAt DESC, cm.id DESC")
     List<ChatMessage> findTopNByUserAndSessionId(
             @Param("user") User user,
-            @Param("sessionId") String sessionId
+            @Param("sessionId") String sessionId,
+            Pageable pageable
     );
 
     // Xóa toàn bộ chat của một session
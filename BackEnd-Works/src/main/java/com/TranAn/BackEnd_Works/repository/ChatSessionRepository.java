@@ -0,0 +1,80 @@
+package com.TranAn.BackEnd_Works.repository;
+
+import com.TranAn.BackEnd_Works.model.ChatSession;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ChatSessionRepository extends JpaRepository<ChatSession, Long> {
+
+    // Danh sách session của user, session có message mới nhất lên đầu
+    List<ChatSession> findByUserIdOrderByLastMessageAtDesc(Long userId);
+
+    Optional<ChatSession> findByUserIdAndSessionId(Long userId, String sessionId);
+
+    // Lưu bản tóm tắt mới; bỏ qua nếu đã có bản tóm tắt bao phủ tới message mới hơn
+    @Modifying
+    @Query("UPDATE ChatSession s SET s.summary = :summary, s.summaryUntil = :until " +
+            "WHERE s.userId = :userId AND s.sessionId = :sessionId " +
+            "AND (s.summaryUntil IS NULL OR s.summaryUntil < :until)")
+    int updateSummary(
+            @Param("userId") Long userId,
+            @Param("sessionId") String sessionId,
+            @Param("summary") String summary,
+            @Param("until") Instant until);
+
+    /**
+     * Ghi nhận một message mới vào tóm tắt session (tạo mới nếu là message đầu tiên).
+     * Dùng upsert của MySQL nên các tab gửi đồng thời không tạo trùng session hay đếm thiếu.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO chat_sessions " +
+            "(user_id, session_id, first_message, last_message, message_count, created_at, last_message_at) " +
+            "VALUES (:userId, :sessionId, :firstMessage, :preview, 1, :at, :at) " +
+            "ON DUPLICATE KEY UPDATE " +
+            "message_count = message_count + 1, " +
+            "last_message = IF(:at >= last_message_at, :preview, last_message), " +
+            "last_message_at = GREATEST(last_message_at, :at)",
+            nativeQuery = true)
+    int recordMessage(
+            @Param("userId") Long userId,
+            @Param("sessionId") String sessionId,
+            @Param("firstMessage") String firstMessage,
+            @Param("preview") String preview,
+            @Param("at") Instant at);
+
+    /**
+     * Tạo tóm tắt cho các session có message nhưng chưa có bản ghi (dữ liệu trước khi có bảng này)
+     */
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO chat_sessions " +
+            "(user_id, session_id, first_message, last_message, message_count, created_at, last_message_at) " +
+            "SELECT s.user_id, s.session_id, " +
+            "(SELECT IF(f.role = 'USER', LEFT(f.content, 255), NULL) FROM chat_messages f " +
+            " WHERE f.user_id = s.user_id AND f.session_id = s.session_id ORDER BY f.created_at, f.id LIMIT 1), " +
+            "(SELECT LEFT(l.content, 255) FROM chat_messages l " +
+            " WHERE l.user_id = s.user_id AND l.session_id = s.session_id ORDER BY l.created_at DESC, l.id DESC LIMIT 1), " +
+            "s.message_count, s.created_at, s.last_message_at " +
+            "FROM (SELECT m.user_id, m.session_id, COUNT(*) AS message_count, " +
+            "      COALESCE(MIN(m.created_at), NOW()) AS created_at, COALESCE(MAX(m.created_at), NOW()) AS last_message_at " +
+            "      FROM chat_messages m GROUP BY m.user_id, m.session_id) s " +
+            "WHERE NOT EXISTS (SELECT 1 FROM chat_sessions cs " +
+            "                  WHERE cs.user_id = s.user_id AND cs.session_id = s.session_id)",
+            nativeQuery = true)
+    int backfillMissing();
+
+    @Modifying
+    @Query("DELETE FROM ChatSession s WHERE s.userId = :userId AND s.sessionId = :sessionId")
+    int deleteByUserIdAndSessionId(@Param("userId") Long userId, @Param("sessionId") String sessionId);
+
+    @Modifying
+    @Query("DELETE FROM ChatSession s WHERE s.userId = :userId")
+    int deleteByUserId(@Param("userId") Long userId);
+}
@@ -0,0 +1,30 @@
+package com.TranAn.BackEnd_Works.repository;
+
+import com.TranAn.BackEnd_Works.model.DailyRollup;
+import com.TranAn.BackEnd_Works.model.constant.RollupMetric;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface DailyRollupRepository extends JpaRepository<DailyRollup, Long> {
+
+    List<DailyRollup> findByMetricAndCompanyIdAndRollupDateBetweenOrderByRollupDate(
+            RollupMetric metric,
+            Long companyId,
+            LocalDate from,
+            LocalDate to);
+
+    @Query("SELECT MAX(d.rollupDate) FROM DailyRollup d")
+    LocalDate findLatestDay();
+
+    // Xóa toàn bộ số liệu của 1 ngày trước khi tính lại
+    @Modifying
+    @Query("DELETE FROM DailyRollup d WHERE d.rollupDate = :date")
+    int deleteByRollupDate(@Param("date") LocalDate date);
+}
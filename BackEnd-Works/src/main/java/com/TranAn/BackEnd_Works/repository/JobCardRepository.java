@@ -0,0 +1,33 @@
+package com.TranAn.BackEnd_Works.repository;
+
+import com.TranAn.BackEnd_Works.dto.response.job.JobResponseDto;
+import com.TranAn.BackEnd_Works.model.Job;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/**
+ * Đường đọc danh sách job dạng "card": truy vấn thẳng các cột cần thiết,
+ * không tạo entity được quản lý nên không có lazy load hay dirty checking.
+ */
+public interface JobCardRepository {
+
+    /**
+     * Lấy một trang job dưới dạng DTO.
+     * Chỉ điền {@code company.id}; thông tin công ty và kỹ năng được nạp theo lô ở tầng service.
+     */
+    Page<JobResponseDto> findJobCards(Specification<Job> spec, Pageable pageable);
+
+    /**
+     * Lấy tối đa {@code limit} job theo thứ tự {@code sort}, không chạy COUNT (dùng cho phân trang keyset)
+     */
+    List<JobResponseDto> findJobCards(Specification<Job> spec, Sort sort, int limit);
+
+    /**
+     * Lấy id các job thỏa mãn điều kiện (không phân trang)
+     */
+    List<Long> findJobIds(Specification<Job> spec);
+}
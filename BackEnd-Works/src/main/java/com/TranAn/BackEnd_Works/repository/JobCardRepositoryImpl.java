@@ -0,0 +1,139 @@
+package com.TranAn.BackEnd_Works.repository;
+
+import com.TranAn.BackEnd_Works.dto.response.job.JobResponseDto;
+import com.TranAn.BackEnd_Works.model.Job;
+import com.TranAn.BackEnd_Works.model.constant.JobStatus;
+import com.TranAn.BackEnd_Works.model.constant.Level;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.time.Instant;
+import java.util.List;
+
+public class JobCardRepositoryImpl implements JobCardRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<JobResponseDto> findJobCards(Specification<Job> spec, Pageable pageable) {
+        TypedQuery<Tuple> typedQuery = createCardQuery(spec, pageable.getSort());
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset());
+            typedQuery.setMaxResults(pageable.getPageSize());
+        }
+
+        List<JobResponseDto> content = typedQuery.getResultList()
+                .stream()
+                .map(this::mapToDto)
+                .toList();
+
+        // Chỉ chạy COUNT khi thật sự cần (trang cuối hoặc trang đầu chưa đầy thì bỏ qua)
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(spec));
+    }
+
+    @Override
+    public List<JobResponseDto> findJobCards(Specification<Job> spec, Sort sort, int limit) {
+        return createCardQuery(spec, sort)
+                .setMaxResults(limit)
+                .getResultList()
+                .stream()
+                .map(this::mapToDto)
+                .toList();
+    }
+
+    @Override
+    public List<Long> findJobIds(Specification<Job> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Job> root = query.from(Job.class);
+
+        query.select(root.get("id"));
+        applySpecification(spec, root, query, cb);
+
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    private TypedQuery<Tuple> createCardQuery(Specification<Job> spec, Sort sort) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Job> root = query.from(Job.class);
+
+        query.multiselect(
+                root.get("id").alias("id"),
+                root.get("name").alias("name"),
+                root.get("location").alias("location"),
+                root.get("salary").alias("salary"),
+                root.get("quantity").alias("quantity"),
+                root.get("level").alias("level"),
+                root.get("description").alias("description"),
+                root.get("startDate").alias("startDate"),
+                root.get("endDate").alias("endDate"),
+                root.get("status").alias("status"),
+                root.get("createdAt").alias("createdAt"),
+                root.get("company").get("id").alias("companyId"));
+
+        applySpecification(spec, root, query, cb);
+
+        if (sort.isSorted())
+            query.orderBy(QueryUtils.toOrders(sort, root, cb));
+
+        return entityManager.createQuery(query);
+    }
+
+    private long count(Specification<Job> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Job> root = query.from(Job.class);
+
+        applySpecification(spec, root, query, cb);
+        query.select(query.isDistinct() ? cb.countDistinct(root) : cb.count(root));
+        query.orderBy(List.of());
+
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private void applySpecification(Specification<Job> spec, Root<Job> root, CriteriaQuery<?> query,
+            CriteriaBuilder cb) {
+        if (spec == null)
+            return;
+
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null)
+            query.where(predicate);
+    }
+
+    private JobResponseDto mapToDto(Tuple tuple) {
+        Level level = tuple.get("level", Level.class);
+        JobStatus status = tuple.get("status", JobStatus.class);
+        Long companyId = tuple.get("companyId", Long.class);
+
+        JobResponseDto dto = new JobResponseDto();
+        dto.setId(tuple.get("id", Long.class));
+        dto.setName(tuple.get("name", String.class));
+        dto.setLocation(tuple.get("location", String.class));
+        dto.setSalary(tuple.get("salary", Double.class));
+        dto.setQuantity(tuple.get("quantity", Integer.class));
+        dto.setLevel(level != null ? level.toString() : null);
+        dto.setDescription(tuple.get("description", String.class));
+        dto.setStartDate(tuple.get("startDate", Instant.class));
+        dto.setEndDate(tuple.get("endDate", Instant.class));
+        dto.setStatus(status != null ? status.name() : null);
+        dto.setCreatedAt(tuple.get("createdAt", Instant.class));
+        dto.setCompany(companyId != null ? new JobResponseDto.CompanyDto(companyId, null, null, null) : null);
+        dto.setSkills(List.of());
+        return dto;
+    }
+}
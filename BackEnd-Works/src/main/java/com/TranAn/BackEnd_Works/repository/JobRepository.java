@@ -5,6 +5,7 @@ import com.TranAn.BackEnd_Works.model.constant.JobStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Modifying;
@@ -14,17 +15,23 @@ import org.springframework.stereotype.Repository;
 
 import java.time.Instant;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface JobRepository extends
                 JpaRepository<Job, Long>,
-                JpaSpecificationExecutor<Job> {
+                JpaSpecificationExecutor<Job>,
+                JobCardRepository {
 
         List<Job> findByCompanyId(Long id);
 
         Long countByCompanyId(Long id);
 
+        @EntityGraph(attributePaths = "skills")
+        Optional<Job> findWithSkillsById(Long id);
+
         default Page<Job> findByCompanyId(
                         Long id,
                         Specification<Job> filterSpec,
@@ -60,6 +67,19 @@ public interface JobRepository extends
         Long countByLevelAndCompanyId(@Param("level") com.TranAn.BackEnd_Works.model.constant.Level level,
                         @Param("companyId") Long companyId);
 
+        /**
+         * Số job tạo trong [start, end) theo công ty (company null gộp 1 nhóm), dùng cho bảng rollup theo ngày
+         */
+        @Query("SELECT c.id, COUNT(j) FROM Job j LEFT JOIN j.company c " +
+                        "WHERE j.createdAt >= :start AND j.createdAt < :end GROUP BY c.id")
+        List<Object[]> countCreatedBetweenGroupByCompany(@Param("start") Instant start, @Param("end") Instant end);
+
+        /**
+         * Đối soát bộ đếm thống kê: số job theo level và trạng thái
+         */
+        @Query("SELECT j.level, j.status, COUNT(j) FROM Job j GROUP BY j.level, j.status")
+        List<Object[]> countGroupByLevelAndStatus();
+
         @Query("SELECT j.id, j.name, c.name, COUNT(r) " +
                         "FROM Job j LEFT JOIN j.company c LEFT JOIN j.resumes r " +
                         "GROUP BY j.id, j.name, c.name " +
@@ -67,11 +87,67 @@ public interface JobRepository extends
         List<Object[]> findTopJobsByResumeCount();
 
         /**
-         * Cập nhật hàng loạt trạng thái công việc đã hết hạn
+         * Dữ liệu dựng chỉ mục tìm kiếm (bỏ qua job có trạng thái excluded), phân trang theo id (keyset)
+         */
+        @Query("SELECT j.id, j.name, j.location, j.level, j.description FROM Job j " +
+                        "WHERE j.id > :afterId AND (j.status IS NULL OR j.status <> :excluded) ORDER BY j.id")
+        List<Object[]> findSearchDocumentsAfter(
+                        @Param("afterId") Long afterId,
+                        @Param("excluded") JobStatus excluded,
+                        Pageable pageable);
+
+        /**
+         * Nạp theo lô thông tin công ty + logo cho các job card (một truy vấn cho cả trang)
+         */
+        @Query("SELECT c.id, c.name, c.address, l.logoUrl FROM Company c LEFT JOIN c.companyLogo l " +
+                        "WHERE c.id IN :companyIds")
+        List<Object[]> findCompanyCardsByIds(@Param("companyIds") Collection<Long> companyIds);
+
+        /**
+         * Nạp theo lô kỹ năng của các job (một truy vấn cho cả trang)
+         */
+        @Query("SELECT j.id, s.id, s.name FROM Job j JOIN j.skills s WHERE j.id IN :jobIds")
+        List<Object[]> findSkillCardsByJobIds(@Param("jobIds") Collection<Long> jobIds);
+
+        /**
+         * Dữ liệu dựng chỉ mục kỹ năng → job (id, createdAt) theo trạng thái, phân trang theo id (keyset)
+         */
+        @Query("SELECT j.id, j.createdAt FROM Job j WHERE j.status = :status AND j.id > :afterId ORDER BY j.id")
+        List<Object[]> findIndexRowsByStatusAfter(@Param("status") JobStatus status,
+                        @Param("afterId") Long afterId,
+                        Pageable pageable);
+
+        /**
+         * Nạp theo lô dữ liệu job cho email (id, tên, lương, công ty)
+         */
+        @Query("SELECT j.id, j.name, j.salary, c.id, c.name, c.address FROM Job j LEFT JOIN j.company c " +
+                        "WHERE j.id IN :jobIds")
+        List<Object[]> findMailCardsByIds(@Param("jobIds") Collection<Long> jobIds);
+
+        @Query("SELECT j.id FROM Job j WHERE j.company.id = :companyId")
+        List<Long> findIdsByCompanyId(@Param("companyId") Long companyId);
+
+        @Query("SELECT j.id FROM Job j JOIN j.skills s WHERE s.id = :skillId")
+        List<Long> findIdsBySkillId(@Param("skillId") Long skillId);
+
+        /**
+         * Các job còn ở trạng thái status và hết hạn trước until, phân trang theo id (keyset)
+         */
+        @Query("SELECT j.id, j.endDate FROM Job j " +
+                        "WHERE j.status = :status AND j.endDate < :until AND j.id > :afterId ORDER BY j.id")
+        List<Object[]> findExpiryCandidates(@Param("status") JobStatus status,
+                        @Param("until") Instant until,
+                        @Param("afterId") Long afterId,
+                        Pageable pageable);
+
+        /**
+         * Chuyển trạng thái một lô job đã tới hạn (chỉ những job vẫn còn oldStatus và endDate đã qua)
          */
         @Modifying
-        @Query("UPDATE Job j SET j.status = :newStatus WHERE j.status = :oldStatus AND j.endDate < :now")
-        int updateExpiredJobs(@Param("oldStatus") JobStatus oldStatus,
+        @Query("UPDATE Job j SET j.status = :newStatus " +
+                        "WHERE j.id IN :ids AND j.status = :oldStatus AND j.endDate <= :now")
+        int expireJobs(@Param("ids") Collection<Long> ids,
+                        @Param("oldStatus") JobStatus oldStatus,
                         @Param("newStatus") JobStatus newStatus,
                         @Param("now") Instant now);
 }
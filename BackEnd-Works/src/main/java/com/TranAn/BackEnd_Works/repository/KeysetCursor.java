@@ -0,0 +1,71 @@
+package com.TranAn.BackEnd_Works.repository;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Cursor cho phân trang keyset theo (createdAt DESC, id DESC), bản ghi chưa có createdAt xếp cuối.
+ * Chuỗi cursor gửi cho client là base64url của "epochSecond:nano:id" (hoặc chỉ "id" khi createdAt null),
+ * client không cần hiểu nội dung. Các bảng dùng cursor có index (…, created_at, id) tương ứng.
+ */
+public record KeysetCursor(Instant createdAt, Long id) {
+
+    public static final Sort SORT = Sort.by(
+            Sort.Order.desc("createdAt").nullsLast(),
+            Sort.Order.desc("id"));
+
+    public static KeysetCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank())
+            return null;
+
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":");
+            if (parts.length == 1)
+                return new KeysetCursor(null, Long.parseLong(parts[0]));
+            if (parts.length != 3)
+                throw new IllegalArgumentException("Cursor không hợp lệ");
+
+            return new KeysetCursor(
+                    Instant.ofEpochSecond(Long.parseLong(parts[0]), Long.parseLong(parts[1])),
+                    Long.parseLong(parts[2]));
+        } catch (IllegalArgumentException | java.time.DateTimeException e) {
+            // NumberFormatException cũng là IllegalArgumentException
+            throw new IllegalArgumentException("Cursor không hợp lệ");
+        }
+    }
+
+    public String encode() {
+        String raw = createdAt == null
+                ? String.valueOf(id)
+                : createdAt.getEpochSecond() + ":" + createdAt.getNano() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Điều kiện "nằm sau cursor": createdAt < c OR createdAt IS NULL OR (createdAt = c AND id < id);
+     * cursor có createdAt null thì chỉ còn các bản ghi createdAt null có id nhỏ hơn.
+     * Trả về null khi không có cursor (trang đầu) để có thể nối bằng {@code spec.and(...)}.
+     */
+    public static <T> Specification<T> after(String cursor) {
+        KeysetCursor key = decode(cursor);
+        if (key == null)
+            return null;
+
+        if (key.createdAt() == null)
+            return (root, q, cb) -> cb.and(
+                    cb.isNull(root.get("createdAt")),
+                    cb.lessThan(root.get("id"), key.id()));
+
+        return (root, q, cb) -> cb.or(
+                cb.lessThan(root.get("createdAt"), key.createdAt()),
+                cb.isNull(root.get("createdAt")),
+                cb.and(
+                        cb.equal(root.get("createdAt"), key.createdAt()),
+                        cb.lessThan(root.get("id"), key.id())));
+    }
+}
@@ -0,0 +1,9 @@
+package com.TranAn.BackEnd_Works.repository;
+
+import com.TranAn.BackEnd_Works.model.NotificationReadState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface NotificationReadStateRepository extends JpaRepository<NotificationReadState, Long> {
+}
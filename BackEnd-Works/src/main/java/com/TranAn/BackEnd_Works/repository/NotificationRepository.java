@@ -3,7 +3,9 @@ package com.TranAn.BackEnd_Works.repository;
 import com.TranAn.BackEnd_Works.model.Notification;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -12,14 +14,27 @@ import org.springframework.stereotype.Repository;
 import java.util.List;
 
 @Repository
-public interface NotificationRepository extends JpaRepository<Notification, Long> {
+public interface NotificationRepository extends
+        JpaRepository<Notification, Long>,
+        JpaSpecificationExecutor<Notification> {
 
     // Lấy tất cả thông báo của user theo thời gian mới nhất
     Page<Notification> findByRecipientIdOrderByCreatedAtDesc(Long recipientId, Pageable pageable);
 
+    // Phân trang keyset: lấy tối đa limit thông báo nằm sau cursor, mới nhất trước
+    default List<Notification> findByRecipientId(Long recipientId, String cursor, int limit) {
+        Specification<Notification> recipientSpec = (root, q, cb) -> cb.equal(root.get("recipient").get("id"),
+                recipientId);
+
+        return findBy(recipientSpec.and(KeysetCursor.after(cursor)),
+                q -> q.sortBy(KeysetCursor.SORT).limit(limit).all());
+    }
+
     // Lấy thông báo chưa đọc của user
     Page<Notification> findByRecipientIdAndIsReadFalseOrderByCreatedAtDesc(Long recipientId, Pageable pageable);
 
+    long countByRecipientId(Long recipientId);
+
     // Đếm số thông báo chưa đọc
     Long countByRecipientIdAndIsReadFalse(Long recipientId);
 
@@ -28,6 +43,8 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
     @Query("UPDATE Notification n SET n.isRead = true WHERE n.recipient.id = :recipientId AND n.isRead = false")
     int markAllAsReadByRecipientId(@Param("recipientId") Long recipientId);
 
-    // Lấy top N thông báo mới nhất (cho dropdown trên header)
-    List<Notification> findTop10ByRecipientIdOrderByCreatedAtDesc(Long recipientId);
+    // Đánh dấu 1 thông báo là đã đọc, trả về 0 nếu thông báo đã được đọc trước đó
+    @Modifying
+    @Query("UPDATE Notification n SET n.isRead = true WHERE n.id = :id AND n.isRead = false")
+    int markAsReadById(@Param("id") Long id);
 }
@@ -0,0 +1,66 @@
+package com.TranAn.BackEnd_Works.repository;
+
+import com.TranAn.BackEnd_Works.model.OutboxEvent;
+import com.TranAn.BackEnd_Works.model.constant.OutboxStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Id các tác vụ đang chờ và đã tới lượt xử lý, cũ nhất trước
+     */
+    @Query("SELECT e.id FROM OutboxEvent e WHERE e.status = :status AND e.nextAttemptAt <= :now ORDER BY e.id")
+    List<Long> findDueIds(@Param("status") OutboxStatus status, @Param("now") Instant now, Pageable pageable);
+
+    /**
+     * Giành quyền xử lý: đẩy nextAttemptAt tới hạn giữ để node khác không lấy trùng.
+     * Node bị tắt giữa chừng thì hết hạn giữ, tác vụ tự quay lại hàng đợi.
+     */
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.claimToken = :token, e.nextAttemptAt = :leaseUntil " +
+            "WHERE e.id IN :ids AND e.status = :status AND e.nextAttemptAt <= :now")
+    int claim(@Param("ids") Collection<Long> ids,
+            @Param("status") OutboxStatus status,
+            @Param("token") String token,
+            @Param("now") Instant now,
+            @Param("leaseUntil") Instant leaseUntil);
+
+    List<OutboxEvent> findByClaimToken(String claimToken);
+
+    /**
+     * Các cập nhật kết quả chỉ áp dụng khi tác vụ vẫn do lần giành quyền này giữ (token khớp): hết hạn giữ và
+     * node khác đã lấy lại thì trả về 0, không ghi đè trạng thái node kia đã/đang ghi
+     */
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.status = :status, e.processedAt = :now, e.claimToken = NULL " +
+            "WHERE e.id = :id AND e.claimToken = :token")
+    int markProcessed(@Param("id") Long id,
+            @Param("token") String token,
+            @Param("status") OutboxStatus status,
+            @Param("now") Instant now);
+
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.attempts = :attempts, e.nextAttemptAt = :nextAttemptAt, " +
+            "e.lastError = :error, e.status = :status, e.claimToken = NULL " +
+            "WHERE e.id = :id AND e.claimToken = :token")
+    int markFailed(@Param("id") Long id,
+            @Param("token") String token,
+            @Param("status") OutboxStatus status,
+            @Param("attempts") int attempts,
+            @Param("nextAttemptAt") Instant nextAttemptAt,
+            @Param("error") String error);
+
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.status = :status AND e.processedAt < :before")
+    int deleteProcessedBefore(@Param("status") OutboxStatus status, @Param("before") Instant before);
+}
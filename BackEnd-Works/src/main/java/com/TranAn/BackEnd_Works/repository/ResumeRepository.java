@@ -5,14 +5,17 @@ import com.TranAn.BackEnd_Works.model.constant.ResumeStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -45,10 +48,40 @@ public interface ResumeRepository extends
                 return findAll(combined, pageable);
         }
 
+        // Phân trang keyset: lấy tối đa limit resume nằm sau cursor, sắp xếp theo (createdAt, id) giảm dần
+        default List<Resume> findByUserEmail(
+                        String email,
+                        Specification<Resume> filterSpec,
+                        String cursor,
+                        int limit) {
+                Specification<Resume> userSpec = (root, q, cb) -> cb.equal(root.get("user").get("email"), email);
+
+                Specification<Resume> combined = userSpec.and(filterSpec).and(KeysetCursor.after(cursor));
+
+                return findBy(combined, q -> q.sortBy(KeysetCursor.SORT).limit(limit).all());
+        }
+
+        default List<Resume> findByUserCompanyId(
+                        Long id,
+                        Specification<Resume> filterSpec,
+                        String cursor,
+                        int limit) {
+                Specification<Resume> userSpec = (root, q, cb) -> cb.equal(root.get("job").get("company").get("id"),
+                                id);
+
+                Specification<Resume> combined = userSpec.and(filterSpec).and(KeysetCursor.after(cursor));
+
+                return findBy(combined, q -> q.sortBy(KeysetCursor.SORT).limit(limit).all());
+        }
+
         Optional<Resume> findByUserEmailAndJobId(String email, Long jobId);
 
         Optional<Resume> findByUserEmailAndId(String email, Long id);
 
+        // Nạp sẵn job và kỹ năng để phân tích CV được trên luồng nền (không còn session Hibernate)
+        @EntityGraph(attributePaths = { "job", "job.skills" })
+        Optional<Resume> findWithJobSkillsById(Long id);
+
         @Query("SELECT COUNT(r) FROM Resume r WHERE r.status = :status")
         Long countByStatus(@Param("status") ResumeStatus status);
 
@@ -62,4 +95,24 @@ public interface ResumeRepository extends
         Long countByStatusAndCompanyId(@Param("status") ResumeStatus status, @Param("companyId") Long companyId);
 
         Long countByJobId(Long jobId);
+
+        // Resume đạt điểm sơ bộ tối thiểu (hoặc chưa có điểm), điểm cao trước để danh sách xếp hạng có kết quả tốt sớm
+        @Query("SELECT r.id FROM Resume r WHERE r.job.id = :jobId " +
+                        "AND (r.screeningScore IS NULL OR r.screeningScore >= :minScore) " +
+                        "ORDER BY r.screeningScore DESC, r.id")
+        List<Long> findIdsByJobIdAndMinScreeningScore(@Param("jobId") Long jobId, @Param("minScore") int minScore);
+
+        // Chỉ ghi điểm khi resume vẫn dùng file đã chấm, không ghi đè các cột khác đang được cập nhật song song
+        @Modifying
+        @Query("UPDATE Resume r SET r.screeningScore = :score WHERE r.id = :id AND r.fileKey = :fileKey")
+        int updateScreeningScore(@Param("id") Long id, @Param("fileKey") String fileKey, @Param("score") Integer score);
+
+        // Số resume nộp trong [start, end) theo công ty của job, dùng cho bảng rollup theo ngày
+        @Query("SELECT c.id, COUNT(r) FROM Resume r LEFT JOIN r.job j LEFT JOIN j.company c " +
+                        "WHERE r.createdAt >= :start AND r.createdAt < :end GROUP BY c.id")
+        List<Object[]> countCreatedBetweenGroupByCompany(@Param("start") Instant start, @Param("end") Instant end);
+
+        // Đối soát bộ đếm thống kê: số resume theo trạng thái
+        @Query("SELECT r.status, COUNT(r) FROM Resume r GROUP BY r.status")
+        List<Object[]> countGroupByStatus();
 }
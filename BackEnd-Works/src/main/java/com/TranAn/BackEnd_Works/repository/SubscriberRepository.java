@@ -1,11 +1,17 @@
 package com.TranAn.BackEnd_Works.repository;
 
 import com.TranAn.BackEnd_Works.model.Subscriber;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface SubscriberRepository extends
@@ -13,4 +19,17 @@ public interface SubscriberRepository extends
         JpaSpecificationExecutor<Subscriber> {
 
     Optional<Subscriber> findByEmail(String email);
+
+    /**
+     * Duyệt subscriber (id, email, skill id) theo id tăng dần, mỗi kỹ năng một dòng.
+     * Fetch size Integer.MIN_VALUE để MySQL Connector/J trả dữ liệu theo từng dòng thay vì nạp cả bảng;
+     * phải gọi trong transaction và đóng Stream sau khi dùng.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT s.id, s.email, sk.id FROM Subscriber s LEFT JOIN s.skills sk " +
+            "WHERE s.id > :afterId ORDER BY s.id")
+    Stream<Object[]> streamDigestRowsAfter(@Param("afterId") Long afterId);
 }
@@ -44,6 +44,10 @@ public interface UserRepository extends
     @Query("SELECT COUNT(u) FROM User u WHERE u.role.name = :roleName")
     Long countByRole_Name(@Param("roleName") String roleName);
 
+    // Đối soát bộ đếm thống kê: số user theo role (role null gộp vào 1 nhóm)
+    @Query("SELECT r.name, COUNT(u) FROM User u LEFT JOIN u.role r GROUP BY r.name")
+    List<Object[]> countGroupByRoleName();
+
     // Tìm tất cả users có role cụ thể (ADMIN, RECRUITER, etc.)
     List<User> findByRole_Name(String roleName);
 }
@@ -0,0 +1,14 @@
+package com.TranAn.BackEnd_Works.service;
+
+/**
+ * Giới hạn tốc độ gọi AI dùng chung cho mọi node (số request mỗi giây và số token ước tính mỗi phút)
+ */
+public interface AiRateLimitService {
+
+    /**
+     * Chờ tới khi còn hạn mức rồi trừ đi một request và {@code estimatedTokens} token
+     *
+     * @param estimatedTokens Số token ước tính của request (prompt + câu trả lời)
+     */
+    void acquire(int estimatedTokens);
+}
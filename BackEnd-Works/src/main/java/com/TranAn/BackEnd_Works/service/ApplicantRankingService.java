@@ -0,0 +1,19 @@
+package com.TranAn.BackEnd_Works.service;
+
+import com.TranAn.BackEnd_Works.dto.response.resume.ApplicantRankingResponseDto;
+
+/**
+ * Xếp hạng toàn bộ ứng viên của một công việc bằng AI (dành cho Recruiter của công ty sở hữu công việc)
+ */
+public interface ApplicantRankingService {
+
+    /**
+     * Bắt đầu chấm điểm tất cả resume của công việc; nếu đang chạy thì trả về tiến độ hiện tại
+     */
+    ApplicantRankingResponseDto startRanking(Long jobId);
+
+    /**
+     * Tiến độ lần xếp hạng gần nhất và danh sách ứng viên đã có điểm, sắp xếp theo điểm giảm dần
+     */
+    ApplicantRankingResponseDto getRanking(Long jobId);
+}
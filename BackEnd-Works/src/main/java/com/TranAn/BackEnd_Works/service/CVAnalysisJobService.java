@@ -0,0 +1,52 @@
+package com.TranAn.BackEnd_Works.service;
+
+import com.TranAn.BackEnd_Works.dto.response.resume.CVAnalysisJobResponseDto;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.function.Consumer;
+
+/**
+ * Hàng đợi phân tích CV: request chỉ đăng ký yêu cầu và nhận jobId, việc đọc PDF và gọi AI chạy trên một nhóm
+ * luồng giới hạn; client hỏi trạng thái/kết quả qua {@link #getJob(String)}.
+ */
+public interface CVAnalysisJobService {
+
+    /**
+     * Mức ưu tiên trong hàng đợi: HIGH cho yêu cầu người dùng đang chờ, LOW cho xử lý hàng loạt
+     */
+    enum Priority {
+        HIGH,
+        LOW
+    }
+
+    /**
+     * Đăng ký phân tích CV đã nộp (dành cho Recruiter)
+     *
+     * @param resumeId ID của resume đã nộp
+     * @return Yêu cầu phân tích ở trạng thái QUEUED
+     */
+    CVAnalysisJobResponseDto submitAnalysis(Long resumeId);
+
+    /**
+     * Đăng ký phân tích CV preview trước khi nộp (dành cho User)
+     *
+     * @param pdfFile File PDF CV của ứng viên
+     * @param jobId   ID của công việc muốn ứng tuyển
+     * @return Yêu cầu phân tích ở trạng thái QUEUED
+     */
+    CVAnalysisJobResponseDto submitPreview(MultipartFile pdfFile, Long jobId);
+
+    /**
+     * Đưa một resume vào hàng đợi từ xử lý hàng loạt: trạng thái không lưu để hỏi lại,
+     * kết quả được báo qua {@code onFinished} (gọi trên luồng xử lý, kể cả khi thất bại)
+     *
+     * @throws com.TranAn.BackEnd_Works.advice.exception.TooManyRequestsException khi hàng đợi đã đầy
+     */
+    void enqueueAnalysis(Long resumeId, String tenant, Priority priority,
+                         Consumer<CVAnalysisJobResponseDto> onFinished);
+
+    /**
+     * Lấy trạng thái và kết quả (nếu đã xong) của yêu cầu phân tích do user hiện tại tạo
+     */
+    CVAnalysisJobResponseDto getJob(String jobId);
+}
@@ -1,7 +1,8 @@
 package com.TranAn.BackEnd_Works.service;
 
 import com.TranAn.BackEnd_Works.dto.response.resume.CVAnalysisResponseDto;
-import org.springframework.web.multipart.MultipartFile;
+
+import java.nio.file.Path;
 
 /**
  * Service để phân tích CV sử dụng AI và đánh giá độ phù hợp với công việc
@@ -19,9 +20,9 @@ public interface CVAnalysisService {
     /**
      * Phân tích CV preview (trước khi nộp đơn)
      * 
-     * @param cvFile File PDF CV của ứng viên
-     * @param jobId  ID của công việc muốn ứng tuyển
+     * @param pdfFile File PDF CV của ứng viên trên đĩa (bên gọi xóa sau khi xong)
+     * @param jobId   ID của công việc muốn ứng tuyển
      * @return Kết quả phân tích CV
      */
-    CVAnalysisResponseDto analyzeResumePreview(MultipartFile cvFile, Long jobId);
+    CVAnalysisResponseDto analyzeResumePreview(Path pdfFile, Long jobId);
 }
@@ -0,0 +1,22 @@
+package com.TranAn.BackEnd_Works.service;
+
+import com.TranAn.BackEnd_Works.model.ChatMessage;
+
+import java.util.List;
+
+/**
+ * Quản lý ngữ cảnh gửi cho AI: prompt được giới hạn theo số token, giữ nguyên văn các message gần nhất,
+ * phần cũ hơn được gộp dần vào bản tóm tắt của session
+ */
+public interface ChatContextService {
+
+    /**
+     * Dựng prompt cho câu hỏi hiện tại từ bản tóm tắt và phần cuối lịch sử (history theo thứ tự thời gian)
+     */
+    String buildPrompt(Long userId, String sessionId, List<ChatMessage> history, String question);
+
+    /**
+     * Gộp các message đã ra khỏi cửa sổ giữ nguyên văn vào bản tóm tắt (chạy nền, không chặn lượt chat)
+     */
+    void compact(Long userId, String sessionId, List<ChatMessage> history);
+}
@@ -8,9 +8,21 @@ import java.util.List;
 public interface ChatRedisService {
 
     /**
-     * Lưu lịch sử chat vào Redis
+     * Số message gần nhất được giữ trong Redis cho mỗi session
      */
-    void saveChatHistory(String userId, String sessionId, List<ChatMessage> messages, Duration expire);
+    int MAX_HISTORY_MESSAGES = 50;
+
+    /**
+     * Version hiện tại của lịch sử session, đọc trước khi nạp lịch sử từ Database
+     */
+    String getHistoryVersion(String userId, String sessionId);
+
+    /**
+     * Lưu lịch sử chat vào Redis (thay thế toàn bộ, chỉ giữ {@link #MAX_HISTORY_MESSAGES} message cuối);
+     * bỏ qua nếu đã có message được append sau khi đọc {@code expectedVersion}
+     */
+    void saveChatHistory(String userId, String sessionId, List<ChatMessage> messages, Duration expire,
+            String expectedVersion);
 
     /**
      * Lấy lịch sử chat từ Redis
@@ -18,7 +30,7 @@ public interface ChatRedisService {
     List<ChatMessage> getChatHistory(String userId, String sessionId);
 
     /**
-     * Thêm một message vào lịch sử
+     * Thêm một message vào cuối lịch sử (O(1)); bỏ qua nếu lịch sử chưa được nạp vào Redis
      */
     void addMessage(String userId, String sessionId, ChatMessage message, Duration expire);
 
@@ -36,4 +48,4 @@ public interface ChatRedisService {
      * Lấy danh sách tất cả sessionId của user
      */
     List<String> getAllSessionIds(String userId);
-}
\ No newline at end of file
+}
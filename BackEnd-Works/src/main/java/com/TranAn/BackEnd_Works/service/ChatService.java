@@ -4,6 +4,7 @@ import com.TranAn.BackEnd_Works.dto.request.ChatRequest;
 import com.TranAn.BackEnd_Works.dto.response.ChatMessageDto;
 import com.TranAn.BackEnd_Works.dto.response.ChatSessionDto;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 
@@ -14,6 +15,12 @@ public interface ChatService {
      */
     String generation(ChatRequest request, List<MultipartFile> files, String userEmail);
 
+    /**
+     * Stream AI response over SSE: "token" events while the model answers,
+     * then "done" with the saved assistant message (or "error")
+     */
+    SseEmitter streamGeneration(ChatRequest request, List<MultipartFile> files, String userEmail);
+
     /**
      * Get chat history for a specific session
      */
@@ -0,0 +1,47 @@
+package com.TranAn.BackEnd_Works.service;
+
+import com.TranAn.BackEnd_Works.dto.admin.ChartPointDto;
+import com.TranAn.BackEnd_Works.model.constant.ChartGranularity;
+import com.TranAn.BackEnd_Works.model.constant.RollupMetric;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * Bảng tổng hợp số lượng theo ngày (users, jobs, resumes; toàn hệ thống và theo công ty)
+ * phục vụ các biểu đồ dashboard thay cho COUNT trực tiếp trên bảng gốc.
+ */
+public interface DashboardRollupService {
+
+    /**
+     * Tính lại số liệu của một ngày (ghi đè bản cũ)
+     */
+    void rollupDay(LocalDate date);
+
+    /**
+     * Tính lại số liệu cho mọi ngày trong [from, to]
+     */
+    void backfill(LocalDate from, LocalDate to);
+
+    /**
+     * Chuỗi thời gian toàn hệ thống, các kỳ không có dữ liệu trả về 0
+     */
+    List<ChartPointDto> getSeries(RollupMetric metric, LocalDate from, LocalDate to, ChartGranularity granularity);
+
+    /**
+     * Chuỗi thời gian của công ty thuộc người dùng hiện tại
+     */
+    List<ChartPointDto> getSeriesForRecruiterCompany(RollupMetric metric, LocalDate from, LocalDate to,
+            ChartGranularity granularity);
+
+    /**
+     * Ngày hiện tại theo múi giờ dùng để chia ngày của bảng rollup
+     */
+    LocalDate today();
+
+    /**
+     * Múi giờ chia ngày/tháng cho mọi số liệu dashboard ({@code stats.rollup.zone})
+     */
+    ZoneId zone();
+}
@@ -0,0 +1,35 @@
+package com.TranAn.BackEnd_Works.service;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Khóa dùng chung giữa các node trên Redis cho các tác vụ chỉ được chạy ở một node (job định kỳ, backfill...).
+ * Khóa được gia hạn định kỳ trong lúc còn giữ nên tác vụ chạy lâu hơn TTL không bị node khác chen vào,
+ * còn node bị crash thì khóa tự hết hạn sau TTL.
+ */
+public interface DistributedLockService {
+
+    /**
+     * Thử lấy khóa, không chờ
+     *
+     * @param key Key khóa trên Redis
+     * @param ttl Thời gian sống của khóa; được gia hạn mỗi {@code ttl / 3} cho tới khi đóng {@link Lease}
+     * @return Lease nếu lấy được khóa, rỗng nếu node khác đang giữ
+     */
+    Optional<Lease> tryAcquire(String key, Duration ttl);
+
+    /**
+     * Quyền giữ khóa; đóng để ngừng gia hạn và nhả khóa (chỉ xóa nếu khóa vẫn thuộc về lease này)
+     */
+    interface Lease extends AutoCloseable {
+
+        /**
+         * False khi lần gia hạn gần nhất phát hiện khóa đã hết hạn hoặc thuộc về node khác
+         */
+        boolean isHeld();
+
+        @Override
+        void close();
+    }
+}
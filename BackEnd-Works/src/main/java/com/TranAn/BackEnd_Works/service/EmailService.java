@@ -1,13 +1,19 @@
 package com.TranAn.BackEnd_Works.service;
 
+import com.TranAn.BackEnd_Works.dto.email.JobMailDto;
 import com.TranAn.BackEnd_Works.model.Subscriber;
 import jakarta.mail.MessagingException;
 
+import java.util.List;
+
 
 public interface EmailService {
     void sendOtpEmail(String toEmail,String otp,String userName);
     String buildOtpEmailTemplate(String otp, String userName);
     void sendJobNotificationForSubscriber(Subscriber subscriber) throws MessagingException;
     void sendJobNotificationManually(String email) throws MessagingException;
+    // Bản tin việc làm: tách bước dựng HTML và gửi để pipeline hằng ngày dùng lại HTML cho các subscriber giống nhau
+    String renderJobDigest(List<JobMailDto> jobs);
+    void sendJobDigest(String toEmail, String html) throws MessagingException;
     void sendResumeStatusNotification(String recipientEmail, String jobName, String companyName, String newStatus) throws MessagingException;
 }
@@ -0,0 +1,26 @@
+package com.TranAn.BackEnd_Works.service;
+
+import com.TranAn.BackEnd_Works.dto.response.job.JobResponseDto;
+
+import java.util.Collection;
+import java.util.function.Supplier;
+
+/**
+ * Cache chi tiết công việc 2 tầng: L1 trong bộ nhớ từng node, L2 là Redis dùng chung.
+ * Khi job thay đổi, L1 trên mọi node được xóa qua Redis pub/sub.
+ */
+public interface JobCacheService {
+
+    /**
+     * Lấy job từ L1 -> L2, nếu không có thì gọi {@code loader} (mỗi node chỉ 1 luồng nạp cho cùng 1 id)
+     */
+    JobResponseDto get(Long jobId, Supplier<JobResponseDto> loader);
+
+    /**
+     * Xóa job khỏi cache trên toàn cụm.
+     * Nếu đang trong transaction, chỉ xóa sau khi commit.
+     */
+    void evict(Long jobId);
+
+    void evict(Collection<Long> jobIds);
+}
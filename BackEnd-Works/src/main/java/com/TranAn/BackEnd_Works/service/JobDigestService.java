@@ -0,0 +1,18 @@
+package com.TranAn.BackEnd_Works.service;
+
+/**
+ * Gửi bản tin việc làm hằng ngày cho toàn bộ subscriber.
+ * Tiến độ được lưu định kỳ trên Redis nên một lượt gửi bị gián đoạn có thể chạy tiếp mà không gửi trùng.
+ */
+public interface JobDigestService {
+
+    /**
+     * Chạy lượt gửi của ngày hôm nay (tiếp tục từ checkpoint nếu đã chạy dở, bỏ qua nếu đã xong)
+     */
+    void runDailyDigest();
+
+    /**
+     * Chạy tiếp lượt gửi hôm nay nếu lượt trước dừng giữa chừng (node bị tắt/crash)
+     */
+    void resumeInterruptedRun();
+}
@@ -0,0 +1,20 @@
+package com.TranAn.BackEnd_Works.service;
+
+import com.TranAn.BackEnd_Works.model.Job;
+
+/**
+ * Bộ hẹn giờ chuyển job sang EXPIRED ngay khi tới endDate
+ */
+public interface JobExpiryService {
+
+    /**
+     * Lên lịch (hoặc lên lịch lại) hạn của job theo status/endDate hiện tại.
+     * Nếu đang trong transaction, chỉ áp dụng sau khi commit.
+     */
+    void schedule(Job job);
+
+    /**
+     * Hủy lịch hết hạn của job (khi job bị xóa)
+     */
+    void cancel(Long jobId);
+}
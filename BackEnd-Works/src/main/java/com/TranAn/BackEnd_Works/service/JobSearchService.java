@@ -0,0 +1,47 @@
+package com.TranAn.BackEnd_Works.service;
+
+import com.TranAn.BackEnd_Works.model.Job;
+
+import java.util.List;
+
+/**
+ * Chỉ mục tìm kiếm công việc nằm trong bộ nhớ (inverted index)
+ */
+public interface JobSearchService {
+
+    /**
+     * Id công việc đã xếp hạng; truncated = true khi tiền tố của term cuối khớp quá nhiều term và chỉ các term
+     * phổ biến nhất được dùng, nên kết quả có thể thiếu (nơi gọi nên dùng cách tìm khác)
+     */
+    record SearchResult(List<Long> jobIds, boolean truncated) {
+    }
+
+    /**
+     * Đưa công việc vào chỉ mục (tạo mới hoặc ghi đè bản cũ).
+     * Nếu đang trong transaction, chỉ mục chỉ được cập nhật sau khi commit.
+     */
+    void indexJob(Job job);
+
+    /**
+     * Xóa công việc khỏi chỉ mục
+     */
+    void removeJob(Long jobId);
+
+    /**
+     * Tìm kiếm theo từ khóa, trả về danh sách id công việc đã xếp hạng theo độ liên quan
+     *
+     * @param keyword Từ khóa (không phân biệt dấu tiếng Việt, hoa thường)
+     * @param limit   Số kết quả tối đa
+     */
+    SearchResult search(String keyword, int limit);
+
+    /**
+     * Chỉ mục đã được nạp xong từ database chưa
+     */
+    boolean isReady();
+
+    /**
+     * Nạp lại toàn bộ chỉ mục từ database
+     */
+    void rebuildIndex();
+}
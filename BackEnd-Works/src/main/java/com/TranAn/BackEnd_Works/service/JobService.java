@@ -1,6 +1,7 @@
 package com.TranAn.BackEnd_Works.service;
 
 import com.TranAn.BackEnd_Works.dto.request.job.JobRequestDto;
+import com.TranAn.BackEnd_Works.dto.response.CursorPageResponseDto;
 import com.TranAn.BackEnd_Works.dto.response.job.JobResponseDto;
 import com.TranAn.BackEnd_Works.model.Job;
 import org.springframework.data.domain.Page;
@@ -13,6 +14,12 @@ import java.util.Map;
 public interface JobService {
     Page<JobResponseDto> findAllJobs(Specification<Job> spec, Pageable pageable);
 
+    // Tìm kiếm toàn văn theo từ khóa, kết quả sắp xếp theo độ liên quan
+    Page<JobResponseDto> searchJobs(String keyword, Specification<Job> spec, Pageable pageable);
+
+    // Phân trang keyset theo (createdAt, id), không đếm tổng số bản ghi
+    CursorPageResponseDto<JobResponseDto> findAllJobsByCursor(Specification<Job> spec, String cursor, int size);
+
     Page<JobResponseDto> findAllJobsForRecruiterCompany(Specification<Job> spec, Pageable pageable);
 
     JobResponseDto findJobById(Long id);
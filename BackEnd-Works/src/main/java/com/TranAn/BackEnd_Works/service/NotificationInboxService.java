@@ -0,0 +1,82 @@
+package com.TranAn.BackEnd_Works.service;
+
+import com.TranAn.BackEnd_Works.dto.response.notification.NotificationResponseDto;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntFunction;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Hộp thư thông báo của từng user trên Redis: các thông báo mới nhất và bộ đếm chưa đọc,
+ * phục vụ chuông thông báo mà không truy vấn database
+ */
+public interface NotificationInboxService {
+
+    /**
+     * Trạng thái đã đọc thông báo nhóm của một user: mốc đã đọc và các id đã đọc riêng lẻ trên mốc
+     */
+    record BroadcastReadState(long watermark, Set<Long> readIds) {
+
+        public boolean isRead(Long broadcastId) {
+            return broadcastId <= watermark || readIds.contains(broadcastId);
+        }
+    }
+
+    /**
+     * Số thông báo chưa đọc; khi Redis chưa có thì đếm lại bằng loader (database) và lưu lại
+     */
+    long getUnreadCount(Long userId, LongSupplier loader);
+
+    /**
+     * Tối đa limit thông báo mới nhất; khi Redis chưa có thì nạp bằng loader (nhận số lượng cần nạp)
+     */
+    List<NotificationResponseDto> getLatest(Long userId, int limit, IntFunction<List<NotificationResponseDto>> loader);
+
+    /**
+     * Thêm thông báo mới vào hộp thư của người nhận (userId → thông báo).
+     * Nếu đang trong transaction, chỉ áp dụng sau khi commit.
+     */
+    void add(Map<Long, NotificationResponseDto> notificationsByUser);
+
+    /**
+     * Cập nhật thông báo đã đọc; wasUnread cho biết thông báo vừa chuyển từ chưa đọc sang đã đọc
+     */
+    void markRead(Long userId, NotificationResponseDto notification, boolean wasUnread);
+
+    /**
+     * Đưa bộ đếm chưa đọc về 0 sau khi đánh dấu tất cả đã đọc (kể cả thông báo nhóm)
+     */
+    void markAllRead(Long userId);
+
+    // ==== THÔNG BÁO NHÓM ====
+
+    /**
+     * Thêm thông báo nhóm vào hộp thư chung của từng nhóm người nhận (sau commit nếu đang trong transaction)
+     */
+    void addBroadcast(Collection<String> audiences, NotificationResponseDto notification);
+
+    /**
+     * Tối đa limit thông báo mới nhất của một nhóm (chưa có trạng thái đã đọc của user)
+     */
+    List<NotificationResponseDto> getLatestBroadcasts(String audience, int limit,
+            IntFunction<List<NotificationResponseDto>> loader);
+
+    /**
+     * Số thông báo nhóm chưa đọc của user; được đếm lại bằng loader khi có thông báo nhóm mới
+     */
+    long getBroadcastUnreadCount(Long userId, Collection<String> audiences, LongSupplier loader);
+
+    /**
+     * Trạng thái đã đọc thông báo nhóm của user; khi Redis chưa có thì nạp bằng loader
+     */
+    BroadcastReadState getBroadcastReadState(Long userId, Supplier<BroadcastReadState> loader);
+
+    /**
+     * Cập nhật sau khi user đánh dấu đọc một thông báo nhóm
+     */
+    void markBroadcastRead(Long userId, Long broadcastId, boolean wasUnread);
+}
@@ -0,0 +1,41 @@
+package com.TranAn.BackEnd_Works.service;
+
+import com.TranAn.BackEnd_Works.dto.response.notification.NotificationResponseDto;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Đẩy thông báo theo thời gian thực tới trình duyệt qua SSE, đồng bộ giữa các node bằng Redis pub/sub
+ */
+public interface NotificationPushService {
+
+    /**
+     * Cấp ticket dùng một lần (sống 30 giây) để mở kết nối SSE thay cho access token trên URL
+     *
+     * @param audiences Các nhóm người nhận user thuộc về, để nhận thông báo nhóm
+     */
+    String issueTicket(Long userId, Collection<String> audiences);
+
+    /**
+     * Đổi ticket lấy kết nối SSE cho user đã xin ticket (một user có thể mở nhiều tab)
+     *
+     * @throws org.springframework.security.authentication.BadCredentialsException nếu ticket sai, đã dùng hoặc hết hạn
+     */
+    SseEmitter subscribe(String ticket);
+
+    /**
+     * Phát thông báo tới người nhận trên mọi node.
+     * Nếu đang trong transaction, chỉ phát sau khi commit.
+     *
+     * @param notificationsByUser userId người nhận → thông báo của người đó
+     */
+    void publish(Map<Long, NotificationResponseDto> notificationsByUser);
+
+    /**
+     * Phát thông báo nhóm tới mọi user đang kết nối thuộc ít nhất một nhóm trong audiences.
+     * Nếu đang trong transaction, chỉ phát sau khi commit.
+     */
+    void publishBroadcast(Collection<String> audiences, NotificationResponseDto notification);
+}
@@ -1,10 +1,12 @@
 package com.TranAn.BackEnd_Works.service;
 
+import com.TranAn.BackEnd_Works.dto.response.CursorPageResponseDto;
 import com.TranAn.BackEnd_Works.dto.response.notification.NotificationResponseDto;
 import com.TranAn.BackEnd_Works.model.User;
 import com.TranAn.BackEnd_Works.model.constant.NotificationType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 
@@ -19,24 +21,39 @@ public interface NotificationService {
     void createNotificationForUsers(List<User> recipients, User sender, String title, String message,
             NotificationType type, String actionUrl, Long referenceId);
 
-    // Lấy danh sách thông báo của user hiện tại
+    // Tạo thông báo nhóm: một bản ghi cho mọi user có role audienceRole hoặc thuộc công ty audienceCompanyId.
+    // Người nhận được xác định lúc đọc theo role/công ty hiện tại của user (như lịch sử của một kênh chung):
+    // user vào nhóm sau vẫn thấy thông báo cũ của nhóm, user rời nhóm thì không còn thấy
+    void createBroadcast(String audienceRole, Long audienceCompanyId, User sender, String title, String message,
+            NotificationType type, String actionUrl, Long referenceId);
+
+    // Lấy danh sách thông báo của user hiện tại (chỉ cho các trang đầu, trang sâu hơn dùng cursor)
     Page<NotificationResponseDto> getNotifications(Pageable pageable);
 
+    // Lấy danh sách thông báo theo cursor (keyset), không đếm tổng số; cursor rỗng là trang đầu
+    CursorPageResponseDto<NotificationResponseDto> getNotificationsByCursor(String cursor, int size);
+
     // Lấy top N thông báo mới nhất (cho dropdown header)
     List<NotificationResponseDto> getLatestNotifications();
 
     // Lấy số lượng thông báo chưa đọc
     Long getUnreadCount();
 
-    // Đánh dấu 1 thông báo đã đọc
-    void markAsRead(Long notificationId);
+    // Cấp ticket dùng một lần cho user hiện tại để mở kết nối SSE
+    String createStreamTicket();
+
+    // Mở kết nối SSE nhận thông báo mới theo thời gian thực bằng ticket đã cấp
+    SseEmitter subscribe(String ticket);
+
+    // Đánh dấu 1 thông báo đã đọc (broadcast = true nếu là thông báo nhóm)
+    void markAsRead(Long notificationId, boolean broadcast);
 
     // Đánh dấu tất cả thông báo đã đọc
     void markAllAsRead();
 
     // ==== HELPER: Gửi thông báo cho các use case cụ thể ====
 
-    // Thông báo khi có CV mới được nộp (gửi cho recruiter của company)
+    // Thông báo khi có CV mới được nộp (thông báo nhóm cho recruiter của company và admin)
     void notifyNewResume(Long resumeId, Long jobId, Long companyId, Long applicantId, String applicantName,
             String jobName);
 
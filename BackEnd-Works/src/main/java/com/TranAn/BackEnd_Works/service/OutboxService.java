@@ -0,0 +1,16 @@
+package com.TranAn.BackEnd_Works.service;
+
+import com.TranAn.BackEnd_Works.model.constant.OutboxEventType;
+
+/**
+ * Transactional outbox cho email và thông báo
+ */
+public interface OutboxService {
+
+    /**
+     * Ghi tác vụ vào outbox trong transaction hiện tại; tác vụ chỉ được xử lý khi transaction commit.
+     *
+     * @param payload Dữ liệu của tác vụ, được lưu dạng JSON
+     */
+    void enqueue(OutboxEventType type, Object payload);
+}
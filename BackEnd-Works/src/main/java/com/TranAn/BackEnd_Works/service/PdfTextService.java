@@ -0,0 +1,27 @@
+package com.TranAn.BackEnd_Works.service;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import java.nio.file.Path;
+
+/**
+ * Trích xuất nội dung văn bản của file PDF, lưu đệm theo SHA-256 của nội dung file
+ * nên cùng một file chỉ được phân tích một lần (dùng chung cho phân tích CV và chat)
+ */
+public interface PdfTextService {
+
+    /**
+     * Nội dung văn bản (đã chuẩn hóa khoảng trắng) của file PDF trên đĩa; file do bên gọi quản lý
+     */
+    String extractText(Path file);
+
+    /**
+     * Nội dung văn bản của file PDF được upload
+     */
+    String extractText(MultipartFile file);
+
+    /**
+     * Nội dung văn bản của file PDF đã lưu trên S3; chỉ tải file khi chưa biết nội dung của key
+     */
+    String extractStoredText(String fileKey);
+}
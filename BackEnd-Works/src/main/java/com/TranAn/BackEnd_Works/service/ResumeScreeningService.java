@@ -0,0 +1,26 @@
+package com.TranAn.BackEnd_Works.service;
+
+import com.TranAn.BackEnd_Works.model.Job;
+import com.TranAn.BackEnd_Works.model.Resume;
+
+/**
+ * Chấm điểm sơ bộ CV tại máy chủ (không gọi AI): độ phủ kỹ năng công việc yêu cầu và độ khớp cấp bậc
+ */
+public interface ResumeScreeningService {
+
+    /**
+     * Điểm sơ bộ (0-100) của nội dung CV so với công việc
+     */
+    int score(String cvText, Job job);
+
+    /**
+     * Đọc file PDF đã lưu trên S3 và lưu điểm sơ bộ vào {@link Resume#getScreeningScore()}; chạy từ outbox sau khi
+     * nộp CV commit. Bỏ qua nếu resume đã bị xóa hoặc đã đổi sang file khác (file mới có tác vụ chấm riêng)
+     */
+    void screenStored(Long resumeId, String fileKey);
+
+    /**
+     * Danh sách kỹ năng thay đổi: dựng lại bộ so khớp ở lần chấm tiếp theo
+     */
+    void invalidateSkills();
+}
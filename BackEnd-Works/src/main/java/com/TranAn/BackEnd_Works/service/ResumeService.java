@@ -2,6 +2,7 @@ package com.TranAn.BackEnd_Works.service;
 
 import com.TranAn.BackEnd_Works.dto.request.resume.ResumeRequestDto;
 import com.TranAn.BackEnd_Works.dto.request.resume.UpdateResumeStatusRequestDto;
+import com.TranAn.BackEnd_Works.dto.response.CursorPageResponseDto;
 import com.TranAn.BackEnd_Works.dto.response.resume.CreateResumeResponseDto;
 import com.TranAn.BackEnd_Works.dto.response.resume.DefaultResumeResponseDto;
 import com.TranAn.BackEnd_Works.dto.response.resume.GetResumeFileResponseDto;
@@ -28,6 +29,17 @@ public interface ResumeService {
                         Specification<Resume> spec,
                         Pageable pageable);
 
+        // Phân trang keyset theo (createdAt, id), không đếm tổng số bản ghi
+        CursorPageResponseDto<ResumeForDisplayResponseDto> findAllResumesForRecruiterCompanyByCursor(
+                        Specification<Resume> spec,
+                        String cursor,
+                        int size);
+
+        CursorPageResponseDto<ResumeForDisplayResponseDto> findSelfResumesByCursor(
+                        Specification<Resume> spec,
+                        String cursor,
+                        int size);
+
         DefaultResumeResponseDto removeSelfResumeByJobId(Long jobId);
 
         DefaultResumeResponseDto updateSelfResumeFile(Long id, MultipartFile pdfFile);
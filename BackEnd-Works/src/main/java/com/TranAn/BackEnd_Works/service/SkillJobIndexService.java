@@ -0,0 +1,43 @@
+package com.TranAn.BackEnd_Works.service;
+
+import com.TranAn.BackEnd_Works.model.Job;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Chỉ mục trong bộ nhớ: kỹ năng → các job ACTIVE mới nhất, dùng cho email gợi ý việc làm
+ */
+public interface SkillJobIndexService {
+
+    /**
+     * Cập nhật job vào chỉ mục theo status/skills hiện tại (job không còn ACTIVE sẽ bị gỡ).
+     * Nếu đang trong transaction, chỉ áp dụng sau khi commit.
+     */
+    void indexJob(Job job);
+
+    /**
+     * Gỡ các job khỏi chỉ mục (xóa hoặc hết hạn)
+     */
+    void removeJobs(Collection<Long> jobIds);
+
+    /**
+     * Gỡ kỹ năng khỏi chỉ mục (khi kỹ năng bị xóa)
+     */
+    void removeSkill(Long skillId);
+
+    /**
+     * Id các job ACTIVE mới nhất (createdAt giảm dần, không trùng) có ít nhất một kỹ năng trong skillIds
+     */
+    List<Long> findLatestJobIds(Collection<Long> skillIds, int limit);
+
+    /**
+     * Chỉ mục đã được nạp xong từ database chưa
+     */
+    boolean isReady();
+
+    /**
+     * Nạp lại toàn bộ chỉ mục từ database
+     */
+    void rebuildIndex();
+}
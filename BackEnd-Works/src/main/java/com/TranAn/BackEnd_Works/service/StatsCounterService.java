@@ -0,0 +1,51 @@
+package com.TranAn.BackEnd_Works.service;
+
+import com.TranAn.BackEnd_Works.model.constant.JobStatus;
+import com.TranAn.BackEnd_Works.model.constant.Level;
+import com.TranAn.BackEnd_Works.model.constant.ResumeStatus;
+
+import java.util.Map;
+
+/**
+ * Bộ đếm thống kê dùng chung cho cả cụm (lưu trên Redis), cập nhật tăng dần theo thay đổi entity
+ * và được đối soát định kỳ với database.
+ */
+public interface StatsCounterService {
+
+    String USERS_TOTAL = "users.total";
+    String JOBS_TOTAL = "jobs.total";
+    String RESUMES_TOTAL = "resumes.total";
+    String COMPANIES_TOTAL = "companies.total";
+    String SUBSCRIBERS_TOTAL = "subscribers.total";
+
+    static String userRoleKey(String roleName) {
+        return "users.role." + roleName;
+    }
+
+    static String jobLevelKey(Level level) {
+        return "jobs.level." + level.name();
+    }
+
+    static String jobStatusKey(JobStatus status) {
+        return "jobs.status." + status.name();
+    }
+
+    static String resumeStatusKey(ResumeStatus status) {
+        return "resumes.status." + status.name();
+    }
+
+    /**
+     * Cộng delta vào bộ đếm. Nếu đang trong transaction, chỉ áp dụng sau khi commit.
+     */
+    void increment(String key, long delta);
+
+    /**
+     * Toàn bộ bộ đếm hiện tại (một lần đọc Redis)
+     */
+    Map<String, Long> getCounters();
+
+    /**
+     * Tính lại toàn bộ bộ đếm từ database và ghi đè bản trên Redis
+     */
+    void reconcile();
+}
@@ -2,21 +2,33 @@ package com.TranAn.BackEnd_Works.service.impl;
 
 
 import com.TranAn.BackEnd_Works.dto.admin.DashboardStatsResponseDto;
+import com.TranAn.BackEnd_Works.model.constant.ChartGranularity;
+import com.TranAn.BackEnd_Works.model.constant.JobStatus;
 import com.TranAn.BackEnd_Works.model.constant.Level;
 import com.TranAn.BackEnd_Works.model.constant.ResumeStatus;
+import com.TranAn.BackEnd_Works.model.constant.RollupMetric;
 import com.TranAn.BackEnd_Works.repository.*;
 import com.TranAn.BackEnd_Works.service.AdminDashboardService;
+import com.TranAn.BackEnd_Works.service.DashboardRollupService;
+import com.TranAn.BackEnd_Works.service.StatsCounterService;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
-import java.time.YearMonth;
+import java.time.LocalDate;
 import java.time.ZoneId;
-import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
+/**
+ * Dashboard admin đọc từ 2 nguồn đã tính sẵn:
+ * - Bộ đếm tổng/trạng thái/level/role từ {@link StatsCounterService} (cập nhật theo thời gian thực)
+ * - Snapshot các số liệu theo thời gian và bảng xếp hạng, tính lại định kỳ
+ */
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class AdminDashboardServiceImpl implements AdminDashboardService {
@@ -25,194 +37,152 @@ public class AdminDashboardServiceImpl implements AdminDashboardService {
     private final JobRepository jobRepository;
     private final ResumeRepository resumeRepository;
     private final CompanyRepository companyRepository;
-    private final SubscriberRepository subscriberRepository;
     private final SkillRepository skillRepository;
+    private final StatsCounterService statsCounterService;
+    private final DashboardRollupService dashboardRollupService;
+
+    private volatile Snapshot snapshot;
+
+    // Các số liệu đắt (theo khoảng thời gian, top N) được tính trước
+    private record Snapshot(
+            Double userGrowthRate,
+            Double jobGrowthRate,
+            Double resumeGrowthRate,
+            Long activeUsers,
+            Long newUsersThisMonth,
+            Long newJobsThisMonth,
+            Long newResumesThisMonth,
+            Long activeCompanies,
+            Long newCompaniesThisMonth,
+            List<DashboardStatsResponseDto.CompanyJobCount> topCompanies,
+            DashboardStatsResponseDto.ChartData chartData,
+            DashboardStatsResponseDto.TopPerformers topPerformers) {
+    }
 
     @Override
     public DashboardStatsResponseDto getDashboardStats() {
+        Snapshot snap = snapshot;
+        if (snap == null)
+            snap = refreshSnapshot();
+
+        Map<String, Long> counters = statsCounterService.getCounters();
+
         DashboardStatsResponseDto response = new DashboardStatsResponseDto();
 
-        response.setOverviewStats(getOverviewStats());
-        response.setUserStats(getUserStats());
-        response.setJobStats(getJobStats());
-        response.setResumeStats(getResumeStats());
-        response.setCompanyStats(getCompanyStats());
-        response.setChartData(getChartData());
-        response.setTopPerformers(getTopPerformers());
+        response.setOverviewStats(new DashboardStatsResponseDto.OverviewStats(
+                counter(counters, StatsCounterService.USERS_TOTAL),
+                counter(counters, StatsCounterService.JOBS_TOTAL),
+                counter(counters, StatsCounterService.RESUMES_TOTAL),
+                counter(counters, StatsCounterService.COMPANIES_TOTAL),
+                counter(counters, StatsCounterService.SUBSCRIBERS_TOTAL),
+                snap.userGrowthRate(),
+                snap.jobGrowthRate(),
+                snap.resumeGrowthRate()));
+
+        response.setUserStats(new DashboardStatsResponseDto.UserStats(
+                counter(counters, StatsCounterService.USERS_TOTAL),
+                snap.activeUsers(),
+                snap.newUsersThisMonth(),
+                counter(counters, StatsCounterService.userRoleKey("ADMIN")),
+                counter(counters, StatsCounterService.userRoleKey("RECRUITER")),
+                counter(counters, StatsCounterService.userRoleKey("USER"))));
+
+        response.setJobStats(new DashboardStatsResponseDto.JobStats(
+                counter(counters, StatsCounterService.JOBS_TOTAL),
+                counter(counters, StatsCounterService.jobStatusKey(JobStatus.ACTIVE)),
+                counter(counters, StatsCounterService.jobStatusKey(JobStatus.EXPIRED)),
+                snap.newJobsThisMonth(),
+                snap.topPerformers().getTopSkills(),
+                counter(counters, StatsCounterService.jobLevelKey(Level.INTERN)),
+                counter(counters, StatsCounterService.jobLevelKey(Level.FRESHER)),
+                counter(counters, StatsCounterService.jobLevelKey(Level.MIDDLE)),
+                counter(counters, StatsCounterService.jobLevelKey(Level.SENIOR)),
+                counter(counters, StatsCounterService.jobLevelKey(Level.LEADER))));
+
+        Long totalResumes = counter(counters, StatsCounterService.RESUMES_TOTAL);
+        Long approvedResumes = counter(counters, StatsCounterService.resumeStatusKey(ResumeStatus.APPROVED));
+        Double approvalRate = totalResumes > 0
+                ? (approvedResumes.doubleValue() / totalResumes.doubleValue()) * 100
+                : 0.0;
+
+        response.setResumeStats(new DashboardStatsResponseDto.ResumeStats(
+                totalResumes,
+                counter(counters, StatsCounterService.resumeStatusKey(ResumeStatus.PENDING)),
+                counter(counters, StatsCounterService.resumeStatusKey(ResumeStatus.REVIEWING)),
+                approvedResumes,
+                counter(counters, StatsCounterService.resumeStatusKey(ResumeStatus.REJECTED)),
+                approvalRate,
+                snap.newResumesThisMonth()));
+
+        response.setCompanyStats(new DashboardStatsResponseDto.CompanyStats(
+                counter(counters, StatsCounterService.COMPANIES_TOTAL),
+                snap.activeCompanies(),
+                snap.newCompaniesThisMonth(),
+                snap.topCompanies()));
+
+        response.setChartData(snap.chartData());
+        response.setTopPerformers(snap.topPerformers());
 
         return response;
     }
 
-    private DashboardStatsResponseDto.OverviewStats getOverviewStats() {
+    /**
+     * Tính lại snapshot các số liệu theo thời gian và top N
+     */
+    @Scheduled(fixedDelayString = "${dashboard.snapshot.refresh-ms:300000}",
+            initialDelayString = "${dashboard.snapshot.refresh-ms:300000}")
+    public void scheduledRefresh() {
+        refreshSnapshot();
+    }
+
+    private Snapshot refreshSnapshot() {
         Instant now = Instant.now();
-        Instant startOfThisMonth = now.atZone(ZoneId.systemDefault())
+        ZoneId zone = dashboardRollupService.zone();
+        Instant startOfThisMonth = now.atZone(zone)
                 .withDayOfMonth(1)
                 .withHour(0)
                 .withMinute(0)
                 .withSecond(0)
                 .withNano(0)
                 .toInstant();
-        Instant startOfLastMonth = startOfThisMonth.atZone(ZoneId.systemDefault())
+        Instant startOfLastMonth = startOfThisMonth.atZone(zone)
                 .minusMonths(1)
                 .toInstant();
 
-        Long totalUsers = userRepository.count();
-        Long totalJobs = jobRepository.count();
-        Long totalResumes = resumeRepository.count();
-        Long totalCompanies = companyRepository.count();
-        Long totalSubscribers = subscriberRepository.count();
-
-        // Tính growth rate
         Long usersThisMonth = userRepository.countByCreatedAtAfter(startOfThisMonth);
         Long usersLastMonth = userRepository.countByCreatedAtBetween(startOfLastMonth, startOfThisMonth);
-        Double userGrowthRate = calculateGrowthRate(usersThisMonth, usersLastMonth);
 
         Long jobsThisMonth = jobRepository.countByCreatedAtAfter(startOfThisMonth);
         Long jobsLastMonth = jobRepository.countByCreatedAtBetween(startOfLastMonth, startOfThisMonth);
-        Double jobGrowthRate = calculateGrowthRate(jobsThisMonth, jobsLastMonth);
 
         Long resumesThisMonth = resumeRepository.countByCreatedAtAfter(startOfThisMonth);
         Long resumesLastMonth = resumeRepository.countByCreatedAtBetween(startOfLastMonth, startOfThisMonth);
-        Double resumeGrowthRate = calculateGrowthRate(resumesThisMonth, resumesLastMonth);
 
-        return new DashboardStatsResponseDto.OverviewStats(
-                totalUsers,
-                totalJobs,
-                totalResumes,
-                totalCompanies,
-                totalSubscribers,
-                userGrowthRate,
-                jobGrowthRate,
-                resumeGrowthRate
-        );
-    }
-
-    private DashboardStatsResponseDto.UserStats getUserStats() {
-        Long totalUsers = userRepository.count();
-
-        Instant now = Instant.now();
-        Instant thirtyDaysAgo = now.minusSeconds(30L * 24 * 60 * 60);
         // Tạm thời dùng createdAt thay cho lastLogin (vì chưa có field lastLogin)
+        Instant thirtyDaysAgo = now.minusSeconds(30L * 24 * 60 * 60);
         Long activeUsers = userRepository.countByCreatedAtAfter(thirtyDaysAgo);
 
-        Instant startOfMonth = now.atZone(ZoneId.systemDefault())
-                .withDayOfMonth(1)
-                .withHour(0)
-                .withMinute(0)
-                .withSecond(0)
-                .withNano(0)
-                .toInstant();
-        Long newUsersThisMonth = userRepository.countByCreatedAtAfter(startOfMonth);
-
-        // Đếm theo role
-        Long adminCount = userRepository.countByRole_Name("ADMIN");
-        Long recruiterCount = userRepository.countByRole_Name("RECRUITER");
-        Long userCount = userRepository.countByRole_Name("USER");
-
-        return new DashboardStatsResponseDto.UserStats(
-                totalUsers,
+        Snapshot snap = new Snapshot(
+                calculateGrowthRate(usersThisMonth, usersLastMonth),
+                calculateGrowthRate(jobsThisMonth, jobsLastMonth),
+                calculateGrowthRate(resumesThisMonth, resumesLastMonth),
                 activeUsers,
-                newUsersThisMonth,
-                adminCount,
-                recruiterCount,
-                userCount
-        );
+                usersThisMonth,
+                jobsThisMonth,
+                resumesThisMonth,
+                companyRepository.countCompaniesWithActiveJobs(now),
+                companyRepository.countByCreatedAtAfter(startOfThisMonth),
+                getTopCompanies(),
+                getChartData(),
+                getTopPerformers());
+
+        snapshot = snap;
+        return snap;
     }
 
-    private DashboardStatsResponseDto.JobStats getJobStats() {
-        Long totalJobs = jobRepository.count();
-
-        Instant now = Instant.now();
-        Long activeJobs = jobRepository.countByEndDateAfter(now);
-        Long expiredJobs = jobRepository.countByEndDateBefore(now);
-
-        Instant startOfMonth = now.atZone(ZoneId.systemDefault())
-                .withDayOfMonth(1)
-                .withHour(0)
-                .withMinute(0)
-                .withSecond(0)
-                .withNano(0)
-                .toInstant();
-        Long newJobsThisMonth = jobRepository.countByCreatedAtAfter(startOfMonth);
-
-        // Top skills - limit 10
-        List<DashboardStatsResponseDto.SkillCount> topSkills = skillRepository.findTopSkillsByJobCount()
-                .stream()
-                .limit(10)
-                .map(obj -> new DashboardStatsResponseDto.SkillCount(
-                        (String) obj[0],
-                        (Long) obj[1]
-                ))
-                .collect(Collectors.toList());
-
-        // Đếm theo level
-        Long internJobs = jobRepository.countByLevel(Level.INTERN);
-        Long fresherJobs = jobRepository.countByLevel(Level.FRESHER);
-        Long middleJobs = jobRepository.countByLevel(Level.MIDDLE);
-        Long seniorJobs = jobRepository.countByLevel(Level.SENIOR);
-        Long leaderJobs = jobRepository.countByLevel(Level.LEADER);
-
-        return new DashboardStatsResponseDto.JobStats(
-                totalJobs,
-                activeJobs,
-                expiredJobs,
-                newJobsThisMonth,
-                topSkills,
-                internJobs,
-                fresherJobs,
-                middleJobs,
-                seniorJobs,
-                leaderJobs
-        );
-    }
-
-    private DashboardStatsResponseDto.ResumeStats getResumeStats() {
-        Long totalResumes = resumeRepository.count();
-        Long pendingResumes = resumeRepository.countByStatus(ResumeStatus.PENDING);
-        Long reviewingResumes = resumeRepository.countByStatus(ResumeStatus.REVIEWING);
-        Long approvedResumes = resumeRepository.countByStatus(ResumeStatus.APPROVED);
-        Long rejectedResumes = resumeRepository.countByStatus(ResumeStatus.REJECTED);
-
-        Double approvalRate = totalResumes > 0
-                ? (approvedResumes.doubleValue() / totalResumes.doubleValue()) * 100
-                : 0.0;
-
-        Instant startOfMonth = Instant.now().atZone(ZoneId.systemDefault())
-                .withDayOfMonth(1)
-                .withHour(0)
-                .withMinute(0)
-                .withSecond(0)
-                .withNano(0)
-                .toInstant();
-        Long newResumesThisMonth = resumeRepository.countByCreatedAtAfter(startOfMonth);
-
-        return new DashboardStatsResponseDto.ResumeStats(
-                totalResumes,
-                pendingResumes,
-                reviewingResumes,
-                approvedResumes,
-                rejectedResumes,
-                approvalRate,
-                newResumesThisMonth
-        );
-    }
-
-    private DashboardStatsResponseDto.CompanyStats getCompanyStats() {
-        Long totalCompanies = companyRepository.count();
-        Instant now = Instant.now();
-        Long activeCompanies = companyRepository.countCompaniesWithActiveJobs(now);
-
-        Instant startOfMonth = now.atZone(ZoneId.systemDefault())
-                .withDayOfMonth(1)
-                .withHour(0)
-                .withMinute(0)
-                .withSecond(0)
-                .withNano(0)
-                .toInstant();
-        Long newCompaniesThisMonth = companyRepository.countByCreatedAtAfter(startOfMonth);
-
+    private List<DashboardStatsResponseDto.CompanyJobCount> getTopCompanies() {
         // Top companies - limit 10
-        List<DashboardStatsResponseDto.CompanyJobCount> topCompanies = companyRepository.findTopCompaniesByJobCount()
+        return companyRepository.findTopCompaniesByJobCount()
                 .stream()
                 .limit(10)
                 .map(obj -> new DashboardStatsResponseDto.CompanyJobCount(
@@ -221,21 +191,13 @@ public class AdminDashboardServiceImpl implements AdminDashboardService {
                         ((Number) obj[2]).longValue()
                 ))
                 .collect(Collectors.toList());
-
-        return new DashboardStatsResponseDto.CompanyStats(
-                totalCompanies,
-                activeCompanies,
-                newCompaniesThisMonth,
-                topCompanies
-        );
     }
 
     private DashboardStatsResponseDto.ChartData getChartData() {
-        List<DashboardStatsResponseDto.MonthlyData> usersByMonth = getLast6MonthsData("users");
-        List<DashboardStatsResponseDto.MonthlyData> jobsByMonth = getLast6MonthsData("jobs");
-        List<DashboardStatsResponseDto.MonthlyData> resumesByMonth = getLast6MonthsData("resumes");
-
-        return new DashboardStatsResponseDto.ChartData(usersByMonth, jobsByMonth, resumesByMonth);
+        return new DashboardStatsResponseDto.ChartData(
+                getLast6MonthsData(RollupMetric.USERS),
+                getLast6MonthsData(RollupMetric.JOBS),
+                getLast6MonthsData(RollupMetric.RESUMES));
     }
 
     private DashboardStatsResponseDto.TopPerformers getTopPerformers() {
@@ -262,7 +224,7 @@ public class AdminDashboardServiceImpl implements AdminDashboardService {
                 ))
                 .collect(Collectors.toList());
 
-        // Top skills - limit 10
+        // Top skills - limit 10 (dùng chung cho JobStats)
         List<DashboardStatsResponseDto.SkillCount> topSkills = skillRepository.findTopSkillsByJobCount()
                 .stream()
                 .limit(10)
@@ -275,28 +237,19 @@ public class AdminDashboardServiceImpl implements AdminDashboardService {
         return new DashboardStatsResponseDto.TopPerformers(topCompaniesByResumes, topJobsByResumes, topSkills);
     }
 
-    private List<DashboardStatsResponseDto.MonthlyData> getLast6MonthsData(String type) {
-        List<DashboardStatsResponseDto.MonthlyData> result = new ArrayList<>();
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM");
-
-        for (int i = 5; i >= 0; i--) {
-            YearMonth yearMonth = YearMonth.now().minusMonths(i);
-            String monthStr = yearMonth.format(formatter);
+    // Đọc từ bảng rollup theo ngày thay vì COUNT theo khoảng trên bảng gốc
+    private List<DashboardStatsResponseDto.MonthlyData> getLast6MonthsData(RollupMetric metric) {
+        LocalDate today = dashboardRollupService.today();
+        LocalDate from = today.minusMonths(5).withDayOfMonth(1);
 
-            Instant startOfMonth = yearMonth.atDay(1).atStartOfDay(ZoneId.systemDefault()).toInstant();
-            Instant endOfMonth = yearMonth.atEndOfMonth().atTime(23, 59, 59).atZone(ZoneId.systemDefault()).toInstant();
-
-            Long count = switch (type) {
-                case "users" -> userRepository.countByCreatedAtBetween(startOfMonth, endOfMonth);
-                case "jobs" -> jobRepository.countByCreatedAtBetween(startOfMonth, endOfMonth);
-                case "resumes" -> resumeRepository.countByCreatedAtBetween(startOfMonth, endOfMonth);
-                default -> 0L;
-            };
-
-            result.add(new DashboardStatsResponseDto.MonthlyData(monthStr, count));
-        }
+        return dashboardRollupService.getSeries(metric, from, today, ChartGranularity.MONTH)
+                .stream()
+                .map(point -> new DashboardStatsResponseDto.MonthlyData(point.getPeriod(), point.getCount()))
+                .collect(Collectors.toList());
+    }
 
-        return result;
+    private Long counter(Map<String, Long> counters, String key) {
+        return counters.getOrDefault(key, 0L);
     }
 
     private Double calculateGrowthRate(Long current, Long previous) {
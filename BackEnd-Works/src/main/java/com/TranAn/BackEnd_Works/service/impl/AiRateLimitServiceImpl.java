@@ -0,0 +1,91 @@
+package com.TranAn.BackEnd_Works.service.impl;
+
+import com.TranAn.BackEnd_Works.service.AiRateLimitService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Đếm theo cửa sổ cố định trên Redis: một key cho mỗi giây (số request) và một key cho mỗi phút (số token).
+ * Hạn mức của nhà cung cấp AI tính theo API key nên phải dùng chung giữa các node, không đếm riêng từng node.
+ * Redis lỗi thì bỏ qua giới hạn (để nhà cung cấp tự từ chối) thay vì chặn toàn bộ việc phân tích.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AiRateLimitServiceImpl implements AiRateLimitService {
+
+    private static final String KEY_PREFIX = "ai:rate:{cv}:";
+
+    // KEYS[1] = bộ đếm request của giây hiện tại, KEYS[2] = bộ đếm token của phút hiện tại
+    // ARGV[1] = số request tối đa/giây, ARGV[2] = số token tối đa/phút (0 = không giới hạn), ARGV[3] = token
+    // Trả về 0 nếu được phép, 1 nếu hết hạn mức request của giây này, 2 nếu hết hạn mức token của phút này
+    private static final RedisScript<Long> ACQUIRE_SCRIPT = new DefaultRedisScript<>("""
+            local requests = tonumber(redis.call('GET', KEYS[1]) or '0')
+            if requests >= tonumber(ARGV[1]) then
+                return 1
+            end
+            local tokens = tonumber(redis.call('GET', KEYS[2]) or '0')
+            local maxTokens = tonumber(ARGV[2])
+            if maxTokens > 0 and tokens > 0 and tokens + tonumber(ARGV[3]) > maxTokens then
+                return 2
+            end
+            redis.call('INCR', KEYS[1])
+            redis.call('EXPIRE', KEYS[1], 2)
+            redis.call('INCRBY', KEYS[2], ARGV[3])
+            redis.call('EXPIRE', KEYS[2], 120)
+            return 0
+            """, Long.class);
+
+    private final RedisTemplate<String, String> redisTemplate;
+
+    @Value("${cv.analysis.ai.requests-per-second:2}")
+    private int requestsPerSecond;
+
+    @Value("${cv.analysis.ai.tokens-per-minute:0}")
+    private int tokensPerMinute;
+
+    @Override
+    public void acquire(int estimatedTokens) {
+        if (requestsPerSecond <= 0)
+            return;
+
+        while (true) {
+            long now = System.currentTimeMillis();
+            long second = now / 1000;
+            long minute = now / 60_000;
+
+            Long result;
+            try {
+                result = redisTemplate.execute(ACQUIRE_SCRIPT,
+                        List.of(KEY_PREFIX + "s:" + second, KEY_PREFIX + "m:" + minute),
+                        String.valueOf(requestsPerSecond),
+                        String.valueOf(tokensPerMinute),
+                        String.valueOf(Math.max(estimatedTokens, 1)));
+            } catch (Exception e) {
+                log.warn("Redis unavailable for AI rate limit: {}", e.getMessage());
+                return;
+            }
+
+            if (result == null || result == 0)
+                return;
+
+            // Chờ sang cửa sổ tiếp theo rồi thử lại
+            long waitMillis = result == 1
+                    ? (second + 1) * 1000 - now
+                    : (minute + 1) * 60_000 - now;
+            try {
+                Thread.sleep(Math.max(waitMillis, 10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Đã hủy chờ hạn mức gọi AI", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package com.TranAn.BackEnd_Works.service.impl;
+
+import com.TranAn.BackEnd_Works.advice.exception.TooManyRequestsException;
+import com.TranAn.BackEnd_Works.dto.response.resume.ApplicantRankingResponseDto;
+import com.TranAn.BackEnd_Works.dto.response.resume.CVAnalysisJobResponseDto;
+import com.TranAn.BackEnd_Works.dto.response.resume.RankedApplicantResponseDto;
+import com.TranAn.BackEnd_Works.model.Job;
+import com.TranAn.BackEnd_Works.model.User;
+import com.TranAn.BackEnd_Works.model.constant.CVAnalysisJobStatus;
+import com.TranAn.BackEnd_Works.model.constant.ResumeStatus;
+import com.TranAn.BackEnd_Works.repository.CVAnalysisResultRepository;
+import com.TranAn.BackEnd_Works.repository.JobRepository;
+import com.TranAn.BackEnd_Works.repository.ResumeRepository;
+import com.TranAn.BackEnd_Works.repository.UserRepository;
+import com.TranAn.BackEnd_Works.service.ApplicantRankingService;
+import com.TranAn.BackEnd_Works.service.CVAnalysisJobService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Mỗi resume của công việc được đưa vào hàng đợi phân tích CV với mức ưu tiên thấp, tối đa
+ * {@code cv.ranking.parallelism} resume cùng lúc: xong một resume mới đưa tiếp resume sau, nên một lần xếp hạng
+ * không chiếm hết hàng đợi và vẫn nằm trong giới hạn gọi AI chung. Điểm được lưu ngay khi từng resume xong
+ * (bảng cv_analysis_results), danh sách xếp hạng đọc từ đó nên thấy dần kết quả trong lúc đang chạy;
+ * resume có CV và công việc chưa đổi dùng lại kết quả cũ, không gọi AI lại. Resume có điểm sơ bộ dưới
+ * {@code cv.screening.ai-threshold} bị loại trước, không gọi AI (recruiter vẫn phân tích riêng từng CV được).
+ * <p>
+ * Tiến độ lưu trên Redis (hash) để hỏi ở node nào cũng được; danh sách resume còn lại nằm trên node bắt đầu,
+ * nếu node đó dừng giữa chừng thì lần xếp hạng được coi là treo sau {@code cv.ranking.stale-minutes} và có thể chạy lại.
+ * Việc kiểm tra và nhận lần chạy là một script Lua nên hai request đồng thời không thể cùng bắt đầu. Hàng đợi phân
+ * tích đầy thì resume được thử lại sau (chờ tăng dần), chỉ tính là lỗi sau {@code cv.ranking.max-retries} lần.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ApplicantRankingServiceImpl implements ApplicantRankingService {
+
+    private static final String PROGRESS_KEY_PREFIX = "cv:ranking:";
+
+    // Chờ tối đa giữa hai lần thử lại khi hàng đợi phân tích đầy
+    private static final long MAX_RETRY_DELAY_MS = 60_000;
+
+    // KEYS[1] = key tiến độ, ARGV[1] = thời điểm hiện tại (ms), ARGV[2] = thời gian coi là treo (ms),
+    // ARGV[3] = TTL (ms), ARGV[4..] = các cặp field/giá trị của tiến độ mới. Trả về 1 nếu nhận được lần chạy
+    private static final RedisScript<Long> CLAIM_SCRIPT = new DefaultRedisScript<>("""
+            local status = redis.call('HGET', KEYS[1], 'status')
+            local updatedAt = tonumber(redis.call('HGET', KEYS[1], 'updatedAt') or '0')
+            if status == 'RUNNING' and tonumber(ARGV[1]) - updatedAt <= tonumber(ARGV[2]) then
+                return 0
+            end
+            redis.call('DEL', KEYS[1])
+            redis.call('HSET', KEYS[1], unpack(ARGV, 4))
+            redis.call('PEXPIRE', KEYS[1], ARGV[3])
+            return 1
+            """, Long.class);
+
+    private final CVAnalysisJobService cvAnalysisJobService;
+    private final CVAnalysisResultRepository cvAnalysisResultRepository;
+    private final ResumeRepository resumeRepository;
+    private final JobRepository jobRepository;
+    private final UserRepository userRepository;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${cv.screening.ai-threshold:30}")
+    private int aiThreshold;
+
+    @Value("${cv.ranking.parallelism:8}")
+    private int parallelism;
+
+    @Value("${cv.ranking.stale-minutes:10}")
+    private long staleMinutes;
+
+    @Value("${cv.ranking.progress-ttl-hours:24}")
+    private long progressTtlHours;
+
+    @Value("${cv.ranking.retry-delay-ms:2000}")
+    private long retryDelayMs;
+
+    @Value("${cv.ranking.max-retries:8}")
+    private int maxRetries;
+
+    private final ScheduledExecutorService retryScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "ranking-retry");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private record Run(Long jobId, String tenant, ConcurrentLinkedQueue<Long> remaining, AtomicInteger unfinished) {
+    }
+
+    @PreDestroy
+    public void stop() {
+        retryScheduler.shutdownNow();
+    }
+
+    @Override
+    public ApplicantRankingResponseDto startRanking(Long jobId) {
+        Job job = findCompanyJob(jobId);
+        String key = PROGRESS_KEY_PREFIX + jobId;
+
+        // CV thiếu hẳn kỹ năng công việc yêu cầu (điểm sơ bộ thấp) không cần gọi AI
+        List<Long> resumeIds = resumeRepository.findIdsByJobIdAndMinScreeningScore(jobId, aiThreshold);
+        long screenedOut = resumeRepository.countByJobId(jobId) - resumeIds.size();
+        long now = System.currentTimeMillis();
+
+        List<String> args = new ArrayList<>(List.of(
+                String.valueOf(now),
+                String.valueOf(Duration.ofMinutes(staleMinutes).toMillis()),
+                String.valueOf(Duration.ofHours(progressTtlHours).toMillis()),
+                "status", (resumeIds.isEmpty() ? CVAnalysisJobStatus.COMPLETED : CVAnalysisJobStatus.RUNNING).name(),
+                "total", String.valueOf(resumeIds.size()),
+                "completed", "0",
+                "failed", "0",
+                "screenedOut", String.valueOf(Math.max(screenedOut, 0)),
+                "startedAt", String.valueOf(now),
+                "updatedAt", String.valueOf(now)));
+        if (resumeIds.isEmpty())
+            args.addAll(List.of("finishedAt", String.valueOf(now)));
+
+        // Lần xếp hạng đang chạy (và chưa treo) ở node nào đó: chỉ trả về tiến độ hiện tại
+        Long claimed = redisTemplate.execute(CLAIM_SCRIPT, List.of(key), args.toArray());
+        if (claimed == null || claimed == 0) {
+            return getRanking(jobId);
+        }
+
+        Run run = new Run(jobId, "company:" + job.getCompany().getId(),
+                new ConcurrentLinkedQueue<>(resumeIds), new AtomicInteger(resumeIds.size()));
+        for (int i = 0; i < Math.min(parallelism, resumeIds.size()); i++)
+            submitNext(run);
+
+        log.info("Started ranking {} applicants of job {}", resumeIds.size(), jobId);
+        return getRanking(jobId);
+    }
+
+    @Override
+    public ApplicantRankingResponseDto getRanking(Long jobId) {
+        findCompanyJob(jobId);
+
+        Map<Object, Object> progress = redisTemplate.opsForHash().entries(PROGRESS_KEY_PREFIX + jobId);
+
+        List<RankedApplicantResponseDto> applicants = new ArrayList<>();
+        for (Object[] row : cvAnalysisResultRepository.findLatestScoresByJobId(jobId)) {
+            applicants.add(RankedApplicantResponseDto.builder()
+                    .resumeId((Long) row[0])
+                    .email((String) row[1])
+                    .status((ResumeStatus) row[2])
+                    .matchScore((Integer) row[3])
+                    .summary(readSummary((String) row[4]))
+                    .scoredAt((Instant) row[5])
+                    .build());
+        }
+
+        Object status = progress.get("status");
+        return ApplicantRankingResponseDto.builder()
+                .jobId(jobId)
+                .status(status != null ? CVAnalysisJobStatus.valueOf(status.toString()) : null)
+                .total(intField(progress, "total"))
+                .completed(intField(progress, "completed"))
+                .failed(intField(progress, "failed"))
+                .screenedOut(intField(progress, "screenedOut"))
+                .startedAt(instantField(progress, "startedAt"))
+                .finishedAt(instantField(progress, "finishedAt"))
+                .applicants(applicants)
+                .build();
+    }
+
+    // ==== PRIVATE METHODS ====
+
+    private void submitNext(Run run) {
+        Long resumeId = run.remaining().poll();
+        if (resumeId != null)
+            submit(run, resumeId, 0);
+    }
+
+    private void submit(Run run, Long resumeId, int attempt) {
+        try {
+            cvAnalysisJobService.enqueueAnalysis(resumeId, run.tenant(), CVAnalysisJobService.Priority.LOW,
+                    job -> onFinished(run, resumeId, job));
+        } catch (TooManyRequestsException e) {
+            if (attempt >= maxRetries) {
+                log.warn("Analysis queue still full after {} retries, giving up on resume {} of job {}",
+                        maxRetries, resumeId, run.jobId());
+                onFinished(run, resumeId, null);
+                return;
+            }
+
+            // Chờ tăng dần rồi thử lại, giữ updatedAt mới để lần chạy không bị coi là treo trong lúc chờ
+            long delay = Math.min(retryDelayMs << Math.min(attempt, 20), MAX_RETRY_DELAY_MS);
+            log.debug("Analysis queue full, retrying resume {} of job {} in {} ms", resumeId, run.jobId(), delay);
+            touch(run);
+            retryScheduler.schedule(() -> submit(run, resumeId, attempt + 1), delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void touch(Run run) {
+        try {
+            redisTemplate.opsForHash().put(PROGRESS_KEY_PREFIX + run.jobId(), "updatedAt",
+                    String.valueOf(System.currentTimeMillis()));
+        } catch (Exception e) {
+            log.warn("Could not record ranking progress of job {}: {}", run.jobId(), e.getMessage());
+        }
+    }
+
+    private void onFinished(Run run, Long resumeId, CVAnalysisJobResponseDto job) {
+        String key = PROGRESS_KEY_PREFIX + run.jobId();
+        boolean succeeded = job != null && job.getStatus() == CVAnalysisJobStatus.COMPLETED;
+        boolean last = run.unfinished().decrementAndGet() == 0;
+
+        try {
+            redisTemplate.opsForHash().increment(key, succeeded ? "completed" : "failed", 1);
+            redisTemplate.opsForHash().put(key, "updatedAt", String.valueOf(System.currentTimeMillis()));
+
+            if (last) {
+                redisTemplate.opsForHash().put(key, "status", CVAnalysisJobStatus.COMPLETED.name());
+                redisTemplate.opsForHash().put(key, "finishedAt", String.valueOf(System.currentTimeMillis()));
+                log.info("Finished ranking applicants of job {}", run.jobId());
+            }
+        } catch (Exception e) {
+            log.warn("Could not record ranking progress of resume {}: {}", resumeId, e.getMessage());
+        }
+
+        if (!last)
+            submitNext(run);
+    }
+
+    // Chỉ recruiter thuộc công ty sở hữu công việc mới được xếp hạng ứng viên
+    private Job findCompanyJob(Long jobId) {
+        String email = SecurityContextHolder.getContext().getAuthentication().getName();
+        User user = userRepository.findByEmail(email)
+                .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy người dùng"));
+
+        if (user.getCompany() == null)
+            throw new EntityNotFoundException("Không tìm thấy công ty người dùng");
+
+        Job job = jobRepository.findById(jobId)
+                .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy công việc với ID: " + jobId));
+
+        if (job.getCompany() == null || !job.getCompany().getId().equals(user.getCompany().getId()))
+            throw new EntityNotFoundException("Không tìm thấy công việc với ID: " + jobId);
+
+        return job;
+    }
+
+    private String readSummary(String json) {
+        try {
+            return objectMapper.readTree(json).path("summary").asText(null);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static int intField(Map<Object, Object> progress, String field) {
+        Object value = progress.get(field);
+        return value != null ? Integer.parseInt(value.toString()) : 0;
+    }
+
+    private static Instant instantField(Map<Object, Object> progress, String field) {
+        Object value = progress.get(field);
+        return value != null ? Instant.ofEpochMilli(Long.parseLong(value.toString())) : null;
+    }
+}
@@ -0,0 +1,337 @@
+package com.TranAn.BackEnd_Works.service.impl;
+
+import com.TranAn.BackEnd_Works.advice.exception.TooManyRequestsException;
+import com.TranAn.BackEnd_Works.dto.response.resume.CVAnalysisJobResponseDto;
+import com.TranAn.BackEnd_Works.dto.response.resume.CVAnalysisResponseDto;
+import com.TranAn.BackEnd_Works.model.Resume;
+import com.TranAn.BackEnd_Works.model.constant.CVAnalysisJobStatus;
+import com.TranAn.BackEnd_Works.repository.ResumeRepository;
+import com.TranAn.BackEnd_Works.service.CVAnalysisJobService;
+import com.TranAn.BackEnd_Works.service.CVAnalysisService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Yêu cầu phân tích được xếp vào hàng đợi theo mức ưu tiên và theo "tenant" (công ty của recruiter, hoặc chính
+ * user với CV preview). Các luồng xử lý lấy việc lần lượt từng tenant (round-robin), nên một công ty gửi hàng
+ * loạt không chặn các công ty khác; số luồng ({@code cv.analysis.workers}) chính là số lời gọi AI đồng thời tối đa.
+ * <p>
+ * Trạng thái yêu cầu lưu trên Redis để client hỏi ở node nào cũng thấy; hàng đợi chỉ nằm trong bộ nhớ của node
+ * nhận yêu cầu, nên yêu cầu đang chờ sẽ mất khi node khởi động lại (client gửi lại).
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CVAnalysisJobServiceImpl implements CVAnalysisJobService {
+
+    private static final String JOB_KEY_PREFIX = "cv:job:";
+    private static final long MAX_PREVIEW_SIZE = 10 * 1024 * 1024; // 10MB
+
+    private final CVAnalysisService cvAnalysisService;
+    private final ResumeRepository resumeRepository;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${cv.analysis.workers:4}")
+    private int workers;
+
+    @Value("${cv.analysis.queue-capacity:200}")
+    private int queueCapacity;
+
+    @Value("${cv.analysis.tenant-capacity:20}")
+    private int tenantCapacity;
+
+    @Value("${cv.analysis.job-ttl-minutes:60}")
+    private long jobTtlMinutes;
+
+    /**
+     * Trạng thái lưu trên Redis: kèm email người tạo để chỉ người đó xem được kết quả
+     */
+    private record JobState(String owner, CVAnalysisJobResponseDto job) {
+    }
+
+    // owner == null: yêu cầu từ xử lý hàng loạt, không lưu trạng thái lên Redis
+    private record Task(String jobId, String owner, String tenant, Instant submittedAt,
+                        Supplier<CVAnalysisResponseDto> work, Consumer<CVAnalysisJobResponseDto> onFinished) {
+    }
+
+    private final Object lock = new Object();
+
+    // Mức ưu tiên → (tenant → các yêu cầu đang chờ); thứ tự của LinkedHashMap là vòng round-robin giữa các tenant
+    private final Map<Priority, LinkedHashMap<String, ArrayDeque<Task>>> queues = new EnumMap<>(Priority.class);
+    private int queued;
+
+    private final List<Thread> workerThreads = new ArrayList<>();
+
+    @PostConstruct
+    void start() {
+        for (Priority priority : Priority.values())
+            queues.put(priority, new LinkedHashMap<>());
+
+        for (int i = 1; i <= workers; i++) {
+            Thread thread = new Thread(this::work, "cv-analysis-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            workerThreads.add(thread);
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        workerThreads.forEach(Thread::interrupt);
+    }
+
+    @Override
+    public CVAnalysisJobResponseDto submitAnalysis(Long resumeId) {
+        Resume resume = resumeRepository.findById(resumeId)
+                .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy resume với ID: " + resumeId));
+
+        if (resume.getJob() == null) {
+            throw new EntityNotFoundException("Resume không liên kết với công việc nào");
+        }
+
+        String tenant = resume.getJob().getCompany() != null
+                ? "company:" + resume.getJob().getCompany().getId()
+                : "job:" + resume.getJob().getId();
+
+        return submit(tenant, Priority.HIGH, () -> cvAnalysisService.analyzeResume(resumeId));
+    }
+
+    @Override
+    public CVAnalysisJobResponseDto submitPreview(MultipartFile pdfFile, Long jobId) {
+        if (pdfFile == null || pdfFile.isEmpty()) {
+            throw new IllegalArgumentException("File CV không được rỗng");
+        }
+
+        if (!"application/pdf".equals(pdfFile.getContentType())) {
+            throw new IllegalArgumentException("Chỉ hỗ trợ file PDF");
+        }
+
+        if (pdfFile.getSize() > MAX_PREVIEW_SIZE) {
+            throw new IllegalArgumentException("File CV không được vượt quá 10MB");
+        }
+
+        // File multipart bị xóa khi request kết thúc: chép ra file tạm (không đọc vào heap), luồng xử lý xóa khi xong
+        Path content;
+        try {
+            content = Files.createTempFile("cv-preview-", ".pdf");
+        } catch (IOException e) {
+            throw new RuntimeException("Không thể đọc nội dung file PDF: " + e.getMessage(), e);
+        }
+
+        try (InputStream inputStream = pdfFile.getInputStream()) {
+            Files.copy(inputStream, content, StandardCopyOption.REPLACE_EXISTING);
+            return submit("user:" + currentUserEmail(), Priority.HIGH, () -> {
+                try {
+                    return cvAnalysisService.analyzeResumePreview(content, jobId);
+                } finally {
+                    deleteQuietly(content);
+                }
+            });
+        } catch (IOException e) {
+            deleteQuietly(content);
+            throw new RuntimeException("Không thể đọc nội dung file PDF: " + e.getMessage(), e);
+        } catch (RuntimeException e) {
+            deleteQuietly(content);
+            throw e;
+        }
+    }
+
+    @Override
+    public void enqueueAnalysis(Long resumeId, String tenant, Priority priority,
+                                Consumer<CVAnalysisJobResponseDto> onFinished) {
+        enqueue(new Task(UUID.randomUUID().toString(), null, tenant, Instant.now(),
+                () -> cvAnalysisService.analyzeResume(resumeId), onFinished), priority);
+    }
+
+    @Override
+    public CVAnalysisJobResponseDto getJob(String jobId) {
+        JobState state = readState(jobId);
+
+        if (state == null || !state.owner().equals(currentUserEmail())) {
+            throw new EntityNotFoundException("Không tìm thấy yêu cầu phân tích CV: " + jobId);
+        }
+
+        return state.job();
+    }
+
+    // ==== PRIVATE METHODS ====
+
+    private CVAnalysisJobResponseDto submit(String tenant, Priority priority, Supplier<CVAnalysisResponseDto> work) {
+        Task task = new Task(UUID.randomUUID().toString(), currentUserEmail(), tenant, Instant.now(), work, null);
+
+        CVAnalysisJobResponseDto job = CVAnalysisJobResponseDto.builder()
+                .jobId(task.jobId())
+                .status(CVAnalysisJobStatus.QUEUED)
+                .submittedAt(task.submittedAt())
+                .build();
+
+        // Ghi trạng thái trước khi xếp hàng để luồng xử lý không ghi đè ngược lại QUEUED
+        writeState(task, job);
+
+        try {
+            enqueue(task, priority);
+        } catch (TooManyRequestsException e) {
+            redisTemplate.delete(JOB_KEY_PREFIX + task.jobId());
+            throw e;
+        }
+        return job;
+    }
+
+    private void enqueue(Task task, Priority priority) {
+        synchronized (lock) {
+            if (queued >= queueCapacity) {
+                throw new TooManyRequestsException("Hệ thống đang phân tích nhiều CV, vui lòng thử lại sau");
+            }
+
+            ArrayDeque<Task> tenantQueue = queues.get(priority).computeIfAbsent(task.tenant(), k -> new ArrayDeque<>());
+            if (tenantQueue.size() >= tenantCapacity) {
+                throw new TooManyRequestsException("Bạn đang có quá nhiều yêu cầu phân tích CV đang chờ, vui lòng thử lại sau");
+            }
+
+            tenantQueue.add(task);
+            queued++;
+            lock.notify();
+        }
+
+        log.debug("Queued CV analysis {} for {} ({})", task.jobId(), task.tenant(), priority);
+    }
+
+    private void work() {
+        while (!Thread.currentThread().isInterrupted()) {
+            Task task;
+            try {
+                task = take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            run(task);
+        }
+    }
+
+    // Lấy yêu cầu của tenant đứng đầu vòng (ưu tiên cao trước), rồi đưa tenant đó về cuối vòng
+    private Task take() throws InterruptedException {
+        synchronized (lock) {
+            while (true) {
+                for (Priority priority : Priority.values()) {
+                    Iterator<Map.Entry<String, ArrayDeque<Task>>> it = queues.get(priority).entrySet().iterator();
+                    if (!it.hasNext())
+                        continue;
+
+                    Map.Entry<String, ArrayDeque<Task>> next = it.next();
+                    it.remove();
+
+                    ArrayDeque<Task> tenantQueue = next.getValue();
+                    Task task = tenantQueue.poll();
+                    if (!tenantQueue.isEmpty())
+                        queues.get(priority).put(next.getKey(), tenantQueue);
+
+                    queued--;
+                    return task;
+                }
+                lock.wait();
+            }
+        }
+    }
+
+    private void run(Task task) {
+        CVAnalysisJobResponseDto job = CVAnalysisJobResponseDto.builder()
+                .jobId(task.jobId())
+                .status(CVAnalysisJobStatus.RUNNING)
+                .submittedAt(task.submittedAt())
+                .build();
+        writeStateQuietly(task, job);
+
+        try {
+            CVAnalysisResponseDto result = task.work().get();
+            job = job.toBuilder()
+                    .status(CVAnalysisJobStatus.COMPLETED)
+                    .result(result)
+                    .completedAt(Instant.now())
+                    .build();
+        } catch (Exception e) {
+            log.warn("CV analysis {} failed: {}", task.jobId(), e.getMessage());
+            job = job.toBuilder()
+                    .status(CVAnalysisJobStatus.FAILED)
+                    .error(e.getMessage() != null ? e.getMessage() : "Không thể phân tích CV")
+                    .completedAt(Instant.now())
+                    .build();
+        }
+
+        writeStateQuietly(task, job);
+
+        if (task.onFinished() != null) {
+            try {
+                task.onFinished().accept(job);
+            } catch (Exception e) {
+                log.warn("Completion callback of CV analysis {} failed: {}", task.jobId(), e.getMessage());
+            }
+        }
+    }
+
+    private void writeState(Task task, CVAnalysisJobResponseDto job) {
+        try {
+            redisTemplate.opsForValue().set(JOB_KEY_PREFIX + task.jobId(),
+                    objectMapper.writeValueAsString(new JobState(task.owner(), job)),
+                    Duration.ofMinutes(jobTtlMinutes));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Không thể lưu trạng thái phân tích CV: " + e.getMessage(), e);
+        }
+    }
+
+    private void writeStateQuietly(Task task, CVAnalysisJobResponseDto job) {
+        if (task.owner() == null)
+            return;
+        try {
+            writeState(task, job);
+        } catch (Exception e) {
+            log.warn("Could not store status of CV analysis {}: {}", task.jobId(), e.getMessage());
+        }
+    }
+
+    private JobState readState(String jobId) {
+        String json = redisTemplate.opsForValue().get(JOB_KEY_PREFIX + jobId);
+        if (json == null)
+            return null;
+
+        try {
+            return objectMapper.readValue(json, JobState.class);
+        } catch (JsonProcessingException e) {
+            log.warn("Unreadable status of CV analysis {}: {}", jobId, e.getMessage());
+            return null;
+        }
+    }
+
+    private String currentUserEmail() {
+        return SecurityContextHolder.getContext().getAuthentication().getName();
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete temporary CV {}: {}", file, e.getMessage());
+        }
+    }
+}
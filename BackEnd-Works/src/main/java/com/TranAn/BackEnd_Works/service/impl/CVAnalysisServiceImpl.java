@@ -1,31 +1,44 @@
 package com.TranAn.BackEnd_Works.service.impl;
 
 import com.TranAn.BackEnd_Works.dto.response.resume.CVAnalysisResponseDto;
+import com.TranAn.BackEnd_Works.model.CVAnalysisResult;
 import com.TranAn.BackEnd_Works.model.Job;
 import com.TranAn.BackEnd_Works.model.Resume;
 import com.TranAn.BackEnd_Works.model.Skill;
+import com.TranAn.BackEnd_Works.repository.CVAnalysisResultRepository;
 import com.TranAn.BackEnd_Works.repository.JobRepository;
 import com.TranAn.BackEnd_Works.repository.ResumeRepository;
+import com.TranAn.BackEnd_Works.service.AiRateLimitService;
 import com.TranAn.BackEnd_Works.service.CVAnalysisService;
-import com.TranAn.BackEnd_Works.service.S3Service;
+import com.TranAn.BackEnd_Works.service.PdfTextService;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.pdfbox.Loader;
-import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.text.PDFTextStripper;
 import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
 
-import java.io.IOException;
-import java.io.InputStream;
-import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 @Service
@@ -36,8 +49,26 @@ public class CVAnalysisServiceImpl implements CVAnalysisService {
     private final ChatClient chatClient;
     private final ResumeRepository resumeRepository;
     private final JobRepository jobRepository;
-    private final S3Service s3Service;
+    private final PdfTextService pdfTextService;
     private final ObjectMapper objectMapper;
+    private final CVAnalysisResultRepository cvAnalysisResultRepository;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final AiRateLimitService aiRateLimitService;
+
+    private final TokenCountEstimator tokenCountEstimator = new JTokkitTokenCountEstimator();
+
+    // Token ước tính cho câu trả lời JSON, tính vào hạn mức cùng với prompt
+    private static final int RESPONSE_TOKENS = 800;
+
+    // Tăng khi thay đổi ANALYSIS_PROMPT_TEMPLATE hoặc cách đọc kết quả để không dùng lại kết quả cũ
+    private static final int ANALYSIS_PROMPT_VERSION = 2;
+    private static final String RESULT_CACHE_PREFIX = "cv:analysis:";
+
+    @Value("${cv.analysis.cache-ttl-hours:168}")
+    private long cacheTtlHours;
+
+    // analysisKey → lần phân tích đang chạy trên node này
+    private final Map<String, CompletableFuture<CVAnalysisResponseDto>> inFlight = new ConcurrentHashMap<>();
 
     private static final String ANALYSIS_PROMPT_TEMPLATE = """
             Bạn là chuyên gia tuyển dụng IT. Hãy phân tích nội dung CV bên dưới và đánh giá độ phù hợp với vị trí công việc:
@@ -74,7 +105,7 @@ public class CVAnalysisServiceImpl implements CVAnalysisService {
     public CVAnalysisResponseDto analyzeResume(Long resumeId) {
         log.info("Analyzing resume with ID: {}", resumeId);
 
-        Resume resume = resumeRepository.findById(resumeId)
+        Resume resume = resumeRepository.findWithJobSkillsById(resumeId)
                 .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy resume với ID: " + resumeId));
 
         Job job = resume.getJob();
@@ -82,42 +113,66 @@ public class CVAnalysisServiceImpl implements CVAnalysisService {
             throw new EntityNotFoundException("Resume không liên kết với công việc nào");
         }
 
-        // Generate presigned URL for CV PDF
-        String presignedUrl = s3Service.generatePresignedUrl(resume.getFileKey(), Duration.ofMinutes(15));
-
-        // Extract text from PDF
-        String pdfText = extractTextFromPdfUrl(presignedUrl);
-
-        // Build prompt and call AI
-        String prompt = buildPrompt(job, pdfText);
-        String aiResponse = callAI(prompt);
+        // Kết quả đã có cho đúng CV, công việc và prompt này thì dùng lại, không gọi AI
+        String analysisKey = analysisKey(resume, job);
+        CVAnalysisResponseDto cached = findResult(analysisKey);
+        if (cached != null) {
+            cached.setJobName(job.getName());
+            cached.setResumeId(resumeId);
+            log.info("CV analysis for resume ID: {} served from cache", resumeId);
+            return cached;
+        }
 
-        // Parse response
-        CVAnalysisResponseDto result = parseAIResponse(aiResponse);
-        result.setJobName(job.getName());
-        result.setResumeId(resumeId);
+        // Các request giống nhau đồng thời chờ chung một lần phân tích
+        CompletableFuture<CVAnalysisResponseDto> created = new CompletableFuture<>();
+        CompletableFuture<CVAnalysisResponseDto> existing = inFlight.putIfAbsent(analysisKey, created);
+        if (existing != null) {
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException runtimeException ? runtimeException : e;
+            }
+        }
 
-        log.info("CV analysis completed for resume ID: {} with match score: {}%", resumeId, result.getMatchScore());
-        return result;
+        try {
+            // Extract text from PDF (cached by content hash, downloaded only on first analysis)
+            String pdfText = truncateCvText(pdfTextService.extractStoredText(resume.getFileKey()));
+
+            // Build prompt and call AI
+            String prompt = buildPrompt(job, pdfText);
+            String aiResponse = callAI(prompt);
+
+            // Parse response
+            CVAnalysisResponseDto result = parseAIResponse(aiResponse);
+            result.setJobName(job.getName());
+            result.setResumeId(resumeId);
+
+            saveResult(analysisKey, resume, job, result);
+            created.complete(result);
+
+            log.info("CV analysis completed for resume ID: {} with match score: {}%", resumeId, result.getMatchScore());
+            return result;
+        } catch (RuntimeException e) {
+            created.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(analysisKey, created);
+        }
     }
 
     @Override
-    public CVAnalysisResponseDto analyzeResumePreview(MultipartFile cvFile, Long jobId) {
+    public CVAnalysisResponseDto analyzeResumePreview(Path pdfFile, Long jobId) {
         log.info("Analyzing CV preview for job ID: {}", jobId);
 
-        if (cvFile == null || cvFile.isEmpty()) {
+        if (pdfFile == null || !Files.isRegularFile(pdfFile)) {
             throw new IllegalArgumentException("File CV không được rỗng");
         }
 
-        if (!"application/pdf".equals(cvFile.getContentType())) {
-            throw new IllegalArgumentException("Chỉ hỗ trợ file PDF");
-        }
-
-        Job job = jobRepository.findById(jobId)
+        Job job = jobRepository.findWithSkillsById(jobId)
                 .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy công việc với ID: " + jobId));
 
         // Extract text from uploaded PDF directly (no need to upload to S3)
-        String pdfText = extractTextFromMultipartFile(cvFile);
+        String pdfText = truncateCvText(pdfTextService.extractText(pdfFile));
 
         // Build prompt and call AI
         String prompt = buildPrompt(job, pdfText);
@@ -131,52 +186,89 @@ public class CVAnalysisServiceImpl implements CVAnalysisService {
         return result;
     }
 
-    /**
-     * Extract text from PDF file uploaded as MultipartFile
-     */
-    private String extractTextFromMultipartFile(MultipartFile file) {
-        try (InputStream inputStream = file.getInputStream();
-                PDDocument document = Loader.loadPDF(inputStream.readAllBytes())) {
-
-            PDFTextStripper stripper = new PDFTextStripper();
-            String text = stripper.getText(document);
+    // Khóa kết quả: đổi khi CV được nộp lại (fileKey/version), job được sửa hoặc prompt thay đổi
+    private String analysisKey(Resume resume, Job job) {
+        Instant jobRevision = job.getUpdatedAt() != null ? job.getUpdatedAt() : job.getCreatedAt();
+        String raw = String.join("|",
+                "v" + ANALYSIS_PROMPT_VERSION,
+                String.valueOf(resume.getFileKey()),
+                String.valueOf(resume.getVersion()),
+                String.valueOf(job.getId()),
+                jobRevision != null ? String.valueOf(jobRevision.toEpochMilli()) : "");
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(raw.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 
-            // Truncate if too long (AI has token limits)
-            if (text.length() > 8000) {
-                text = text.substring(0, 8000) + "\n... (CV đã được rút gọn)";
-            }
+    // Tìm trong Redis trước, sau đó database (và nạp lại vào Redis)
+    private CVAnalysisResponseDto findResult(String analysisKey) {
+        String json = null;
+        try {
+            json = redisTemplate.opsForValue().get(RESULT_CACHE_PREFIX + analysisKey);
+        } catch (Exception e) {
+            log.warn("Redis unavailable for CV analysis cache: {}", e.getMessage());
+        }
 
-            log.debug("Extracted {} characters from PDF", text.length());
-            return text;
+        if (json == null) {
+            json = cvAnalysisResultRepository.findByAnalysisKey(analysisKey)
+                    .map(CVAnalysisResult::getResult)
+                    .orElse(null);
+            if (json == null)
+                return null;
+            cacheResult(analysisKey, json);
+        }
 
-        } catch (IOException e) {
-            log.error("Error extracting text from PDF", e);
-            throw new RuntimeException("Không thể đọc nội dung file PDF: " + e.getMessage(), e);
+        try {
+            return objectMapper.readValue(json, CVAnalysisResponseDto.class);
+        } catch (JsonProcessingException e) {
+            log.warn("Ignoring unreadable cached CV analysis {}: {}", analysisKey, e.getMessage());
+            return null;
         }
     }
 
-    /**
-     * Extract text from PDF file at URL (presigned S3 URL)
-     */
-    private String extractTextFromPdfUrl(String pdfUrl) {
-        try (InputStream inputStream = new URL(pdfUrl).openStream();
-                PDDocument document = Loader.loadPDF(inputStream.readAllBytes())) {
+    private void saveResult(String analysisKey, Resume resume, Job job, CVAnalysisResponseDto result) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(result);
+        } catch (JsonProcessingException e) {
+            log.warn("Could not serialize CV analysis result: {}", e.getMessage());
+            return;
+        }
 
-            PDFTextStripper stripper = new PDFTextStripper();
-            String text = stripper.getText(document);
+        try {
+            cvAnalysisResultRepository.save(CVAnalysisResult.builder()
+                    .analysisKey(analysisKey)
+                    .resumeId(resume.getId())
+                    .jobId(job.getId())
+                    .matchScore(result.getMatchScore())
+                    .result(json)
+                    .createdAt(Instant.now())
+                    .build());
+        } catch (DataIntegrityViolationException e) {
+            // Node khác vừa lưu cùng kết quả
+            log.debug("CV analysis {} already stored", analysisKey);
+        }
 
-            // Truncate if too long
-            if (text.length() > 8000) {
-                text = text.substring(0, 8000) + "\n... (CV đã được rút gọn)";
-            }
+        cacheResult(analysisKey, json);
+    }
 
-            log.debug("Extracted {} characters from PDF URL", text.length());
-            return text;
+    private void cacheResult(String analysisKey, String json) {
+        try {
+            redisTemplate.opsForValue().set(RESULT_CACHE_PREFIX + analysisKey, json, Duration.ofHours(cacheTtlHours));
+        } catch (Exception e) {
+            log.warn("Redis unavailable for CV analysis cache: {}", e.getMessage());
+        }
+    }
 
-        } catch (IOException e) {
-            log.error("Error extracting text from PDF URL: {}", pdfUrl, e);
-            throw new RuntimeException("Không thể đọc nội dung file PDF từ URL", e);
+    // Truncate if too long (AI has token limits)
+    private String truncateCvText(String text) {
+        if (text.length() > 8000) {
+            text = text.substring(0, 8000) + "\n... (CV đã được rút gọn)";
         }
+        return text;
     }
 
     private String buildPrompt(Job job, String cvText) {
@@ -207,6 +299,8 @@ public class CVAnalysisServiceImpl implements CVAnalysisService {
         try {
             log.debug("Calling AI with prompt length: {} chars", prompt.length());
 
+            aiRateLimitService.acquire(tokenCountEstimator.estimate(prompt) + RESPONSE_TOKENS);
+
             String response = chatClient.prompt()
                     .user(prompt)
                     .call()
@@ -220,6 +314,7 @@ public class CVAnalysisServiceImpl implements CVAnalysisService {
         }
     }
 
+    // Phản hồi không đọc được thì báo lỗi (không trả điểm mặc định), để kết quả giả không bị lưu và dùng lại
     private CVAnalysisResponseDto parseAIResponse(String response) {
         try {
             // Extract JSON from response (AI might include markdown code blocks)
@@ -227,7 +322,10 @@ public class CVAnalysisServiceImpl implements CVAnalysisService {
 
             JsonNode root = objectMapper.readTree(jsonStr);
 
-            Integer matchScore = root.has("matchScore") ? root.get("matchScore").asInt() : 50;
+            if (!root.path("matchScore").isNumber()) {
+                throw new IllegalStateException("Thiếu matchScore trong phản hồi AI");
+            }
+            Integer matchScore = Math.max(0, Math.min(100, root.get("matchScore").asInt()));
 
             List<String> strengths = new ArrayList<>();
             if (root.has("strengths") && root.get("strengths").isArray()) {
@@ -256,14 +354,7 @@ public class CVAnalysisServiceImpl implements CVAnalysisService {
 
         } catch (Exception e) {
             log.error("Error parsing AI response: {}", response, e);
-            // Return default response on parse error
-            return CVAnalysisResponseDto.builder()
-                    .matchScore(50)
-                    .strengths(List.of("Không thể phân tích chi tiết"))
-                    .weaknesses(List.of("Vui lòng thử lại sau"))
-                    .suggestions(List.of("Đảm bảo CV ở định dạng rõ ràng"))
-                    .summary("Có lỗi xảy ra khi phân tích CV. Vui lòng thử lại.")
-                    .build();
+            throw new RuntimeException("Có lỗi xảy ra khi phân tích CV. Vui lòng thử lại.", e);
         }
     }
 
@@ -0,0 +1,215 @@
+package com.TranAn.BackEnd_Works.service.impl;
+
+import com.TranAn.BackEnd_Works.model.ChatMessage;
+import com.TranAn.BackEnd_Works.model.ChatSession;
+import com.TranAn.BackEnd_Works.model.constant.MessageRole;
+import com.TranAn.BackEnd_Works.repository.ChatSessionRepository;
+import com.TranAn.BackEnd_Works.service.ChatContextService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Prompt của mỗi lượt gồm: bản tóm tắt của session, các message chưa được tóm tắt (mới nhất trước, tới khi hết
+ * ngân sách token) và câu hỏi hiện tại, nên kích thước prompt không tăng theo độ dài cuộc hội thoại.
+ * <p>
+ * Sau mỗi lượt, các message đã ra khỏi cửa sổ {@code chat.context.recent-messages} được gộp vào bản tóm tắt
+ * (lưu trên bảng chat_sessions) theo lô, chạy nền nên không cộng thêm độ trễ cho lượt chat.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ChatContextServiceImpl implements ChatContextService {
+
+    // Token cho tiền tố vai trò và xuống dòng của mỗi message
+    private static final int MESSAGE_OVERHEAD_TOKENS = 8;
+
+    private final ChatClient chatClient;
+    private final ChatSessionRepository chatSessionRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final TokenCountEstimator tokenCountEstimator = new JTokkitTokenCountEstimator();
+
+    // Session đang được tóm tắt trên node này, tránh gọi AI trùng khi các lượt chat đến liên tiếp
+    private final Map<String, Boolean> compacting = new ConcurrentHashMap<>();
+
+    @Value("${chat.context.max-tokens:3000}")
+    private int maxTokens;
+
+    @Value("${chat.context.recent-messages:8}")
+    private int recentMessages;
+
+    @Value("${chat.context.summary-batch:6}")
+    private int summaryBatch;
+
+    @Value("${chat.context.summary-input-tokens:4000}")
+    private int summaryInputTokens;
+
+    @Value("${chat.context.summary-max-words:200}")
+    private int summaryMaxWords;
+
+    @Override
+    public String buildPrompt(Long userId, String sessionId, List<ChatMessage> history, String question) {
+        ChatSession session = chatSessionRepository.findByUserIdAndSessionId(userId, sessionId).orElse(null);
+        String summary = session != null ? session.getSummary() : null;
+        long summaryUntil = summaryUntil(session);
+
+        int remaining = maxTokens - estimate(question) - estimate(summary) - 2 * MESSAGE_OVERHEAD_TOKENS;
+
+        // Lấy các message chưa được tóm tắt từ mới nhất trở về trước cho tới khi hết ngân sách
+        Deque<String> lines = new ArrayDeque<>();
+        for (int i = history.size() - 1; i >= 0 && remaining > 0; i--) {
+            ChatMessage msg = history.get(i);
+            if (isSummarized(msg, summaryUntil))
+                break;
+
+            String prefix = msg.getRole() == MessageRole.USER ? "👤 Người dùng" : "🤖 Trợ lý";
+            String content = msg.getContent() != null ? msg.getContent() : "";
+            int tokens = estimate(content) + MESSAGE_OVERHEAD_TOKENS;
+
+            if (tokens > remaining) {
+                // Message quá dài: chỉ giữ phần đầu vừa với ngân sách còn lại rồi dừng
+                content = truncateToTokens(content, tokens - MESSAGE_OVERHEAD_TOKENS, remaining - MESSAGE_OVERHEAD_TOKENS);
+                if (content.isEmpty())
+                    break;
+                tokens = remaining;
+            }
+
+            lines.addFirst(prefix + ": " + content);
+            remaining -= tokens;
+        }
+
+        StringBuilder prompt = new StringBuilder();
+
+        if (summary != null && !summary.isBlank()) {
+            prompt.append("=== Tóm tắt phần trước của cuộc hội thoại ===\n\n");
+            prompt.append(summary).append("\n\n");
+        }
+
+        if (!lines.isEmpty()) {
+            prompt.append("=== Lịch sử cuộc hội thoại ===\n\n");
+            for (String line : lines)
+                prompt.append(line).append("\n\n");
+            prompt.append("=== Hết lịch sử ===\n\n");
+        }
+
+        prompt.append("👤 Người dùng (câu hỏi hiện tại): ").append(question);
+        prompt.append("\n\n🤖 Trợ lý: ");
+
+        return prompt.toString();
+    }
+
+    @Async
+    @Override
+    public void compact(Long userId, String sessionId, List<ChatMessage> history) {
+        String lockKey = userId + ":" + sessionId;
+        if (compacting.putIfAbsent(lockKey, Boolean.TRUE) != null)
+            return;
+
+        try {
+            ChatSession session = chatSessionRepository.findByUserIdAndSessionId(userId, sessionId).orElse(null);
+            if (session == null)
+                return;
+
+            long summaryUntil = summaryUntil(session);
+
+            // Các message cũ hơn cửa sổ giữ nguyên văn và chưa được tóm tắt
+            int windowStart = Math.max(0, history.size() - recentMessages);
+            List<ChatMessage> pending = new ArrayList<>();
+            int inputTokens = 0;
+            boolean capped = false;
+            for (ChatMessage msg : history.subList(0, windowStart)) {
+                if (msg.getCreatedAt() == null || isSummarized(msg, summaryUntil))
+                    continue;
+
+                int tokens = estimate(msg.getContent()) + MESSAGE_OVERHEAD_TOKENS;
+                if (!pending.isEmpty() && inputTokens + tokens > summaryInputTokens) {
+                    capped = true;
+                    break;
+                }
+                pending.add(msg);
+                inputTokens += tokens;
+            }
+
+            // Gộp theo lô để không gọi AI sau mỗi lượt chat
+            if (pending.isEmpty() || (pending.size() < summaryBatch && !capped))
+                return;
+
+            String newSummary = summarize(session.getSummary(), pending);
+            if (newSummary == null || newSummary.isBlank())
+                return;
+
+            Instant until = pending.get(pending.size() - 1).getCreatedAt().truncatedTo(ChronoUnit.MILLIS);
+            transactionTemplate.executeWithoutResult(tx ->
+                    chatSessionRepository.updateSummary(userId, sessionId, newSummary.trim(), until));
+
+            log.info("Compacted {} messages into summary for session {}", pending.size(), sessionId);
+        } catch (Exception e) {
+            // Lần sau sẽ thử lại; trong lúc đó prompt vẫn giữ các message mới nhất trong ngân sách token
+            log.warn("Could not summarize chat session {}: {}", sessionId, e.getMessage());
+        } finally {
+            compacting.remove(lockKey);
+        }
+    }
+
+    // ==== PRIVATE METHODS ====
+
+    private String summarize(String previousSummary, List<ChatMessage> messages) {
+        StringBuilder input = new StringBuilder();
+
+        if (previousSummary != null && !previousSummary.isBlank()) {
+            input.append("=== Bản tóm tắt hiện có ===\n\n").append(previousSummary).append("\n\n");
+        }
+
+        input.append("=== Các tin nhắn tiếp theo ===\n\n");
+        for (ChatMessage msg : messages) {
+            String prefix = msg.getRole() == MessageRole.USER ? "Người dùng" : "Trợ lý";
+            input.append(prefix).append(": ").append(msg.getContent()).append("\n\n");
+        }
+
+        return chatClient.prompt()
+                .system("Bạn tóm tắt cuộc hội thoại giữa người dùng và trợ lý AI. Viết lại một bản tóm tắt duy nhất "
+                        + "gộp bản tóm tắt hiện có với các tin nhắn tiếp theo, tối đa " + summaryMaxWords + " từ. "
+                        + "Giữ lại thông tin người dùng đã cung cấp, yêu cầu, quyết định và các câu hỏi còn dang dở. "
+                        + "Chỉ trả về nội dung bản tóm tắt.")
+                .user(input.toString())
+                .call()
+                .content();
+    }
+
+    // So sánh theo mili giây: thời gian trong cache Redis chỉ giữ tới mili giây
+    private long summaryUntil(ChatSession session) {
+        return session != null && session.getSummaryUntil() != null ? session.getSummaryUntil().toEpochMilli() : Long.MIN_VALUE;
+    }
+
+    private boolean isSummarized(ChatMessage msg, long summaryUntil) {
+        return msg.getCreatedAt() != null && msg.getCreatedAt().toEpochMilli() <= summaryUntil;
+    }
+
+    private int estimate(String text) {
+        return text == null || text.isEmpty() ? 0 : tokenCountEstimator.estimate(text);
+    }
+
+    // Cắt theo tỉ lệ ký tự/token của chính đoạn văn bản
+    private String truncateToTokens(String content, int contentTokens, int maxTokens) {
+        if (maxTokens <= 0 || contentTokens <= 0)
+            return "";
+        int length = (int) ((long) content.length() * maxTokens / contentTokens);
+        return length >= content.length() ? content : content.substring(0, length) + "...";
+    }
+}
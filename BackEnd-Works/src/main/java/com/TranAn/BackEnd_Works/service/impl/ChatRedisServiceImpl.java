@@ -1,141 +1,256 @@
 package com.TranAn.BackEnd_Works.service.impl;
 
 import com.TranAn.BackEnd_Works.model.ChatMessage;
+import com.TranAn.BackEnd_Works.model.constant.MessageRole;
 import com.TranAn.BackEnd_Works.service.ChatRedisService;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Objects;
 import java.util.Set;
-import java.util.stream.Collectors;
 
+/**
+ * Lịch sử chat được lưu dưới dạng Redis list, mỗi phần tử là một message (JSON rút gọn):
+ * thêm message là RPUSH + LTRIM + EXPIRE trong một lệnh, không phải đọc lại và ghi đè cả lịch sử,
+ * nên chi phí không phụ thuộc độ dài lịch sử và các tab gửi đồng thời không làm mất message của nhau.
+ * <p>
+ * Mỗi session có một bộ đếm version, tăng ở mỗi lần append: lịch sử nạp lại từ Database chỉ được ghi khi version
+ * không đổi kể từ trước lúc truy vấn, nên không ghi đè (làm mất) message được append trong lúc nạp.
+ * <p>
+ * Mỗi user có một sorted set chỉ mục các session đang có trong Redis (điểm = thời điểm hết hạn),
+ * cập nhật cùng lệnh với list; key dùng hash tag {userId} để list và chỉ mục nằm cùng slot khi chạy cluster.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class ChatRedisServiceImpl implements ChatRedisService {
 
-    private final RedisTemplate<String, List<ChatMessage>> redisChatTemplate;
+    private final RedisTemplate<String, String> redisTemplate;
     private final ObjectMapper objectMapper = createObjectMapper();
-    
+
     private static ObjectMapper createObjectMapper() {
         ObjectMapper mapper = new ObjectMapper();
-        mapper.registerModule(new JavaTimeModule());
-        mapper.configure(com.fasterxml.jackson.databind.DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        mapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
         return mapper;
     }
 
-    private static final String CHAT_HISTORY_PREFIX = "chat::history:";
+    // Key mới (kiểu list); key cũ "chat::history:" kiểu string sẽ tự hết hạn
+    private static final String CHAT_HISTORY_PREFIX = "chat::messages:";
+    private static final String CHAT_SESSIONS_PREFIX = "chat::sessions:";
     private static final Duration DEFAULT_EXPIRATION = Duration.ofHours(24); // Chat history tồn tại 24h trong Redis
 
+    // KEYS[1] = list, KEYS[2] = chỉ mục session, KEYS[3] = version;
+    // ARGV[1] = TTL (giây), ARGV[2] = sessionId, ARGV[3] = hết hạn (ms)
+
+    // Thay thế toàn bộ lịch sử nếu version vẫn là ARGV[4] (đọc trước khi truy vấn Database): ARGV[5..] = các message
+    private static final RedisScript<Long> REPLACE_SCRIPT = new DefaultRedisScript<>("""
+            if (redis.call('GET', KEYS[3]) or '') ~= ARGV[4] then
+                return -1
+            end
+            redis.call('DEL', KEYS[1])
+            if #ARGV < 5 then
+                redis.call('ZREM', KEYS[2], ARGV[2])
+                return 0
+            end
+            redis.call('RPUSH', KEYS[1], unpack(ARGV, 5))
+            redis.call('EXPIRE', KEYS[1], ARGV[1])
+            redis.call('ZADD', KEYS[2], ARGV[3], ARGV[2])
+            redis.call('EXPIRE', KEYS[2], ARGV[1])
+            return #ARGV - 4
+            """, Long.class);
+
+    // Tăng version rồi nối một message (ARGV[4], id ARGV[6]) và giữ tối đa ARGV[5] message cuối. RPUSHX chỉ nối
+    // vào lịch sử đã nạp, tránh tạo list chỉ chứa phần đuôi của cuộc hội thoại; message đã có trong list (lần nạp
+    // lại đọc được message đã commit trước khi append) thì không nối thêm
+    private static final RedisScript<Long> APPEND_SCRIPT = new DefaultRedisScript<>("""
+            redis.call('INCR', KEYS[3])
+            redis.call('EXPIRE', KEYS[3], ARGV[1])
+            if redis.call('EXISTS', KEYS[1]) == 0 then
+                return 0
+            end
+            if ARGV[6] ~= '' then
+                for _, cached in ipairs(redis.call('LRANGE', KEYS[1], 0, -1)) do
+                    if tostring(cjson.decode(cached).i) == ARGV[6] then
+                        return 0
+                    end
+                end
+            end
+            local size = redis.call('RPUSH', KEYS[1], ARGV[4])
+            redis.call('LTRIM', KEYS[1], -tonumber(ARGV[5]), -1)
+            redis.call('EXPIRE', KEYS[1], ARGV[1])
+            redis.call('ZADD', KEYS[2], ARGV[3], ARGV[2])
+            redis.call('EXPIRE', KEYS[2], ARGV[1])
+            return size
+            """, Long.class);
+
+    /**
+     * Dạng lưu rút gọn của một message: tên field ngắn, bỏ field null, không kèm entity User
+     */
+    private record CachedMessage(
+            @JsonProperty("i") Long id,
+            @JsonProperty("r") MessageRole role,
+            @JsonProperty("c") String content,
+            @JsonProperty("u") String attachmentUrls,
+            @JsonProperty("t") String attachmentTypes,
+            @JsonProperty("at") Long createdAt,
+            @JsonProperty("by") String createdBy) {
+
+        static CachedMessage from(ChatMessage message) {
+            return new CachedMessage(
+                    message.getId(),
+                    message.getRole(),
+                    message.getContent(),
+                    message.getAttachmentUrls(),
+                    message.getAttachmentTypes(),
+                    message.getCreatedAt() != null ? message.getCreatedAt().toEpochMilli() : null,
+                    message.getCreatedBy());
+        }
+
+        ChatMessage toChatMessage(String sessionId) {
+            ChatMessage message = ChatMessage.builder()
+                    .id(id)
+                    .sessionId(sessionId)
+                    .role(role)
+                    .content(content)
+                    .attachmentUrls(attachmentUrls)
+                    .attachmentTypes(attachmentTypes)
+                    .build();
+            message.setCreatedAt(createdAt != null ? Instant.ofEpochMilli(createdAt) : null);
+            message.setCreatedBy(createdBy);
+            return message;
+        }
+    }
+
     private String buildKey(String userId, String sessionId) {
-        return CHAT_HISTORY_PREFIX + userId + ":" + sessionId;
+        return CHAT_HISTORY_PREFIX + "{" + userId + "}:" + sessionId;
+    }
+
+    private String buildVersionKey(String userId, String sessionId) {
+        return buildKey(userId, sessionId) + ":ver";
+    }
+
+    private String buildSessionsKey(String userId) {
+        return CHAT_SESSIONS_PREFIX + "{" + userId + "}";
     }
 
     @Override
-    public void saveChatHistory(String userId, String sessionId, List<ChatMessage> messages, Duration expire) {
+    public String getHistoryVersion(String userId, String sessionId) {
+        return Objects.toString(redisTemplate.opsForValue().get(buildVersionKey(userId, sessionId)), "");
+    }
+
+    @Override
+    public void saveChatHistory(String userId, String sessionId, List<ChatMessage> messages, Duration expire,
+            String expectedVersion) {
         String key = buildKey(userId, sessionId);
-        redisChatTemplate.opsForValue().set(key, messages, expire != null ? expire : DEFAULT_EXPIRATION);
+        List<ChatMessage> latest = messages.size() > MAX_HISTORY_MESSAGES
+                ? messages.subList(messages.size() - MAX_HISTORY_MESSAGES, messages.size())
+                : messages;
+
+        List<String> args = new ArrayList<>(scriptArgs(sessionId, expire));
+        args.add(expectedVersion);
+        for (ChatMessage message : latest)
+            args.add(serialize(message));
+
+        Long saved = redisTemplate.execute(REPLACE_SCRIPT,
+                List.of(key, buildSessionsKey(userId), buildVersionKey(userId, sessionId)), args.toArray());
+        if (saved != null && saved < 0)
+            log.debug("Chat history {} changed while loading, not cached", key);
     }
 
     @Override
     public List<ChatMessage> getChatHistory(String userId, String sessionId) {
         String key = buildKey(userId, sessionId);
-        Object rawValue = redisChatTemplate.opsForValue().get(key);
-        
-        if (rawValue == null) {
+        List<String> values = redisTemplate.opsForList().range(key, 0, -1);
+
+        if (values == null || values.isEmpty()) {
             return Collections.emptyList();
         }
-        
-        // Nếu đã là List<ChatMessage> thì trả về luôn
-        if (rawValue instanceof List) {
-            List<?> list = (List<?>) rawValue;
-            
-            // Kiểm tra phần tử đầu tiên để xác định kiểu
-            if (list.isEmpty()) {
+
+        List<ChatMessage> messages = new ArrayList<>(values.size());
+        for (String value : values) {
+            try {
+                messages.add(objectMapper.readValue(value, CachedMessage.class).toChatMessage(sessionId));
+            } catch (JsonProcessingException e) {
+                // Dữ liệu hỏng: xóa để lần sau nạp lại từ Database
+                log.error("Error reading cached chat message, evicting {}", key, e);
+                redisTemplate.delete(key);
                 return Collections.emptyList();
             }
-            
-            Object firstElement = list.get(0);
-            
-            // Nếu đã là ChatMessage thì return
-            if (firstElement instanceof ChatMessage) {
-                @SuppressWarnings("unchecked")
-                List<ChatMessage> messages = (List<ChatMessage>) list;
-                return messages;
-            }
-            
-            // Nếu là LinkedHashMap thì convert sang ChatMessage
-            if (firstElement instanceof LinkedHashMap) {
-                try {
-                    return list.stream()
-                            .map(item -> {
-                                if (item instanceof LinkedHashMap) {
-                                    return objectMapper.convertValue(item, ChatMessage.class);
-                                }
-                                return (ChatMessage) item;
-                            })
-                            .collect(Collectors.toList());
-                } catch (Exception e) {
-                    log.error("Error converting LinkedHashMap to ChatMessage", e);
-                    return Collections.emptyList();
-                }
-            }
         }
-        
-        return Collections.emptyList();
+        return messages;
     }
 
     @Override
     public void addMessage(String userId, String sessionId, ChatMessage message, Duration expire) {
-        String key = buildKey(userId, sessionId);
-        List<ChatMessage> history = getChatHistory(userId, sessionId);
+        List<String> args = new ArrayList<>(scriptArgs(sessionId, expire));
+        args.add(serialize(message));
+        args.add(String.valueOf(MAX_HISTORY_MESSAGES));
+        args.add(message.getId() != null ? String.valueOf(message.getId()) : "");
 
-        if (history.isEmpty()) {
-            history = new ArrayList<>();
-        } else {
-            history = new ArrayList<>(history); // Tạo mutable list
-        }
-
-        history.add(message);
-        saveChatHistory(userId, sessionId, history, expire != null ? expire : DEFAULT_EXPIRATION);
+        redisTemplate.execute(APPEND_SCRIPT,
+                List.of(buildKey(userId, sessionId), buildSessionsKey(userId), buildVersionKey(userId, sessionId)),
+                args.toArray());
     }
 
     @Override
     public void deleteChatHistory(String userId, String sessionId) {
-        String key = buildKey(userId, sessionId);
-        redisChatTemplate.delete(key);
+        // Tăng version để lần nạp đang chạy không ghi lại lịch sử vừa xóa
+        redisTemplate.opsForValue().increment(buildVersionKey(userId, sessionId));
+        redisTemplate.expire(buildVersionKey(userId, sessionId), DEFAULT_EXPIRATION);
+        redisTemplate.delete(buildKey(userId, sessionId));
+        redisTemplate.opsForZSet().remove(buildSessionsKey(userId), sessionId);
     }
 
     @Override
     public boolean existsChatHistory(String userId, String sessionId) {
         String key = buildKey(userId, sessionId);
-        return Boolean.TRUE.equals(redisChatTemplate.hasKey(key));
+        return Boolean.TRUE.equals(redisTemplate.hasKey(key));
     }
 
     @Override
     public List<String> getAllSessionIds(String userId) {
-        String keyPattern = CHAT_HISTORY_PREFIX + userId + ":*";
-        Set<String> keys = redisChatTemplate.keys(keyPattern);
+        String sessionsKey = buildSessionsKey(userId);
+
+        // Bỏ các session đã hết hạn khỏi chỉ mục, session hết hạn muộn nhất (dùng gần nhất) lên đầu
+        redisTemplate.opsForZSet().removeRangeByScore(sessionsKey, Double.NEGATIVE_INFINITY,
+                System.currentTimeMillis());
+        Set<String> sessionIds = redisTemplate.opsForZSet().reverseRange(sessionsKey, 0, -1);
 
-        if (keys == null || keys.isEmpty()) {
+        if (sessionIds == null || sessionIds.isEmpty()) {
             return Collections.emptyList();
         }
 
-        List<String> sessionIds = new ArrayList<>();
-        for (String key : keys) {
-            // Extract sessionId from key: "chat::history:userId:sessionId"
-            String sessionId = key.substring(key.lastIndexOf(":") + 1);
-            sessionIds.add(sessionId);
+        return new ArrayList<>(sessionIds);
+    }
+
+    private String serialize(ChatMessage message) {
+        try {
+            return objectMapper.writeValueAsString(CachedMessage.from(message));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Không thể ghi message vào Redis: " + e.getMessage(), e);
         }
+    }
 
-        return sessionIds;
+    private List<String> scriptArgs(String sessionId, Duration expire) {
+        Duration ttl = expire != null ? expire : DEFAULT_EXPIRATION;
+        return List.of(
+                String.valueOf(ttl.toSeconds()),
+                sessionId,
+                String.valueOf(System.currentTimeMillis() + ttl.toMillis()));
     }
 }
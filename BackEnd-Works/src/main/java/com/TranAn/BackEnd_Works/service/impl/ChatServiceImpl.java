@@ -4,27 +4,44 @@ import com.TranAn.BackEnd_Works.dto.request.ChatRequest;
 import com.TranAn.BackEnd_Works.dto.response.ChatMessageDto;
 import com.TranAn.BackEnd_Works.dto.response.ChatSessionDto;
 import com.TranAn.BackEnd_Works.model.ChatMessage;
+import com.TranAn.BackEnd_Works.model.ChatSession;
 import com.TranAn.BackEnd_Works.model.User;
 import com.TranAn.BackEnd_Works.model.constant.MessageRole;
 import com.TranAn.BackEnd_Works.repository.ChatMessageRepository;
+import com.TranAn.BackEnd_Works.repository.ChatSessionRepository;
 import com.TranAn.BackEnd_Works.repository.UserRepository;
+import com.TranAn.BackEnd_Works.service.ChatContextService;
 import com.TranAn.BackEnd_Works.service.ChatRedisService;
 import com.TranAn.BackEnd_Works.service.ChatService;
+import com.TranAn.BackEnd_Works.service.PdfTextService;
 import com.TranAn.BackEnd_Works.service.S3Service;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.TranAn.BackEnd_Works.util.TransactionUtils;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.UrlResource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.MimeTypeUtils;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
@@ -34,25 +51,148 @@ public class ChatServiceImpl implements ChatService {
 
     private final ChatClient chatClient;
     private final ChatMessageRepository chatMessageRepository;
+    private final ChatSessionRepository chatSessionRepository;
     private final ChatRedisService chatRedisService;
+    private final ChatContextService chatContextService;
     private final UserRepository userRepository;
     private final S3Service s3Service;
+    private final PdfTextService pdfTextService;
     private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
 
-    private static final int MAX_HISTORY_MESSAGES = 50;
+    @Value("${chat.stream.timeout-ms:180000}")
+    private long streamTimeoutMs;
+
+    // Transaction đọc riêng để nạp lịch sử: snapshot bắt đầu sau khi đọc version của cache (xem loadHistory)
+    private TransactionTemplate historyReadTemplate;
+
+    private static final String EVENT_TOKEN = "token";
+    private static final String EVENT_DONE = "done";
+    private static final String EVENT_ERROR = "error";
     private static final Duration REDIS_EXPIRE = Duration.ofHours(24);
     private static final long MAX_FILE_SIZE = 10 * 1024 * 1024; // 10MB for images
     private static final long MAX_PDF_SIZE = 20 * 1024 * 1024; // 20MB for PDFs
     private static final int MAX_FILES = 5;
+    private static final int MAX_DOCUMENT_CHARS = 8000; // Mỗi tài liệu đính kèm đưa vào prompt
     private static final Set<String> ALLOWED_IMAGE_TYPES = Set.of(
             "image/jpeg", "image/jpg", "image/png", "image/gif", "image/webp");
     private static final Set<String> ALLOWED_DOCUMENT_TYPES = Set.of(
             "application/pdf", "text/plain", "text/markdown");
 
+    // Một lượt hỏi đáp đã chuẩn bị xong: message của user đã lưu, prompt đã dựng
+    private record ChatTurn(User user, String userId, String sessionId, String prompt,
+                            List<String> uploadedUrls, List<String> fileTypes,
+                            List<ChatMessage> history, ChatMessage userMessage) {
+    }
+
+    // File đính kèm đã upload lên S3 và văn bản đã trích xuất từ tài liệu
+    private record Attachments(List<String> uploadedUrls, List<String> fileTypes, String documentText) {
+    }
+
+    @PostConstruct
+    void initHistoryReadTemplate() {
+        historyReadTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        historyReadTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        historyReadTemplate.setReadOnly(true);
+    }
+
     @Override
     @Transactional
     public String generation(ChatRequest request, List<MultipartFile> files, String userEmail) {
 
+        // 1-6. Lưu message của user và dựng prompt với lịch sử
+        ChatTurn turn = prepareTurn(request, uploadAttachments(files), userEmail);
+
+        // 7. Gọi AI với multimodal support
+        String response;
+        try {
+            response = buildPrompt(turn)
+                    .call()
+                    .content();
+        } catch (Exception e) {
+            log.error("Error calling AI service", e);
+            throw new RuntimeException("Lỗi kết nối AI: " + e.getMessage(), e);
+        }
+
+        // 8. Tạo và lưu response của AI
+        saveAssistantMessage(turn, response);
+
+        return response;
+    }
+
+    @Override
+    public SseEmitter streamGeneration(ChatRequest request, List<MultipartFile> files, String userEmail) {
+
+        // Upload S3 và trích xuất PDF chạy trước, ngoài transaction: không giữ connection DB trong lúc chờ I/O
+        Attachments attachments = uploadAttachments(files);
+
+        // Lưu message của user trong transaction riêng, không giữ connection DB trong lúc AI trả lời
+        ChatTurn turn = transactionTemplate.execute(tx -> prepareTurn(request, attachments, userEmail));
+
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+        AtomicBoolean clientGone = new AtomicBoolean();
+        emitter.onTimeout(() -> {
+            clientGone.set(true);
+            emitter.complete();
+        });
+        emitter.onError(e -> clientGone.set(true));
+
+        // Client ngắt kết nối vẫn nhận đủ câu trả lời để lưu lại, chỉ ngừng gửi
+        StringBuilder answer = new StringBuilder();
+        buildPrompt(turn)
+                .stream()
+                .content()
+                .subscribe(
+                        token -> {
+                            answer.append(token);
+                            send(emitter, clientGone, SseEmitter.event()
+                                    .name(EVENT_TOKEN)
+                                    .data(Map.of("content", token), MediaType.APPLICATION_JSON));
+                        },
+                        error -> {
+                            log.error("Error streaming AI response in session {}", turn.sessionId(), error);
+                            send(emitter, clientGone, SseEmitter.event()
+                                    .name(EVENT_ERROR)
+                                    .data(Map.of("message", "Lỗi kết nối AI: " + error.getMessage()),
+                                            MediaType.APPLICATION_JSON));
+                            emitter.complete();
+                        },
+                        () -> {
+                            try {
+                                ChatMessage assistantMessage = saveAssistantMessage(turn, answer.toString());
+                                send(emitter, clientGone, SseEmitter.event()
+                                        .name(EVENT_DONE)
+                                        .data(convertToDto(assistantMessage), MediaType.APPLICATION_JSON));
+                            } catch (Exception e) {
+                                log.error("Error saving streamed AI response in session {}", turn.sessionId(), e);
+                                send(emitter, clientGone, SseEmitter.event()
+                                        .name(EVENT_ERROR)
+                                        .data(Map.of("message", "Không thể lưu câu trả lời"),
+                                                MediaType.APPLICATION_JSON));
+                            }
+                            emitter.complete();
+                        });
+
+        return emitter;
+    }
+
+    /**
+     * Nạp lịch sử từ Database và cache vào Redis. Version được đọc trước khi truy vấn, và truy vấn chạy trong
+     * transaction mới để snapshot không cũ hơn version đó: message nào append sau lúc đọc version đều làm
+     * lần ghi cache bị bỏ qua, thay vì bị ghi đè mất.
+     */
+    private List<ChatMessage> loadHistory(String userId, String sessionId, Supplier<List<ChatMessage>> query) {
+        String version = chatRedisService.getHistoryVersion(userId, sessionId);
+        List<ChatMessage> history = historyReadTemplate.execute(tx -> query.get());
+
+        if (!history.isEmpty()) {
+            chatRedisService.saveChatHistory(userId, sessionId, history, REDIS_EXPIRE, version);
+        }
+        return history;
+    }
+
+    private ChatTurn prepareTurn(ChatRequest request, Attachments attachments, String userEmail) {
+
         // 1. Lấy thông tin user
         User user = userRepository.findByEmail(userEmail)
                 .orElseThrow(() -> new EntityNotFoundException("User not found with email: " + userEmail));
@@ -62,23 +202,57 @@ public class ChatServiceImpl implements ChatService {
         // 2. Lấy lịch sử từ Redis trước
         List<ChatMessage> history = chatRedisService.getChatHistory(userId, request.getSessionId());
 
-        // 3. Nếu Redis không có, load từ Database
+        // 3. Nếu Redis không có, load N message gần nhất từ Database
         if (history.isEmpty()) {
-            history = chatMessageRepository
-                    .findByUserAndSessionIdOrderByCreatedAtAsc(user, request.getSessionId())
-                    .stream()
-                    .limit(MAX_HISTORY_MESSAGES)
-                    .collect(Collectors.toList());
-
-            // Cache vào Redis
-            if (!history.isEmpty()) {
-                chatRedisService.saveChatHistory(userId, request.getSessionId(), history, REDIS_EXPIRE);
-            }
+            history = loadHistory(userId, request.getSessionId(), () -> {
+                List<ChatMessage> latest = new ArrayList<>(chatMessageRepository.findTopNByUserAndSessionId(
+                        user, request.getSessionId(), PageRequest.of(0, ChatRedisService.MAX_HISTORY_MESSAGES)));
+                Collections.reverse(latest);
+                return latest;
+            });
         }
 
-        // 4. Xử lý file uploads (nếu có)
+        // 4. File đính kèm đã được upload trước (uploadAttachments)
+        List<String> uploadedUrls = attachments.uploadedUrls();
+        List<String> fileTypes = attachments.fileTypes();
+
+        // 5. Tạo và lưu message của user
+        ChatMessage userMessage = ChatMessage.builder()
+                .user(user)
+                .sessionId(request.getSessionId())
+                .role(MessageRole.USER)
+                .content(request.getQuestion())
+                .attachmentUrls(uploadedUrls.isEmpty() ? null : convertListToJson(uploadedUrls))
+                .attachmentTypes(fileTypes.isEmpty() ? null : String.join(",", fileTypes))
+                .build();
+
+        // Lưu vào Database
+        chatMessageRepository.save(userMessage);
+        recordInSession(user, userMessage);
+
+        // Thêm vào Redis sau khi commit: lần nạp lại từ Database chạy song song sẽ thấy message hoặc bị version chặn
+        TransactionUtils.runAfterCommit(() ->
+                chatRedisService.addMessage(userId, request.getSessionId(), userMessage, REDIS_EXPIRE));
+
+        log.info("User {} sent message in session {} with {} files",
+                user.getEmail(), request.getSessionId(), uploadedUrls.size());
+
+        // 6. Xây dựng prompt với tóm tắt và lịch sử trong giới hạn token
+        String question = attachments.documentText().isEmpty()
+                ? request.getQuestion()
+                : request.getQuestion() + "\n\n" + attachments.documentText();
+        String promptWithHistory = chatContextService.buildPrompt(
+                user.getId(), request.getSessionId(), history, question);
+
+        return new ChatTurn(user, userId, request.getSessionId(), promptWithHistory, uploadedUrls, fileTypes,
+                history, userMessage);
+    }
+
+    // Xử lý file uploads (nếu có): upload S3, tạo presigned URL, trích xuất văn bản của tài liệu
+    private Attachments uploadAttachments(List<MultipartFile> files) {
         List<String> uploadedUrls = new ArrayList<>();
         List<String> fileTypes = new ArrayList<>();
+        StringBuilder documentText = new StringBuilder();
 
         if (files != null && !files.isEmpty()) {
             validateFiles(files);
@@ -88,8 +262,13 @@ public class ChatServiceImpl implements ChatService {
                 String fileName = UUID.randomUUID().toString() + "_" + file.getOriginalFilename();
                 String folder = "chat-attachments";
 
+                // Tài liệu được đưa vào prompt dưới dạng văn bản (PDF dùng chung cache trích xuất theo nội dung)
+                if (ALLOWED_DOCUMENT_TYPES.contains(contentType)) {
+                    appendDocumentText(documentText, file.getOriginalFilename(), extractDocumentText(file));
+                }
+
                 // Upload to S3 (don't get public URL yet)
-                String s3Key = s3Service.uploadFile(file, folder, fileName, false);
+                s3Service.uploadFile(file, folder, fileName, false);
 
                 // Generate presigned URL valid for 1 hour (enough for AI to download)
                 String presignedUrl = s3Service.generatePresignedUrl(
@@ -103,99 +282,90 @@ public class ChatServiceImpl implements ChatService {
             }
         }
 
-        // 5. Tạo và lưu message của user
-        ChatMessage userMessage = ChatMessage.builder()
-                .user(user)
-                .sessionId(request.getSessionId())
-                .role(MessageRole.USER)
-                .content(request.getQuestion())
-                .attachmentUrls(uploadedUrls.isEmpty() ? null : convertListToJson(uploadedUrls))
-                .attachmentTypes(fileTypes.isEmpty() ? null : String.join(",", fileTypes))
-                .build();
-
-        // Lưu vào Database
-        chatMessageRepository.save(userMessage);
-
-        // Thêm vào Redis
-        chatRedisService.addMessage(userId, request.getSessionId(), userMessage, REDIS_EXPIRE);
-
-        log.info("User {} sent message in session {} with {} files",
-                user.getEmail(), request.getSessionId(), uploadedUrls.size());
+        return new Attachments(uploadedUrls, fileTypes, documentText.toString().strip());
+    }
 
-        // 6. Xây dựng prompt với lịch sử
-        String promptWithHistory = buildPromptWithHistory(history, request.getQuestion());
+    private ChatClient.ChatClientRequestSpec buildPrompt(ChatTurn turn) {
+        if (turn.uploadedUrls().isEmpty()) {
+            // Text-only prompt
+            return chatClient.prompt()
+                    .user(turn.prompt());
+        }
 
-        // 7. Gọi AI với multimodal support
-        String response;
-        try {
-            if (!uploadedUrls.isEmpty()) {
-                // Multimodal prompt with files
-                response = chatClient.prompt()
-                        .user(u -> {
-                            u.text(promptWithHistory);
-                            // Add files as media
-                            for (int i = 0; i < uploadedUrls.size(); i++) {
-                                String url = uploadedUrls.get(i);
-                                String mimeType = fileTypes.get(i);
-                                try {
-                                    if (ALLOWED_IMAGE_TYPES.contains(mimeType)) {
-                                        u.media(MimeTypeUtils.parseMimeType(mimeType), new UrlResource(url));
-                                    }
-                                    // PDFs and documents are already described in text
-                                } catch (Exception e) {
-                                    log.warn("Could not add file as media: {}", url, e);
-                                }
+        // Multimodal prompt with files
+        return chatClient.prompt()
+                .user(u -> {
+                    u.text(turn.prompt());
+                    // Add files as media
+                    for (int i = 0; i < turn.uploadedUrls().size(); i++) {
+                        String url = turn.uploadedUrls().get(i);
+                        String mimeType = turn.fileTypes().get(i);
+                        try {
+                            if (ALLOWED_IMAGE_TYPES.contains(mimeType)) {
+                                u.media(MimeTypeUtils.parseMimeType(mimeType), new UrlResource(url));
                             }
-                        })
-                        .call()
-                        .content();
-            } else {
-                // Text-only prompt
-                response = chatClient.prompt()
-                        .user(promptWithHistory)
-                        .call()
-                        .content();
-            }
-        } catch (Exception e) {
-            log.error("Error calling AI service", e);
-            throw new RuntimeException("Lỗi kết nối AI: " + e.getMessage(), e);
-        }
+                            // PDFs and documents are added to the prompt as extracted text
+                        } catch (Exception e) {
+                            log.warn("Could not add file as media: {}", url, e);
+                        }
+                    }
+                });
+    }
 
-        // 7. Tạo và lưu response của AI
+    private ChatMessage saveAssistantMessage(ChatTurn turn, String response) {
         ChatMessage assistantMessage = ChatMessage.builder()
-                .user(user)
-                .sessionId(request.getSessionId())
+                .user(turn.user())
+                .sessionId(turn.sessionId())
                 .role(MessageRole.ASSISTANT)
                 .content(response)
                 .build();
+        // Khi stream, message được lưu trên thread của AI client (không có SecurityContext cho auditing)
+        assistantMessage.setCreatedBy(turn.user().getEmail());
 
         // Lưu vào Database
-        chatMessageRepository.save(assistantMessage);
+        transactionTemplate.executeWithoutResult(tx -> {
+            chatMessageRepository.save(assistantMessage);
+            recordInSession(turn.user(), assistantMessage);
+        });
 
         // Thêm vào Redis
-        chatRedisService.addMessage(userId, request.getSessionId(), assistantMessage, REDIS_EXPIRE);
+        chatRedisService.addMessage(turn.userId(), turn.sessionId(), assistantMessage, REDIS_EXPIRE);
 
-        log.info("AI responded in session {}", request.getSessionId());
+        log.info("AI responded in session {}", turn.sessionId());
 
-        return response;
+        // Gộp các message cũ vào bản tóm tắt (chạy nền)
+        List<ChatMessage> fullHistory = new ArrayList<>(turn.history());
+        fullHistory.add(turn.userMessage());
+        fullHistory.add(assistantMessage);
+        chatContextService.compact(turn.user().getId(), turn.sessionId(), fullHistory);
+
+        return assistantMessage;
     }
 
-    private String buildPromptWithHistory(List<ChatMessage> history, String currentQuestion) {
-        StringBuilder prompt = new StringBuilder();
+    // Cập nhật tóm tắt session (message đầu/cuối, số message) cùng transaction với message
+    private void recordInSession(User user, ChatMessage message) {
+        String preview = message.getContent() != null && message.getContent().length() > ChatSession.PREVIEW_LENGTH
+                ? message.getContent().substring(0, ChatSession.PREVIEW_LENGTH)
+                : message.getContent();
+        Instant at = message.getCreatedAt() != null ? message.getCreatedAt() : Instant.now();
+
+        chatSessionRepository.recordMessage(
+                user.getId(),
+                message.getSessionId(),
+                message.getRole() == MessageRole.USER ? preview : null,
+                preview,
+                at);
+    }
 
-        if (!history.isEmpty()) {
-            prompt.append("=== Lịch sử cuộc hội thoại ===\n\n");
-            for (ChatMessage msg : history) {
-                String prefix = msg.getRole() == MessageRole.USER ? "👤 Người dùng" : "🤖 Trợ lý";
-                prompt.append(prefix).append(": ").append(msg.getContent()).append("\n\n");
-            }
-            prompt.append("=== Hết lịch sử ===\n\n");
+    private void send(SseEmitter emitter, AtomicBoolean clientGone, SseEmitter.SseEventBuilder event) {
+        if (clientGone.get())
+            return;
+        try {
+            emitter.send(event);
+        } catch (IOException | IllegalStateException e) {
+            // Client đã đóng kết nối
+            clientGone.set(true);
         }
-
-        prompt.append("👤 Người dùng (câu hỏi hiện tại): ").append(currentQuestion);
-        prompt.append("\n\n🤖 Trợ lý: ");
-
-        return prompt.toString();
     }
 
     @Override
@@ -209,14 +379,12 @@ public class ChatServiceImpl implements ChatService {
         // Lấy từ Redis trước
         List<ChatMessage> history = chatRedisService.getChatHistory(userId, sessionId);
 
-        // Nếu Redis không có, load từ Database
+        // Redis chỉ giữ N message cuối: nếu đã đầy thì có thể còn message cũ hơn, load đủ từ Database
         if (history.isEmpty()) {
+            history = loadHistory(userId, sessionId,
+                    () -> chatMessageRepository.findByUserAndSessionIdOrderByCreatedAtAsc(user, sessionId));
+        } else if (history.size() >= ChatRedisService.MAX_HISTORY_MESSAGES) {
             history = chatMessageRepository.findByUserAndSessionIdOrderByCreatedAtAsc(user, sessionId);
-
-            // Cache vào Redis
-            if (!history.isEmpty()) {
-                chatRedisService.saveChatHistory(userId, sessionId, history, REDIS_EXPIRE);
-            }
         }
 
         return history.stream()
@@ -234,9 +402,10 @@ public class ChatServiceImpl implements ChatService {
 
         // Xóa khỏi Database
         chatMessageRepository.deleteByUserAndSessionId(user, sessionId);
+        chatSessionRepository.deleteByUserIdAndSessionId(user.getId(), sessionId);
 
-        // Xóa khỏi Redis
-        chatRedisService.deleteChatHistory(userId, sessionId);
+        // Xóa khỏi Redis sau khi commit, để lần nạp lại không đọc được message chưa bị xóa
+        TransactionUtils.runAfterCommit(() -> chatRedisService.deleteChatHistory(userId, sessionId));
 
         log.info("Cleared chat history for user {} in session {}", userEmail, sessionId);
     }
@@ -273,47 +442,20 @@ public class ChatServiceImpl implements ChatService {
         User user = userRepository.findByEmail(userEmail)
                 .orElseThrow(() -> new EntityNotFoundException("User not found"));
 
-        // Lấy danh sách sessionId từ Database
-        List<String> sessionIds = chatMessageRepository.findDistinctSessionIdsByUser(user);
-
-        List<ChatSessionDto> sessions = new ArrayList<>();
-
-        for (String sessionId : sessionIds) {
-            // Lấy message đầu tiên và cuối cùng
-            ChatMessage firstMessage = chatMessageRepository
-                    .findFirstByUserAndSessionIdOrderByCreatedAtAsc(user, sessionId)
-                    .orElse(null);
-
-            ChatMessage lastMessage = chatMessageRepository
-                    .findFirstByUserAndSessionIdOrderByCreatedAtDesc(user, sessionId)
-                    .orElse(null);
-
-            long messageCount = chatMessageRepository.countByUserAndSessionId(user, sessionId);
-
-            if (firstMessage != null && lastMessage != null) {
-                // Lấy nội dung của user message (bỏ qua assistant message)
-                String firstContent = firstMessage.getRole() == MessageRole.USER
-                        ? firstMessage.getContent()
-                        : "Chat session";
-
-                String lastContent = lastMessage.getRole() == MessageRole.USER
-                        ? lastMessage.getContent()
-                        : lastMessage.getContent();
-
-                ChatSessionDto sessionDto = ChatSessionDto.builder()
-                        .sessionId(sessionId)
-                        .firstMessage(truncateMessage(firstContent, 50))
-                        .lastMessage(truncateMessage(lastContent, 50))
-                        .messageCount(messageCount)
-                        .createdAt(firstMessage.getCreatedAt())
-                        .lastMessageTime(lastMessage.getCreatedAt())
-                        .build();
-
-                sessions.add(sessionDto);
-            }
-        }
-
-        return sessions;
+        // Một truy vấn trên bảng tóm tắt, session có message mới nhất lên đầu
+        return chatSessionRepository.findByUserIdOrderByLastMessageAtDesc(user.getId())
+                .stream()
+                .map(session -> ChatSessionDto.builder()
+                        .sessionId(session.getSessionId())
+                        .firstMessage(session.getFirstMessage() != null
+                                ? truncateMessage(session.getFirstMessage(), 50)
+                                : "Chat session")
+                        .lastMessage(truncateMessage(session.getLastMessage(), 50))
+                        .messageCount(session.getMessageCount())
+                        .createdAt(session.getCreatedAt())
+                        .lastMessageTime(session.getLastMessageAt())
+                        .build())
+                .collect(Collectors.toList());
     }
 
     @Override
@@ -333,6 +475,26 @@ public class ChatServiceImpl implements ChatService {
         return message.substring(0, maxLength) + "...";
     }
 
+    // Helper: Lấy nội dung văn bản của tài liệu đính kèm
+    private String extractDocumentText(MultipartFile file) {
+        if ("application/pdf".equals(file.getContentType())) {
+            return pdfTextService.extractText(file);
+        }
+        try {
+            return new String(file.getBytes(), StandardCharsets.UTF_8).strip();
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Không thể đọc file " + file.getOriginalFilename(), e);
+        }
+    }
+
+    private void appendDocumentText(StringBuilder documentText, String fileName, String text) {
+        if (text.length() > MAX_DOCUMENT_CHARS) {
+            text = text.substring(0, MAX_DOCUMENT_CHARS) + "\n... (tài liệu đã được rút gọn)";
+        }
+        documentText.append("=== Nội dung file đính kèm: ").append(fileName).append(" ===\n\n")
+                .append(text).append("\n\n");
+    }
+
     // Helper: Validate uploaded files
     private void validateFiles(List<MultipartFile> files) {
         if (files.size() > MAX_FILES) {
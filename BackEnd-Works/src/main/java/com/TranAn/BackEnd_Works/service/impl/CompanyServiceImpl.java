@@ -14,6 +14,7 @@ import com.TranAn.BackEnd_Works.repository.CompanyRepository;
 import com.TranAn.BackEnd_Works.repository.JobRepository;
 import com.TranAn.BackEnd_Works.repository.UserRepository;
 import com.TranAn.BackEnd_Works.service.CompanyService;
+import com.TranAn.BackEnd_Works.service.JobCacheService;
 import com.TranAn.BackEnd_Works.service.JobService;
 import com.TranAn.BackEnd_Works.service.S3Service;
 import jakarta.persistence.EntityNotFoundException;
@@ -43,6 +44,10 @@ public class CompanyServiceImpl implements CompanyService {
 
     private final S3Service s3Service;
     private final JobService jobService;
+    private final JobCacheService jobCacheService;
+
+    // Giới hạn riêng cho logo, nhỏ hơn giới hạn multipart chung của ứng dụng
+    private static final long MAX_LOGO_SIZE = 5 * 1024 * 1024; // 5MB
 
     @Override
     public DefaultCompanyResponseDto saveCompany(
@@ -50,6 +55,8 @@ public class CompanyServiceImpl implements CompanyService {
             MultipartFile logoFile,
             boolean isRecruiter
     ) {
+        validateLogoFile(logoFile);
+
         Company company = new Company(dto.getName(), dto.getDescription(), dto.getAddress());
         Company savedCompany = companyRepository.saveAndFlush(company);
 
@@ -96,6 +103,8 @@ public class CompanyServiceImpl implements CompanyService {
             MultipartFile logoFile,
             boolean isRecruiter
     ) {
+        validateLogoFile(logoFile);
+
         Company company;
 
         if (isRecruiter) {
@@ -131,7 +140,12 @@ public class CompanyServiceImpl implements CompanyService {
             logo.setLogoUrl(url);
         }
 
-        return mapToResponseDto(companyRepository.saveAndFlush(company));
+        Company savedCompany = companyRepository.saveAndFlush(company);
+
+        // Tên, địa chỉ, logo công ty nằm trong chi tiết job đã cache
+        jobCacheService.evict(jobRepository.findIdsByCompanyId(savedCompany.getId()));
+
+        return mapToResponseDto(savedCompany);
     }
 
     @Override
@@ -342,5 +356,10 @@ public class CompanyServiceImpl implements CompanyService {
                 jobsCount
         );
     }
+
+    private void validateLogoFile(MultipartFile logoFile) {
+        if (logoFile != null && logoFile.getSize() > MAX_LOGO_SIZE)
+            throw new IllegalArgumentException("Logo không được vượt quá 5MB");
+    }
 }
 
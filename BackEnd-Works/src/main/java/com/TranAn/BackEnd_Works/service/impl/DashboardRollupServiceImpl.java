@@ -0,0 +1,240 @@
+package com.TranAn.BackEnd_Works.service.impl;
+
+import com.TranAn.BackEnd_Works.dto.admin.ChartPointDto;
+import com.TranAn.BackEnd_Works.model.DailyRollup;
+import com.TranAn.BackEnd_Works.model.User;
+import com.TranAn.BackEnd_Works.model.constant.ChartGranularity;
+import com.TranAn.BackEnd_Works.model.constant.RollupMetric;
+import com.TranAn.BackEnd_Works.repository.*;
+import com.TranAn.BackEnd_Works.service.DashboardRollupService;
+import com.TranAn.BackEnd_Works.service.DistributedLockService;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.*;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DashboardRollupServiceImpl implements DashboardRollupService {
+
+    private static final int MAX_POINTS = 1000;
+    private static final DateTimeFormatter MONTH_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM");
+
+    // Backfill lúc khởi động và cập nhật định kỳ dùng chung một khóa: mỗi lúc chỉ một node xóa + ghi lại rollup
+    private static final String LOCK_KEY = "dashboard-rollup:lock";
+    private static final Duration LOCK_TTL = Duration.ofMinutes(2);
+
+    private final DailyRollupRepository dailyRollupRepository;
+    private final UserRepository userRepository;
+    private final JobRepository jobRepository;
+    private final ResumeRepository resumeRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final DistributedLockService distributedLockService;
+
+    // Múi giờ chia ngày, cố định thay vì phụ thuộc múi giờ của server
+    @Value("${stats.rollup.zone:Asia/Ho_Chi_Minh}")
+    private ZoneId zone;
+
+    // Số ngày tính bù khi bảng rollup còn trống
+    @Value("${stats.rollup.backfill-days:400}")
+    private int backfillDays;
+
+    @Override
+    public LocalDate today() {
+        return LocalDate.now(zone);
+    }
+
+    @Override
+    public ZoneId zone() {
+        return zone;
+    }
+
+    /**
+     * Lần chạy đầu: tính bù từ ngày rollup gần nhất (hoặc backfillDays ngày trước) tới hôm nay
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        runExclusively(() -> {
+            LocalDate today = today();
+            LocalDate latest = dailyRollupRepository.findLatestDay();
+            LocalDate from = latest != null ? latest : today.minusDays(backfillDays);
+
+            backfill(from, today);
+        });
+    }
+
+    /**
+     * Cập nhật tăng dần: chỉ tính lại hôm nay và hôm qua (bắt các bản ghi commit muộn qua nửa đêm)
+     */
+    @Scheduled(fixedDelayString = "${stats.rollup.interval-ms:600000}",
+            initialDelayString = "${stats.rollup.interval-ms:600000}")
+    public void rollupRecentDays() {
+        runExclusively(() -> {
+            LocalDate today = today();
+            rollupDay(today.minusDays(1));
+            rollupDay(today);
+        });
+    }
+
+    // Node khác đang tính thì bỏ qua lượt này; kết quả của nó cũng là kết quả của node này
+    private void runExclusively(Runnable action) {
+        Optional<DistributedLockService.Lease> acquired = distributedLockService.tryAcquire(LOCK_KEY, LOCK_TTL);
+        if (acquired.isEmpty()) {
+            log.debug("Node khác đang tổng hợp số liệu dashboard, bỏ qua lượt này");
+            return;
+        }
+
+        try (DistributedLockService.Lease lease = acquired.get()) {
+            action.run();
+        }
+    }
+
+    @Override
+    public void backfill(LocalDate from, LocalDate to) {
+        if (from.isAfter(to))
+            throw new IllegalArgumentException("Ngày bắt đầu phải trước ngày kết thúc");
+
+        int days = 0;
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            rollupDay(date);
+            days++;
+        }
+        log.info("Đã tổng hợp số liệu {} ngày ({} -> {})", days, from, to);
+    }
+
+    @Override
+    public void rollupDay(LocalDate date) {
+        Instant start = date.atStartOfDay(zone).toInstant();
+        Instant end = date.plusDays(1).atStartOfDay(zone).toInstant();
+
+        List<DailyRollup> rows = new ArrayList<>();
+        rows.add(rollup(RollupMetric.USERS, DailyRollup.ALL_COMPANIES, date,
+                userRepository.countByCreatedAtBetween(start, end)));
+        addCompanyRollups(rows, RollupMetric.JOBS, date, jobRepository.countCreatedBetweenGroupByCompany(start, end));
+        addCompanyRollups(rows, RollupMetric.RESUMES, date,
+                resumeRepository.countCreatedBetweenGroupByCompany(start, end));
+
+        transactionTemplate.executeWithoutResult(tx -> {
+            dailyRollupRepository.deleteByRollupDate(date);
+            dailyRollupRepository.saveAll(rows);
+        });
+    }
+
+    @Override
+    public List<ChartPointDto> getSeries(RollupMetric metric, LocalDate from, LocalDate to,
+            ChartGranularity granularity) {
+        return buildSeries(metric, DailyRollup.ALL_COMPANIES, from, to, granularity);
+    }
+
+    @Override
+    public List<ChartPointDto> getSeriesForRecruiterCompany(RollupMetric metric, LocalDate from, LocalDate to,
+            ChartGranularity granularity) {
+        String email = SecurityContextHolder
+                .getContext()
+                .getAuthentication()
+                .getName();
+
+        User user = userRepository
+                .findByEmail(email)
+                .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy người dùng"));
+
+        if (user.getCompany() == null)
+            throw new EntityNotFoundException("Không tìm thấy công ty người dùng");
+
+        if (metric == RollupMetric.USERS)
+            throw new IllegalArgumentException("Chỉ hỗ trợ thống kê JOBS hoặc RESUMES theo công ty");
+
+        return buildSeries(metric, user.getCompany().getId(), from, to, granularity);
+    }
+
+    private List<ChartPointDto> buildSeries(RollupMetric metric, Long companyId, LocalDate from, LocalDate to,
+            ChartGranularity granularity) {
+        if (from.isAfter(to))
+            throw new IllegalArgumentException("Ngày bắt đầu phải trước ngày kết thúc");
+
+        LocalDate firstPeriod = periodStart(from, granularity);
+        long points = switch (granularity) {
+            case DAY -> ChronoUnit.DAYS.between(firstPeriod, to) + 1;
+            case WEEK -> ChronoUnit.WEEKS.between(firstPeriod, to) + 1;
+            case MONTH -> ChronoUnit.MONTHS.between(YearMonth.from(firstPeriod), YearMonth.from(to)) + 1;
+        };
+        if (points > MAX_POINTS)
+            throw new IllegalArgumentException("Khoảng thời gian quá lớn so với độ chi tiết đã chọn");
+
+        // Điền sẵn mọi kỳ bằng 0 để biểu đồ không bị đứt quãng
+        Map<LocalDate, Long> buckets = new LinkedHashMap<>();
+        for (LocalDate period = firstPeriod; !period.isAfter(to); period = nextPeriod(period, granularity))
+            buckets.put(period, 0L);
+
+        dailyRollupRepository
+                .findByMetricAndCompanyIdAndRollupDateBetweenOrderByRollupDate(metric, companyId, from, to)
+                .forEach(row -> buckets.merge(periodStart(row.getRollupDate(), granularity), row.getCount(),
+                        Long::sum));
+
+        List<ChartPointDto> result = new ArrayList<>(buckets.size());
+        buckets.forEach((period, count) -> result.add(new ChartPointDto(formatPeriod(period, granularity), count)));
+        return result;
+    }
+
+    private void addCompanyRollups(List<DailyRollup> rows, RollupMetric metric, LocalDate date,
+            List<Object[]> countsByCompany) {
+        long total = 0;
+        for (Object[] row : countsByCompany) {
+            long count = (Long) row[1];
+            total += count;
+            if (row[0] != null)
+                rows.add(rollup(metric, (Long) row[0], date, count));
+        }
+        rows.add(rollup(metric, DailyRollup.ALL_COMPANIES, date, total));
+    }
+
+    private DailyRollup rollup(RollupMetric metric, Long companyId, LocalDate date, Long count) {
+        return DailyRollup.builder()
+                .metric(metric)
+                .companyId(companyId)
+                .rollupDate(date)
+                .count(count != null ? count : 0L)
+                .build();
+    }
+
+    private LocalDate periodStart(LocalDate date, ChartGranularity granularity) {
+        return switch (granularity) {
+            case DAY -> date;
+            case WEEK -> date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH -> date.withDayOfMonth(1);
+        };
+    }
+
+    private LocalDate nextPeriod(LocalDate period, ChartGranularity granularity) {
+        return switch (granularity) {
+            case DAY -> period.plusDays(1);
+            case WEEK -> period.plusWeeks(1);
+            case MONTH -> period.plusMonths(1);
+        };
+    }
+
+    private String formatPeriod(LocalDate period, ChartGranularity granularity) {
+        return granularity == ChartGranularity.MONTH
+                ? period.format(MONTH_FORMAT)
+                : period.toString();
+    }
+}
@@ -0,0 +1,118 @@
+package com.TranAn.BackEnd_Works.service.impl;
+
+import com.TranAn.BackEnd_Works.service.DistributedLockService;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Giá trị của khóa là token riêng của từng lease; gia hạn và nhả khóa đều so token trong Lua nên một node
+ * không bao giờ gia hạn hay xóa khóa mà node khác đã lấy sau khi khóa của nó hết hạn.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DistributedLockServiceImpl implements DistributedLockService {
+
+    // KEYS[1] = key khóa, ARGV[1] = token của lease, ARGV[2] = TTL (ms). Trả về 1 nếu còn giữ khóa
+    private static final RedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+                return redis.call('PEXPIRE', KEYS[1], ARGV[2])
+            end
+            return 0
+            """, Long.class);
+
+    // KEYS[1] = key khóa, ARGV[1] = token của lease
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+                return redis.call('DEL', KEYS[1])
+            end
+            return 0
+            """, Long.class);
+
+    private final RedisTemplate<String, String> redisTemplate;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "lock-heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PreDestroy
+    public void stop() {
+        heartbeat.shutdownNow();
+    }
+
+    @Override
+    public Optional<Lease> tryAcquire(String key, Duration ttl) {
+        String token = nodeId + ":" + UUID.randomUUID();
+        if (!Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(key, token, ttl)))
+            return Optional.empty();
+
+        return Optional.of(new RedisLease(key, token, ttl));
+    }
+
+    private final class RedisLease implements Lease {
+        private final String key;
+        private final String token;
+        private final Duration ttl;
+        private final ScheduledFuture<?> renewal;
+
+        private volatile boolean held = true;
+
+        RedisLease(String key, String token, Duration ttl) {
+            this.key = key;
+            this.token = token;
+            this.ttl = ttl;
+
+            long period = Math.max(ttl.toMillis() / 3, 1);
+            this.renewal = heartbeat.scheduleAtFixedRate(this::renew, period, period, TimeUnit.MILLISECONDS);
+        }
+
+        private void renew() {
+            try {
+                Long renewed = redisTemplate.execute(RENEW_SCRIPT, List.of(key), token,
+                        String.valueOf(ttl.toMillis()));
+                if (renewed == null || renewed == 0) {
+                    held = false;
+                    renewal.cancel(false);
+                    log.warn("Mất khóa {}: khóa đã hết hạn hoặc thuộc về node khác", key);
+                }
+            } catch (RuntimeException e) {
+                // Redis lỗi tạm thời: thử lại ở nhịp sau, khóa vẫn còn hạn tới hết TTL
+                log.warn("Không gia hạn được khóa {}: {}", key, e.getMessage());
+            }
+        }
+
+        @Override
+        public boolean isHeld() {
+            return held;
+        }
+
+        @Override
+        public void close() {
+            renewal.cancel(false);
+            held = false;
+            try {
+                redisTemplate.execute(RELEASE_SCRIPT, List.of(key), token);
+            } catch (RuntimeException e) {
+                log.warn("Không nhả được khóa {}, khóa sẽ tự hết hạn: {}", key, e.getMessage());
+            }
+        }
+    }
+}
@@ -6,6 +6,7 @@ import com.TranAn.BackEnd_Works.model.Subscriber;
 import com.TranAn.BackEnd_Works.repository.JobRepository;
 import com.TranAn.BackEnd_Works.repository.SubscriberRepository;
 import com.TranAn.BackEnd_Works.service.EmailService;
+import com.TranAn.BackEnd_Works.service.SkillJobIndexService;
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
 import jakarta.persistence.EntityNotFoundException;
@@ -19,6 +20,9 @@ import org.thymeleaf.context.Context;
 import org.thymeleaf.spring6.SpringTemplateEngine;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -28,6 +32,7 @@ public class EmailServiceImpl implements EmailService {
 
     private final JobRepository jobRepository;
     private final SubscriberRepository subscriberRepository;
+    private final SkillJobIndexService skillJobIndexService;
     @Value("${mail.from}")
     private String sender;
 
@@ -241,24 +246,48 @@ public class EmailServiceImpl implements EmailService {
     }
     @Override
     public void sendJobNotificationForSubscriber(Subscriber subscriber) throws MessagingException {
-        List<String> skillNames = subscriber.getSkills().stream()
-                .map(skill -> skill.getName())
-                .toList();
+        List<Job> jobs;
+        if (skillJobIndexService.isReady()) {
+            // Tra chỉ mục kỹ năng → job trong bộ nhớ thay cho truy vấn DISTINCT join trên job_skill
+            List<Long> skillIds = subscriber.getSkills().stream()
+                    .map(skill -> skill.getId())
+                    .toList();
+            List<Long> jobIds = skillJobIndexService.findLatestJobIds(skillIds, 3);
+
+            Map<Long, Job> jobById = jobRepository.findAllById(jobIds).stream()
+                    .collect(Collectors.toMap(Job::getId, job -> job));
+            jobs = jobIds.stream()
+                    .map(jobById::get)
+                    .filter(Objects::nonNull)
+                    .toList();
+        } else {
+            List<String> skillNames = subscriber.getSkills().stream()
+                    .map(skill -> skill.getName())
+                    .toList();
 
-        List<Job> jobs = jobRepository.findDistinctTop3BySkills_NameInOrderByCreatedAtDesc(skillNames);
+            jobs = jobRepository.findDistinctTop3BySkills_NameInOrderByCreatedAtDesc(skillNames);
+        }
 
         List<JobMailDto> jobMailDtos = jobs.stream()
                 .map(this::mapToEmailJobInform)
                 .toList();
 
+        sendJobDigest(subscriber.getEmail(), renderJobDigest(jobMailDtos));
+    }
+
+    @Override
+    public String renderJobDigest(List<JobMailDto> jobs) {
         Context context = new Context();
-        context.setVariable("jobs", jobMailDtos);
-        String html = templateEngine.process("job-notification-email.html", context);
+        context.setVariable("jobs", jobs);
+        return templateEngine.process("job-notification-email.html", context);
+    }
 
+    @Override
+    public void sendJobDigest(String toEmail, String html) throws MessagingException {
         MimeMessage mimeMessage = mailSender.createMimeMessage();
         MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, true, "UTF-8");
         helper.setFrom(sender);
-        helper.setTo(subscriber.getEmail());
+        helper.setTo(toEmail);
         helper.setSubject("🔥 Cơ hội việc làm mới dành cho bạn!");
         helper.setText(html, true);
 
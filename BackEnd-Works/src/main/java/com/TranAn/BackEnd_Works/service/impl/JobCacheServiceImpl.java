@@ -0,0 +1,268 @@
+package com.TranAn.BackEnd_Works.service.impl;
+
+import com.TranAn.BackEnd_Works.dto.response.job.JobResponseDto;
+import com.TranAn.BackEnd_Works.service.JobCacheService;
+import com.TranAn.BackEnd_Works.util.TransactionUtils;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * L2 giữ JSON của job kèm một version key cho mỗi job. Mỗi lần xóa cache tăng version; lần nạp từ database chỉ ghi
+ * L2 khi version vẫn là giá trị đọc được trước khi nạp, nên dữ liệu nạp trước một thay đổi không bị ghi lên Redis sau
+ * invalidation của thay đổi đó (kể cả khi node đang nạp chưa nhận được invalidation qua pub/sub).
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class JobCacheServiceImpl implements JobCacheService, MessageListener {
+
+    public static final String INVALIDATION_CHANNEL = "job-cache:invalidate";
+
+    private static final String KEY_PREFIX = "jobs::";
+
+    // Version sống lâu hơn mọi lượt nạp, để lượt nạp đọc version trước khi key hết hạn không khớp với key mới
+    private static final long VERSION_TTL_MS = 24 * 60 * 60 * 1000L;
+
+    // KEYS[1] = JSON của job, KEYS[2] = version; ARGV[1] = version đọc trước khi nạp, ARGV[2] = JSON, ARGV[3] = TTL (ms)
+    private static final RedisScript<Long> PUT_SCRIPT = new DefaultRedisScript<>("""
+            if (redis.call('GET', KEYS[2]) or '') ~= ARGV[1] then
+                return 0
+            end
+            redis.call('SET', KEYS[1], ARGV[2], 'PX', ARGV[3])
+            return 1
+            """, Long.class);
+
+    // KEYS[1] = JSON của job, KEYS[2] = version; ARGV[1] = TTL của version (ms)
+    private static final RedisScript<Long> EVICT_SCRIPT = new DefaultRedisScript<>("""
+            redis.call('DEL', KEYS[1])
+            local version = redis.call('INCR', KEYS[2])
+            redis.call('PEXPIRE', KEYS[2], ARGV[1])
+            return version
+            """, Long.class);
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+    private final ObjectMapper objectMapper = createObjectMapper();
+
+    private static ObjectMapper createObjectMapper() {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.registerModule(new JavaTimeModule());
+        mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        return mapper;
+    }
+
+    @Value("${job.cache.remote.ttl-seconds:900}")
+    private long remoteTtlSeconds;
+
+    @Value("${job.cache.local.max-size:1000}")
+    private int localMaxSize;
+
+    @Value("${job.cache.local.ttl-seconds:60}")
+    private long localTtlSeconds;
+
+    // L1: LRU theo thứ tự truy cập, tự bỏ phần tử cũ nhất khi vượt localMaxSize
+    private final Map<Long, LocalEntry> local = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, LocalEntry> eldest) {
+            return size() > localMaxSize;
+        }
+    };
+
+    // Các lượt nạp từ database đang chạy, để các request cùng id chờ chung một kết quả
+    private final ConcurrentHashMap<Long, CompletableFuture<JobResponseDto>> inFlight = new ConcurrentHashMap<>();
+
+    // Tăng mỗi lần có invalidation, tránh ghi đè L1 bằng dữ liệu đã nạp trước khi bị xóa
+    private final AtomicLong generation = new AtomicLong();
+
+    private record LocalEntry(JobResponseDto value, long expiresAt) {
+    }
+
+    // Kết quả đọc L2: version null nghĩa là không đọc được Redis, khi đó không ghi L2
+    private record RemoteEntry(JobResponseDto value, String version) {
+    }
+
+    @PostConstruct
+    void subscribe() {
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(INVALIDATION_CHANNEL));
+    }
+
+    /**
+     * Luôn trả về bản sao: bản trong L1 (và kết quả nạp chung giữa các request) được dùng lại nhiều lần
+     */
+    @Override
+    public JobResponseDto get(Long jobId, Supplier<JobResponseDto> loader) {
+        JobResponseDto cached = getLocal(jobId);
+        if (cached != null)
+            return cached.copy();
+
+        long gen = generation.get();
+
+        // Version được đọc cùng lúc với L2, trước khi nạp từ database
+        RemoteEntry remote = getRemote(jobId);
+        if (remote.value() != null) {
+            putLocal(jobId, remote.value(), gen);
+            return remote.value().copy();
+        }
+
+        CompletableFuture<JobResponseDto> mine = new CompletableFuture<>();
+        CompletableFuture<JobResponseDto> existing = inFlight.putIfAbsent(jobId, mine);
+        if (existing != null)
+            return await(existing).copy();
+
+        try {
+            JobResponseDto loaded = loader.get();
+            putRemote(jobId, loaded, remote.version());
+            putLocal(jobId, loaded, gen);
+            mine.complete(loaded);
+            return loaded.copy();
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(jobId, mine);
+        }
+    }
+
+    @Override
+    public void evict(Long jobId) {
+        evict(List.of(jobId));
+    }
+
+    @Override
+    public void evict(Collection<Long> jobIds) {
+        if (jobIds == null || jobIds.isEmpty())
+            return;
+
+        List<Long> ids = List.copyOf(jobIds);
+        TransactionUtils.runAfterCommit(() -> {
+            try {
+                for (Long id : ids)
+                    redisTemplate.execute(EVICT_SCRIPT, List.of(dataKey(id), versionKey(id)),
+                            String.valueOf(VERSION_TTL_MS));
+
+                String payload = ids.stream().map(String::valueOf).collect(Collectors.joining(","));
+                redisTemplate.convertAndSend(INVALIDATION_CHANNEL, payload);
+            } catch (RuntimeException e) {
+                log.warn("Không thể xóa cache job trên Redis {}: {}", ids, e.getMessage());
+            }
+            evictLocal(ids);
+        });
+    }
+
+    /**
+     * Nhận invalidation từ các node khác (và chính node này) qua Redis pub/sub
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String payload = new String(message.getBody(), StandardCharsets.UTF_8);
+
+        List<Long> ids = new ArrayList<>();
+        for (String part : payload.split(",")) {
+            try {
+                ids.add(Long.parseLong(part.trim()));
+            } catch (NumberFormatException e) {
+                log.warn("Bỏ qua invalidation không hợp lệ: {}", part);
+            }
+        }
+        evictLocal(ids);
+    }
+
+    private JobResponseDto getLocal(Long jobId) {
+        synchronized (local) {
+            LocalEntry entry = local.get(jobId);
+            if (entry == null)
+                return null;
+
+            if (entry.expiresAt() < System.currentTimeMillis()) {
+                local.remove(jobId);
+                return null;
+            }
+            return entry.value();
+        }
+    }
+
+    private void putLocal(Long jobId, JobResponseDto value, long gen) {
+        synchronized (local) {
+            if (generation.get() != gen)
+                return;
+            local.put(jobId, new LocalEntry(value, System.currentTimeMillis() + localTtlSeconds * 1000));
+        }
+    }
+
+    private void evictLocal(Collection<Long> jobIds) {
+        synchronized (local) {
+            generation.incrementAndGet();
+            jobIds.forEach(local::remove);
+        }
+    }
+
+    // Hash tag {id}: JSON và version nằm cùng slot khi chạy Redis Cluster
+    private String dataKey(Long jobId) {
+        return KEY_PREFIX + "{" + jobId + "}";
+    }
+
+    private String versionKey(Long jobId) {
+        return KEY_PREFIX + "{" + jobId + "}:ver";
+    }
+
+    // Redis lỗi thì coi như cache miss, không làm hỏng request
+    private RemoteEntry getRemote(Long jobId) {
+        try {
+            List<String> values = redisTemplate.opsForValue().multiGet(List.of(dataKey(jobId), versionKey(jobId)));
+            if (values == null)
+                return new RemoteEntry(null, null);
+
+            String version = Objects.toString(values.get(1), "");
+            String json = values.get(0);
+            return new RemoteEntry(json != null ? objectMapper.readValue(json, JobResponseDto.class) : null, version);
+        } catch (RuntimeException | JsonProcessingException e) {
+            log.warn("Không đọc được cache job {} từ Redis: {}", jobId, e.getMessage());
+            return new RemoteEntry(null, null);
+        }
+    }
+
+    private void putRemote(Long jobId, JobResponseDto value, String version) {
+        if (version == null)
+            return;
+
+        try {
+            redisTemplate.execute(PUT_SCRIPT, List.of(dataKey(jobId), versionKey(jobId)),
+                    version, objectMapper.writeValueAsString(value), String.valueOf(remoteTtlSeconds * 1000));
+        } catch (RuntimeException | JsonProcessingException e) {
+            log.warn("Không ghi được cache job {} lên Redis: {}", jobId, e.getMessage());
+        }
+    }
+
+    private JobResponseDto await(CompletableFuture<JobResponseDto> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause)
+                throw cause;
+            throw e;
+        }
+    }
+}
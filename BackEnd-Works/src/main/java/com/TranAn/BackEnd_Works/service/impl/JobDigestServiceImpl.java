@@ -0,0 +1,384 @@
+package com.TranAn.BackEnd_Works.service.impl;
+
+import com.TranAn.BackEnd_Works.dto.email.JobMailDto;
+import com.TranAn.BackEnd_Works.repository.JobRepository;
+import com.TranAn.BackEnd_Works.repository.SubscriberRepository;
+import com.TranAn.BackEnd_Works.service.DistributedLockService;
+import com.TranAn.BackEnd_Works.service.EmailService;
+import com.TranAn.BackEnd_Works.service.JobDigestService;
+import com.TranAn.BackEnd_Works.service.SkillJobIndexService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Pipeline gửi bản tin việc làm hằng ngày.
+ * <p>
+ * Đọc subscriber bằng con trỏ JDBC (không nạp cả bảng), ghép kỹ năng → job trong bộ nhớ qua
+ * {@link SkillJobIndexService}, rồi giao việc dựng HTML + gửi SMTP cho một pool giới hạn. Luồng đọc bị chặn
+ * khi số email đang chờ vượt {@code job.digest.max-in-flight} (back-pressure). Checkpoint là id subscriber lớn nhất mà mọi id nhỏ hơn
+ * đều đã xử lý xong, lưu trên Redis theo ngày để lượt gửi bị gián đoạn chạy tiếp mà không gửi lại từ đầu.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class JobDigestServiceImpl implements JobDigestService {
+
+    private static final String RUN_KEY_PREFIX = "job-digest:run:";
+    private static final String LOCK_KEY_PREFIX = "job-digest:lock:";
+    private static final String STATUS_RUNNING = "RUNNING";
+    private static final String STATUS_DONE = "DONE";
+
+    private static final Duration LOCK_TTL = Duration.ofMinutes(10);
+    private static final Duration RUN_TTL = Duration.ofDays(3);
+
+    private static final int JOBS_PER_DIGEST = 3;
+    private static final String APPLY_URL_PREFIX = "http://localhost:3000/jobs/";
+
+    private final SubscriberRepository subscriberRepository;
+    private final JobRepository jobRepository;
+    private final EmailService emailService;
+    private final SkillJobIndexService skillJobIndexService;
+    private final DistributedLockService distributedLockService;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${job.digest.workers:8}")
+    private int workers;
+
+    @Value("${job.digest.max-in-flight:200}")
+    private int maxInFlight;
+
+    @Value("${job.digest.checkpoint-every:500}")
+    private int checkpointEvery;
+
+    @Value("${job.digest.zone:Asia/Ho_Chi_Minh}")
+    private String zone;
+
+    @Async
+    @Override
+    public void runDailyDigest() {
+        run(false);
+    }
+
+    @Async
+    @Override
+    public void resumeInterruptedRun() {
+        run(true);
+    }
+
+    private void run(boolean onlyIfInterrupted) {
+        LocalDate runDate = LocalDate.now(ZoneId.of(zone));
+        String runKey = RUN_KEY_PREFIX + runDate;
+        String lockKey = LOCK_KEY_PREFIX + runDate;
+
+        Object status = redisTemplate.opsForHash().get(runKey, "status");
+        if (STATUS_DONE.equals(status) || (onlyIfInterrupted && !STATUS_RUNNING.equals(status)))
+            return;
+
+        // Mỗi ngày chỉ một node chạy; khóa được gia hạn suốt lượt gửi (kể cả lúc chờ worker) và tự hết hạn
+        // nếu node đang giữ bị crash
+        Optional<DistributedLockService.Lease> acquired = distributedLockService.tryAcquire(lockKey, LOCK_TTL);
+        if (acquired.isEmpty())
+            return;
+
+        try (DistributedLockService.Lease lease = acquired.get()) {
+            Object checkpoint = redisTemplate.opsForHash().get(runKey, "checkpoint");
+            long afterId = checkpoint != null ? Long.parseLong((String) checkpoint) : 0L;
+            if (afterId > 0)
+                log.info("Tiếp tục gửi bản tin việc làm ngày {} từ subscriber id > {}", runDate, afterId);
+
+            redisTemplate.opsForHash().put(runKey, "status", STATUS_RUNNING);
+            redisTemplate.expire(runKey, RUN_TTL);
+
+            // Mất khóa giữa chừng thì node khác có thể đã chạy tiếp, không đánh dấu xong thay nó
+            if (new DigestRun(runKey, lease, afterId).execute() && lease.isHeld())
+                redisTemplate.opsForHash().put(runKey, "status", STATUS_DONE);
+        }
+    }
+
+    /**
+     * Ghép kỹ năng → job qua chỉ mục trong bộ nhớ và dựng HTML cho một lượt gửi
+     */
+    private final class JobMatcher {
+        // Subscriber có cùng tập kỹ năng dùng chung kết quả ghép; cùng danh sách job dùng chung HTML
+        private final Map<List<Long>, List<Long>> matches = new HashMap<>();
+        private final Map<List<Long>, String> rendered = new ConcurrentHashMap<>();
+        private final Map<Long, JobMailDto> cards = new ConcurrentHashMap<>();
+
+        // Chỉ gọi từ luồng đọc
+        List<Long> match(List<Long> skillIds) {
+            if (skillIds.isEmpty())
+                return List.of();
+
+            List<Long> key = skillIds.stream().distinct().sorted().toList();
+            return matches.computeIfAbsent(key, k -> skillJobIndexService.findLatestJobIds(k, JOBS_PER_DIGEST));
+        }
+
+        // Gọi từ worker (ngoài transaction của con trỏ subscriber nên truy vấn dùng kết nối riêng)
+        String render(List<Long> jobIds) {
+            String html = rendered.get(jobIds);
+            if (html == null) {
+                loadMissingCards(jobIds);
+                List<JobMailDto> jobs = jobIds.stream()
+                        .map(cards::get)
+                        .filter(Objects::nonNull)
+                        .toList();
+                html = emailService.renderJobDigest(jobs);
+                rendered.putIfAbsent(jobIds, html);
+            }
+            return html;
+        }
+
+        private void loadMissingCards(List<Long> jobIds) {
+            List<Long> missing = jobIds.stream().filter(id -> !cards.containsKey(id)).toList();
+            if (missing.isEmpty())
+                return;
+
+            Map<Long, JobMailDto> loaded = new HashMap<>();
+            for (Object[] row : jobRepository.findMailCardsByIds(missing)) {
+                Long jobId = (Long) row[0];
+                JobMailDto card = new JobMailDto(jobId, (String) row[1], (Double) row[2], APPLY_URL_PREFIX + jobId);
+                if (row[3] != null)
+                    card.setCompany(new JobMailDto.CompanyDto((Long) row[3], (String) row[4], (String) row[5]));
+                card.setSkills(new ArrayList<>());
+                loaded.put(jobId, card);
+            }
+
+            for (Object[] row : jobRepository.findSkillCardsByJobIds(missing)) {
+                JobMailDto card = loaded.get((Long) row[0]);
+                if (card != null)
+                    card.getSkills().add(new JobMailDto.SkillDto((Long) row[1], (String) row[2]));
+            }
+
+            cards.putAll(loaded);
+        }
+    }
+
+    /**
+     * Một lượt gửi: luồng gọi đọc subscriber và ghép job, pool worker dựng HTML và gửi
+     */
+    private final class DigestRun {
+        private final String runKey;
+        private final DistributedLockService.Lease lease;
+        private final long startAfterId;
+
+        private final Semaphore permits = new Semaphore(maxInFlight);
+        private final ConcurrentSkipListSet<Long> inFlight = new ConcurrentSkipListSet<>();
+        private final ExecutorService executor;
+
+        private final Timer matchTimer = stageTimer("match");
+        private final Timer waitTimer = stageTimer("backpressure");
+        private final Timer renderTimer = stageTimer("render");
+        private final Timer sendTimer = stageTimer("send");
+
+        private final LongAdder sent = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder skipped = new LongAdder();
+        private final LongAdder renderNanos = new LongAdder();
+        private final LongAdder sendNanos = new LongAdder();
+        private long read;
+        private long matchNanos;
+        private long waitNanos;
+
+        // Id subscriber cuối cùng đã được luồng đọc xử lý (giao cho worker hoặc bỏ qua)
+        private volatile long lastDispatched;
+
+        private JobMatcher matcher;
+
+        DigestRun(String runKey, DistributedLockService.Lease lease, long startAfterId) {
+            this.runKey = runKey;
+            this.lease = lease;
+            this.startAfterId = startAfterId;
+            this.lastDispatched = startAfterId;
+
+            AtomicInteger threadCount = new AtomicInteger();
+            this.executor = Executors.newFixedThreadPool(workers, r -> {
+                Thread thread = new Thread(r, "job-digest-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        boolean execute() {
+            long startNanos = System.nanoTime();
+            boolean streamed = false;
+            boolean drained = false;
+
+            try {
+                if (!skillJobIndexService.isReady())
+                    skillJobIndexService.rebuildIndex();
+                matcher = new JobMatcher();
+
+                // Con trỏ streaming của MySQL giữ kết nối suốt lượt đọc nên đặt trong một transaction chỉ đọc
+                TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+                readOnly.setReadOnly(true);
+                streamed = Boolean.TRUE.equals(readOnly.execute(status -> readSubscribers()));
+            } finally {
+                // Đợi các email đang gửi xong rồi mới ghi checkpoint cuối, tránh gửi lại khi chạy tiếp
+                executor.shutdown();
+                drained = awaitWorkers();
+                saveCheckpoint();
+                logSummary(startNanos);
+            }
+
+            return streamed && drained;
+        }
+
+        private boolean readSubscribers() {
+            try (Stream<Object[]> rows = subscriberRepository.streamDigestRowsAfter(startAfterId)) {
+                Iterator<Object[]> iterator = rows.iterator();
+
+                Long currentId = null;
+                String email = null;
+                List<Long> skillIds = new ArrayList<>();
+
+                // Các dòng của cùng một subscriber nằm liền nhau (ORDER BY s.id)
+                while (iterator.hasNext()) {
+                    if (!lease.isHeld()) {
+                        log.warn("Mất khóa bản tin việc làm, dừng đọc subscriber tại id {}", lastDispatched);
+                        return false;
+                    }
+
+                    Object[] row = iterator.next();
+                    Long subscriberId = (Long) row[0];
+                    if (!subscriberId.equals(currentId)) {
+                        if (currentId != null)
+                            dispatch(currentId, email, skillIds);
+                        currentId = subscriberId;
+                        email = (String) row[1];
+                        skillIds = new ArrayList<>();
+                    }
+                    if (row[2] != null)
+                        skillIds.add((Long) row[2]);
+                }
+                if (currentId != null)
+                    dispatch(currentId, email, skillIds);
+
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        private void dispatch(Long subscriberId, String email, List<Long> skillIds) throws InterruptedException {
+            read++;
+
+            long matchStart = System.nanoTime();
+            List<Long> jobIds = matcher.match(skillIds);
+            matchNanos += record(matchTimer, matchStart);
+
+            if (jobIds.isEmpty() || email == null) {
+                skipped.increment();
+            } else {
+                // Back-pressure: SMTP chậm thì luồng đọc dừng tại đây thay vì dồn việc vào bộ nhớ
+                long waitStart = System.nanoTime();
+                permits.acquire();
+                waitNanos += record(waitTimer, waitStart);
+
+                inFlight.add(subscriberId);
+                try {
+                    executor.execute(() -> deliver(subscriberId, email, jobIds));
+                } catch (RejectedExecutionException e) {
+                    inFlight.remove(subscriberId);
+                    permits.release();
+                    throw e;
+                }
+            }
+            lastDispatched = subscriberId;
+
+            if (read % checkpointEvery == 0)
+                saveCheckpoint();
+        }
+
+        private void deliver(Long subscriberId, String email, List<Long> jobIds) {
+            try {
+                long renderStart = System.nanoTime();
+                String html = matcher.render(jobIds);
+                renderNanos.add(record(renderTimer, renderStart));
+
+                long sendStart = System.nanoTime();
+                emailService.sendJobDigest(email, html);
+                sendNanos.add(record(sendTimer, sendStart));
+
+                sent.increment();
+            } catch (Exception e) {
+                failed.increment();
+                log.warn("Không gửi được bản tin việc làm tới {}: {}", email, e.getMessage());
+            } finally {
+                inFlight.remove(subscriberId);
+                permits.release();
+            }
+        }
+
+        private boolean awaitWorkers() {
+            try {
+                return executor.awaitTermination(1, TimeUnit.HOURS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        private void saveCheckpoint() {
+            // Mọi subscriber có id <= checkpoint đều đã xử lý xong (gửi thành công, lỗi hoặc bỏ qua)
+            Iterator<Long> pending = inFlight.iterator();
+            long checkpoint = pending.hasNext() ? pending.next() - 1 : lastDispatched;
+            if (checkpoint <= startAfterId)
+                return;
+
+            try {
+                redisTemplate.opsForHash().putAll(runKey, Map.of(
+                        "checkpoint", String.valueOf(checkpoint),
+                        "updatedAt", Instant.now().toString()));
+            } catch (RuntimeException e) {
+                // Mất một lần checkpoint chỉ làm lượt chạy tiếp gửi lại nhiều hơn, không dừng lượt gửi
+                log.warn("Không lưu được checkpoint bản tin việc làm: {}", e.getMessage());
+            }
+        }
+
+        private void logSummary(long startNanos) {
+            double seconds = Math.max((System.nanoTime() - startNanos) / 1e9, 0.001);
+            long sentCount = sent.sum();
+
+            log.info("Bản tin việc làm: {} subscriber trong {} s ({}/s), gửi {} ({}/s), lỗi {}, bỏ qua {}, {} mẫu HTML. "
+                            + "Thời gian theo bước: ghép {} ms, chờ back-pressure {} ms, dựng {} ms, gửi {} ms",
+                    read, Math.round(seconds), Math.round(read / seconds),
+                    sentCount, Math.round(sentCount / seconds), failed.sum(), skipped.sum(),
+                    matcher != null ? matcher.rendered.size() : 0,
+                    TimeUnit.NANOSECONDS.toMillis(matchNanos), TimeUnit.NANOSECONDS.toMillis(waitNanos),
+                    TimeUnit.NANOSECONDS.toMillis(renderNanos.sum()), TimeUnit.NANOSECONDS.toMillis(sendNanos.sum()));
+        }
+    }
+
+    private Timer stageTimer(String stage) {
+        return Timer.builder("job.digest.stage")
+                .tag("stage", stage)
+                .register(meterRegistry);
+    }
+
+    private static long record(Timer timer, long startNanos) {
+        long elapsed = System.nanoTime() - startNanos;
+        timer.record(elapsed, TimeUnit.NANOSECONDS);
+        return elapsed;
+    }
+}
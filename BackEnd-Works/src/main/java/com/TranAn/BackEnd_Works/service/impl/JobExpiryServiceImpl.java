@@ -0,0 +1,219 @@
+package com.TranAn.BackEnd_Works.service.impl;
+
+import com.TranAn.BackEnd_Works.model.Job;
+import com.TranAn.BackEnd_Works.model.constant.JobStatus;
+import com.TranAn.BackEnd_Works.repository.JobRepository;
+import com.TranAn.BackEnd_Works.service.JobCacheService;
+import com.TranAn.BackEnd_Works.service.JobExpiryService;
+import com.TranAn.BackEnd_Works.service.JobSearchService;
+import com.TranAn.BackEnd_Works.service.SkillJobIndexService;
+import com.TranAn.BackEnd_Works.service.StatsCounterService;
+import com.TranAn.BackEnd_Works.util.TransactionUtils;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hết hạn job theo sự kiện thay cho câu UPDATE hàng loạt lúc 00:00.
+ * <p>
+ * Các job ACTIVE có endDate trong khung {@code job.expiry.horizon-hours} được giữ trong một DelayQueue.
+ * Một luồng nền lấy các job đã tới hạn, gom thành lô nhỏ rồi UPDATE theo id, sau đó xóa cache chi tiết job và
+ * đưa job ra khỏi các chỉ mục (tìm kiếm, kỹ năng). Job quá endDate nhưng chưa tới lượt xử lý vẫn được trả về
+ * là EXPIRED nhờ bước tính trạng thái lúc đọc trong JobServiceImpl.
+ * Job có endDate xa hơn khung thời gian được nạp dần bởi lượt refill định kỳ.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class JobExpiryServiceImpl implements JobExpiryService {
+
+    private static final int LOAD_BATCH_SIZE = 1000;
+
+    private final JobRepository jobRepository;
+    private final JobCacheService jobCacheService;
+    private final JobSearchService jobSearchService;
+    private final SkillJobIndexService skillJobIndexService;
+    private final StatsCounterService statsCounterService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${job.expiry.horizon-hours:24}")
+    private long horizonHours;
+
+    @Value("${job.expiry.batch-size:100}")
+    private int batchSize;
+
+    private final DelayQueue<ExpiryTask> queue = new DelayQueue<>();
+
+    // Hạn hiện hành của từng job; task trong queue không khớp với map là task cũ, bỏ qua
+    private final Map<Long, Instant> deadlines = new ConcurrentHashMap<>();
+
+    private volatile Thread worker;
+
+    private record ExpiryTask(Long jobId, Instant endDate) implements Delayed {
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(Duration.between(Instant.now(), endDate));
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return endDate.compareTo(((ExpiryTask) other).endDate);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        // Lần nạp đầu cũng gom luôn các job đã quá hạn trong lúc ứng dụng tắt
+        refill();
+
+        Thread thread = new Thread(this::runWorker, "job-expiry");
+        thread.setDaemon(true);
+        thread.start();
+        worker = thread;
+    }
+
+    @PreDestroy
+    public void stop() {
+        Thread thread = worker;
+        worker = null;
+        if (thread != null)
+            thread.interrupt();
+    }
+
+    @Override
+    public void schedule(Job job) {
+        Long jobId = job.getId();
+        JobStatus status = job.getStatus();
+        Instant endDate = job.getEndDate();
+
+        TransactionUtils.runAfterCommit(() -> {
+            if (status != JobStatus.ACTIVE || endDate == null) {
+                deadlines.remove(jobId);
+                return;
+            }
+            enqueue(jobId, endDate);
+        });
+    }
+
+    @Override
+    public void cancel(Long jobId) {
+        TransactionUtils.runAfterCommit(() -> deadlines.remove(jobId));
+    }
+
+    /**
+     * Nạp các job sắp hết hạn (trong khung thời gian) vào hàng đợi
+     */
+    @Scheduled(fixedDelayString = "${job.expiry.refill-interval-ms:900000}",
+            initialDelayString = "${job.expiry.refill-interval-ms:900000}")
+    public void refill() {
+        Instant until = Instant.now().plus(Duration.ofHours(horizonHours));
+        long afterId = 0L;
+        int loaded = 0;
+
+        while (true) {
+            List<Object[]> rows = jobRepository.findExpiryCandidates(
+                    JobStatus.ACTIVE, until, afterId, PageRequest.of(0, LOAD_BATCH_SIZE));
+            if (rows.isEmpty())
+                break;
+
+            for (Object[] row : rows) {
+                Long jobId = (Long) row[0];
+                Instant endDate = (Instant) row[1];
+                if (!endDate.equals(deadlines.get(jobId))) {
+                    enqueue(jobId, endDate);
+                    loaded++;
+                }
+                afterId = jobId;
+            }
+
+            if (rows.size() < LOAD_BATCH_SIZE)
+                break;
+        }
+
+        if (loaded > 0)
+            log.info("Đã nạp {} công việc sắp hết hạn vào hàng đợi", loaded);
+    }
+
+    private void enqueue(Long jobId, Instant endDate) {
+        // Quá khung thời gian: để lượt refill sau nạp, tránh giữ cả bảng jobs trong bộ nhớ
+        if (endDate.isAfter(Instant.now().plus(Duration.ofHours(horizonHours)))) {
+            deadlines.remove(jobId);
+            return;
+        }
+
+        deadlines.put(jobId, endDate);
+        queue.offer(new ExpiryTask(jobId, endDate));
+    }
+
+    private void runWorker() {
+        while (worker == Thread.currentThread()) {
+            try {
+                List<ExpiryTask> batch = new ArrayList<>();
+                batch.add(queue.take());
+                queue.drainTo(batch, batchSize - 1);
+
+                expire(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Lỗi khi cập nhật công việc hết hạn: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    private void expire(List<ExpiryTask> batch) {
+        List<Long> ids = new ArrayList<>();
+        for (ExpiryTask task : batch) {
+            if (deadlines.remove(task.jobId(), task.endDate()))
+                ids.add(task.jobId());
+        }
+
+        if (ids.isEmpty())
+            return;
+
+        try {
+            Integer updated = transactionTemplate.execute(tx -> jobRepository.expireJobs(
+                    ids,
+                    JobStatus.ACTIVE,
+                    JobStatus.EXPIRED,
+                    Instant.now()));
+
+            jobCacheService.evict(ids);
+            skillJobIndexService.removeJobs(ids);
+            ids.forEach(jobSearchService::removeJob);
+
+            // UPDATE hàng loạt không đi qua entity listener nên tự cập nhật bộ đếm thống kê
+            if (updated != null && updated > 0) {
+                statsCounterService.increment(StatsCounterService.jobStatusKey(JobStatus.ACTIVE), -updated);
+                statsCounterService.increment(StatsCounterService.jobStatusKey(JobStatus.EXPIRED), updated);
+            }
+            log.info("Đã chuyển {} công việc sang EXPIRED", updated);
+        } catch (RuntimeException e) {
+            // Trả lại hàng đợi để thử lại sau 30 giây (trừ khi job vừa được lên lịch lại)
+            Instant retryAt = Instant.now().plusSeconds(30);
+            for (Long id : ids) {
+                if (deadlines.putIfAbsent(id, retryAt) == null)
+                    queue.offer(new ExpiryTask(id, retryAt));
+            }
+            throw e;
+        }
+    }
+}
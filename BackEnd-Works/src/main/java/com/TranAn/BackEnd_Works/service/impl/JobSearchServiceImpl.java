@@ -0,0 +1,425 @@
+package com.TranAn.BackEnd_Works.service.impl;
+
+import com.TranAn.BackEnd_Works.model.Job;
+import com.TranAn.BackEnd_Works.model.Skill;
+import com.TranAn.BackEnd_Works.model.constant.JobStatus;
+import com.TranAn.BackEnd_Works.model.constant.Level;
+import com.TranAn.BackEnd_Works.repository.JobRepository;
+import com.TranAn.BackEnd_Works.service.JobSearchService;
+import com.TranAn.BackEnd_Works.util.TransactionUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class JobSearchServiceImpl implements JobSearchService {
+
+    private final JobRepository jobRepository;
+
+    private static final int REBUILD_BATCH_SIZE = 1000;
+    private static final int MAX_TOKEN_LENGTH = 40;
+    private static final int MAX_PREFIX_EXPANSION = 64;
+
+    // Trọng số theo trường: khớp ở tên công việc quan trọng hơn khớp ở mô tả
+    private static final float NAME_WEIGHT = 3.0f;
+    private static final float SKILL_WEIGHT = 2.5f;
+    private static final float LEVEL_WEIGHT = 2.0f;
+    private static final float LOCATION_WEIGHT = 1.5f;
+    private static final float DESCRIPTION_WEIGHT = 1.0f;
+    private static final float MAX_DESCRIPTION_WEIGHT = 3.0f;
+
+    private static final Pattern HTML_TAG = Pattern.compile("<[^>]*>");
+    private static final Pattern HTML_ENTITY = Pattern.compile("&[#a-zA-Z0-9]+;");
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}+#]+");
+
+    // Chỉ mục đang phục vụ tìm kiếm; rebuild dựng chỉ mục mới riêng rồi thay một lần
+    private volatile Index index = new Index();
+    // Bảo vệ nội dung của chỉ mục hiện tại (cập nhật từng job) và thời điểm thay chỉ mục
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Không chạy hai lần rebuild cùng lúc
+    private final Object rebuildMonitor = new Object();
+
+    // Các job bị thay đổi trong lúc đang rebuild: khi thay chỉ mục sẽ lấy bản mới nhất từ chỉ mục cũ
+    private final Set<Long> dirtyDuringRebuild = ConcurrentHashMap.newKeySet();
+    private volatile boolean rebuilding = false;
+    private volatile boolean ready = false;
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuildIndex();
+    }
+
+    @Override
+    public void indexJob(Job job) {
+        if (job == null || job.getId() == null)
+            return;
+
+        // Job hết hạn không còn tìm thấy được
+        if (job.getStatus() == JobStatus.EXPIRED) {
+            removeJob(job.getId());
+            return;
+        }
+
+        // Đọc dữ liệu (kể cả skills lazy) ngay trong transaction hiện tại
+        Long jobId = job.getId();
+        Map<String, Float> terms = buildTerms(
+                job.getName(),
+                job.getLocation(),
+                job.getLevel(),
+                job.getDescription(),
+                job.getSkills() == null
+                        ? List.of()
+                        : job.getSkills().stream().map(Skill::getName).toList());
+
+        TransactionUtils.runAfterCommit(() -> {
+            markDirty(jobId);
+            putDocument(jobId, terms);
+        });
+    }
+
+    @Override
+    public void removeJob(Long jobId) {
+        if (jobId == null)
+            return;
+
+        TransactionUtils.runAfterCommit(() -> {
+            markDirty(jobId);
+            lock.writeLock().lock();
+            try {
+                index.remove(jobId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    @Override
+    public SearchResult search(String keyword, int limit) {
+        List<String> queryTerms = tokenize(keyword).stream().distinct().toList();
+        if (queryTerms.isEmpty() || limit <= 0)
+            return new SearchResult(List.of(), false);
+
+        lock.readLock().lock();
+        try {
+            Index current = index;
+            int totalDocs = Math.max(current.forwardIndex.size(), 1);
+            List<TermPostings> lists = new ArrayList<>(queryTerms.size());
+            boolean truncated = false;
+
+            for (int i = 0; i < queryTerms.size(); i++) {
+                String term = queryTerms.get(i);
+                boolean isLastTerm = i == queryTerms.size() - 1;
+                TermPostings list = isLastTerm ? current.prefixPostings(term) : current.exactPostings(term);
+
+                // Tìm kiếm theo AND: thiếu bất kỳ term nào thì không có kết quả
+                if (list.size() == 0)
+                    return new SearchResult(List.of(), false);
+                lists.add(list);
+                truncated |= list.truncated();
+            }
+
+            // Duyệt danh sách ngắn nhất trước để giảm số lần tra cứu
+            lists.sort(Comparator.comparingInt(TermPostings::size));
+            float[] idf = new float[lists.size()];
+            for (int i = 0; i < lists.size(); i++) {
+                idf[i] = (float) Math.log(1.0 + (double) totalDocs / lists.get(i).size());
+            }
+
+            PriorityQueue<ScoredJob> topK = new PriorityQueue<>(limit + 1);
+            lists.get(0).forEach((jobId, firstWeight) -> {
+                float score = firstWeight * idf[0];
+
+                for (int i = 1; i < lists.size(); i++) {
+                    Float weight = lists.get(i).weight(jobId);
+                    if (weight == null)
+                        return;
+                    score += weight * idf[i];
+                }
+
+                topK.offer(new ScoredJob(jobId, score));
+                if (topK.size() > limit)
+                    topK.poll();
+            });
+
+            List<ScoredJob> ranked = new ArrayList<>(topK);
+            ranked.sort(Comparator.reverseOrder());
+            return new SearchResult(ranked.stream().map(ScoredJob::jobId).toList(), truncated);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public void rebuildIndex() {
+        synchronized (rebuildMonitor) {
+            rebuildIndexExclusively();
+        }
+    }
+
+    // ==== PRIVATE METHODS ====
+
+    private void rebuildIndexExclusively() {
+        long startedAt = System.currentTimeMillis();
+        rebuilding = true;
+        dirtyDuringRebuild.clear();
+
+        try {
+            // Tìm kiếm vẫn dùng chỉ mục cũ trong suốt quá trình dựng chỉ mục mới
+            Index fresh = new Index();
+            long lastId = 0L;
+            int indexed = 0;
+            while (true) {
+                // Phân trang theo id (keyset) để tránh OFFSET trên bảng lớn
+                List<Object[]> rows = jobRepository.findSearchDocumentsAfter(
+                        lastId, JobStatus.EXPIRED, PageRequest.of(0, REBUILD_BATCH_SIZE));
+                if (rows.isEmpty())
+                    break;
+
+                List<Long> ids = rows.stream().map(row -> (Long) row[0]).toList();
+                Map<Long, List<String>> skillsByJob = new HashMap<>();
+                for (Object[] row : jobRepository.findSkillCardsByJobIds(ids)) {
+                    skillsByJob.computeIfAbsent((Long) row[0], k -> new ArrayList<>()).add((String) row[2]);
+                }
+
+                for (Object[] row : rows) {
+                    Long jobId = (Long) row[0];
+                    fresh.put(jobId, buildTerms(
+                            (String) row[1],
+                            (String) row[2],
+                            (Level) row[3],
+                            (String) row[4],
+                            skillsByJob.getOrDefault(jobId, List.of())));
+                    indexed++;
+                }
+
+                lastId = ids.get(ids.size() - 1);
+            }
+
+            lock.writeLock().lock();
+            try {
+                // Job thay đổi trong lúc rebuild: chỉ mục cũ đã có bản mới hơn dữ liệu vừa đọc
+                for (Long jobId : dirtyDuringRebuild)
+                    fresh.copyDocument(index, jobId);
+                index = fresh;
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            ready = true;
+            log.info("Đã nạp chỉ mục tìm kiếm cho {} công việc trong {} ms",
+                    indexed, System.currentTimeMillis() - startedAt);
+        } catch (Exception e) {
+            log.error("Không thể nạp chỉ mục tìm kiếm công việc", e);
+        } finally {
+            rebuilding = false;
+            dirtyDuringRebuild.clear();
+        }
+    }
+
+    private void putDocument(Long jobId, Map<String, Float> terms) {
+        lock.writeLock().lock();
+        try {
+            index.put(jobId, terms);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void markDirty(Long jobId) {
+        if (rebuilding)
+            dirtyDuringRebuild.add(jobId);
+    }
+
+    private Map<String, Float> buildTerms(String name, String location, Level level, String description,
+            List<String> skillNames) {
+        Map<String, Float> terms = new HashMap<>();
+
+        addField(terms, name, NAME_WEIGHT, Float.MAX_VALUE);
+        addField(terms, location, LOCATION_WEIGHT, Float.MAX_VALUE);
+        addField(terms, level != null ? level.name() : null, LEVEL_WEIGHT, Float.MAX_VALUE);
+        for (String skillName : skillNames) {
+            addField(terms, skillName, SKILL_WEIGHT, Float.MAX_VALUE);
+        }
+
+        if (description != null) {
+            String plainText = HTML_ENTITY.matcher(HTML_TAG.matcher(description).replaceAll(" ")).replaceAll(" ");
+            addField(terms, plainText, DESCRIPTION_WEIGHT, MAX_DESCRIPTION_WEIGHT);
+        }
+
+        return terms;
+    }
+
+    private void addField(Map<String, Float> terms, String text, float weight, float maxFieldWeight) {
+        Map<String, Float> fieldTerms = new HashMap<>();
+        for (String token : tokenize(text)) {
+            fieldTerms.merge(token, weight, (a, b) -> Math.min(a + b, maxFieldWeight));
+        }
+        fieldTerms.forEach((token, fieldWeight) -> terms.merge(token, fieldWeight, Float::sum));
+    }
+
+    private static List<String> tokenize(String text) {
+        if (text == null || text.isBlank())
+            return List.of();
+
+        List<String> tokens = new ArrayList<>();
+        for (String token : TOKEN_SEPARATOR.split(foldDiacritics(text))) {
+            if (token.isEmpty() || token.length() > MAX_TOKEN_LENGTH)
+                continue;
+            if (token.chars().noneMatch(Character::isLetterOrDigit))
+                continue;
+            tokens.add(token);
+        }
+        return tokens;
+    }
+
+    /**
+     * Bỏ dấu tiếng Việt và chuyển về chữ thường: "Lập trình viên Đà Nẵng" -> "lap trinh vien da nang"
+     */
+    private static String foldDiacritics(String text) {
+        String replaced = text.replace('đ', 'd').replace('Đ', 'D');
+        String decomposed = Normalizer.normalize(replaced, Normalizer.Form.NFD);
+        return DIACRITICS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Chỉ mục ngược: rebuild dựng một bản mới, cập nhật từng job sửa bản đang dùng (dưới write lock)
+     */
+    private static final class Index {
+        // term -> (jobId -> trọng số), TreeMap để hỗ trợ tìm theo tiền tố
+        final NavigableMap<String, Map<Long, Float>> postings = new TreeMap<>();
+        // jobId -> các term của công việc, dùng khi xóa/cập nhật
+        final Map<Long, String[]> forwardIndex = new HashMap<>();
+
+        void put(Long jobId, Map<String, Float> terms) {
+            remove(jobId);
+
+            for (Map.Entry<String, Float> entry : terms.entrySet()) {
+                postings.computeIfAbsent(entry.getKey(), k -> new HashMap<>())
+                        .put(jobId, entry.getValue());
+            }
+            forwardIndex.put(jobId, terms.keySet().toArray(new String[0]));
+        }
+
+        void remove(Long jobId) {
+            String[] terms = forwardIndex.remove(jobId);
+            if (terms == null)
+                return;
+
+            for (String term : terms) {
+                Map<Long, Float> list = postings.get(term);
+                if (list == null)
+                    continue;
+                list.remove(jobId);
+                if (list.isEmpty())
+                    postings.remove(term);
+            }
+        }
+
+        // Lấy bản của job từ chỉ mục khác (job đã bị xóa ở đó thì xóa ở đây)
+        void copyDocument(Index source, Long jobId) {
+            String[] terms = source.forwardIndex.get(jobId);
+            if (terms == null) {
+                remove(jobId);
+                return;
+            }
+
+            Map<String, Float> weighted = new HashMap<>();
+            for (String term : terms)
+                weighted.put(term, source.postings.get(term).get(jobId));
+            put(jobId, weighted);
+        }
+
+        TermPostings exactPostings(String term) {
+            Map<Long, Float> list = postings.get(term);
+            return list == null ? TermPostings.EMPTY : new TermPostings(List.of(list), list.size(), false);
+        }
+
+        /**
+         * Term cuối của câu truy vấn được khớp theo tiền tố để hỗ trợ gõ dở ("java" khớp "javascript");
+         * chỉ lấy tham chiếu tới các danh sách khớp trong TreeMap, không chép/gộp. Khớp quá
+         * MAX_PREFIX_EXPANSION term thì giữ các term có nhiều job nhất và đánh dấu truncated
+         */
+        TermPostings prefixPostings(String prefix) {
+            if (prefix.length() < 2)
+                return exactPostings(prefix);
+
+            // Heap nhỏ nhất theo số job: luôn giữ MAX_PREFIX_EXPANSION danh sách lớn nhất đã gặp
+            PriorityQueue<Map<Long, Float>> largest = new PriorityQueue<>(Comparator.comparingInt(Map::size));
+            boolean truncated = false;
+            // Khoảng [prefix, prefix + MAX) gồm cả term trùng khớp hoàn toàn
+            for (Map<Long, Float> list : postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+                largest.offer(list);
+                if (largest.size() > MAX_PREFIX_EXPANSION) {
+                    largest.poll();
+                    truncated = true;
+                }
+            }
+
+            List<Map<Long, Float>> lists = new ArrayList<>(largest);
+            int size = lists.stream().mapToInt(Map::size).sum();
+            return new TermPostings(lists, size, truncated);
+        }
+    }
+
+    /**
+     * Danh sách job của một term truy vấn (một hoặc nhiều term khớp tiền tố); size là cận trên số job,
+     * job khớp nhiều term lấy trọng số lớn nhất; truncated khi đã bỏ bớt term khớp tiền tố
+     */
+    private record TermPostings(List<Map<Long, Float>> lists, int size, boolean truncated) {
+
+        static final TermPostings EMPTY = new TermPostings(List.of(), 0, false);
+
+        Float weight(Long jobId) {
+            Float best = null;
+            for (Map<Long, Float> list : lists) {
+                Float weight = list.get(jobId);
+                if (weight != null && (best == null || weight > best))
+                    best = weight;
+            }
+            return best;
+        }
+
+        // Mỗi job đúng một lần: job đã có trong danh sách trước thì bỏ qua
+        void forEach(BiConsumer<Long, Float> action) {
+            for (int i = 0; i < lists.size(); i++) {
+                outer:
+                for (Long jobId : lists.get(i).keySet()) {
+                    for (int j = 0; j < i; j++) {
+                        if (lists.get(j).containsKey(jobId))
+                            continue outer;
+                    }
+                    action.accept(jobId, weight(jobId));
+                }
+            }
+        }
+    }
+
+    private record ScoredJob(Long jobId, float score) implements Comparable<ScoredJob> {
+        @Override
+        public int compareTo(ScoredJob other) {
+            int byScore = Float.compare(score, other.score);
+            // Cùng điểm thì ưu tiên job mới hơn (id lớn hơn)
+            return byScore != 0 ? byScore : Long.compare(jobId, other.jobId);
+        }
+    }
+}
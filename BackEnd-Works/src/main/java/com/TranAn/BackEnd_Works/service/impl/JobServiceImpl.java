@@ -1,14 +1,21 @@
 package com.TranAn.BackEnd_Works.service.impl;
 
 import com.TranAn.BackEnd_Works.dto.request.job.JobRequestDto;
+import com.TranAn.BackEnd_Works.dto.response.CursorPageResponseDto;
 import com.TranAn.BackEnd_Works.dto.response.job.JobResponseDto;
 import com.TranAn.BackEnd_Works.model.*;
+import com.TranAn.BackEnd_Works.model.constant.JobStatus;
 import com.TranAn.BackEnd_Works.repository.*;
+import com.TranAn.BackEnd_Works.service.JobCacheService;
+import com.TranAn.BackEnd_Works.service.JobExpiryService;
+import com.TranAn.BackEnd_Works.service.JobSearchService;
+import com.TranAn.BackEnd_Works.service.SkillJobIndexService;
 import com.TranAn.BackEnd_Works.service.JobService;
 import com.TranAn.BackEnd_Works.service.S3Service;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.access.AccessDeniedException;
@@ -30,11 +37,79 @@ public class JobServiceImpl implements JobService {
         private final UserRepository userRepository;
         private final ResumeRepository resumeRepository;
         private final S3Service s3Service;
+        private final JobSearchService jobSearchService;
+        private final JobCacheService jobCacheService;
+        private final JobExpiryService jobExpiryService;
+        private final SkillJobIndexService skillJobIndexService;
+
+        private static final int MAX_SEARCH_RESULTS = 500;
 
         @Override
         public Page<JobResponseDto> findAllJobs(Specification<Job> spec, Pageable pageable) {
-                return jobRepository.findAll(spec, pageable)
-                                .map(this::mapToResponseDto);
+                Page<JobResponseDto> page = jobRepository.findJobCards(spec, pageable);
+                attachCompaniesAndSkills(page.getContent(), true);
+                return page;
+        }
+
+        @Override
+        public CursorPageResponseDto<JobResponseDto> findAllJobsByCursor(
+                        Specification<Job> spec,
+                        String cursor,
+                        int size) {
+                Specification<Job> afterSpec = KeysetCursor.after(cursor);
+                Specification<Job> combined = spec == null ? afterSpec : spec.and(afterSpec);
+
+                // Lấy dư 1 phần tử để biết còn trang sau hay không
+                List<JobResponseDto> rows = jobRepository.findJobCards(combined, KeysetCursor.SORT, size + 1);
+
+                CursorPageResponseDto<JobResponseDto> page = CursorPageResponseDto.fromRows(
+                                rows,
+                                size,
+                                dto -> new KeysetCursor(dto.getCreatedAt(), dto.getId()).encode(),
+                                dto -> dto);
+                attachCompaniesAndSkills(page.getContent(), true);
+                return page;
+        }
+
+        @Override
+        public Page<JobResponseDto> searchJobs(String keyword, Specification<Job> spec, Pageable pageable) {
+                // Chỉ mục chưa nạp xong (vừa khởi động) thì tạm dùng truy vấn LIKE theo tên
+                if (!jobSearchService.isReady())
+                        return searchByName(keyword, spec, pageable);
+
+                JobSearchService.SearchResult result = jobSearchService.search(keyword, MAX_SEARCH_RESULTS);
+                // Tiền tố quá ngắn khớp quá nhiều term, kết quả chỉ mục có thể thiếu job
+                if (result.truncated())
+                        return searchByName(keyword, spec, pageable);
+
+                List<Long> rankedIds = result.jobIds();
+                if (rankedIds.isEmpty())
+                        return Page.empty(pageable);
+
+                // Áp dụng thêm @Filter (nếu có) bằng một truy vấn IN theo id, giữ nguyên thứ tự xếp hạng
+                List<Long> matchedIds = rankedIds;
+                if (spec != null) {
+                        Specification<Job> idSpec = (root, q, cb) -> root.get("id").in(rankedIds);
+                        Set<Long> filteredIds = new HashSet<>(jobRepository.findJobIds(idSpec.and(spec)));
+                        matchedIds = rankedIds.stream().filter(filteredIds::contains).toList();
+                }
+
+                int from = (int) Math.min(pageable.getOffset(), matchedIds.size());
+                int to = Math.min(from + pageable.getPageSize(), matchedIds.size());
+                List<Long> pageIds = matchedIds.subList(from, to);
+
+                Specification<Job> pageSpec = (root, q, cb) -> root.get("id").in(pageIds);
+                Map<Long, JobResponseDto> jobsById = jobRepository.findJobCards(pageSpec, Pageable.unpaged())
+                                .stream()
+                                .collect(Collectors.toMap(JobResponseDto::getId, dto -> dto));
+
+                List<JobResponseDto> content = pageIds.stream()
+                                .map(jobsById::get)
+                                .filter(Objects::nonNull)
+                                .toList();
+                attachCompaniesAndSkills(content, true);
+
+                return new PageImpl<>(content, pageable, matchedIds.size());
         }
 
         @Override
@@ -52,17 +127,26 @@ public class JobServiceImpl implements JobService {
                 if (user.getCompany() == null)
                         throw new EntityNotFoundException("Không tìm thấy công ty người dùng");
 
-                return jobRepository
-                                .findByCompanyId(user.getCompany().getId(), spec, pageable)
-                                .map(this::mapToResponseDto);
+                Long companyId = user.getCompany().getId();
+                Specification<Job> companySpec = (root, q, cb) -> cb.equal(root.get("company").get("id"), companyId);
+
+                Page<JobResponseDto> page = jobRepository.findJobCards(companySpec.and(spec), pageable);
+                attachCompaniesAndSkills(page.getContent(), true);
+                return page;
         }
 
         @Override
         public JobResponseDto findJobById(Long id) {
-                return jobRepository
+                JobResponseDto dto = jobCacheService.get(id, () -> jobRepository
                                 .findById(id)
                                 .map(this::mapToResponseDto)
-                                .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy công việc"));
+                                .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy công việc")));
+
+                // JobExpiryService xóa cache khi job hết hạn; tính lại để job quá hạn chưa kịp xử lý vẫn là EXPIRED
+                dto.setStatus(calculateStatus(
+                                dto.getStatus() != null ? JobStatus.valueOf(dto.getStatus()) : null,
+                                dto.getEndDate()));
+                return dto;
         }
 
         @Override
@@ -122,6 +206,9 @@ public class JobServiceImpl implements JobService {
                 }
 
                 Job savedJob = jobRepository.saveAndFlush(job);
+                jobSearchService.indexJob(savedJob);
+                jobExpiryService.schedule(savedJob);
+                skillJobIndexService.indexJob(savedJob);
 
                 return mapToResponseDto(savedJob);
         }
@@ -190,6 +277,10 @@ public class JobServiceImpl implements JobService {
                 }
 
                 Job updatedJob = jobRepository.saveAndFlush(job);
+                jobSearchService.indexJob(updatedJob);
+                jobExpiryService.schedule(updatedJob);
+                skillJobIndexService.indexJob(updatedJob);
+                jobCacheService.evict(id);
 
                 return mapToResponseDto(updatedJob);
         }
@@ -204,6 +295,10 @@ public class JobServiceImpl implements JobService {
 
                 Job updatedJob = jobRepository.saveAndFlush(job);
                 jobRepository.delete(updatedJob);
+                jobSearchService.removeJob(id);
+                jobExpiryService.cancel(id);
+                skillJobIndexService.removeJobs(List.of(id));
+                jobCacheService.evict(id);
 
                 return mapToResponseDto(job);
         }
@@ -233,22 +328,78 @@ public class JobServiceImpl implements JobService {
 
                 Job updatedJob = jobRepository.saveAndFlush(job);
                 jobRepository.delete(updatedJob);
+                jobSearchService.removeJob(id);
+                jobExpiryService.cancel(id);
+                skillJobIndexService.removeJobs(List.of(id));
+                jobCacheService.evict(id);
 
                 return mapToResponseDto(job);
         }
 
         @Override
         public List<JobResponseDto> findJobByCompanyId(Long id) {
-                return jobRepository
-                                .findByCompanyId(id)
-                                .stream()
-                                .map(job -> {
-                                        JobResponseDto dto = mapToResponseDto(job);
-                                        dto.setDescription(null);
-                                        dto.setCompany(null);
-                                        return dto;
-                                })
-                                .collect(Collectors.toList());
+                Specification<Job> companySpec = (root, q, cb) -> cb.equal(root.get("company").get("id"), id);
+
+                List<JobResponseDto> jobs = jobRepository.findJobCards(companySpec, Pageable.unpaged()).getContent();
+                attachCompaniesAndSkills(jobs, false);
+                jobs.forEach(dto -> {
+                        dto.setDescription(null);
+                        dto.setCompany(null);
+                });
+                return jobs;
+        }
+
+        // Tìm bằng LIKE theo tên khi không dùng được chỉ mục tìm kiếm
+        private Page<JobResponseDto> searchByName(String keyword, Specification<Job> spec, Pageable pageable) {
+                Specification<Job> nameSpec = (root, q, cb) -> cb.like(
+                                cb.lower(root.get("name")),
+                                "%" + keyword.toLowerCase() + "%");
+                return findAllJobs(nameSpec.and(spec), pageable);
+        }
+
+        /**
+         * Bổ sung công ty (kèm logo) và kỹ năng cho các job card bằng đúng 2 truy vấn theo lô,
+         * thay cho việc lazy load từng dòng trong mapToResponseDto.
+         */
+        private void attachCompaniesAndSkills(List<JobResponseDto> jobs, boolean withCompany) {
+                if (jobs.isEmpty())
+                        return;
+
+                List<Long> jobIds = jobs.stream().map(JobResponseDto::getId).toList();
+
+                Map<Long, List<JobResponseDto.SkillDto>> skillsByJob = new HashMap<>();
+                for (Object[] row : jobRepository.findSkillCardsByJobIds(jobIds)) {
+                        skillsByJob.computeIfAbsent((Long) row[0], k -> new ArrayList<>())
+                                        .add(new JobResponseDto.SkillDto((Long) row[1], (String) row[2]));
+                }
+
+                Map<Long, JobResponseDto.CompanyDto> companiesById = new HashMap<>();
+                if (withCompany) {
+                        Set<Long> companyIds = jobs.stream()
+                                        .map(JobResponseDto::getCompany)
+                                        .filter(Objects::nonNull)
+                                        .map(JobResponseDto.CompanyDto::getId)
+                                        .collect(Collectors.toSet());
+
+                        if (!companyIds.isEmpty()) {
+                                for (Object[] row : jobRepository.findCompanyCardsByIds(companyIds)) {
+                                        companiesById.put((Long) row[0], new JobResponseDto.CompanyDto(
+                                                        (Long) row[0],
+                                                        (String) row[1],
+                                                        (String) row[3],
+                                                        (String) row[2]));
+                                }
+                        }
+                }
+
+                for (JobResponseDto dto : jobs) {
+                        dto.setSkills(skillsByJob.getOrDefault(dto.getId(), List.of()));
+                        if (withCompany && dto.getCompany() != null)
+                                dto.setCompany(companiesById.get(dto.getCompany().getId()));
+                        dto.setStatus(calculateStatus(
+                                        dto.getStatus() != null ? JobStatus.valueOf(dto.getStatus()) : null,
+                                        dto.getEndDate()));
+                }
         }
 
         private JobResponseDto mapToResponseDto(Job job) {
@@ -283,25 +434,26 @@ public class JobServiceImpl implements JobService {
                                 job.getDescription(),
                                 job.getStartDate(),
                                 job.getEndDate(),
-                                calculateStatus(job),
+                                calculateStatus(job.getStatus(), job.getEndDate()),
+                                job.getCreatedAt(),
                                 companyDto,
                                 skillDtos);
         }
 
         /**
          * Tính toán trạng thái công việc realtime dựa trên endDate
+         * (JobExpiryService cập nhật database trong vài giây, đây là lớp dự phòng lúc đọc)
          */
-        private String calculateStatus(Job job) {
+        private String calculateStatus(JobStatus status, Instant endDate) {
                 // Nếu trạng thái là PAUSED hoặc DRAFT, giữ nguyên
-                if (job.getStatus() == com.TranAn.BackEnd_Works.model.constant.JobStatus.PAUSED ||
-                                job.getStatus() == com.TranAn.BackEnd_Works.model.constant.JobStatus.DRAFT) {
-                        return job.getStatus().name();
+                if (status == JobStatus.PAUSED || status == JobStatus.DRAFT) {
+                        return status.name();
                 }
                 // Tự động tính EXPIRED nếu endDate đã qua
-                if (job.getEndDate() != null && job.getEndDate().isBefore(Instant.now())) {
-                        return com.TranAn.BackEnd_Works.model.constant.JobStatus.EXPIRED.name();
+                if (endDate != null && endDate.isBefore(Instant.now())) {
+                        return JobStatus.EXPIRED.name();
                 }
-                return com.TranAn.BackEnd_Works.model.constant.JobStatus.ACTIVE.name();
+                return JobStatus.ACTIVE.name();
         }
 
         private void cleanupJobResumesAndSkills(Job job) {
@@ -0,0 +1,105 @@
+package com.TranAn.BackEnd_Works.service.impl;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Automaton Aho-Corasick: tìm tất cả từ khóa trong văn bản bằng một lần duyệt, thời gian tuyến tính theo độ dài
+ * văn bản (không phụ thuộc số từ khóa). Văn bản và từ khóa được chuẩn hóa giống nhau bởi {@link #normalize(String)};
+ * chỉ tính các lần khớp trọn từ (hai đầu là khoảng trắng hoặc đầu/cuối văn bản).
+ */
+final class KeywordAutomaton<T> {
+
+    private static final class Node {
+        final Map<Character, Node> next = new HashMap<>();
+        Node fail;
+        // Các từ khóa kết thúc tại node này (kể cả qua liên kết fail)
+        final List<Entry<?>> outputs = new ArrayList<>();
+    }
+
+    private record Entry<T>(int length, T value) {
+    }
+
+    private final Node root = new Node();
+
+    KeywordAutomaton(Map<String, T> keywords) {
+        keywords.forEach((keyword, value) -> {
+            String normalized = normalize(keyword);
+            if (normalized.isEmpty())
+                return;
+
+            Node node = root;
+            for (char c : normalized.toCharArray())
+                node = node.next.computeIfAbsent(c, k -> new Node());
+            node.outputs.add(new Entry<>(normalized.length(), value));
+        });
+
+        // Dựng liên kết fail theo chiều rộng
+        Deque<Node> queue = new ArrayDeque<>();
+        for (Node child : root.next.values()) {
+            child.fail = root;
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            Node node = queue.poll();
+            for (Map.Entry<Character, Node> edge : node.next.entrySet()) {
+                Node child = edge.getValue();
+                Node fail = node.fail;
+                while (fail != null && !fail.next.containsKey(edge.getKey()))
+                    fail = fail.fail;
+                child.fail = fail != null ? fail.next.get(edge.getKey()) : root;
+                child.outputs.addAll(child.fail.outputs);
+                queue.add(child);
+            }
+        }
+    }
+
+    /**
+     * Gọi {@code onMatch} cho mỗi từ khóa xuất hiện trọn từ trong văn bản đã chuẩn hóa
+     */
+    @SuppressWarnings("unchecked")
+    void scan(String normalizedText, Consumer<T> onMatch) {
+        Node node = root;
+        for (int i = 0; i < normalizedText.length(); i++) {
+            char c = normalizedText.charAt(i);
+            while (node != root && !node.next.containsKey(c))
+                node = node.fail;
+            node = node.next.getOrDefault(c, root);
+
+            if (node.outputs.isEmpty())
+                continue;
+
+            boolean endsAtBoundary = i + 1 == normalizedText.length() || normalizedText.charAt(i + 1) == ' ';
+            if (!endsAtBoundary)
+                continue;
+
+            for (Entry<?> entry : node.outputs) {
+                int start = i + 1 - entry.length();
+                if (start == 0 || normalizedText.charAt(start - 1) == ' ')
+                    onMatch.accept((T) entry.value());
+            }
+        }
+    }
+
+    /**
+     * Chữ thường; giữ chữ, số và các ký tự hay có trong tên công nghệ (+ # .), còn lại thành một khoảng trắng.
+     * Dấu chấm ở cuối từ (hết câu) bị bỏ để "Java." vẫn khớp "java", còn "node.js", ".net" giữ nguyên.
+     */
+    static String normalize(String text) {
+        StringBuilder out = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = Character.toLowerCase(text.charAt(i));
+            boolean keep = Character.isLetterOrDigit(c) || c == '+' || c == '#'
+                    || (c == '.' && i + 1 < text.length() && Character.isLetterOrDigit(text.charAt(i + 1)));
+            if (keep)
+                out.append(c);
+            else if (!out.isEmpty() && out.charAt(out.length() - 1) != ' ')
+                out.append(' ');
+        }
+        int end = out.length();
+        while (end > 0 && out.charAt(end - 1) == ' ')
+            end--;
+        out.setLength(end);
+        return out.toString();
+    }
+}
@@ -0,0 +1,462 @@
+package com.TranAn.BackEnd_Works.service.impl;
+
+import com.TranAn.BackEnd_Works.dto.response.notification.NotificationResponseDto;
+import com.TranAn.BackEnd_Works.service.NotificationInboxService;
+import com.TranAn.BackEnd_Works.util.TransactionUtils;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.IntFunction;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Mỗi user có các key trên Redis (cùng hash tag {userId} để nằm chung slot khi chạy Redis Cluster):
+ * <ul>
+ * <li>{@code notif:{id}:latest} – sorted set id thông báo theo createdAt, giữ tối đa {@code notification.inbox.size}</li>
+ * <li>{@code notif:{id}:payload} – hash id → JSON thông báo (field {@value #LOADED_FIELD} đánh dấu hộp thư đã nạp)</li>
+ * <li>{@code notif:{id}:unread} – bộ đếm chưa đọc</li>
+ * <li>{@code notif:{id}:gen} – tăng mỗi khi hộp thư thay đổi, để bỏ kết quả nạp lại đã cũ</li>
+ * <li>{@code notif:{id}:broadcast-unread} – số thông báo nhóm chưa đọc kèm phiên bản các nhóm lúc đếm</li>
+ * <li>{@code notif:{id}:broadcast-read} – mốc đã đọc thông báo nhóm và các id đã đọc riêng lẻ</li>
+ * </ul>
+ * Thông báo nhóm dùng chung một hộp thư cho mỗi nhóm ({@code notif:aud:{nhóm}:latest|payload|ver}); key
+ * {@code ver} tăng khi nhóm có thông báo mới, khiến số chưa đọc của các thành viên được đếm lại ở lần đọc sau.
+ * <p>
+ * Mọi thay đổi chạy bằng Lua script nên nguyên tử. Thông báo mới chỉ được ghi vào hộp thư/bộ đếm đã có sẵn; key
+ * chưa có (hoặc đã hết hạn) được nạp lại từ database ở lần đọc kế tiếp. Redis lỗi thì đọc thẳng từ database.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class NotificationInboxServiceImpl implements NotificationInboxService {
+
+    private static final String KEY_PREFIX = "notif:{";
+    private static final String AUDIENCE_KEY_PREFIX = "notif:aud:{";
+    private static final String LOADED_FIELD = "_loaded";
+    private static final String WATERMARK_FIELD = "_watermark";
+
+    // KEYS: latest, payload, gen, [unread] | ARGV: id, score, json, size, ttl (0: gen không hết hạn)
+    private static final RedisScript<Long> ADD_SCRIPT = new DefaultRedisScript<>("""
+            redis.call('INCR', KEYS[3])
+            if tonumber(ARGV[5]) > 0 then
+                redis.call('EXPIRE', KEYS[3], ARGV[5])
+            end
+            if redis.call('EXISTS', KEYS[2]) == 1 then
+                redis.call('ZADD', KEYS[1], ARGV[2], ARGV[1])
+                redis.call('HSET', KEYS[2], ARGV[1], ARGV[3])
+                local overflow = redis.call('ZCARD', KEYS[1]) - tonumber(ARGV[4])
+                if overflow > 0 then
+                    local removed = redis.call('ZRANGE', KEYS[1], 0, overflow - 1)
+                    redis.call('ZREMRANGEBYRANK', KEYS[1], 0, overflow - 1)
+                    redis.call('HDEL', KEYS[2], unpack(removed))
+                end
+            end
+            if #KEYS > 3 and redis.call('EXISTS', KEYS[4]) == 1 then
+                redis.call('INCR', KEYS[4])
+            end
+            return 1
+            """, Long.class);
+
+    // KEYS: payload, unread, gen | ARGV: id, json, wasUnread, ttl
+    private static final RedisScript<Long> MARK_READ_SCRIPT = new DefaultRedisScript<>("""
+            redis.call('INCR', KEYS[3])
+            redis.call('EXPIRE', KEYS[3], ARGV[4])
+            if redis.call('HEXISTS', KEYS[1], ARGV[1]) == 1 then
+                redis.call('HSET', KEYS[1], ARGV[1], ARGV[2])
+            end
+            if ARGV[3] == '1' then
+                local unread = tonumber(redis.call('GET', KEYS[2]))
+                if unread ~= nil and unread > 0 then
+                    redis.call('DECR', KEYS[2])
+                end
+            end
+            return 1
+            """, Long.class);
+
+    // KEYS: latest, payload, unread, gen, broadcast-unread, broadcast-read | ARGV: ttl
+    private static final RedisScript<Long> MARK_ALL_READ_SCRIPT = new DefaultRedisScript<>("""
+            redis.call('INCR', KEYS[4])
+            redis.call('EXPIRE', KEYS[4], ARGV[1])
+            redis.call('DEL', KEYS[1], KEYS[2], KEYS[6])
+            redis.call('SET', KEYS[3], 0, 'EX', ARGV[1])
+            if redis.call('EXISTS', KEYS[5]) == 1 then
+                redis.call('HSET', KEYS[5], 'count', 0)
+            end
+            return 1
+            """, Long.class);
+
+    // KEYS: broadcast-read, broadcast-unread, gen | ARGV: id, wasUnread, ttl
+    private static final RedisScript<Long> MARK_BROADCAST_READ_SCRIPT = new DefaultRedisScript<>("""
+            redis.call('INCR', KEYS[3])
+            redis.call('EXPIRE', KEYS[3], ARGV[3])
+            if redis.call('EXISTS', KEYS[1]) == 1 then
+                redis.call('HSET', KEYS[1], ARGV[1], '1')
+            end
+            if ARGV[2] == '1' then
+                local unread = tonumber(redis.call('HGET', KEYS[2], 'count'))
+                if unread ~= nil and unread > 0 then
+                    redis.call('HINCRBY', KEYS[2], 'count', -1)
+                end
+            end
+            return 1
+            """, Long.class);
+
+    // KEYS: latest, payload | ARGV: limit → danh sách JSON, nil nếu hộp thư chưa nạp
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> READ_LATEST_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[2]) == 0 then
+                return nil
+            end
+            local ids = redis.call('ZREVRANGE', KEYS[1], 0, tonumber(ARGV[1]) - 1)
+            if #ids == 0 then
+                return {}
+            end
+            return redis.call('HMGET', KEYS[2], unpack(ids))
+            """, List.class);
+
+    // KEYS: latest, payload, gen | ARGV: expectedGen, ttl, (id, score, json)...
+    private static final RedisScript<Long> LOAD_LATEST_SCRIPT = new DefaultRedisScript<>("""
+            if (redis.call('GET', KEYS[3]) or '') ~= ARGV[1] then
+                return 0
+            end
+            redis.call('DEL', KEYS[1], KEYS[2])
+            redis.call('HSET', KEYS[2], '%s', '1')
+            for i = 3, #ARGV, 3 do
+                redis.call('ZADD', KEYS[1], ARGV[i + 1], ARGV[i])
+                redis.call('HSET', KEYS[2], ARGV[i], ARGV[i + 2])
+            end
+            redis.call('EXPIRE', KEYS[1], ARGV[2])
+            redis.call('EXPIRE', KEYS[2], ARGV[2])
+            return 1
+            """.formatted(LOADED_FIELD), Long.class);
+
+    // KEYS: unread, gen | ARGV: expectedGen, count, ttl
+    private static final RedisScript<Long> LOAD_UNREAD_SCRIPT = new DefaultRedisScript<>("""
+            if (redis.call('GET', KEYS[2]) or '') ~= ARGV[1] then
+                return 0
+            end
+            redis.call('SET', KEYS[1], ARGV[2], 'EX', ARGV[3])
+            return 1
+            """, Long.class);
+
+    // KEYS: broadcast-unread, gen | ARGV: expectedGen, count, versions, ttl
+    private static final RedisScript<Long> LOAD_BROADCAST_UNREAD_SCRIPT = new DefaultRedisScript<>("""
+            if (redis.call('GET', KEYS[2]) or '') ~= ARGV[1] then
+                return 0
+            end
+            redis.call('HSET', KEYS[1], 'count', ARGV[2], 'versions', ARGV[3])
+            redis.call('EXPIRE', KEYS[1], ARGV[4])
+            return 1
+            """, Long.class);
+
+    // KEYS: broadcast-read, gen | ARGV: expectedGen, ttl, watermark, readIds...
+    private static final RedisScript<Long> LOAD_BROADCAST_READ_SCRIPT = new DefaultRedisScript<>("""
+            if (redis.call('GET', KEYS[2]) or '') ~= ARGV[1] then
+                return 0
+            end
+            redis.call('DEL', KEYS[1])
+            redis.call('HSET', KEYS[1], '%s', ARGV[3])
+            for i = 4, #ARGV do
+                redis.call('HSET', KEYS[1], ARGV[i], '1')
+            end
+            redis.call('EXPIRE', KEYS[1], ARGV[2])
+            return 1
+            """.formatted(WATERMARK_FIELD), Long.class);
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${notification.inbox.size:20}")
+    private int inboxSize;
+
+    @Value("${notification.inbox.ttl-hours:24}")
+    private long ttlHours;
+
+    @Override
+    public long getUnreadCount(Long userId, LongSupplier loader) {
+        try {
+            String cached = redisTemplate.opsForValue().get(key(userId, "unread"));
+            if (cached != null)
+                return Long.parseLong(cached);
+
+            String gen = currentGen(key(userId, "gen"));
+            long count = loader.getAsLong();
+            redisTemplate.execute(LOAD_UNREAD_SCRIPT,
+                    List.of(key(userId, "unread"), key(userId, "gen")),
+                    gen, String.valueOf(count), ttlSeconds());
+            return count;
+        } catch (RuntimeException e) {
+            log.warn("Không đọc được bộ đếm thông báo từ Redis cho user {}: {}", userId, e.getMessage());
+            return loader.getAsLong();
+        }
+    }
+
+    @Override
+    public List<NotificationResponseDto> getLatest(Long userId, int limit,
+            IntFunction<List<NotificationResponseDto>> loader) {
+        return readFeed(key(userId, "latest"), key(userId, "payload"), key(userId, "gen"), limit, loader);
+    }
+
+    @Override
+    public void add(Map<Long, NotificationResponseDto> notificationsByUser) {
+        if (notificationsByUser == null || notificationsByUser.isEmpty())
+            return;
+
+        Map<Long, NotificationResponseDto> snapshot = Map.copyOf(notificationsByUser);
+        TransactionUtils.runAfterCommit(() -> snapshot.forEach((userId, notification) -> {
+            try {
+                redisTemplate.execute(ADD_SCRIPT,
+                        List.of(key(userId, "latest"), key(userId, "payload"),
+                                key(userId, "gen"), key(userId, "unread")),
+                        String.valueOf(notification.getId()),
+                        String.valueOf(score(notification)),
+                        objectMapper.writeValueAsString(notification),
+                        String.valueOf(inboxSize),
+                        ttlSeconds());
+            } catch (JsonProcessingException | RuntimeException e) {
+                evict(userId, e);
+            }
+        }));
+    }
+
+    @Override
+    public void markRead(Long userId, NotificationResponseDto notification, boolean wasUnread) {
+        TransactionUtils.runAfterCommit(() -> {
+            try {
+                redisTemplate.execute(MARK_READ_SCRIPT,
+                        List.of(key(userId, "payload"), key(userId, "unread"), key(userId, "gen")),
+                        String.valueOf(notification.getId()),
+                        objectMapper.writeValueAsString(notification),
+                        wasUnread ? "1" : "0",
+                        ttlSeconds());
+            } catch (JsonProcessingException | RuntimeException e) {
+                evict(userId, e);
+            }
+        });
+    }
+
+    @Override
+    public void markAllRead(Long userId) {
+        TransactionUtils.runAfterCommit(() -> {
+            try {
+                redisTemplate.execute(MARK_ALL_READ_SCRIPT,
+                        List.of(key(userId, "latest"), key(userId, "payload"),
+                                key(userId, "unread"), key(userId, "gen"),
+                                key(userId, "broadcast-unread"), key(userId, "broadcast-read")),
+                        ttlSeconds());
+            } catch (RuntimeException e) {
+                evict(userId, e);
+            }
+        });
+    }
+
+    @Override
+    public void addBroadcast(Collection<String> audiences, NotificationResponseDto notification) {
+        if (audiences == null || audiences.isEmpty() || notification == null)
+            return;
+
+        List<String> targets = List.copyOf(audiences);
+        TransactionUtils.runAfterCommit(() -> targets.forEach(audience -> {
+            try {
+                // Không đặt hạn cho key ver: số chưa đọc của thành viên được so với phiên bản này
+                redisTemplate.execute(ADD_SCRIPT,
+                        List.of(audienceKey(audience, "latest"), audienceKey(audience, "payload"),
+                                audienceKey(audience, "ver")),
+                        String.valueOf(notification.getId()),
+                        String.valueOf(score(notification)),
+                        objectMapper.writeValueAsString(notification),
+                        String.valueOf(inboxSize),
+                        "0");
+            } catch (JsonProcessingException | RuntimeException e) {
+                log.warn("Không cập nhật được hộp thư nhóm {}: {}", audience, e.getMessage());
+                try {
+                    redisTemplate.delete(List.of(audienceKey(audience, "latest"), audienceKey(audience, "payload")));
+                } catch (RuntimeException ex) {
+                    log.warn("Không xóa được hộp thư nhóm {}, chờ hết hạn: {}", audience, ex.getMessage());
+                }
+            }
+        }));
+    }
+
+    @Override
+    public List<NotificationResponseDto> getLatestBroadcasts(String audience, int limit,
+            IntFunction<List<NotificationResponseDto>> loader) {
+        return readFeed(audienceKey(audience, "latest"), audienceKey(audience, "payload"),
+                audienceKey(audience, "ver"), limit, loader);
+    }
+
+    @Override
+    public long getBroadcastUnreadCount(Long userId, Collection<String> audiences, LongSupplier loader) {
+        if (audiences == null || audiences.isEmpty())
+            return 0;
+
+        try {
+            // Phiên bản hiện tại của các nhóm: khác với lúc đếm nghĩa là đã có thông báo nhóm mới
+            String versions = audiences.stream()
+                    .sorted()
+                    .map(audience -> audience + "=" + currentGen(audienceKey(audience, "ver")))
+                    .collect(Collectors.joining(","));
+
+            List<Object> cached = redisTemplate.opsForHash()
+                    .multiGet(key(userId, "broadcast-unread"), List.<Object>of("count", "versions"));
+            if (cached.get(0) != null && versions.equals(cached.get(1)))
+                return Long.parseLong((String) cached.get(0));
+
+            String gen = currentGen(key(userId, "gen"));
+            long count = loader.getAsLong();
+            redisTemplate.execute(LOAD_BROADCAST_UNREAD_SCRIPT,
+                    List.of(key(userId, "broadcast-unread"), key(userId, "gen")),
+                    gen, String.valueOf(count), versions, ttlSeconds());
+            return count;
+        } catch (RuntimeException e) {
+            log.warn("Không đọc được số thông báo nhóm chưa đọc từ Redis cho user {}: {}", userId, e.getMessage());
+            return loader.getAsLong();
+        }
+    }
+
+    @Override
+    public BroadcastReadState getBroadcastReadState(Long userId, Supplier<BroadcastReadState> loader) {
+        try {
+            Map<Object, Object> cached = redisTemplate.opsForHash().entries(key(userId, "broadcast-read"));
+            if (cached.containsKey(WATERMARK_FIELD)) {
+                Set<Long> readIds = new HashSet<>();
+                for (Object field : cached.keySet()) {
+                    if (!WATERMARK_FIELD.equals(field))
+                        readIds.add(Long.valueOf((String) field));
+                }
+                return new BroadcastReadState(Long.parseLong((String) cached.get(WATERMARK_FIELD)), readIds);
+            }
+
+            String gen = currentGen(key(userId, "gen"));
+            BroadcastReadState state = loader.get();
+
+            List<String> args = new ArrayList<>();
+            args.add(gen);
+            args.add(ttlSeconds());
+            args.add(String.valueOf(state.watermark()));
+            state.readIds().forEach(id -> args.add(String.valueOf(id)));
+            redisTemplate.execute(LOAD_BROADCAST_READ_SCRIPT,
+                    List.of(key(userId, "broadcast-read"), key(userId, "gen")),
+                    args.toArray());
+            return state;
+        } catch (RuntimeException e) {
+            log.warn("Không đọc được trạng thái thông báo nhóm từ Redis cho user {}: {}", userId, e.getMessage());
+            return loader.get();
+        }
+    }
+
+    @Override
+    public void markBroadcastRead(Long userId, Long broadcastId, boolean wasUnread) {
+        TransactionUtils.runAfterCommit(() -> {
+            try {
+                redisTemplate.execute(MARK_BROADCAST_READ_SCRIPT,
+                        List.of(key(userId, "broadcast-read"), key(userId, "broadcast-unread"), key(userId, "gen")),
+                        String.valueOf(broadcastId),
+                        wasUnread ? "1" : "0",
+                        ttlSeconds());
+            } catch (RuntimeException e) {
+                evict(userId, e);
+            }
+        });
+    }
+
+    // ==== PRIVATE METHODS ====
+
+    @SuppressWarnings("unchecked")
+    private List<NotificationResponseDto> readFeed(String latestKey, String payloadKey, String genKey, int limit,
+            IntFunction<List<NotificationResponseDto>> loader) {
+        int size = Math.min(limit, inboxSize);
+        try {
+            List<String> cached = redisTemplate.execute(READ_LATEST_SCRIPT,
+                    List.of(latestKey, payloadKey),
+                    String.valueOf(size));
+            if (cached != null)
+                return readAll(cached);
+
+            String gen = currentGen(genKey);
+            List<NotificationResponseDto> loaded = loader.apply(inboxSize);
+
+            List<String> args = new ArrayList<>();
+            args.add(gen);
+            args.add(ttlSeconds());
+            for (NotificationResponseDto notification : loaded) {
+                args.add(String.valueOf(notification.getId()));
+                args.add(String.valueOf(score(notification)));
+                args.add(objectMapper.writeValueAsString(notification));
+            }
+            redisTemplate.execute(LOAD_LATEST_SCRIPT,
+                    List.of(latestKey, payloadKey, genKey),
+                    args.toArray());
+
+            return loaded.size() > size ? loaded.subList(0, size) : loaded;
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.warn("Không đọc được hộp thư thông báo {} từ Redis: {}", latestKey, e.getMessage());
+            List<NotificationResponseDto> loaded = loader.apply(size);
+            return loaded.size() > size ? loaded.subList(0, size) : loaded;
+        }
+    }
+
+    private String key(Long userId, String suffix) {
+        return KEY_PREFIX + userId + "}:" + suffix;
+    }
+
+    private String audienceKey(String audience, String suffix) {
+        return AUDIENCE_KEY_PREFIX + audience + "}:" + suffix;
+    }
+
+    private String currentGen(String genKey) {
+        return Objects.toString(redisTemplate.opsForValue().get(genKey), "");
+    }
+
+    private String ttlSeconds() {
+        return String.valueOf(Duration.ofHours(ttlHours).toSeconds());
+    }
+
+    private long score(NotificationResponseDto notification) {
+        return notification.getCreatedAt() != null
+                ? notification.getCreatedAt().toEpochMilli()
+                : System.currentTimeMillis();
+    }
+
+    private List<NotificationResponseDto> readAll(List<String> payloads) {
+        List<NotificationResponseDto> result = new ArrayList<>(payloads.size());
+        for (String json : payloads) {
+            if (json == null)
+                continue;
+            try {
+                result.add(objectMapper.readValue(json, NotificationResponseDto.class));
+            } catch (JsonProcessingException e) {
+                log.warn("Bỏ qua thông báo lỗi định dạng trong hộp thư Redis: {}", e.getMessage());
+            }
+        }
+        return result;
+    }
+
+    // Không cập nhật được hộp thư: xóa để lần đọc sau nạp lại từ database thay vì trả dữ liệu sai
+    private void evict(Long userId, Exception cause) {
+        log.warn("Không cập nhật được hộp thư thông báo của user {}: {}", userId, cause.getMessage());
+        try {
+            redisTemplate.delete(List.of(key(userId, "latest"), key(userId, "payload"), key(userId, "unread"),
+                    key(userId, "broadcast-unread"), key(userId, "broadcast-read")));
+        } catch (RuntimeException e) {
+            log.warn("Không xóa được hộp thư thông báo của user {}, chờ hết hạn: {}", userId, e.getMessage());
+        }
+    }
+}
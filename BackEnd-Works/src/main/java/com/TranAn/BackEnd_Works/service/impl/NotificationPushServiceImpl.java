@@ -0,0 +1,308 @@
+package com.TranAn.BackEnd_Works.service.impl;
+
+import com.TranAn.BackEnd_Works.dto.response.notification.NotificationResponseDto;
+import com.TranAn.BackEnd_Works.service.NotificationPushService;
+import com.TranAn.BackEnd_Works.util.TransactionUtils;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Kết nối SSE dùng async servlet nên không giữ thread của Tomcat trong lúc chờ.
+ * Mỗi node chỉ giữ kết nối của các user đang mở trên node đó; thông báo mới được phát qua kênh Redis
+ * {@value #PUSH_CHANNEL} và mọi node tự chuyển tới các kết nối cục bộ của người nhận.
+ * <p>
+ * Việc ghi xuống kết nối chạy trên một pool giới hạn, không chạy trên luồng listener Redis dùng chung: kết nối
+ * có quá nhiều sự kiện chưa ghi xong (client đọc chậm) bị đóng để client tự kết nối lại.
+ * <p>
+ * EventSource không gửi được header Authorization nên client đổi access token lấy một ticket dùng một lần,
+ * sống ngắn, rồi mở kết nối bằng ticket đó (token thật không xuất hiện trong URL và log).
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class NotificationPushServiceImpl implements NotificationPushService, MessageListener {
+
+    public static final String PUSH_CHANNEL = "notifications:push";
+    private static final String EVENT_NOTIFICATION = "notification";
+    private static final String TICKET_KEY_PREFIX = "notifications:sse-ticket:";
+    private static final Duration TICKET_TTL = Duration.ofSeconds(30);
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+    private final ObjectMapper objectMapper;
+
+    @Value("${notification.sse.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${notification.sse.max-connections-per-user:5}")
+    private int maxConnectionsPerUser;
+
+    @Value("${notification.sse.send-workers:4}")
+    private int sendWorkers;
+
+    @Value("${notification.sse.send-queue-capacity:10000}")
+    private int sendQueueCapacity;
+
+    // Số sự kiện tối đa đang chờ ghi của một kết nối trước khi coi client là quá chậm
+    @Value("${notification.sse.max-pending-per-connection:100}")
+    private int maxPendingPerConnection;
+
+    // userId → các kết nối SSE đang mở trên node này
+    private final Map<Long, Set<SseEmitter>> emitters = new ConcurrentHashMap<>();
+
+    // userId → các nhóm người nhận của user (role, công ty), dùng để chuyển thông báo nhóm
+    private final Map<Long, Set<String>> audiencesByUser = new ConcurrentHashMap<>();
+
+    // Kết nối → số sự kiện đã giao cho pool nhưng chưa ghi xong
+    private final Map<SseEmitter, AtomicInteger> pendingSends = new ConcurrentHashMap<>();
+
+    private ThreadPoolExecutor sendExecutor;
+
+    // Thông báo cá nhân có userId; thông báo nhóm có audiences (userId null)
+    private record PushMessage(Long userId, List<String> audiences, NotificationResponseDto notification) {
+    }
+
+    // Nội dung ticket lưu trên Redis: người mở kết nối và các nhóm của họ tại thời điểm cấp ticket
+    private record StreamTicket(Long userId, List<String> audiences) {
+    }
+
+    @PostConstruct
+    void subscribeChannel() {
+        AtomicInteger threadCount = new AtomicInteger();
+        sendExecutor = new ThreadPoolExecutor(sendWorkers, sendWorkers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(sendQueueCapacity), r -> {
+                    Thread thread = new Thread(r, "notification-push-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(PUSH_CHANNEL));
+    }
+
+    @PreDestroy
+    void stop() {
+        sendExecutor.shutdownNow();
+    }
+
+    @Override
+    public String issueTicket(Long userId, Collection<String> audiences) {
+        String ticket = UUID.randomUUID().toString();
+        try {
+            StreamTicket value = new StreamTicket(userId, audiences == null ? List.of() : List.copyOf(audiences));
+            redisTemplate.opsForValue().set(TICKET_KEY_PREFIX + ticket, objectMapper.writeValueAsString(value),
+                    TICKET_TTL);
+        } catch (IOException e) {
+            throw new RuntimeException("Không thể tạo ticket kết nối thông báo", e);
+        }
+        return ticket;
+    }
+
+    @Override
+    public SseEmitter subscribe(String ticket) {
+        // GETDEL: ticket chỉ dùng được một lần, kể cả khi hai request dùng cùng ticket tới hai node khác nhau
+        String value = ticket == null || ticket.isBlank()
+                ? null
+                : redisTemplate.opsForValue().getAndDelete(TICKET_KEY_PREFIX + ticket);
+        if (value == null)
+            throw new BadCredentialsException("Ticket kết nối thông báo không hợp lệ hoặc đã hết hạn");
+
+        StreamTicket streamTicket;
+        try {
+            streamTicket = objectMapper.readValue(value, StreamTicket.class);
+        } catch (IOException e) {
+            throw new BadCredentialsException("Ticket kết nối thông báo không hợp lệ hoặc đã hết hạn");
+        }
+
+        Long userId = streamTicket.userId();
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        audiencesByUser.put(userId, Set.copyOf(streamTicket.audiences()));
+        pendingSends.put(emitter, new AtomicInteger());
+        List<SseEmitter> evicted = new ArrayList<>();
+
+        emitters.compute(userId, (k, current) -> {
+            Set<SseEmitter> set = current != null ? current : new CopyOnWriteArraySet<>();
+            // Quá số tab cho phép: đóng kết nối cũ nhất (client sẽ tự kết nối lại nếu còn dùng)
+            while (set.size() >= maxConnectionsPerUser) {
+                SseEmitter oldest = set.iterator().next();
+                set.remove(oldest);
+                evicted.add(oldest);
+            }
+            set.add(emitter);
+            return set;
+        });
+        evicted.forEach(SseEmitter::complete);
+
+        emitter.onCompletion(() -> remove(userId, emitter));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> remove(userId, emitter));
+
+        // Gửi ngay một comment để proxy/trình duyệt nhận header và mở luồng
+        send(userId, emitter, SseEmitter.event().comment("connected"));
+        return emitter;
+    }
+
+    @Override
+    public void publish(Map<Long, NotificationResponseDto> notificationsByUser) {
+        if (notificationsByUser == null || notificationsByUser.isEmpty())
+            return;
+
+        List<PushMessage> messages = notificationsByUser.entrySet().stream()
+                .map(entry -> new PushMessage(entry.getKey(), null, entry.getValue()))
+                .toList();
+
+        TransactionUtils.runAfterCommit(() -> sendToChannel(messages));
+    }
+
+    @Override
+    public void publishBroadcast(Collection<String> audiences, NotificationResponseDto notification) {
+        if (audiences == null || audiences.isEmpty() || notification == null)
+            return;
+
+        List<PushMessage> messages = List.of(new PushMessage(null, List.copyOf(audiences), notification));
+        TransactionUtils.runAfterCommit(() -> sendToChannel(messages));
+    }
+
+    /**
+     * Nhận thông báo từ các node khác (và chính node này) qua Redis pub/sub
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        List<PushMessage> messages;
+        try {
+            messages = objectMapper.readValue(message.getBody(), new TypeReference<List<PushMessage>>() {
+            });
+        } catch (IOException e) {
+            log.warn("Bỏ qua thông báo realtime không hợp lệ: {}", e.getMessage());
+            return;
+        }
+
+        for (PushMessage pushMessage : messages) {
+            if (pushMessage.userId() != null) {
+                deliver(pushMessage.userId(), pushMessage.notification());
+                continue;
+            }
+
+            // Thông báo nhóm: mỗi user đang kết nối trên node này nhận một lần nếu thuộc nhóm
+            audiencesByUser.forEach((userId, audiences) -> {
+                if (!Collections.disjoint(audiences, pushMessage.audiences()))
+                    deliver(userId, pushMessage.notification());
+            });
+        }
+    }
+
+    /**
+     * Heartbeat giữ kết nối qua proxy/load balancer và dọn các kết nối đã chết
+     */
+    @Scheduled(fixedDelayString = "${notification.sse.heartbeat-ms:25000}",
+            initialDelayString = "${notification.sse.heartbeat-ms:25000}")
+    public void heartbeat() {
+        emitters.forEach((userId, userEmitters) -> {
+            for (SseEmitter emitter : userEmitters)
+                send(userId, emitter, SseEmitter.event().comment("ping"));
+        });
+    }
+
+    // ==== PRIVATE METHODS ====
+
+    private void sendToChannel(List<PushMessage> messages) {
+        try {
+            redisTemplate.convertAndSend(PUSH_CHANNEL, objectMapper.writeValueAsString(messages));
+        } catch (Exception e) {
+            // Thông báo vẫn đã lưu trong database, client sẽ thấy khi tải lại danh sách
+            log.warn("Không thể phát thông báo realtime: {}", e.getMessage());
+        }
+    }
+
+    private void deliver(Long userId, NotificationResponseDto notification) {
+        Set<SseEmitter> userEmitters = emitters.get(userId);
+        if (userEmitters == null)
+            return;
+
+        for (SseEmitter emitter : userEmitters) {
+            send(userId, emitter, SseEmitter.event()
+                    .name(EVENT_NOTIFICATION)
+                    .data(notification, MediaType.APPLICATION_JSON));
+        }
+    }
+
+    private void send(Long userId, SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        AtomicInteger pending = pendingSends.get(emitter);
+        if (pending == null)
+            return;
+
+        if (pending.incrementAndGet() > maxPendingPerConnection) {
+            // Client đọc quá chậm: bỏ kết nối, client tự kết nối lại và tải lại danh sách
+            log.warn("Đóng kết nối thông báo chậm của user {}", userId);
+            remove(userId, emitter);
+            submit(emitter::complete);
+            return;
+        }
+
+        boolean submitted = submit(() -> {
+            try {
+                emitter.send(event);
+            } catch (IOException | IllegalStateException e) {
+                // Client đã đóng kết nối
+                remove(userId, emitter);
+            } finally {
+                pending.decrementAndGet();
+            }
+        });
+        if (!submitted)
+            pending.decrementAndGet();
+    }
+
+    private boolean submit(Runnable task) {
+        try {
+            sendExecutor.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            // Hàng đợi đầy: bỏ sự kiện, thông báo vẫn có trong database khi client tải lại
+            log.warn("Hàng đợi gửi thông báo realtime đầy, bỏ qua một sự kiện");
+            return false;
+        }
+    }
+
+    private void remove(Long userId, SseEmitter emitter) {
+        pendingSends.remove(emitter);
+        emitters.computeIfPresent(userId, (k, set) -> {
+            set.remove(emitter);
+            if (!set.isEmpty())
+                return set;
+
+            audiencesByUser.remove(userId);
+            return null;
+        });
+    }
+}
@@ -1,23 +1,47 @@
 package com.TranAn.BackEnd_Works.service.impl;
 
+import com.TranAn.BackEnd_Works.dto.response.CursorPageResponseDto;
 import com.TranAn.BackEnd_Works.dto.response.notification.NotificationResponseDto;
+import com.TranAn.BackEnd_Works.model.BroadcastNotification;
+import com.TranAn.BackEnd_Works.model.BroadcastRead;
 import com.TranAn.BackEnd_Works.model.Notification;
+import com.TranAn.BackEnd_Works.model.NotificationReadState;
 import com.TranAn.BackEnd_Works.model.User;
 import com.TranAn.BackEnd_Works.model.constant.NotificationType;
+import com.TranAn.BackEnd_Works.repository.BroadcastNotificationRepository;
+import com.TranAn.BackEnd_Works.repository.BroadcastReadRepository;
+import com.TranAn.BackEnd_Works.repository.KeysetCursor;
+import com.TranAn.BackEnd_Works.repository.NotificationReadStateRepository;
 import com.TranAn.BackEnd_Works.repository.NotificationRepository;
 import com.TranAn.BackEnd_Works.repository.UserRepository;
+import com.TranAn.BackEnd_Works.service.NotificationInboxService;
+import com.TranAn.BackEnd_Works.service.NotificationInboxService.BroadcastReadState;
+import com.TranAn.BackEnd_Works.service.NotificationPushService;
 import com.TranAn.BackEnd_Works.service.NotificationService;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
@@ -25,8 +49,24 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class NotificationServiceImpl implements NotificationService {
 
+    private static final int LATEST_SIZE = 10;
+    private static final String ADMIN_ROLE = "ADMIN";
+    // Phân trang offset phải đọc lại offset + size dòng từ mỗi bảng, nên giới hạn độ sâu
+    private static final int MAX_OFFSET_WINDOW = 1000;
+    // Thông báo cá nhân và thông báo nhóm có dãy id riêng: cursor gồm vị trí của từng nguồn "<cá nhân>.<nhóm>"
+    private static final char CURSOR_SEPARATOR = '.';
+    private static final Comparator<NotificationResponseDto> NEWEST_FIRST = Comparator
+            .comparing(NotificationResponseDto::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(NotificationResponseDto::getId, Comparator.reverseOrder());
+
     private final NotificationRepository notificationRepository;
+    private final BroadcastNotificationRepository broadcastNotificationRepository;
+    private final BroadcastReadRepository broadcastReadRepository;
+    private final NotificationReadStateRepository notificationReadStateRepository;
     private final UserRepository userRepository;
+    private final NotificationPushService notificationPushService;
+    private final NotificationInboxService notificationInboxService;
+    private final TransactionTemplate transactionTemplate;
 
     @Override
     public void createNotification(User recipient, User sender, String title, String message,
@@ -42,7 +82,10 @@ public class NotificationServiceImpl implements NotificationService {
                 .isRead(false)
                 .build();
 
-        notificationRepository.save(notification);
+        Notification saved = notificationRepository.save(notification);
+        Map<Long, NotificationResponseDto> created = Map.of(recipient.getId(), mapToDto(saved));
+        notificationInboxService.add(created);
+        notificationPushService.publish(created);
         log.info("Created notification for user {}: {}", recipient.getEmail(), title);
     }
 
@@ -62,39 +105,167 @@ public class NotificationServiceImpl implements NotificationService {
                         .build())
                 .collect(Collectors.toList());
 
-        notificationRepository.saveAll(notifications);
+        Map<Long, NotificationResponseDto> pushes = new HashMap<>();
+        for (Notification saved : notificationRepository.saveAll(notifications))
+            pushes.put(saved.getRecipient().getId(), mapToDto(saved));
+        notificationInboxService.add(pushes);
+        notificationPushService.publish(pushes);
+
         log.info("Created {} notifications for title: {}", recipients.size(), title);
     }
 
+    @Override
+    public void createBroadcast(String audienceRole, Long audienceCompanyId, User sender, String title,
+            String message, NotificationType type, String actionUrl, Long referenceId) {
+        BroadcastNotification saved = broadcastNotificationRepository.save(BroadcastNotification.builder()
+                .audienceRole(audienceRole)
+                .audienceCompanyId(audienceCompanyId)
+                .sender(sender)
+                .title(title)
+                .message(message)
+                .type(type)
+                .actionUrl(actionUrl)
+                .referenceId(referenceId)
+                .build());
+
+        NotificationResponseDto dto = mapToDto(saved);
+        List<String> audiences = new Viewer(null, audienceRole, audienceCompanyId).audiences().stream()
+                .map(Audience::key)
+                .toList();
+        notificationInboxService.addBroadcast(audiences, dto);
+        notificationPushService.publishBroadcast(audiences, dto);
+
+        log.info("Created broadcast notification {} for role {} / company {}: {}",
+                saved.getId(), audienceRole, audienceCompanyId, title);
+    }
+
+    // Danh sách thông báo = thông báo cá nhân trộn với thông báo nhóm của user, mới nhất trước
     @Override
     @Transactional(readOnly = true)
     public Page<NotificationResponseDto> getNotifications(Pageable pageable) {
-        User currentUser = getCurrentUser();
-        return notificationRepository
-                .findByRecipientIdOrderByCreatedAtDesc(currentUser.getId(), pageable)
-                .map(this::mapToDto);
+        if (pageable.getOffset() + pageable.getPageSize() > MAX_OFFSET_WINDOW)
+            throw new IllegalArgumentException("Trang quá sâu, hãy phân trang bằng cursor");
+
+        Viewer viewer = getCurrentViewer();
+        int window = (int) pageable.getOffset() + pageable.getPageSize();
+
+        List<NotificationResponseDto> merged = merge(
+                notificationRepository.findByRecipientId(viewer.id(), null, window),
+                broadcastNotificationRepository.findForAudience(viewer.role(), viewer.companyId(), null, window),
+                viewer,
+                window);
+
+        long total = notificationRepository.countByRecipientId(viewer.id())
+                + broadcastNotificationRepository.countForAudience(viewer.role(), viewer.companyId());
+
+        List<NotificationResponseDto> content = merged.size() > pageable.getOffset()
+                ? merged.subList((int) pageable.getOffset(), merged.size())
+                : List.of();
+        return new PageImpl<>(content, pageable, total);
     }
 
     @Override
     @Transactional(readOnly = true)
+    public CursorPageResponseDto<NotificationResponseDto> getNotificationsByCursor(String cursor, int size) {
+        Viewer viewer = getCurrentViewer();
+        String[] positions = splitCursor(cursor);
+        List<NotificationResponseDto> rows = merge(
+                notificationRepository.findByRecipientId(viewer.id(), positions[0], size + 1),
+                broadcastNotificationRepository.findForAudience(
+                        viewer.role(), viewer.companyId(), positions[1], size + 1),
+                viewer,
+                size + 1);
+
+        boolean hasNext = rows.size() > size;
+        List<NotificationResponseDto> page = hasNext ? rows.subList(0, size) : rows;
+
+        // Mỗi nguồn tiến tới phần tử cuối cùng của nó trong trang; nguồn không có phần tử nào giữ nguyên vị trí
+        String nextCursor = null;
+        if (hasNext) {
+            String personal = positions[0];
+            String broadcast = positions[1];
+            for (NotificationResponseDto dto : page) {
+                String position = new KeysetCursor(dto.getCreatedAt(), dto.getId()).encode();
+                if (Boolean.TRUE.equals(dto.getBroadcast()))
+                    broadcast = position;
+                else
+                    personal = position;
+            }
+            nextCursor = (personal != null ? personal : "") + CURSOR_SEPARATOR + (broadcast != null ? broadcast : "");
+        }
+
+        return new CursorPageResponseDto<>(List.copyOf(page), size, nextCursor, hasNext);
+    }
+
+    // Chuông thông báo gọi liên tục: đọc từ hộp thư Redis, không mở transaction (không giữ connection database)
+    // và chỉ chạm database khi hộp thư chưa được nạp
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public List<NotificationResponseDto> getLatestNotifications() {
-        User currentUser = getCurrentUser();
-        return notificationRepository
-                .findTop10ByRecipientIdOrderByCreatedAtDesc(currentUser.getId())
-                .stream()
-                .map(this::mapToDto)
+        Viewer viewer = getCurrentViewer();
+        List<NotificationResponseDto> personal = notificationInboxService.getLatest(viewer.id(), LATEST_SIZE,
+                limit -> transactionTemplate.execute(tx -> notificationRepository
+                        .findByRecipientId(viewer.id(), null, limit)
+                        .stream()
+                        .map(this::mapToDto)
+                        .collect(Collectors.toList())));
+
+        // Cùng một thông báo nhóm có thể gửi cho cả role và công ty của user: chỉ giữ một bản
+        Map<Long, NotificationResponseDto> broadcasts = new LinkedHashMap<>();
+        for (Audience audience : viewer.audiences()) {
+            notificationInboxService.getLatestBroadcasts(audience.key(), LATEST_SIZE,
+                            limit -> transactionTemplate.execute(tx -> broadcastNotificationRepository
+                                    .findForAudience(audience.role(), audience.companyId(), null, limit)
+                                    .stream()
+                                    .map(this::mapToDto)
+                                    .collect(Collectors.toList())))
+                    .forEach(dto -> broadcasts.putIfAbsent(dto.getId(), dto));
+        }
+        applyReadState(broadcasts.values(), viewer);
+
+        return Stream.concat(personal.stream(), broadcasts.values().stream())
+                .sorted(NEWEST_FIRST)
+                .limit(LATEST_SIZE)
                 .collect(Collectors.toList());
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Long getUnreadCount() {
-        User currentUser = getCurrentUser();
-        return notificationRepository.countByRecipientIdAndIsReadFalse(currentUser.getId());
+        Viewer viewer = getCurrentViewer();
+        long personal = notificationInboxService.getUnreadCount(viewer.id(),
+                () -> notificationRepository.countByRecipientIdAndIsReadFalse(viewer.id()));
+
+        long broadcast = notificationInboxService.getBroadcastUnreadCount(
+                viewer.id(),
+                viewer.audiences().stream().map(Audience::key).toList(),
+                () -> broadcastNotificationRepository.countUnreadForAudience(
+                        viewer.role(), viewer.companyId(), viewer.id(), loadWatermark(viewer.id())));
+
+        return personal + broadcast;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public String createStreamTicket() {
+        Viewer viewer = getCurrentViewer();
+        return notificationPushService.issueTicket(
+                viewer.id(),
+                viewer.audiences().stream().map(Audience::key).toList());
     }
 
     @Override
-    public void markAsRead(Long notificationId) {
+    public SseEmitter subscribe(String ticket) {
+        return notificationPushService.subscribe(ticket);
+    }
+
+    @Override
+    public void markAsRead(Long notificationId, boolean broadcast) {
+        if (broadcast) {
+            markBroadcastAsRead(notificationId);
+            return;
+        }
+
         User currentUser = getCurrentUser();
         Notification notification = notificationRepository.findById(notificationId)
                 .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy thông báo"));
@@ -104,14 +275,31 @@ public class NotificationServiceImpl implements NotificationService {
             throw new SecurityException("Bạn không có quyền truy cập thông báo này");
         }
 
-        notification.setIsRead(true);
-        notificationRepository.save(notification);
+        boolean wasUnread = notificationRepository.markAsReadById(notificationId) > 0;
+
+        NotificationResponseDto dto = mapToDto(notification);
+        dto.setIsRead(true);
+        notificationInboxService.markRead(currentUser.getId(), dto, wasUnread);
     }
 
     @Override
     public void markAllAsRead() {
         User currentUser = getCurrentUser();
         int updated = notificationRepository.markAllAsReadByRecipientId(currentUser.getId());
+
+        // Thông báo nhóm: dời mốc đã đọc lên thông báo nhóm mới nhất, bỏ các bản ghi đọc riêng lẻ bên dưới
+        Long maxBroadcastId = broadcastNotificationRepository.findMaxId();
+        if (maxBroadcastId != null) {
+            NotificationReadState state = notificationReadStateRepository.findById(currentUser.getId())
+                    .orElseGet(() -> NotificationReadState.builder().userId(currentUser.getId()).build());
+            if (maxBroadcastId > state.getBroadcastWatermark()) {
+                state.setBroadcastWatermark(maxBroadcastId);
+                notificationReadStateRepository.save(state);
+                broadcastReadRepository.deleteUpTo(currentUser.getId(), maxBroadcastId);
+            }
+        }
+
+        notificationInboxService.markAllRead(currentUser.getId());
         log.info("Marked {} notifications as read for user {}", updated, currentUser.getEmail());
     }
 
@@ -120,22 +308,6 @@ public class NotificationServiceImpl implements NotificationService {
     @Override
     public void notifyNewResume(Long resumeId, Long jobId, Long companyId, Long applicantId, String applicantName,
             String jobName) {
-        // Tìm tất cả recruiter thuộc company này
-        List<User> recruiters = userRepository.findByCompanyId(companyId);
-
-        // Tìm tất cả admin
-        List<User> admins = userRepository.findByRole_Name("ADMIN");
-
-        // Gộp danh sách và loại bỏ trùng lặp
-        java.util.Set<User> recipients = new java.util.HashSet<>();
-        recipients.addAll(recruiters);
-        recipients.addAll(admins);
-
-        if (recipients.isEmpty()) {
-            log.warn("No recruiters or admins found for company {} to notify", companyId);
-            return;
-        }
-
         // Fetch sender (applicant)
         User sender = null;
         if (applicantId != null) {
@@ -146,11 +318,9 @@ public class NotificationServiceImpl implements NotificationService {
         String message = applicantName + " vừa nộp CV ứng tuyển vị trí " + jobName;
         String actionUrl = "/admin/resume";
 
-        createNotificationForUsers(new java.util.ArrayList<>(recipients), sender, title, message,
+        // Một thông báo nhóm cho recruiter của company và admin thay vì một dòng cho mỗi người nhận
+        createBroadcast(ADMIN_ROLE, companyId, sender, title, message,
                 NotificationType.NEW_RESUME, actionUrl, resumeId);
-
-        log.info("Sent NEW_RESUME notification to {} recruiters and {} admins",
-                recruiters.size(), admins.size());
     }
 
     @Override
@@ -183,24 +353,99 @@ public class NotificationServiceImpl implements NotificationService {
                 .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy người dùng"));
     }
 
-    private NotificationResponseDto mapToDto(Notification notification) {
-        NotificationResponseDto.SenderInfo senderInfo = null;
-        if (notification.getSender() != null) {
-            String logoUrl = notification.getSender().getLogoUrl();
-
-            // Nếu người gửi thuộc công ty, ưu tiên hiển thị logo công ty
-            if (notification.getSender().getCompany() != null &&
-                    notification.getSender().getCompany().getCompanyLogo() != null) {
-                logoUrl = notification.getSender().getCompany().getCompanyLogo().getLogoUrl();
+    // Lấy id, role, công ty của user từ claim "user" của access token, tránh truy vấn bảng users trên các
+    // endpoint gọi liên tục
+    private Viewer getCurrentViewer() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication instanceof JwtAuthenticationToken jwtAuthentication) {
+            Map<String, Object> user = jwtAuthentication.getToken().getClaimAsMap("user");
+            if (user != null && user.get("id") instanceof Number id) {
+                Object companyId = user.get("companyId");
+                return new Viewer(
+                        id.longValue(),
+                        user.get("role") != null ? user.get("role").toString() : null,
+                        companyId != null ? Long.valueOf(companyId.toString()) : null);
             }
+        }
 
-            senderInfo = NotificationResponseDto.SenderInfo.builder()
-                    .id(notification.getSender().getId())
-                    .name(notification.getSender().getName())
-                    .logoUrl(logoUrl)
-                    .build();
+        User currentUser = getCurrentUser();
+        return new Viewer(
+                currentUser.getId(),
+                currentUser.getRole() != null ? currentUser.getRole().getName() : null,
+                currentUser.getCompany() != null ? currentUser.getCompany().getId() : null);
+    }
+
+    private void markBroadcastAsRead(Long broadcastId) {
+        Viewer viewer = getCurrentViewer();
+        BroadcastNotification notification = broadcastNotificationRepository.findById(broadcastId)
+                .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy thông báo"));
+
+        // Kiểm tra user thuộc nhóm người nhận
+        if (!viewer.canSee(notification)) {
+            throw new SecurityException("Bạn không có quyền truy cập thông báo này");
+        }
+
+        boolean wasUnread = broadcastId > loadWatermark(viewer.id())
+                && !broadcastReadRepository.existsByUserIdAndBroadcastId(viewer.id(), broadcastId);
+        if (wasUnread) {
+            broadcastReadRepository.save(BroadcastRead.builder()
+                    .userId(viewer.id())
+                    .broadcastId(broadcastId)
+                    .build());
         }
 
+        notificationInboxService.markBroadcastRead(viewer.id(), broadcastId, wasUnread);
+    }
+
+    // Tách cursor thành [vị trí thông báo cá nhân, vị trí thông báo nhóm]; null là từ đầu nguồn đó
+    private String[] splitCursor(String cursor) {
+        if (cursor == null || cursor.isBlank())
+            return new String[] { null, null };
+
+        int separator = cursor.indexOf(CURSOR_SEPARATOR);
+        if (separator < 0)
+            throw new IllegalArgumentException("Cursor không hợp lệ");
+
+        String personal = cursor.substring(0, separator);
+        String broadcast = cursor.substring(separator + 1);
+        return new String[] {
+                personal.isEmpty() ? null : personal,
+                broadcast.isEmpty() ? null : broadcast };
+    }
+
+    private long loadWatermark(Long userId) {
+        return notificationReadStateRepository.findById(userId)
+                .map(NotificationReadState::getBroadcastWatermark)
+                .orElse(0L);
+    }
+
+    private BroadcastReadState loadReadState(Long userId) {
+        long watermark = loadWatermark(userId);
+        return new BroadcastReadState(
+                watermark,
+                Set.copyOf(broadcastReadRepository.findBroadcastIdsAbove(userId, watermark)));
+    }
+
+    private void applyReadState(Iterable<NotificationResponseDto> broadcasts, Viewer viewer) {
+        BroadcastReadState readState = notificationInboxService.getBroadcastReadState(
+                viewer.id(), () -> loadReadState(viewer.id()));
+        for (NotificationResponseDto dto : broadcasts)
+            dto.setIsRead(readState.isRead(dto.getId()));
+    }
+
+    // Trộn thông báo cá nhân và thông báo nhóm (đều đã sắp mới nhất trước), lấy tối đa limit phần tử
+    private List<NotificationResponseDto> merge(List<Notification> personal, List<BroadcastNotification> broadcasts,
+            Viewer viewer, int limit) {
+        List<NotificationResponseDto> broadcastDtos = broadcasts.stream().map(this::mapToDto).toList();
+        applyReadState(broadcastDtos, viewer);
+
+        return Stream.concat(personal.stream().map(this::mapToDto), broadcastDtos.stream())
+                .sorted(NEWEST_FIRST)
+                .limit(limit)
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    private NotificationResponseDto mapToDto(Notification notification) {
         return NotificationResponseDto.builder()
                 .id(notification.getId())
                 .title(notification.getTitle())
@@ -210,7 +455,42 @@ public class NotificationServiceImpl implements NotificationService {
                 .actionUrl(notification.getActionUrl())
                 .referenceId(notification.getReferenceId())
                 .createdAt(notification.getCreatedAt())
-                .sender(senderInfo)
+                .sender(mapSender(notification.getSender()))
+                .broadcast(false)
+                .build();
+    }
+
+    // Trạng thái đã đọc của thông báo nhóm phụ thuộc từng user, được gán sau (mặc định chưa đọc)
+    private NotificationResponseDto mapToDto(BroadcastNotification notification) {
+        return NotificationResponseDto.builder()
+                .id(notification.getId())
+                .title(notification.getTitle())
+                .message(notification.getMessage())
+                .type(notification.getType())
+                .isRead(false)
+                .actionUrl(notification.getActionUrl())
+                .referenceId(notification.getReferenceId())
+                .createdAt(notification.getCreatedAt())
+                .sender(mapSender(notification.getSender()))
+                .broadcast(true)
+                .build();
+    }
+
+    private NotificationResponseDto.SenderInfo mapSender(User sender) {
+        if (sender == null)
+            return null;
+
+        String logoUrl = sender.getLogoUrl();
+
+        // Nếu người gửi thuộc công ty, ưu tiên hiển thị logo công ty
+        if (sender.getCompany() != null && sender.getCompany().getCompanyLogo() != null) {
+            logoUrl = sender.getCompany().getCompanyLogo().getLogoUrl();
+        }
+
+        return NotificationResponseDto.SenderInfo.builder()
+                .id(sender.getId())
+                .name(sender.getName())
+                .logoUrl(logoUrl)
                 .build();
     }
 
@@ -223,4 +503,29 @@ public class NotificationServiceImpl implements NotificationService {
             default -> status;
         };
     }
+
+    // Nhóm người nhận thông báo: theo role hoặc theo công ty
+    private record Audience(String role, Long companyId) {
+
+        String key() {
+            return role != null ? "role:" + role : "company:" + companyId;
+        }
+    }
+
+    private record Viewer(Long id, String role, Long companyId) {
+
+        List<Audience> audiences() {
+            List<Audience> audiences = new ArrayList<>(2);
+            if (role != null)
+                audiences.add(new Audience(role, null));
+            if (companyId != null)
+                audiences.add(new Audience(null, companyId));
+            return audiences;
+        }
+
+        boolean canSee(BroadcastNotification notification) {
+            return (role != null && role.equals(notification.getAudienceRole()))
+                    || (companyId != null && companyId.equals(notification.getAudienceCompanyId()));
+        }
+    }
 }
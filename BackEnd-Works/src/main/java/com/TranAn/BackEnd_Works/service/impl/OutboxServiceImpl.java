@@ -0,0 +1,283 @@
+package com.TranAn.BackEnd_Works.service.impl;
+
+import com.TranAn.BackEnd_Works.dto.outbox.NewResumeEvent;
+import com.TranAn.BackEnd_Works.dto.outbox.ResumeScreeningEvent;
+import com.TranAn.BackEnd_Works.dto.outbox.ResumeStatusEvent;
+import com.TranAn.BackEnd_Works.model.OutboxEvent;
+import com.TranAn.BackEnd_Works.model.constant.OutboxEventType;
+import com.TranAn.BackEnd_Works.model.constant.OutboxStatus;
+import com.TranAn.BackEnd_Works.repository.OutboxEventRepository;
+import com.TranAn.BackEnd_Works.service.EmailService;
+import com.TranAn.BackEnd_Works.service.NotificationService;
+import com.TranAn.BackEnd_Works.service.OutboxService;
+import com.TranAn.BackEnd_Works.service.ResumeScreeningService;
+import com.TranAn.BackEnd_Works.util.TransactionUtils;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Tác vụ phụ (email SMTP, thông báo in-app, chấm điểm sơ bộ CV) được ghi vào bảng outbox cùng transaction với thay đổi nghiệp vụ,
+ * nên request không phải chờ mail server và không mất tác vụ khi transaction rollback.
+ * <p>
+ * Một luồng dispatcher lấy các tác vụ tới hạn theo lô, giành quyền bằng hạn giữ (lease) để chạy an toàn trên nhiều
+ * node, rồi giao cho pool worker xử lý. Mỗi tác vụ được đánh dấu xong ngay khi chạy xong (không chờ cả lô), và chỉ khi
+ * vẫn còn giữ token của lần giành quyền, nên node mất hạn giữ không ghi đè kết quả của node đã lấy lại. Tác vụ lỗi được thử lại với backoff lũy thừa, quá
+ * {@code outbox.max-attempts} lần thì chuyển sang DEAD. Tác vụ có thể được xử lý lại nếu node tắt giữa chừng
+ * (at-least-once).
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OutboxServiceImpl implements OutboxService {
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+    private static final Duration MAX_BACKOFF = Duration.ofHours(1);
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final NotificationService notificationService;
+    private final EmailService emailService;
+    private final ResumeScreeningService resumeScreeningService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${outbox.workers:4}")
+    private int workers;
+
+    @Value("${outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${outbox.poll-interval-ms:2000}")
+    private long pollIntervalMs;
+
+    @Value("${outbox.lease-seconds:300}")
+    private long leaseSeconds;
+
+    @Value("${outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${outbox.backoff-base-seconds:10}")
+    private long backoffBaseSeconds;
+
+    @Value("${outbox.retention-days:7}")
+    private long retentionDays;
+
+    // Đánh thức dispatcher ngay sau khi có tác vụ mới được commit thay vì chờ tới lượt poll
+    private final Semaphore wakeUp = new Semaphore(0);
+
+    private volatile Thread dispatcher;
+    private ExecutorService workerPool;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        AtomicInteger threadCount = new AtomicInteger();
+        workerPool = Executors.newFixedThreadPool(workers, r -> {
+            Thread thread = new Thread(r, "outbox-worker-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Thread thread = new Thread(this::runDispatcher, "outbox-dispatcher");
+        thread.setDaemon(true);
+        thread.start();
+        dispatcher = thread;
+    }
+
+    @PreDestroy
+    public void stop() {
+        Thread thread = dispatcher;
+        dispatcher = null;
+        if (thread != null)
+            thread.interrupt();
+        if (workerPool != null)
+            workerPool.shutdown();
+    }
+
+    @Override
+    public void enqueue(OutboxEventType type, Object payload) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Không thể ghi dữ liệu tác vụ outbox: " + e.getMessage(), e);
+        }
+
+        Instant now = Instant.now();
+        outboxEventRepository.save(OutboxEvent.builder()
+                .type(type)
+                .payload(json)
+                .nextAttemptAt(now)
+                .createdAt(now)
+                .build());
+
+        TransactionUtils.runAfterCommit(wakeUp::release);
+    }
+
+    /**
+     * Xóa các tác vụ đã xử lý xong quá thời gian lưu
+     */
+    @Scheduled(fixedDelayString = "${outbox.cleanup-interval-ms:3600000}",
+            initialDelayString = "${outbox.cleanup-interval-ms:3600000}")
+    public void purgeProcessed() {
+        Instant before = Instant.now().minus(Duration.ofDays(retentionDays));
+        Integer deleted = transactionTemplate.execute(tx ->
+                outboxEventRepository.deleteProcessedBefore(OutboxStatus.DONE, before));
+
+        if (deleted != null && deleted > 0)
+            log.info("Đã xóa {} tác vụ outbox đã xử lý", deleted);
+    }
+
+    // ==== PRIVATE METHODS ====
+
+    private void runDispatcher() {
+        while (dispatcher == Thread.currentThread()) {
+            try {
+                // Lô đầy nghĩa là còn tồn việc, lấy lô tiếp theo ngay
+                if (dispatchBatch() < batchSize) {
+                    wakeUp.tryAcquire(pollIntervalMs, TimeUnit.MILLISECONDS);
+                    wakeUp.drainPermits();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Lỗi khi xử lý outbox: {}", e.getMessage(), e);
+                try {
+                    Thread.sleep(pollIntervalMs);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private int dispatchBatch() {
+        Instant now = Instant.now();
+        List<Long> dueIds = outboxEventRepository.findDueIds(OutboxStatus.PENDING, now, PageRequest.of(0, batchSize));
+        if (dueIds.isEmpty())
+            return 0;
+
+        String token = UUID.randomUUID().toString();
+        List<OutboxEvent> events = transactionTemplate.execute(tx -> {
+            int claimed = outboxEventRepository.claim(
+                    dueIds, OutboxStatus.PENDING, token, now, now.plusSeconds(leaseSeconds));
+            return claimed == 0 ? List.<OutboxEvent>of() : outboxEventRepository.findByClaimToken(token);
+        });
+
+        if (events == null || events.isEmpty())
+            return dueIds.size();
+
+        // Chờ cả lô chỉ để giới hạn số tác vụ đang giữ, kết quả từng tác vụ đã được ghi trong process
+        CompletableFuture.allOf(events.stream()
+                .map(event -> CompletableFuture.runAsync(() -> process(event, token), workerPool))
+                .toArray(CompletableFuture[]::new))
+                .join();
+
+        return dueIds.size();
+    }
+
+    private void process(OutboxEvent event, String token) {
+        try {
+            handle(event);
+        } catch (Exception e) {
+            int attempts = event.getAttempts() + 1;
+            boolean dead = attempts >= maxAttempts;
+            String error = Objects.toString(e.getMessage(), e.getClass().getName());
+            if (error.length() > MAX_ERROR_LENGTH)
+                error = error.substring(0, MAX_ERROR_LENGTH);
+
+            if (dead)
+                log.error("Tác vụ outbox {} ({}) thất bại {} lần, chuyển sang DEAD: {}",
+                        event.getId(), event.getType(), attempts, error);
+            else
+                log.warn("Tác vụ outbox {} ({}) thất bại lần {}: {}", event.getId(), event.getType(), attempts, error);
+
+            String lastError = error;
+            saveOutcome(event, () -> outboxEventRepository.markFailed(
+                    event.getId(),
+                    token,
+                    dead ? OutboxStatus.DEAD : OutboxStatus.PENDING,
+                    attempts,
+                    Instant.now().plus(backoff(attempts)),
+                    lastError));
+            return;
+        }
+
+        saveOutcome(event, () -> outboxEventRepository.markProcessed(event.getId(), token, OutboxStatus.DONE, Instant.now()));
+    }
+
+    private void saveOutcome(OutboxEvent event, Supplier<Integer> update) {
+        try {
+            Integer updated = transactionTemplate.execute(tx -> update.get());
+            if (updated == null || updated == 0)
+                log.warn("Tác vụ outbox {} đã hết hạn giữ và được node khác lấy lại, bỏ qua kết quả", event.getId());
+        } catch (RuntimeException e) {
+            // Không ghi được trạng thái: tác vụ được thử lại khi hết hạn giữ
+            log.error("Không cập nhật được tác vụ outbox {}: {}", event.getId(), e.getMessage());
+        }
+    }
+
+    private void handle(OutboxEvent event) throws Exception {
+        switch (event.getType()) {
+            case NEW_RESUME_NOTIFICATION -> {
+                NewResumeEvent payload = objectMapper.readValue(event.getPayload(), NewResumeEvent.class);
+                notificationService.notifyNewResume(
+                        payload.resumeId(),
+                        payload.jobId(),
+                        payload.companyId(),
+                        payload.applicantId(),
+                        payload.applicantName(),
+                        payload.jobName());
+            }
+            case RESUME_STATUS_NOTIFICATION -> {
+                ResumeStatusEvent payload = objectMapper.readValue(event.getPayload(), ResumeStatusEvent.class);
+                notificationService.notifyResumeStatusUpdated(
+                        payload.resumeId(),
+                        payload.applicantId(),
+                        payload.actorId(),
+                        payload.jobName(),
+                        payload.companyName(),
+                        payload.newStatus());
+            }
+            case RESUME_STATUS_EMAIL -> {
+                ResumeStatusEvent payload = objectMapper.readValue(event.getPayload(), ResumeStatusEvent.class);
+                emailService.sendResumeStatusNotification(
+                        payload.recipientEmail(),
+                        payload.jobName(),
+                        payload.companyName(),
+                        payload.newStatus());
+            }
+            case RESUME_SCREENING -> {
+                ResumeScreeningEvent payload = objectMapper.readValue(event.getPayload(), ResumeScreeningEvent.class);
+                resumeScreeningService.screenStored(payload.resumeId(), payload.fileKey());
+            }
+        }
+    }
+
+    // Backoff lũy thừa có jitter: base * 2^(attempts-1), tối đa 1 giờ
+    private Duration backoff(int attempts) {
+        long seconds = backoffBaseSeconds << Math.min(attempts - 1, 20);
+        seconds = Math.min(seconds, MAX_BACKOFF.toSeconds());
+        long jitter = ThreadLocalRandom.current().nextLong(seconds / 5 + 1);
+        return Duration.ofSeconds(seconds + jitter);
+    }
+}
@@ -0,0 +1,546 @@
+package com.TranAn.BackEnd_Works.service.impl;
+
+import com.TranAn.BackEnd_Works.service.PdfTextService;
+import com.TranAn.BackEnd_Works.service.S3Service;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.io.RandomAccessRead;
+import org.apache.pdfbox.io.RandomAccessReadBufferedFile;
+import org.apache.pdfbox.io.RandomAccessReadMemoryMappedFile;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Nội dung PDF được lưu theo SHA-256 của file ở hai tầng: Redis (chia sẻ giữa các node, có TTL) và thư mục trên
+ * đĩa (còn lại khi Redis bị xóa). Khi chưa có, PDF được phân tích trên một pool giới hạn số luồng và hàng đợi
+ * để PDFBox không chiếm hết CPU/bộ nhớ; các request cùng một file đồng thời dùng chung một lần phân tích.
+ * <p>
+ * File không bao giờ được đọc hết vào heap: upload/tải về được ghi ra file tạm (tính SHA-256 trong lúc ghi),
+ * PDFBox đọc qua memory-mapped file và đệm các stream đã giải nén ra đĩa. Chỉ {@code pdf.text.max-pages} trang
+ * đầu được đọc và dừng khi đủ {@code pdf.text.max-chars} ký tự; tài liệu nhiều trang được chia thành từng khúc
+ * trang đọc song song, mỗi khúc mở tài liệu riêng (PDDocument không dùng chung giữa các luồng được).
+ * <p>
+ * File tạm thuộc về lần phân tích dùng nó và chỉ bị xóa khi lần phân tích kết thúc; khi mọi request đang chờ đều
+ * hết thời gian, lần phân tích bị hủy (ngắt luồng đọc). Thư mục cache trên đĩa được dọn định kỳ theo tuổi
+ * ({@code pdf.text.cache-ttl-hours}, tính từ lần đọc gần nhất) và tổng dung lượng ({@code pdf.text.cache-max-mb}).
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PdfTextServiceImpl implements PdfTextService {
+
+    private static final String TEXT_KEY_PREFIX = "pdf:text:";
+    private static final String FILE_KEY_PREFIX = "pdf:key:";
+
+    // Số trang mỗi lần gọi PDFTextStripper (và mỗi khúc khi đọc song song)
+    private static final int CHUNK_PAGES = 5;
+
+    private static final Pattern HORIZONTAL_SPACE = Pattern.compile("[ \\t\\x0B\\f\\u00A0]+");
+    private static final Pattern SPACE_AROUND_NEWLINE = Pattern.compile(" ?\n ?");
+    private static final Pattern BLANK_LINES = Pattern.compile("\n{3,}");
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final S3Service s3Service;
+
+    @Value("${pdf.text.workers:2}")
+    private int workers;
+
+    @Value("${pdf.text.queue-capacity:32}")
+    private int queueCapacity;
+
+    @Value("${pdf.text.timeout-seconds:60}")
+    private long timeoutSeconds;
+
+    @Value("${pdf.text.cache-ttl-hours:168}")
+    private long cacheTtlHours;
+
+    @Value("${pdf.text.cache-dir:${java.io.tmpdir}/talentbridge/pdf-text}")
+    private String cacheDir;
+
+    @Value("${pdf.text.cache-max-mb:512}")
+    private long cacheMaxMb;
+
+    @Value("${pdf.text.max-file-mb:20}")
+    private long maxFileMb;
+
+    @Value("${pdf.text.max-pages:50}")
+    private int maxPages;
+
+    @Value("${pdf.text.max-chars:100000}")
+    private int maxChars;
+
+    // Tài liệu nhiều hơn số trang này được đọc song song theo khúc
+    @Value("${pdf.text.parallel-min-pages:15}")
+    private int parallelMinPages;
+
+    @Value("${pdf.text.page-workers:2}")
+    private int pageWorkers;
+
+    // SHA-256 → lần phân tích đang chạy
+    private final Map<String, Extraction> inFlight = new ConcurrentHashMap<>();
+
+    private ThreadPoolExecutor extractor;
+
+    // Đọc các khúc trang; khi đầy thì luồng gọi tự đọc khúc đó (các khúc không tạo thêm việc nên không bị kẹt)
+    private ThreadPoolExecutor pageExtractor;
+
+    private record Spooled(Path file, String hash) {
+    }
+
+    /**
+     * Một lần phân tích dùng chung cho các request cùng file. Số người chờ chỉ đổi trong compute của inFlight
+     */
+    private final class Extraction {
+        private final CompletableFuture<String> result = new CompletableFuture<>();
+        private final AtomicBoolean started = new AtomicBoolean();
+        private final Path file;
+        private final boolean temporary;
+        private int waiters = 1;
+        private volatile Future<?> task;
+
+        Extraction(Path file, boolean temporary) {
+            this.file = file;
+            this.temporary = temporary;
+        }
+
+        void run(String hash) {
+            started.set(true);
+            try {
+                String text = normalize(parse(file));
+                writeCache(hash, text);
+                result.complete(text);
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            } finally {
+                releaseFile();
+            }
+        }
+
+        // Task chưa chạy thì sẽ không bao giờ chạy nữa: tự xóa file tạm; đang chạy thì bị ngắt và tự xóa trong run
+        void cancel() {
+            Future<?> submitted = task;
+            if (submitted != null)
+                submitted.cancel(true);
+            if (!started.get())
+                releaseFile();
+            result.completeExceptionally(new CancellationException("Đã hủy đọc file PDF"));
+        }
+
+        void releaseFile() {
+            if (temporary)
+                deleteQuietly(file);
+        }
+    }
+
+    @PostConstruct
+    void start() {
+        extractor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), daemonThreads("pdf-text-"));
+        pageExtractor = new ThreadPoolExecutor(pageWorkers, pageWorkers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), daemonThreads("pdf-page-"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    void stop() {
+        extractor.shutdownNow();
+        pageExtractor.shutdownNow();
+    }
+
+    @Override
+    public String extractText(Path file) {
+        try (InputStream inputStream = Files.newInputStream(file)) {
+            return extractText(sha256(inputStream), file, false);
+        } catch (IOException e) {
+            log.error("Error reading PDF {}", file, e);
+            throw new RuntimeException("Không thể đọc nội dung file PDF: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public String extractText(MultipartFile file) {
+        Spooled spooled;
+        try (InputStream inputStream = file.getInputStream()) {
+            spooled = spool(inputStream);
+        } catch (IOException e) {
+            log.error("Error reading uploaded PDF", e);
+            throw new RuntimeException("Không thể đọc nội dung file PDF: " + e.getMessage(), e);
+        }
+
+        // File tạm do lần phân tích xóa khi xong (kể cả khi request này đã hết thời gian chờ)
+        return extractText(spooled.hash(), spooled.file(), true);
+    }
+
+    @Override
+    public String extractStoredText(String fileKey) {
+        // File trên S3 không bị ghi đè (key có UUID), nên key → SHA-256 không đổi
+        String hash = redisGet(FILE_KEY_PREFIX + fileKey);
+        if (hash != null) {
+            String text = readCache(hash);
+            if (text != null)
+                return text;
+        }
+
+        Spooled spooled = download(fileKey);
+        String text = extractText(spooled.hash(), spooled.file(), true);
+        redisSet(FILE_KEY_PREFIX + fileKey, spooled.hash());
+        return text;
+    }
+
+    /**
+     * Dọn cache trên đĩa: xóa file quá TTL (tính từ lần đọc gần nhất), file tạm bị bỏ dở, rồi xóa file cũ nhất
+     * tới khi tổng dung lượng dưới {@code pdf.text.cache-max-mb}
+     */
+    @Scheduled(fixedDelayString = "${pdf.text.cache-evict-interval-ms:3600000}",
+            initialDelayString = "${pdf.text.cache-evict-interval-ms:3600000}")
+    public void evictDiskCache() {
+        Path root = Path.of(cacheDir);
+        if (!Files.isDirectory(root))
+            return;
+
+        Instant expiredBefore = Instant.now().minus(Duration.ofHours(cacheTtlHours));
+        Instant abandonedBefore = Instant.now().minus(Duration.ofHours(1));
+        List<CachedFile> kept = new ArrayList<>();
+        int deleted = 0;
+
+        try (Stream<Path> files = Files.walk(root, 2)) {
+            for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                Instant lastUsed = attributes.lastModifiedTime().toInstant();
+                boolean abandoned = file.toString().endsWith(".tmp") && lastUsed.isBefore(abandonedBefore);
+
+                if (abandoned || lastUsed.isBefore(expiredBefore)) {
+                    deleteQuietly(file);
+                    deleted++;
+                } else {
+                    kept.add(new CachedFile(file, lastUsed, attributes.size()));
+                }
+            }
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("Could not scan PDF text cache {}: {}", root, e.getMessage());
+            return;
+        }
+
+        long maxBytes = cacheMaxMb * 1024 * 1024;
+        long total = kept.stream().mapToLong(CachedFile::size).sum();
+        kept.sort(Comparator.comparing(CachedFile::lastUsed));
+        for (CachedFile file : kept) {
+            if (total <= maxBytes)
+                break;
+            deleteQuietly(file.path());
+            total -= file.size();
+            deleted++;
+        }
+
+        if (deleted > 0)
+            log.info("Evicted {} cached PDF texts, {} MB left", deleted, total / (1024 * 1024));
+    }
+
+    // ==== PRIVATE METHODS ====
+
+    private record CachedFile(Path path, Instant lastUsed, long size) {
+    }
+
+    /**
+     * @param temporary File tạm do request tạo ra: được xóa khi không còn ai cần (không phải khi request trả về)
+     */
+    private String extractText(String hash, Path file, boolean temporary) {
+        String cached = readCache(hash);
+        if (cached != null) {
+            if (temporary)
+                deleteQuietly(file);
+            return cached;
+        }
+
+        Extraction fresh = new Extraction(file, temporary);
+        Extraction extraction = inFlight.compute(hash, (k, current) -> {
+            if (current == null)
+                return fresh;
+            current.waiters++;
+            return current;
+        });
+
+        if (extraction != fresh) {
+            // Lần phân tích đang chạy dùng file của request khác, file của request này không cần nữa
+            fresh.releaseFile();
+        } else {
+            fresh.result.whenComplete((text, e) -> inFlight.remove(hash, fresh));
+            try {
+                fresh.task = extractor.submit(() -> fresh.run(hash));
+            } catch (RejectedExecutionException e) {
+                fresh.releaseFile();
+                fresh.result.completeExceptionally(
+                        new RuntimeException("Hệ thống đang xử lý nhiều file PDF, vui lòng thử lại sau", e));
+            }
+        }
+
+        try {
+            return extraction.result.get(timeoutSeconds, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            leave(hash, extraction);
+            throw new RuntimeException("Hết thời gian đọc nội dung file PDF", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            leave(hash, extraction);
+            throw new RuntimeException("Không thể đọc nội dung file PDF", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException)
+                throw runtimeException;
+            log.error("Error extracting text from PDF", e.getCause());
+            throw new RuntimeException("Không thể đọc nội dung file PDF: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    // Người chờ cuối cùng bỏ cuộc thì hủy lần phân tích thay vì để nó chiếm luồng của pool
+    private void leave(String hash, Extraction extraction) {
+        AtomicBoolean last = new AtomicBoolean();
+        inFlight.computeIfPresent(hash, (k, current) -> {
+            if (current != extraction || --current.waiters > 0)
+                return current;
+            last.set(true);
+            return null;
+        });
+
+        // Ngoài compute: hoàn tất future sẽ gọi inFlight.remove trong whenComplete
+        if (last.get())
+            extraction.cancel();
+    }
+
+    private String parse(Path file) throws IOException {
+        int pages;
+        try (PDDocument document = open(file)) {
+            pages = Math.min(document.getNumberOfPages(), maxPages);
+            if (pages < parallelMinPages) {
+                String text = strip(document, 1, pages);
+                log.debug("Extracted {} characters from {} PDF pages", text.length(), pages);
+                return text;
+            }
+        }
+
+        List<Future<String>> chunks = new ArrayList<>();
+        for (int start = 1; start <= pages; start += CHUNK_PAGES) {
+            int first = start;
+            int last = Math.min(start + CHUNK_PAGES - 1, pages);
+            chunks.add(pageExtractor.submit(() -> {
+                try (PDDocument document = open(file)) {
+                    return strip(document, first, last);
+                }
+            }));
+        }
+
+        // Ghép theo thứ tự trang; đủ số ký tự thì hủy các khúc còn lại
+        StringBuilder text = new StringBuilder();
+        try {
+            for (Future<String> chunk : chunks) {
+                if (text.length() >= maxChars) {
+                    chunk.cancel(true);
+                    continue;
+                }
+                text.append(chunk.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            chunks.forEach(chunk -> chunk.cancel(true));
+            throw new IOException("Đã hủy đọc file PDF", e);
+        } catch (ExecutionException e) {
+            chunks.forEach(chunk -> chunk.cancel(true));
+            throw e.getCause() instanceof IOException ioException ? ioException : new IOException(e.getCause());
+        }
+
+        log.debug("Extracted {} characters from {} PDF pages in {} chunks", text.length(), pages, chunks.size());
+        return text.length() > maxChars ? text.substring(0, maxChars) : text.toString();
+    }
+
+    // Đọc các trang [firstPage, lastPage] theo từng khúc, dừng khi đã đủ maxChars ký tự
+    private String strip(PDDocument document, int firstPage, int lastPage) throws IOException {
+        PDFTextStripper stripper = new PDFTextStripper();
+        StringBuilder text = new StringBuilder();
+        for (int start = firstPage; start <= lastPage && text.length() < maxChars; start += CHUNK_PAGES) {
+            stripper.setStartPage(start);
+            stripper.setEndPage(Math.min(start + CHUNK_PAGES - 1, lastPage));
+            text.append(stripper.getText(document));
+        }
+        return text.length() > maxChars ? text.substring(0, maxChars) : text.toString();
+    }
+
+    // Memory-mapped khi được, và đệm stream đã giải nén ra file tạm thay vì heap
+    private PDDocument open(Path file) throws IOException {
+        RandomAccessRead source;
+        try {
+            source = new RandomAccessReadMemoryMappedFile(file);
+        } catch (IOException | UnsupportedOperationException e) {
+            source = new RandomAccessReadBufferedFile(file.toFile());
+        }
+        return Loader.loadPDF(source, "", null, null, IOUtils.createTempFileOnlyStreamCache());
+    }
+
+    // Bỏ ký tự điều khiển, gộp khoảng trắng và dòng trống liên tiếp
+    private static String normalize(String text) {
+        String normalized = text.replace("\r\n", "\n").replace('\r', '\n').replace("\u0000", "");
+        normalized = HORIZONTAL_SPACE.matcher(normalized).replaceAll(" ");
+        normalized = SPACE_AROUND_NEWLINE.matcher(normalized).replaceAll("\n");
+        normalized = BLANK_LINES.matcher(normalized).replaceAll("\n\n");
+        return normalized.strip();
+    }
+
+    private Spooled download(String fileKey) {
+        String presignedUrl = s3Service.generatePresignedUrl(fileKey, Duration.ofMinutes(15));
+        try (InputStream inputStream = new URL(presignedUrl).openStream()) {
+            return spool(inputStream);
+        } catch (IOException e) {
+            log.error("Error downloading PDF {}", fileKey, e);
+            throw new RuntimeException("Không thể đọc nội dung file PDF từ URL", e);
+        }
+    }
+
+    // Ghi stream ra file tạm theo từng khối, tính SHA-256 trong cùng lần đọc
+    private Spooled spool(InputStream inputStream) throws IOException {
+        MessageDigest digest = sha256Digest();
+        long maxBytes = maxFileMb * 1024 * 1024;
+        Path file = Files.createTempFile("pdf-", ".pdf");
+
+        try (InputStream input = new DigestInputStream(inputStream, digest);
+             OutputStream output = Files.newOutputStream(file)) {
+            byte[] buffer = new byte[64 * 1024];
+            long total = 0;
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                total += read;
+                if (total > maxBytes)
+                    throw new IllegalArgumentException("File PDF vượt quá " + maxFileMb + "MB");
+                output.write(buffer, 0, read);
+            }
+        } catch (IOException | RuntimeException e) {
+            deleteQuietly(file);
+            throw e;
+        }
+
+        return new Spooled(file, HexFormat.of().formatHex(digest.digest()));
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete temporary PDF {}: {}", file, e.getMessage());
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, prefix + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private String readCache(String hash) {
+        String text = redisGet(TEXT_KEY_PREFIX + hash);
+        if (text != null)
+            return text;
+
+        Path file = cacheFile(hash);
+        try {
+            if (!Files.exists(file))
+                return null;
+            text = Files.readString(file, StandardCharsets.UTF_8);
+            // Thời điểm sửa đổi dùng làm lần đọc gần nhất cho việc dọn cache
+            Files.setLastModifiedTime(file, FileTime.from(Instant.now()));
+        } catch (IOException e) {
+            log.warn("Could not read cached PDF text {}: {}", file, e.getMessage());
+            return null;
+        }
+
+        redisSet(TEXT_KEY_PREFIX + hash, text);
+        return text;
+    }
+
+    private void writeCache(String hash, String text) {
+        redisSet(TEXT_KEY_PREFIX + hash, text);
+
+        Path file = cacheFile(hash);
+        try {
+            Files.createDirectories(file.getParent());
+            Path tmp = Files.createTempFile(file.getParent(), hash, ".tmp");
+            Files.writeString(tmp, text, StandardCharsets.UTF_8);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Could not write cached PDF text {}: {}", file, e.getMessage());
+        }
+    }
+
+    private Path cacheFile(String hash) {
+        // Chia thư mục theo 2 ký tự đầu để tránh một thư mục quá nhiều file
+        return Path.of(cacheDir, hash.substring(0, 2), hash + ".txt");
+    }
+
+    private String redisGet(String key) {
+        try {
+            return redisTemplate.opsForValue().get(key);
+        } catch (Exception e) {
+            log.warn("Redis unavailable for PDF text cache: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void redisSet(String key, String value) {
+        try {
+            redisTemplate.opsForValue().set(key, value, Duration.ofHours(cacheTtlHours));
+        } catch (Exception e) {
+            log.warn("Redis unavailable for PDF text cache: {}", e.getMessage());
+        }
+    }
+
+    private static String sha256(InputStream inputStream) throws IOException {
+        MessageDigest digest = sha256Digest();
+        try (InputStream input = new DigestInputStream(inputStream, digest)) {
+            input.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest sha256Digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
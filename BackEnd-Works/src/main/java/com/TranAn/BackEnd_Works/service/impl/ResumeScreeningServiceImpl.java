@@ -0,0 +1,254 @@
+package com.TranAn.BackEnd_Works.service.impl;
+
+import com.TranAn.BackEnd_Works.model.Job;
+import com.TranAn.BackEnd_Works.model.Resume;
+import com.TranAn.BackEnd_Works.model.Skill;
+import com.TranAn.BackEnd_Works.model.constant.Level;
+import com.TranAn.BackEnd_Works.repository.ResumeRepository;
+import com.TranAn.BackEnd_Works.repository.SkillRepository;
+import com.TranAn.BackEnd_Works.service.PdfTextService;
+import com.TranAn.BackEnd_Works.service.ResumeScreeningService;
+import com.TranAn.BackEnd_Works.util.TransactionUtils;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Tên tất cả kỹ năng (kèm tên gọi khác) và từ khóa cấp bậc được dựng thành một automaton Aho-Corasick,
+ * nên chấm một CV chỉ cần một lần duyệt nội dung CV dù hệ thống có bao nhiêu kỹ năng.
+ * <p>
+ * Điểm = 80% độ phủ kỹ năng công việc yêu cầu + 20% độ khớp cấp bậc. Automaton được dựng lại sau
+ * {@code cv.screening.refresh-minutes} hoặc khi kỹ năng thay đổi (báo cho mọi node qua Redis pub/sub).
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ResumeScreeningServiceImpl implements ResumeScreeningService, MessageListener {
+
+    public static final String INVALIDATION_CHANNEL = "cv-screening:invalidate";
+
+    private static final int SKILL_WEIGHT = 80;
+    private static final int LEVEL_WEIGHT = 20;
+
+    // Tên gọi khác của các kỹ năng phổ biến (theo tên đã chuẩn hóa). Không dùng tên quá ngắn hoặc là từ thông dụng
+    // ("ts", "ml", "node", "go"...) vì khớp nhầm với chữ khác trong CV
+    private static final Map<String, List<String>> SYNONYMS = Map.ofEntries(
+            Map.entry("javascript", List.of("js", "ecmascript", "es6")),
+            Map.entry("node.js", List.of("nodejs", "node js")),
+            Map.entry("nodejs", List.of("node.js", "node js")),
+            Map.entry("react", List.of("reactjs", "react.js", "react js")),
+            Map.entry("reactjs", List.of("react", "react.js", "react js")),
+            Map.entry("react.js", List.of("react", "reactjs", "react js")),
+            Map.entry("vue", List.of("vuejs", "vue.js", "vue js")),
+            Map.entry("vue.js", List.of("vue", "vuejs", "vue js")),
+            Map.entry("vuejs", List.of("vue", "vue.js", "vue js")),
+            Map.entry("angular", List.of("angularjs", "angular.js")),
+            Map.entry("next.js", List.of("nextjs", "next js")),
+            Map.entry("spring boot", List.of("springboot")),
+            Map.entry("spring", List.of("spring boot", "springboot", "spring framework")),
+            Map.entry("postgresql", List.of("postgres", "psql")),
+            Map.entry("mongodb", List.of("mongo")),
+            Map.entry("kubernetes", List.of("k8s")),
+            Map.entry("c#", List.of("csharp", "c sharp")),
+            Map.entry("c++", List.of("cpp")),
+            Map.entry(".net", List.of("dotnet", "asp.net", ".net core")),
+            Map.entry("aws", List.of("amazon web services")),
+            Map.entry("gcp", List.of("google cloud", "google cloud platform")),
+            Map.entry("html", List.of("html5")),
+            Map.entry("css", List.of("css3")));
+
+    // Từ khóa cấp bậc trong CV ("middle", "leader" đứng riêng quá dễ gặp trong câu thường nên không dùng)
+    private static final Map<String, Level> LEVEL_KEYWORDS = Map.ofEntries(
+            Map.entry("intern", Level.INTERN),
+            Map.entry("internship", Level.INTERN),
+            Map.entry("thực tập", Level.INTERN),
+            Map.entry("thực tập sinh", Level.INTERN),
+            Map.entry("fresher", Level.FRESHER),
+            Map.entry("entry level", Level.FRESHER),
+            Map.entry("junior", Level.FRESHER),
+            Map.entry("mid level", Level.MIDDLE),
+            Map.entry("senior", Level.SENIOR),
+            Map.entry("tech lead", Level.LEADER),
+            Map.entry("team lead", Level.LEADER),
+            Map.entry("team leader", Level.LEADER),
+            Map.entry("trưởng nhóm", Level.LEADER));
+
+    private static final Pattern YEARS_OF_EXPERIENCE = Pattern.compile(
+            "(\\d{1,2})\\+? ?(?:years?|yrs?|năm)(?: of)? (?:experience|kinh nghiệm)");
+
+    /**
+     * Từ khóa tìm thấy: kỹ năng (skillId) hoặc cấp bậc
+     */
+    private record Keyword(Long skillId, Level level) {
+    }
+
+    private record Compiled(KeywordAutomaton<Keyword> automaton, long builtAt) {
+    }
+
+    private final SkillRepository skillRepository;
+    private final ResumeRepository resumeRepository;
+    private final PdfTextService pdfTextService;
+    private final TransactionTemplate transactionTemplate;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Value("${cv.screening.refresh-minutes:5}")
+    private long refreshMinutes;
+
+    private volatile Compiled compiled;
+
+    // Tăng mỗi lần có invalidation, tránh lưu automaton dựng từ danh sách kỹ năng đọc trước khi bị xóa
+    private final AtomicLong generation = new AtomicLong();
+
+    @PostConstruct
+    void subscribe() {
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(INVALIDATION_CHANNEL));
+    }
+
+    @Override
+    public int score(String cvText, Job job) {
+        Set<Long> foundSkills = new HashSet<>();
+        Level cvLevel = null;
+
+        String text = KeywordAutomaton.normalize(cvText != null ? cvText : "");
+        List<Keyword> matches = new ArrayList<>();
+        automaton().scan(text, matches::add);
+        for (Keyword keyword : matches) {
+            if (keyword.skillId() != null)
+                foundSkills.add(keyword.skillId());
+            else if (cvLevel == null || keyword.level().ordinal() > cvLevel.ordinal())
+                cvLevel = keyword.level();
+        }
+
+        Level byYears = levelFromYears(text);
+        if (byYears != null && (cvLevel == null || byYears.ordinal() > cvLevel.ordinal()))
+            cvLevel = byYears;
+
+        return Math.round((SKILL_WEIGHT * skillCoverage(job, foundSkills) + LEVEL_WEIGHT * levelMatch(job, cvLevel)) / 100f);
+    }
+
+    @Override
+    public void screenStored(Long resumeId, String fileKey) {
+        // Đọc PDF ngoài transaction; lỗi được ném ra để outbox thử lại, trong lúc đó resume chưa có điểm
+        String cvText = pdfTextService.extractStoredText(fileKey);
+
+        Integer updated = transactionTemplate.execute(tx -> {
+            Resume resume = resumeRepository.findById(resumeId).orElse(null);
+            if (resume == null || !fileKey.equals(resume.getFileKey()))
+                return 0;
+
+            return resumeRepository.updateScreeningScore(resumeId, fileKey, score(cvText, resume.getJob()));
+        });
+
+        if (updated == null || updated == 0)
+            log.debug("Resume {} no longer uses file {}, screening skipped", resumeId, fileKey);
+    }
+
+    @Override
+    public void invalidateSkills() {
+        TransactionUtils.runAfterCommit(() -> {
+            clearCompiled();
+            try {
+                redisTemplate.convertAndSend(INVALIDATION_CHANNEL, "skills");
+            } catch (RuntimeException e) {
+                log.warn("Không thể báo thay đổi kỹ năng cho các node khác: {}", e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Nhận invalidation từ các node khác (và chính node này) qua Redis pub/sub
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        clearCompiled();
+    }
+
+    // ==== PRIVATE METHODS ====
+
+    // Phần trăm kỹ năng công việc yêu cầu có trong CV; công việc không yêu cầu kỹ năng thì tính trung bình
+    private int skillCoverage(Job job, Set<Long> foundSkills) {
+        List<Skill> required = job.getSkills();
+        if (required == null || required.isEmpty())
+            return 50;
+
+        long covered = required.stream().filter(skill -> foundSkills.contains(skill.getId())).count();
+        return (int) (covered * 100 / required.size());
+    }
+
+    private int levelMatch(Job job, Level cvLevel) {
+        if (job.getLevel() == null || cvLevel == null)
+            return 50;
+
+        return switch (Math.abs(job.getLevel().ordinal() - cvLevel.ordinal())) {
+            case 0 -> 100;
+            case 1 -> 60;
+            default -> 20;
+        };
+    }
+
+    private Level levelFromYears(String text) {
+        int years = -1;
+        Matcher matcher = YEARS_OF_EXPERIENCE.matcher(text);
+        while (matcher.find())
+            years = Math.max(years, Integer.parseInt(matcher.group(1)));
+
+        if (years < 0)
+            return null;
+        if (years >= 5)
+            return Level.SENIOR;
+        if (years >= 2)
+            return Level.MIDDLE;
+        return Level.FRESHER;
+    }
+
+    private void clearCompiled() {
+        generation.incrementAndGet();
+        compiled = null;
+    }
+
+    private KeywordAutomaton<Keyword> automaton() {
+        Compiled current = compiled;
+        if (current != null && System.currentTimeMillis() - current.builtAt() < refreshMinutes * 60_000)
+            return current.automaton();
+
+        synchronized (this) {
+            current = compiled;
+            if (current != null && System.currentTimeMillis() - current.builtAt() < refreshMinutes * 60_000)
+                return current.automaton();
+
+            long seen = generation.get();
+            Map<String, Keyword> keywords = new HashMap<>();
+            LEVEL_KEYWORDS.forEach((keyword, level) -> keywords.put(keyword, new Keyword(null, level)));
+
+            // Tên chính thức của kỹ năng được ưu tiên hơn tên gọi khác của kỹ năng khác
+            List<Skill> skills = skillRepository.findAll();
+            for (Skill skill : skills) {
+                String name = KeywordAutomaton.normalize(skill.getName());
+                for (String alias : SYNONYMS.getOrDefault(name, List.of()))
+                    keywords.putIfAbsent(KeywordAutomaton.normalize(alias), new Keyword(skill.getId(), null));
+            }
+            for (Skill skill : skills)
+                keywords.put(KeywordAutomaton.normalize(skill.getName()), new Keyword(skill.getId(), null));
+
+            KeywordAutomaton<Keyword> automaton = new KeywordAutomaton<>(keywords);
+            if (generation.get() == seen)
+                compiled = new Compiled(automaton, System.currentTimeMillis());
+            log.debug("Built screening automaton with {} keywords", keywords.size());
+            return automaton;
+        }
+    }
+}
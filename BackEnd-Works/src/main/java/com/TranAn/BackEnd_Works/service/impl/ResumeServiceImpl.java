@@ -6,17 +6,21 @@ import com.TranAn.BackEnd_Works.dto.request.resume.UpdateResumeStatusRequestDto;
 import com.TranAn.BackEnd_Works.dto.response.resume.CreateResumeResponseDto;
 import com.TranAn.BackEnd_Works.dto.response.resume.DefaultResumeResponseDto;
 import com.TranAn.BackEnd_Works.dto.response.resume.GetResumeFileResponseDto;
+import com.TranAn.BackEnd_Works.dto.response.CursorPageResponseDto;
 import com.TranAn.BackEnd_Works.dto.response.resume.ResumeForDisplayResponseDto;
+import com.TranAn.BackEnd_Works.dto.outbox.NewResumeEvent;
+import com.TranAn.BackEnd_Works.dto.outbox.ResumeScreeningEvent;
+import com.TranAn.BackEnd_Works.dto.outbox.ResumeStatusEvent;
 import com.TranAn.BackEnd_Works.model.*;
+import com.TranAn.BackEnd_Works.model.constant.OutboxEventType;
 import com.TranAn.BackEnd_Works.repository.JobRepository;
+import com.TranAn.BackEnd_Works.repository.KeysetCursor;
 import com.TranAn.BackEnd_Works.repository.ResumeRepository;
 import com.TranAn.BackEnd_Works.repository.UserRepository;
-import com.TranAn.BackEnd_Works.service.EmailService;
+import com.TranAn.BackEnd_Works.service.OutboxService;
 import com.TranAn.BackEnd_Works.service.ResumeService;
-import com.TranAn.BackEnd_Works.service.NotificationService;
 
 import com.TranAn.BackEnd_Works.service.S3Service;
-import jakarta.mail.MessagingException;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
@@ -41,14 +45,18 @@ public class ResumeServiceImpl implements ResumeService {
         private final ResumeRepository resumeRepository;
         private final UserRepository userRepository;
         private final JobRepository jobRepository;
-        private final EmailService emailService;
         private final S3Service s3Service;
-        private final NotificationService notificationService;
+        private final OutboxService outboxService;
+
+        // Giới hạn riêng cho CV, nhỏ hơn giới hạn multipart chung của ứng dụng
+        private static final long MAX_RESUME_SIZE = 10 * 1024 * 1024; // 10MB
 
         @Override
         public CreateResumeResponseDto saveResume(
                         ResumeRequestDto resumeRequestDto,
                         MultipartFile pdfFile) {
+                validateResumeFile(pdfFile);
+
                 Resume resume = new Resume(
                                 resumeRequestDto.getEmail(),
                                 resumeRequestDto.getStatus(),
@@ -92,22 +100,24 @@ public class ResumeServiceImpl implements ResumeService {
                         String key = s3Service.uploadFile(pdfFile, folderName, generatedFileName, false);
 
                         savedResume.setFileKey(key);
+
+                        // Chấm điểm sơ bộ sau khi commit qua outbox, không đọc PDF trong transaction nộp CV
+                        outboxService.enqueue(
+                                        OutboxEventType.RESUME_SCREENING,
+                                        new ResumeScreeningEvent(savedResume.getId(), key));
                 } else
                         throw new EntityNotFoundException("Không tìm thấy tệp pdf");
 
-                // Gửi thông báo in-app cho các recruiter của công ty
-                try {
-                        notificationService.notifyNewResume(
-                                        savedResume.getId(),
-                                        job.getId(),
-                                        job.getCompany().getId(),
-                                        user.getId(),
-                                        user.getName(),
-                                        job.getName());
-                } catch (Exception e) {
-                        // Log lỗi nhưng vẫn trả về kết quả thành công
-                        System.err.println("Không thể gửi thông báo: " + e.getMessage());
-                }
+                // Thông báo in-app cho các recruiter của công ty, xử lý bất đồng bộ qua outbox
+                outboxService.enqueue(
+                                OutboxEventType.NEW_RESUME_NOTIFICATION,
+                                new NewResumeEvent(
+                                                savedResume.getId(),
+                                                job.getId(),
+                                                job.getCompany().getId(),
+                                                user.getId(),
+                                                user.getName(),
+                                                job.getName()));
 
                 return new CreateResumeResponseDto(
                                 savedResume.getId(),
@@ -168,6 +178,53 @@ public class ResumeServiceImpl implements ResumeService {
                                 .map(this::mapToResumeForDisplayResponseDto);
         }
 
+        @Override
+        public CursorPageResponseDto<ResumeForDisplayResponseDto> findAllResumesForRecruiterCompanyByCursor(
+                        Specification<Resume> spec,
+                        String cursor,
+                        int size) {
+                String email = SecurityContextHolder
+                                .getContext()
+                                .getAuthentication()
+                                .getName();
+
+                User user = userRepository
+                                .findByEmail(email)
+                                .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy người dùng"));
+
+                if (user.getCompany() == null)
+                        throw new EntityNotFoundException("Không tìm thấy công ty người dùng");
+
+                // Lấy dư 1 phần tử để biết còn trang sau hay không
+                List<Resume> rows = resumeRepository
+                                .findByUserCompanyId(user.getCompany().getId(), spec, cursor, size + 1);
+
+                return CursorPageResponseDto.fromRows(
+                                rows,
+                                size,
+                                r -> new KeysetCursor(r.getCreatedAt(), r.getId()).encode(),
+                                this::mapToResumeForDisplayResponseDto);
+        }
+
+        @Override
+        public CursorPageResponseDto<ResumeForDisplayResponseDto> findSelfResumesByCursor(
+                        Specification<Resume> spec,
+                        String cursor,
+                        int size) {
+                String email = SecurityContextHolder
+                                .getContext()
+                                .getAuthentication()
+                                .getName();
+
+                List<Resume> rows = resumeRepository.findByUserEmail(email, spec, cursor, size + 1);
+
+                return CursorPageResponseDto.fromRows(
+                                rows,
+                                size,
+                                r -> new KeysetCursor(r.getCreatedAt(), r.getId()).encode(),
+                                this::mapToResumeForDisplayResponseDto);
+        }
+
         // @Override
         // public ResumeForDisplayResponseDto findResumeById(Long id) {
         // Resume resume = resumeRepository
@@ -211,6 +268,7 @@ public class ResumeServiceImpl implements ResumeService {
                                 .findByUserEmailAndId(email, id)
                                 .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy resume"));
 
+                validateResumeFile(pdfFile);
                 if (pdfFile != null && !pdfFile.isEmpty()) {
                         resume.setVersion(resume.getVersion() + 1);
                         String newKey = generateKey(resume.getEmail(), resume.getId(), resume.getVersion());
@@ -218,6 +276,12 @@ public class ResumeServiceImpl implements ResumeService {
                         s3Service.deleteFileByKey(resume.getFileKey());
                         String uploadedKey = s3Service.uploadFile(pdfFile, newKey, false);
                         resume.setFileKey(uploadedKey);
+
+                        // Điểm của file cũ không còn đúng, file mới được chấm lại qua outbox
+                        resume.setScreeningScore(null);
+                        outboxService.enqueue(
+                                        OutboxEventType.RESUME_SCREENING,
+                                        new ResumeScreeningEvent(resume.getId(), uploadedKey));
                 } else
                         throw new EntityNotFoundException("Không tìm thấy tệp pdf");
 
@@ -245,33 +309,12 @@ public class ResumeServiceImpl implements ResumeService {
 
                 resume.setStatus(updateResumeStatusRequestDto.getStatus());
                 resumeRepository.save(resume);
-                try {
-                        String recipientEmail = resume.getUser().getEmail();
-                        String jobName = resume.getJob().getName();
-                        String companyName = resume.getJob().getCompany().getName();
-
-                        // Fetch actor
-                        String actorEmail = SecurityContextHolder.getContext().getAuthentication().getName();
-                        User actor = userRepository.findByEmail(actorEmail).orElse(null);
-                        Long actorId = actor != null ? actor.getId() : null;
-
-                        notificationService.notifyResumeStatusUpdated(
-                                        resume.getId(),
-                                        resume.getUser().getId(),
-                                        actorId,
-                                        jobName,
-                                        companyName,
-                                        updateResumeStatusRequestDto.getStatus().name());
-
-                        emailService.sendResumeStatusNotification(
-                                        recipientEmail,
-                                        jobName,
-                                        companyName,
-                                        updateResumeStatusRequestDto.getStatus().name());
-                } catch (MessagingException e) {
-                        // Log lỗi nhưng vẫn trả về kết quả cập nhật thành công
-                        System.err.println("Không thể gửi email thông báo: " + e.getMessage());
-                }
+
+                // Fetch actor
+                String actorEmail = SecurityContextHolder.getContext().getAuthentication().getName();
+                User actor = userRepository.findByEmail(actorEmail).orElse(null);
+
+                enqueueResumeStatusEvents(resume, actor != null ? actor.getId() : null);
                 return mapToResponseDto(resume);
         }
 
@@ -306,29 +349,8 @@ public class ResumeServiceImpl implements ResumeService {
                 resume.setStatus(updateResumeStatusRequestDto.getStatus());
                 resumeRepository.save(resume);
 
-                // Gửi email thông báo
-                try {
-                        String recipientEmail = resume.getUser().getEmail();
-                        String jobName = resume.getJob().getName();
-                        String companyName = resume.getJob().getCompany().getName();
-
-                        notificationService.notifyResumeStatusUpdated(
-                                        resume.getId(),
-                                        resume.getUser().getId(),
-                                        user.getId(),
-                                        jobName,
-                                        companyName,
-                                        updateResumeStatusRequestDto.getStatus().name());
-
-                        emailService.sendResumeStatusNotification(
-                                        recipientEmail,
-                                        jobName,
-                                        companyName,
-                                        updateResumeStatusRequestDto.getStatus().name());
-                } catch (MessagingException e) {
-                        // Log lỗi nhưng vẫn trả về kết quả cập nhật thành công
-                        System.err.println("Không thể gửi email thông báo: " + e.getMessage());
-                }
+                // Gửi thông báo + email cho ứng viên
+                enqueueResumeStatusEvents(resume, user.getId());
 
                 return mapToResponseDto(resume);
         }
@@ -364,6 +386,21 @@ public class ResumeServiceImpl implements ResumeService {
         // return mapToResponseDto(resume);
         // }
 
+        // Thông báo in-app và email trạng thái CV được ghi vào outbox cùng transaction, không chờ SMTP
+        private void enqueueResumeStatusEvents(Resume resume, Long actorId) {
+                ResumeStatusEvent event = new ResumeStatusEvent(
+                                resume.getId(),
+                                resume.getUser().getId(),
+                                actorId,
+                                resume.getUser().getEmail(),
+                                resume.getJob().getName(),
+                                resume.getJob().getCompany().getName(),
+                                resume.getStatus().name());
+
+                outboxService.enqueue(OutboxEventType.RESUME_STATUS_NOTIFICATION, event);
+                outboxService.enqueue(OutboxEventType.RESUME_STATUS_EMAIL, event);
+        }
+
         private String generateKey(String email, Long id, Long version) {
                 String safeEmail = email.replaceAll("[^a-zA-Z0-9]", "_");
                 String folderName = "resume/" + safeEmail;
@@ -390,6 +427,7 @@ public class ResumeServiceImpl implements ResumeService {
                 resumeForDisplayResponseDto
                                 .setPdfUrl(s3Service.generatePresignedUrl(resume.getFileKey(), Duration.ofMinutes(15)));
                 resumeForDisplayResponseDto.setStatus(resume.getStatus().toString());
+                resumeForDisplayResponseDto.setScreeningScore(resume.getScreeningScore());
 
                 ResumeForDisplayResponseDto.User user = new ResumeForDisplayResponseDto.User(
                                 resume.getUser().getId(),
@@ -464,4 +502,10 @@ public class ResumeServiceImpl implements ResumeService {
                 return resumeRepository.existsByUserIdAndJobId(user.getId(), jobId);
         }
 
+
+        // Helper: kiểm tra kích thước file CV trước khi ghi database và upload lên S3
+        private void validateResumeFile(MultipartFile pdfFile) {
+                if (pdfFile != null && pdfFile.getSize() > MAX_RESUME_SIZE)
+                        throw new IllegalArgumentException("File CV không được vượt quá 10MB");
+        }
 }
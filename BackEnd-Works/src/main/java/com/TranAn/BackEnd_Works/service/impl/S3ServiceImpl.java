@@ -2,80 +2,117 @@ package com.TranAn.BackEnd_Works.service.impl;
 
 import com.TranAn.BackEnd_Works.advice.exception.S3UploadException;
 import com.TranAn.BackEnd_Works.service.S3Service;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.exception.SdkServiceException;
 import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.services.s3.S3Client;
-import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
-import software.amazon.awssdk.services.s3.model.GetObjectRequest;
-import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.*;
 import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URL;
+import java.nio.ByteBuffer;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
 
+/**
+ * Upload đọc thẳng từ stream của file multipart (không chép cả file vào heap). File nhỏ hơn
+ * {@code aws.s3.multipart-threshold-mb} được gửi bằng một lệnh PUT với độ dài biết trước; file lớn hơn dùng
+ * multipart upload của S3: đọc lần lượt từng phần {@code aws.s3.part-size-mb} và gửi song song tối đa
+ * {@code aws.s3.upload-parallelism} phần mỗi file, nên bộ nhớ mỗi lần upload chỉ cỡ (số phần song song × kích thước phần).
+ * <p>
+ * Mỗi phần kèm CRC32 để S3 kiểm tra và được gửi lại tối đa {@code aws.s3.part-retries} lần; lỗi thì hủy
+ * multipart upload để S3 không giữ các phần dở dang. Lượt gửi lại này chồng lên cơ chế retry của SDK (chế độ
+ * standard: tối đa 3 lần thử cho lỗi mạng, throttling, 5xx), nên một phần được gửi nhiều nhất
+ * 3 × ({@code part-retries} + 1) lần; lỗi 4xx (403, NoSuchUpload...) thì dừng ngay.
+ * <p>
+ * URL trả về theo {@code aws.s3.endpoint} nếu có (path-style, như S3Client đang dùng), không thì theo AWS.
+ */
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class S3ServiceImpl implements S3Service {
 
+    // S3 yêu cầu mỗi phần (trừ phần cuối) tối thiểu 5MB
+    private static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+
     private final S3Client s3Client;
     private final S3Presigner s3Presigner;
     private final String awsBucketName;
     private final String awsRegion;
 
-    @Override
-    public String uploadFile(MultipartFile file, String folder, String fileName, boolean getUrl) {
-        try {
-            if (file == null || file.isEmpty()) {
-                throw new S3UploadException("Tệp không được rỗng hoặc null");
-            }
-            String key = String.format("%s/%s", folder, fileName);
+    @Value("${aws.s3.multipart-threshold-mb:16}")
+    private long multipartThresholdMb;
 
-            PutObjectRequest putObjectRequest = PutObjectRequest.builder()
-                    .bucket(awsBucketName)
-                    .key(key)
-                    .contentType(file.getContentType())
-                    .build();
+    @Value("${aws.s3.part-size-mb:8}")
+    private long partSizeMb;
 
-            s3Client.putObject(putObjectRequest, RequestBody.fromBytes(file.getBytes()));
-            if (getUrl)
-                return String.format("https://%s.s3.%s.amazonaws.com/%s", awsBucketName, awsRegion, key);
-            else
-                return key;
-        } catch (IOException e) {
-            throw new S3UploadException("Lỗi khi đọc dữ liệu từ tệp");
-        } catch (Exception e) {
-            throw new S3UploadException("Lỗi khi upload file lên S3");
-        }
+    @Value("${aws.s3.upload-parallelism:4}")
+    private int uploadParallelism;
+
+    @Value("${aws.s3.upload-threads:8}")
+    private int uploadThreads;
+
+    @Value("${aws.s3.part-retries:3}")
+    private int partRetries;
+
+    @Value("${aws.s3.endpoint:}")
+    private String endpoint;
+
+    private ExecutorService partUploader;
+
+    @PostConstruct
+    void start() {
+        if (uploadParallelism <= 0 || uploadThreads <= 0)
+            throw new IllegalStateException("aws.s3.upload-parallelism và aws.s3.upload-threads phải lớn hơn 0");
+        if (partRetries < 0)
+            throw new IllegalStateException("aws.s3.part-retries không được âm");
+
+        AtomicInteger threadCount = new AtomicInteger();
+        partUploader = Executors.newFixedThreadPool(uploadThreads, r -> {
+            Thread thread = new Thread(r, "s3-part-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void stop() {
+        partUploader.shutdownNow();
     }
 
     @Override
-    public String uploadFile(MultipartFile file, String key, boolean getUrl) {
-        try {
-            if (file == null || file.isEmpty())
-                throw new S3UploadException("Tệp logo không được rỗng hoặc null");
+    public String uploadFile(MultipartFile file, String folder, String fileName, boolean getUrl) {
+        if (file == null || file.isEmpty()) {
+            throw new S3UploadException("Tệp không được rỗng hoặc null");
+        }
+        String key = String.format("%s/%s", folder, fileName);
 
-            PutObjectRequest putRequest = PutObjectRequest.builder()
-                    .bucket(awsBucketName)
-                    .key(key)
-                    .contentType(file.getContentType())
-                    .build();
+        return upload(file, key, getUrl, "Lỗi khi đọc dữ liệu từ tệp");
+    }
 
-            s3Client.putObject(putRequest, RequestBody.fromBytes(file.getBytes()));
+    @Override
+    public String uploadFile(MultipartFile file, String key, boolean getUrl) {
+        if (file == null || file.isEmpty())
+            throw new S3UploadException("Tệp logo không được rỗng hoặc null");
 
-            if (getUrl)
-                return String.format("https://%s.s3.%s.amazonaws.com/%s", awsBucketName, awsRegion, key);
-            else
-                return key;
-        } catch (IOException e) {
-            throw new S3UploadException("Lỗi khi đọc dữ liệu từ tệp logo");
-        } catch (Exception e) {
-            throw new S3UploadException("Lỗi khi upload file lên S3");
-        }
+        return upload(file, key, getUrl, "Lỗi khi đọc dữ liệu từ tệp logo");
     }
 
     @Override
@@ -139,8 +176,164 @@ public class S3ServiceImpl implements S3Service {
 
     }
 
+    private String upload(MultipartFile file, String key, boolean getUrl, String readErrorMessage) {
+        try {
+            if (file.getSize() > multipartThresholdMb * 1024 * 1024)
+                uploadMultipart(file, key);
+            else
+                uploadSingle(file, key);
+
+            if (getUrl)
+                return objectUrlBase() + key;
+            else
+                return key;
+        } catch (IOException e) {
+            throw new S3UploadException(readErrorMessage);
+        } catch (Exception e) {
+            log.error("Error uploading {} to S3", key, e);
+            throw new S3UploadException("Lỗi khi upload file lên S3");
+        }
+    }
+
+    private void uploadSingle(MultipartFile file, String key) throws IOException {
+        PutObjectRequest putObjectRequest = PutObjectRequest.builder()
+                .bucket(awsBucketName)
+                .key(key)
+                .contentType(file.getContentType())
+                .checksumAlgorithm(ChecksumAlgorithm.CRC32)
+                .build();
+
+        try (InputStream inputStream = file.getInputStream()) {
+            s3Client.putObject(putObjectRequest, RequestBody.fromInputStream(inputStream, file.getSize()));
+        }
+    }
+
+    private void uploadMultipart(MultipartFile file, String key) throws IOException, InterruptedException {
+        String uploadId = s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                .bucket(awsBucketName)
+                .key(key)
+                .contentType(file.getContentType())
+                .checksumAlgorithm(ChecksumAlgorithm.CRC32)
+                .build()).uploadId();
+
+        int partSize = (int) Math.max(partSizeMb * 1024 * 1024, MIN_PART_SIZE);
+        // Giới hạn số phần đang nằm trong bộ nhớ: chỉ đọc phần tiếp theo khi một phần đã gửi xong
+        Semaphore buffers = new Semaphore(uploadParallelism);
+        List<CompletableFuture<CompletedPart>> parts = new ArrayList<>();
+
+        try (InputStream inputStream = file.getInputStream()) {
+            for (int partNumber = 1; ; partNumber++) {
+                buffers.acquire();
+                byte[] content = inputStream.readNBytes(partSize);
+                if (content.length == 0) {
+                    buffers.release();
+                    break;
+                }
+
+                int number = partNumber;
+                CompletableFuture<CompletedPart> part = CompletableFuture.supplyAsync(
+                        () -> uploadPart(key, uploadId, number, content), partUploader);
+                part.whenComplete((completed, e) -> buffers.release());
+                parts.add(part);
+
+                // Có phần đã lỗi hẳn (hết lượt gửi lại) thì không đọc tiếp
+                if (content.length < partSize || parts.stream().anyMatch(CompletableFuture::isCompletedExceptionally))
+                    break;
+            }
+
+            List<CompletedPart> completedParts = new ArrayList<>();
+            for (CompletableFuture<CompletedPart> part : parts)
+                completedParts.add(part.join());
+
+            s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                    .bucket(awsBucketName)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(completedParts).build())
+                    .build());
+            log.debug("Uploaded {} in {} parts", key, completedParts.size());
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            if (e instanceof InterruptedException)
+                Thread.currentThread().interrupt();
+            parts.forEach(part -> part.cancel(true));
+            abortMultipartUpload(key, uploadId);
+            throw e;
+        }
+    }
+
+    private CompletedPart uploadPart(String key, String uploadId, int partNumber, byte[] content) {
+        String checksum = crc32(content);
+        UploadPartRequest uploadPartRequest = UploadPartRequest.builder()
+                .bucket(awsBucketName)
+                .key(key)
+                .uploadId(uploadId)
+                .partNumber(partNumber)
+                .contentLength((long) content.length)
+                .checksumCRC32(checksum)
+                .build();
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                // Stream mới cho mỗi lần gửi, không chép lại mảng byte của phần
+                UploadPartResponse response = s3Client.uploadPart(uploadPartRequest,
+                        RequestBody.fromInputStream(new ByteArrayInputStream(content), content.length));
+                return CompletedPart.builder()
+                        .partNumber(partNumber)
+                        .eTag(response.eTag())
+                        .checksumCRC32(checksum)
+                        .build();
+            } catch (SdkException e) {
+                // Lần gửi đầu + partRetries lần gửi lại
+                if (attempt > partRetries || isClientError(e))
+                    throw e;
+                log.warn("Retrying part {} of {} (attempt {}): {}", partNumber, key, attempt, e.getMessage());
+                try {
+                    Thread.sleep(500L * attempt);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    // Lỗi 4xx (trừ timeout, throttling) gửi lại cũng vẫn lỗi
+    private static boolean isClientError(SdkException e) {
+        return e instanceof SdkServiceException serviceException
+                && serviceException.statusCode() >= 400 && serviceException.statusCode() < 500
+                && serviceException.statusCode() != 408 && !serviceException.isThrottlingException();
+    }
+
+    private void abortMultipartUpload(String key, String uploadId) {
+        try {
+            s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                    .bucket(awsBucketName)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .build());
+        } catch (Exception e) {
+            log.warn("Could not abort multipart upload of {}: {}", key, e.getMessage());
+        }
+    }
+
+    // CRC32 dạng base64 (big-endian) theo định dạng checksum của S3
+    private static String crc32(byte[] content) {
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        return Base64.getEncoder().encodeToString(ByteBuffer.allocate(4).putInt((int) crc.getValue()).array());
+    }
+
+    // Tiền tố URL của object trong bucket, khớp với cách S3Config cấu hình S3Client
+    private String objectUrlBase() {
+        if (endpoint.isBlank())
+            return String.format("https://%s.s3.%s.amazonaws.com/", awsBucketName, awsRegion);
+
+        String base = endpoint.endsWith("/") ? endpoint.substring(0, endpoint.length() - 1) : endpoint;
+        return base + "/" + awsBucketName + "/";
+    }
+
     private String extractObjectKeyFromUrl(String url) {
-        String base = String.format("https://%s.s3.%s.amazonaws.com/", awsBucketName, awsRegion);
+        String base = objectUrlBase();
         if (!url.startsWith(base)) {
             throw new S3UploadException("URL không hợp lệ hoặc không thuộc bucket hiện tại");
         }
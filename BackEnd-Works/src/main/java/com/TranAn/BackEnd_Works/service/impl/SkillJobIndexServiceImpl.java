@@ -0,0 +1,295 @@
+package com.TranAn.BackEnd_Works.service.impl;
+
+import com.TranAn.BackEnd_Works.model.Job;
+import com.TranAn.BackEnd_Works.model.constant.JobStatus;
+import com.TranAn.BackEnd_Works.repository.JobRepository;
+import com.TranAn.BackEnd_Works.service.SkillJobIndexService;
+import com.TranAn.BackEnd_Works.util.TransactionUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Mỗi kỹ năng giữ một mảng job ACTIVE mới nhất (tối đa {@code job.skill-index.per-skill-limit}), sắp theo
+ * createdAt giảm dần. Mảng không bị sửa tại chỗ mà được thay bằng mảng mới (copy-on-write) nên truy vấn đọc
+ * không cần khóa; thao tác ghi (ít, theo thay đổi job) được tuần tự hóa.
+ * <p>
+ * Chỉ mục cập nhật trên node xử lý thay đổi và được nạp lại định kỳ để đồng bộ thay đổi từ các node khác.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SkillJobIndexServiceImpl implements SkillJobIndexService {
+
+    private static final int REBUILD_BATCH_SIZE = 1000;
+    private static final IndexedJob[] EMPTY = new IndexedJob[0];
+    private static final Comparator<IndexedJob> NEWEST_FIRST = Comparator
+            .comparing(IndexedJob::createdAt)
+            .thenComparingLong(IndexedJob::id)
+            .reversed();
+
+    private final JobRepository jobRepository;
+
+    @Value("${job.skill-index.per-skill-limit:50}")
+    private int perSkillLimit;
+
+    private volatile State state = new State();
+    private volatile boolean ready = false;
+
+    // Thao tác ghi phát sinh trong lúc rebuild, được áp dụng lại lên chỉ mục mới trước khi thay thế (khóa: this)
+    private List<Consumer<State>> pendingDuringRebuild;
+
+    // Mỗi lúc chỉ một lượt rebuild: hai lượt chồng nhau sẽ thay và xóa pendingDuringRebuild của nhau
+    private final Object rebuildMonitor = new Object();
+    private long completedRebuilds;
+
+    private record IndexedJob(long id, Instant createdAt, long[] skillIds) {
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuildIndex();
+    }
+
+    @Override
+    public void indexJob(Job job) {
+        if (job == null || job.getId() == null)
+            return;
+
+        // Đọc dữ liệu (kể cả skills lazy) ngay trong transaction hiện tại
+        long jobId = job.getId();
+        IndexedJob indexed = null;
+        if (job.getStatus() == JobStatus.ACTIVE && job.getSkills() != null && !job.getSkills().isEmpty()) {
+            indexed = new IndexedJob(
+                    jobId,
+                    job.getCreatedAt() != null ? job.getCreatedAt() : Instant.now(),
+                    job.getSkills().stream().mapToLong(skill -> skill.getId()).distinct().toArray());
+        }
+
+        IndexedJob finalIndexed = indexed;
+        TransactionUtils.runAfterCommit(() -> apply(s -> {
+            if (finalIndexed == null)
+                s.remove(jobId);
+            else
+                s.put(finalIndexed);
+        }));
+    }
+
+    @Override
+    public void removeJobs(Collection<Long> jobIds) {
+        if (jobIds == null || jobIds.isEmpty())
+            return;
+
+        List<Long> ids = List.copyOf(jobIds);
+        TransactionUtils.runAfterCommit(() -> apply(s -> ids.forEach(s::remove)));
+    }
+
+    @Override
+    public void removeSkill(Long skillId) {
+        if (skillId == null)
+            return;
+
+        TransactionUtils.runAfterCommit(() -> apply(s -> s.removeSkill(skillId)));
+    }
+
+    @Override
+    public List<Long> findLatestJobIds(Collection<Long> skillIds, int limit) {
+        if (skillIds == null || skillIds.isEmpty() || limit <= 0)
+            return List.of();
+
+        Map<Long, IndexedJob[]> latestBySkill = state.latestBySkill;
+        List<IndexedJob[]> lists = new ArrayList<>();
+        for (Long skillId : new HashSet<>(skillIds)) {
+            IndexedJob[] latest = latestBySkill.get(skillId);
+            if (latest != null && latest.length > 0)
+                lists.add(latest);
+        }
+
+        // Trộn k mảng đã sắp xếp: mỗi bước lấy job mới nhất trong các đầu mảng, bỏ job trùng (nhiều kỹ năng)
+        int[] positions = new int[lists.size()];
+        Set<Long> seen = new HashSet<>();
+        List<Long> result = new ArrayList<>(limit);
+        while (result.size() < limit) {
+            int best = -1;
+            for (int i = 0; i < lists.size(); i++) {
+                if (positions[i] >= lists.get(i).length)
+                    continue;
+                if (best < 0 || NEWEST_FIRST.compare(lists.get(i)[positions[i]], lists.get(best)[positions[best]]) < 0)
+                    best = i;
+            }
+            if (best < 0)
+                break;
+
+            IndexedJob job = lists.get(best)[positions[best]++];
+            if (seen.add(job.id()))
+                result.add(job.id());
+        }
+        return result;
+    }
+
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${job.skill-index.rebuild-interval-ms:1800000}",
+            initialDelayString = "${job.skill-index.rebuild-interval-ms:1800000}")
+    public void rebuildIndex() {
+        long seen;
+        synchronized (this) {
+            seen = completedRebuilds;
+        }
+
+        synchronized (rebuildMonitor) {
+            // Một lượt khác vừa xong trong lúc chờ: mọi thay đổi trước lời gọi này đã có trong chỉ mục của lượt đó
+            synchronized (this) {
+                if (completedRebuilds != seen)
+                    return;
+            }
+            rebuildIndexExclusively();
+        }
+    }
+
+    // ==== PRIVATE METHODS ====
+
+    private void rebuildIndexExclusively() {
+        long startedAt = System.currentTimeMillis();
+        synchronized (this) {
+            pendingDuringRebuild = new ArrayList<>();
+        }
+
+        try {
+            State fresh = new State();
+            long lastId = 0L;
+            while (true) {
+                // Phân trang theo id (keyset) để tránh OFFSET trên bảng lớn
+                List<Object[]> rows = jobRepository.findIndexRowsByStatusAfter(
+                        JobStatus.ACTIVE, lastId, PageRequest.of(0, REBUILD_BATCH_SIZE));
+                if (rows.isEmpty())
+                    break;
+
+                List<Long> ids = rows.stream().map(row -> (Long) row[0]).toList();
+                Map<Long, List<Long>> skillsByJob = new HashMap<>();
+                for (Object[] row : jobRepository.findSkillCardsByJobIds(ids)) {
+                    skillsByJob.computeIfAbsent((Long) row[0], k -> new ArrayList<>()).add((Long) row[1]);
+                }
+
+                for (Object[] row : rows) {
+                    List<Long> skillIds = skillsByJob.get((Long) row[0]);
+                    if (skillIds == null)
+                        continue;
+
+                    fresh.put(new IndexedJob(
+                            (Long) row[0],
+                            row[1] != null ? (Instant) row[1] : Instant.EPOCH,
+                            skillIds.stream().mapToLong(Long::longValue).distinct().toArray()));
+                }
+
+                lastId = ids.get(ids.size() - 1);
+            }
+
+            synchronized (this) {
+                pendingDuringRebuild.forEach(op -> op.accept(fresh));
+                state = fresh;
+                completedRebuilds++;
+            }
+
+            ready = true;
+            log.info("Đã nạp chỉ mục kỹ năng → công việc cho {} công việc trong {} ms",
+                    fresh.jobs.size(), System.currentTimeMillis() - startedAt);
+        } catch (Exception e) {
+            log.error("Không thể nạp chỉ mục kỹ năng → công việc", e);
+        } finally {
+            synchronized (this) {
+                pendingDuringRebuild = null;
+            }
+        }
+    }
+
+    private synchronized void apply(Consumer<State> op) {
+        op.accept(state);
+        if (pendingDuringRebuild != null)
+            pendingDuringRebuild.add(op);
+    }
+
+    private final class State {
+        // Toàn bộ job ACTIVE đang chỉ mục, dùng để gỡ job và bù lại mảng của kỹ năng đã bị cắt bớt
+        private final Map<Long, IndexedJob> jobs = new HashMap<>();
+        private final Map<Long, Integer> jobCountBySkill = new HashMap<>();
+        // Đọc không khóa: chỉ thay cả mảng, không sửa phần tử
+        private final Map<Long, IndexedJob[]> latestBySkill = new ConcurrentHashMap<>();
+
+        void put(IndexedJob job) {
+            remove(job.id());
+            jobs.put(job.id(), job);
+
+            for (long skillId : job.skillIds()) {
+                jobCountBySkill.merge(skillId, 1, Integer::sum);
+
+                IndexedJob[] current = latestBySkill.getOrDefault(skillId, EMPTY);
+                int found = Arrays.binarySearch(current, job, NEWEST_FIRST);
+                int insertAt = found >= 0 ? found : -found - 1;
+                if (insertAt >= perSkillLimit)
+                    continue;
+
+                IndexedJob[] next = new IndexedJob[Math.min(current.length + 1, perSkillLimit)];
+                System.arraycopy(current, 0, next, 0, insertAt);
+                next[insertAt] = job;
+                System.arraycopy(current, insertAt, next, insertAt + 1, next.length - insertAt - 1);
+                latestBySkill.put(skillId, next);
+            }
+        }
+
+        void remove(long jobId) {
+            IndexedJob old = jobs.remove(jobId);
+            if (old == null)
+                return;
+
+            for (long skillId : old.skillIds()) {
+                Integer remaining = jobCountBySkill.computeIfPresent(skillId, (k, count) -> count > 1 ? count - 1 : null);
+                IndexedJob[] current = latestBySkill.get(skillId);
+                if (current == null)
+                    continue;
+
+                IndexedJob[] next = Arrays.stream(current)
+                        .filter(job -> job.id() != jobId)
+                        .toArray(IndexedJob[]::new);
+
+                // Mảng đã bị cắt bớt và còn dưới một nửa: dựng lại từ các job đang chỉ mục
+                if (remaining != null && next.length < remaining && next.length < perSkillLimit / 2)
+                    next = collectLatest(skillId);
+
+                if (next.length == 0)
+                    latestBySkill.remove(skillId);
+                else
+                    latestBySkill.put(skillId, next);
+            }
+        }
+
+        void removeSkill(long skillId) {
+            latestBySkill.remove(skillId);
+            jobCountBySkill.remove(skillId);
+        }
+
+        private IndexedJob[] collectLatest(long skillId) {
+            return jobs.values().stream()
+                    .filter(job -> Arrays.stream(job.skillIds()).anyMatch(id -> id == skillId))
+                    .sorted(NEWEST_FIRST)
+                    .limit(perSkillLimit)
+                    .toArray(IndexedJob[]::new);
+        }
+    }
+}
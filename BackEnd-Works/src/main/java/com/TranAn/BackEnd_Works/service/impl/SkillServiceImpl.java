@@ -5,7 +5,11 @@ import com.TranAn.BackEnd_Works.dto.request.skill.CreateSkillRequestDto;
 import com.TranAn.BackEnd_Works.dto.response.skill.DefaultSkillResponseDto;
 import com.TranAn.BackEnd_Works.dto.response.skill.UpdateSkillResponseDto;
 import com.TranAn.BackEnd_Works.model.Skill;
+import com.TranAn.BackEnd_Works.repository.JobRepository;
 import com.TranAn.BackEnd_Works.repository.SkillRepository;
+import com.TranAn.BackEnd_Works.service.JobCacheService;
+import com.TranAn.BackEnd_Works.service.ResumeScreeningService;
+import com.TranAn.BackEnd_Works.service.SkillJobIndexService;
 import com.TranAn.BackEnd_Works.service.SkillService;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
@@ -22,6 +26,11 @@ import org.springframework.transaction.annotation.Transactional;
 public class SkillServiceImpl implements SkillService {
 
     private final SkillRepository skillRepository;
+    private final JobRepository jobRepository;
+    private final JobCacheService jobCacheService;
+    private final SkillJobIndexService skillJobIndexService;
+    private final ResumeScreeningService resumeScreeningService;
+
     @Override
     public DefaultSkillResponseDto saveSkill(CreateSkillRequestDto createSkillRequestDto) {
 
@@ -32,6 +41,7 @@ public class SkillServiceImpl implements SkillService {
         Skill skill = new Skill();
         skill.setName(createSkillRequestDto.getName());
         Skill savedSkill = skillRepository.saveAndFlush(skill);
+        resumeScreeningService.invalidateSkills();
         return mapToDefaultSkillResponseDto(savedSkill);
     }
 
@@ -63,6 +73,10 @@ public class SkillServiceImpl implements SkillService {
 
         skill.setName(updateSkillResponseDto.getName());
         Skill savedSkill = skillRepository.saveAndFlush(skill);
+        resumeScreeningService.invalidateSkills();
+
+        // Tên kỹ năng nằm trong chi tiết job đã cache
+        jobCacheService.evict(jobRepository.findIdsBySkillId(skill.getId()));
 
         return mapToDefaultSkillResponseDto(savedSkill);
     }
@@ -73,8 +87,11 @@ public class SkillServiceImpl implements SkillService {
                 .findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy kỹ năng"));
 
+        jobCacheService.evict(jobRepository.findIdsBySkillId(id));
+        skillJobIndexService.removeSkill(id);
 
         skillRepository.delete(skill);
+        resumeScreeningService.invalidateSkills();
 
         return mapToDefaultSkillResponseDto(skill);
     }
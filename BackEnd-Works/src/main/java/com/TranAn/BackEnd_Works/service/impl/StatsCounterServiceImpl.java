@@ -0,0 +1,123 @@
+package com.TranAn.BackEnd_Works.service.impl;
+
+import com.TranAn.BackEnd_Works.model.constant.JobStatus;
+import com.TranAn.BackEnd_Works.model.constant.Level;
+import com.TranAn.BackEnd_Works.model.constant.ResumeStatus;
+import com.TranAn.BackEnd_Works.repository.*;
+import com.TranAn.BackEnd_Works.service.StatsCounterService;
+import com.TranAn.BackEnd_Works.util.TransactionUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Bộ đếm thống kê trên Redis (hash), tăng/giảm sau khi transaction commit và được đối soát định kỳ với database.
+ * <p>
+ * Đối soát ghi đè bằng số đếm từ database: increment commit sau lúc đếm nhưng trước lúc ghi đè bị mất, và increment
+ * commit trước lúc đếm nhưng tới Redis sau lúc ghi đè bị cộng hai lần. Cả hai chỉ lệch tới lượt đối soát tiếp theo
+ * ({@code stats.reconcile-interval-ms}), vì lượt đó đếm lại từ database.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StatsCounterServiceImpl implements StatsCounterService {
+
+    private static final String COUNTERS_KEY = "{stats}:counters";
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final UserRepository userRepository;
+    private final JobRepository jobRepository;
+    private final ResumeRepository resumeRepository;
+    private final CompanyRepository companyRepository;
+    private final SubscriberRepository subscriberRepository;
+
+    @Override
+    public void increment(String key, long delta) {
+        if (delta == 0)
+            return;
+
+        TransactionUtils.runAfterCommit(() -> {
+            try {
+                redisTemplate.opsForHash().increment(COUNTERS_KEY, key, delta);
+            } catch (RuntimeException e) {
+                // Lệch số liệu sẽ được sửa ở lượt đối soát tiếp theo
+                log.warn("Không cập nhật được bộ đếm {}: {}", key, e.getMessage());
+            }
+        });
+    }
+
+    @Override
+    public Map<String, Long> getCounters() {
+        Map<Object, Object> raw = redisTemplate.opsForHash().entries(COUNTERS_KEY);
+        if (raw.isEmpty()) {
+            reconcile();
+            raw = redisTemplate.opsForHash().entries(COUNTERS_KEY);
+        }
+
+        Map<String, Long> counters = new HashMap<>();
+        raw.forEach((k, v) -> counters.put((String) k, Long.parseLong((String) v)));
+        return counters;
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileOnStartup() {
+        reconcile();
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${stats.reconcile-interval-ms:600000}",
+            initialDelayString = "${stats.reconcile-interval-ms:600000}")
+    public void reconcile() {
+        Map<String, Long> counters = new HashMap<>();
+
+        long totalUsers = 0;
+        for (Object[] row : userRepository.countGroupByRoleName()) {
+            long count = (Long) row[1];
+            totalUsers += count;
+            if (row[0] != null)
+                counters.put(StatsCounterService.userRoleKey((String) row[0]), count);
+        }
+        counters.put(USERS_TOTAL, totalUsers);
+
+        long totalJobs = 0;
+        for (Object[] row : jobRepository.countGroupByLevelAndStatus()) {
+            long count = (Long) row[2];
+            totalJobs += count;
+            if (row[0] != null)
+                counters.merge(StatsCounterService.jobLevelKey((Level) row[0]), count, Long::sum);
+            if (row[1] != null)
+                counters.merge(StatsCounterService.jobStatusKey((JobStatus) row[1]), count, Long::sum);
+        }
+        counters.put(JOBS_TOTAL, totalJobs);
+
+        long totalResumes = 0;
+        for (Object[] row : resumeRepository.countGroupByStatus()) {
+            long count = (Long) row[1];
+            totalResumes += count;
+            if (row[0] != null)
+                counters.put(StatsCounterService.resumeStatusKey((ResumeStatus) row[0]), count);
+        }
+        counters.put(RESUMES_TOTAL, totalResumes);
+
+        counters.put(COMPANIES_TOTAL, companyRepository.count());
+        counters.put(SUBSCRIBERS_TOTAL, subscriberRepository.count());
+
+        // Bộ đếm không còn trong database (ví dụ role đã xóa) thì đưa về 0
+        Map<String, String> values = new HashMap<>();
+        redisTemplate.opsForHash().keys(COUNTERS_KEY).forEach(field -> values.put((String) field, "0"));
+        counters.forEach((field, count) -> values.put(field, String.valueOf(count)));
+
+        // Một lệnh HSET ghi đè mọi bộ đếm bằng số liệu database (xem độ lệch ở mô tả lớp)
+        redisTemplate.opsForHash().putAll(COUNTERS_KEY, values);
+
+        log.info("Đã đối soát {} bộ đếm thống kê", values.size());
+    }
+}
@@ -9,6 +9,7 @@ import com.TranAn.BackEnd_Works.model.Company;
 import com.TranAn.BackEnd_Works.model.Resume;
 import com.TranAn.BackEnd_Works.model.Role;
 import com.TranAn.BackEnd_Works.model.User;
+import com.TranAn.BackEnd_Works.repository.ChatSessionRepository;
 import com.TranAn.BackEnd_Works.repository.CompanyRepository;
 import com.TranAn.BackEnd_Works.repository.RoleRepository;
 import com.TranAn.BackEnd_Works.repository.UserRepository;
@@ -35,10 +36,14 @@ import java.util.List;
 public class UserServiceImpl implements UserService {
     private final UserRepository userRepository;
     private final CompanyRepository companyRepository;
+    private final ChatSessionRepository chatSessionRepository;
     private final RoleRepository roleRepository;
     private final S3Service s3Service;
     private final PasswordEncoder passwordEncoder;
 
+    // Giới hạn riêng cho ảnh đại diện, nhỏ hơn giới hạn multipart chung của ứng dụng
+    private static final long MAX_AVATAR_SIZE = 5 * 1024 * 1024; // 5MB
+
     @Override
     public DefaultUserResponseDto saveUser(UserCreateRequestDto userCreateRequestDto) {
        if(userRepository.existsByEmail(userCreateRequestDto.getEmail())) {
@@ -118,6 +123,7 @@ public class UserServiceImpl implements UserService {
         List<Resume> resumes = user.getResumes();
         resumes.forEach(x -> s3Service.deleteFileByKey(x.getFileKey()));
 
+        chatSessionRepository.deleteByUserId(user.getId());
         userRepository.delete(user);
         return mapToResponseDto(user);
     }
@@ -158,6 +164,9 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public void updateSelfUserAvatar(MultipartFile avatarFile) {
+        if (avatarFile != null && avatarFile.getSize() > MAX_AVATAR_SIZE)
+            throw new IllegalArgumentException("Ảnh đại diện không được vượt quá 5MB");
+
         String email = SecurityContextHolder.getContext().getAuthentication().getName();
         User user = findByEmail(email);
         if(avatarFile != null  && !avatarFile.isEmpty()) {
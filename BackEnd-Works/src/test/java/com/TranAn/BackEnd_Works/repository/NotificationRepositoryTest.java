@@ -0,0 +1,75 @@
+package com.TranAn.BackEnd_Works.repository;
+
+import com.TranAn.BackEnd_Works.config.data.JpaConfiguration;
+import com.TranAn.BackEnd_Works.model.Notification;
+import com.TranAn.BackEnd_Works.model.User;
+import com.TranAn.BackEnd_Works.model.common.PooledIds;
+import com.TranAn.BackEnd_Works.model.constant.NotificationType;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ghi thông báo hàng loạt (fan-out) phải được Hibernate gom thành JDBC batch: số câu lệnh chuẩn bị tăng theo số
+ * batch và số khối id pooled, không theo số dòng như khi còn dùng IDENTITY
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import(JpaConfiguration.class)
+class NotificationRepositoryTest {
+
+	// jpa.batch-size mặc định
+	private static final int BATCH_SIZE = 50;
+
+	@Autowired
+	private TestEntityManager entityManager;
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+	@Autowired
+	private NotificationRepository notificationRepository;
+
+	@ParameterizedTest
+	@ValueSource(ints = { 1, 50, 120 })
+	void saveAllInsertsInJdbcBatches(int rows) {
+		User recipient = new User();
+		recipient.setName("Recipient");
+		recipient.setEmail("recipient-" + rows + "@example.com");
+		recipient.setPassword("secret");
+		entityManager.persistAndFlush(recipient);
+
+		List<Notification> notifications = new ArrayList<>();
+		for (int i = 0; i < rows; i++) {
+			notifications.add(Notification.builder()
+					.recipient(recipient)
+					.title("Thông báo " + i)
+					.message("Nội dung " + i)
+					.type(NotificationType.SYSTEM)
+					.build());
+		}
+
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+
+		notificationRepository.saveAll(notifications);
+		entityManager.flush();
+
+		// Mỗi batch INSERT một câu lệnh; mỗi khối id (và lần nạp khối đầu của optimizer) một lần đọc sequence
+		long batches = (rows + BATCH_SIZE - 1) / BATCH_SIZE;
+		long idBlocks = (rows + PooledIds.ALLOCATION_SIZE - 1) / PooledIds.ALLOCATION_SIZE + 1;
+
+		assertEquals(rows, statistics.getEntityInsertCount());
+		assertTrue(statistics.getPrepareStatementCount() <= batches + idBlocks,
+				"Ghi " + rows + " thông báo dùng " + statistics.getPrepareStatementCount() + " câu lệnh");
+	}
+}
@@ -0,0 +1,124 @@
+package com.TranAn.BackEnd_Works.service.impl;
+
+import com.TranAn.BackEnd_Works.config.data.JpaConfiguration;
+import com.TranAn.BackEnd_Works.dto.response.job.JobResponseDto;
+import com.TranAn.BackEnd_Works.model.Company;
+import com.TranAn.BackEnd_Works.model.CompanyLogo;
+import com.TranAn.BackEnd_Works.model.Job;
+import com.TranAn.BackEnd_Works.model.Skill;
+import com.TranAn.BackEnd_Works.model.constant.JobStatus;
+import com.TranAn.BackEnd_Works.model.constant.Level;
+import com.TranAn.BackEnd_Works.service.JobCacheService;
+import com.TranAn.BackEnd_Works.service.JobExpiryService;
+import com.TranAn.BackEnd_Works.service.JobSearchService;
+import com.TranAn.BackEnd_Works.service.JobService;
+import com.TranAn.BackEnd_Works.service.S3Service;
+import com.TranAn.BackEnd_Works.service.SkillJobIndexService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Đếm số câu lệnh SQL thật sự chạy (Hibernate Statistics) khi lấy một trang danh sách công việc
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({ JpaConfiguration.class, JobServiceImpl.class })
+class JobServiceImplTest {
+
+	private static final int JOB_COUNT = 30;
+	private static final int COMPANY_COUNT = 10;
+
+	// Trang job + COUNT + công ty theo lô + kỹ năng theo lô
+	private static final long MAX_STATEMENTS_PER_PAGE = 4;
+
+	@MockitoBean
+	private S3Service s3Service;
+	@MockitoBean
+	private JobSearchService jobSearchService;
+	@MockitoBean
+	private JobCacheService jobCacheService;
+	@MockitoBean
+	private JobExpiryService jobExpiryService;
+	@MockitoBean
+	private SkillJobIndexService skillJobIndexService;
+
+	@Autowired
+	private TestEntityManager entityManager;
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+	@Autowired
+	private JobService jobService;
+
+	@BeforeEach
+	void seed() {
+		List<Skill> skills = new ArrayList<>();
+		for (int i = 1; i <= 2; i++) {
+			Skill skill = new Skill();
+			skill.setName("Skill " + i);
+			skills.add(entityManager.persist(skill));
+		}
+
+		List<Company> companies = new ArrayList<>();
+		for (int i = 1; i <= COMPANY_COUNT; i++) {
+			Company company = new Company();
+			company.setName("Company " + i);
+			company.setAddress("Address " + i);
+			entityManager.persist(company);
+
+			CompanyLogo logo = new CompanyLogo();
+			logo.setCompany(company);
+			logo.setLogoUrl("logo-" + i);
+			entityManager.persist(logo);
+			companies.add(company);
+		}
+
+		for (int i = 1; i <= JOB_COUNT; i++) {
+			Job job = new Job("Job " + i, "Hà Nội", 1000.0, 1, Level.MIDDLE, "Mô tả",
+					Instant.now(), Instant.now().plusSeconds(86_400), JobStatus.ACTIVE);
+			job.setCompany(companies.get(i % COMPANY_COUNT));
+			job.setSkills(new ArrayList<>(skills));
+			entityManager.persist(job);
+		}
+
+		entityManager.flush();
+		entityManager.clear();
+	}
+
+	// Số câu lệnh của một trang danh sách không được tăng theo kích thước trang (không có N+1)
+	@ParameterizedTest
+	@ValueSource(ints = { 1, 10, JOB_COUNT })
+	void findAllJobs_executesConstantStatementsPerPage(int size) {
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+
+		Page<JobResponseDto> page = jobService.findAllJobs(null, PageRequest.of(0, size));
+
+		assertEquals(size, page.getContent().size());
+		page.getContent().forEach(dto -> {
+			assertNotNull(dto.getCompany().getName());
+			assertNotNull(dto.getCompany().getLogoUrl());
+			assertEquals(2, dto.getSkills().size());
+		});
+		assertTrue(statistics.getPrepareStatementCount() <= MAX_STATEMENTS_PER_PAGE,
+				"Đã chạy " + statistics.getPrepareStatementCount() + " câu lệnh cho trang " + size + " job");
+		assertEquals(0, statistics.getEntityLoadCount(), "Trang danh sách không được nạp entity");
+	}
+}
@@ -0,0 +1,74 @@
+package com.TranAn.BackEnd_Works.service.impl;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Chuẩn hóa văn bản và so khớp trọn từ của automaton dùng để chấm sơ bộ CV
+ */
+class KeywordAutomatonTest {
+
+	private static List<String> scan(Map<String, String> keywords, String text) {
+		List<String> matches = new ArrayList<>();
+		new KeywordAutomaton<>(keywords).scan(KeywordAutomaton.normalize(text), matches::add);
+		return matches;
+	}
+
+	@ParameterizedTest
+	@CsvSource(delimiter = '|', value = {
+			"C++ and C#|c++ and c#",
+			"Node.js, React.js|node.js react.js",
+			".NET Core|.net core",
+			"I know Java.|i know java",
+			"  Spring   Boot (3.x)  |spring boot 3.x",
+			"HTML5/CSS3|html5 css3" })
+	void normalize_keepsTechnologyPunctuation(String text, String expected) {
+		assertEquals(expected, KeywordAutomaton.normalize(text));
+	}
+
+	@Test
+	void scan_matchesWholeWordsOnly() {
+		Map<String, String> keywords = Map.of("java", "java", "go", "go", "c", "c");
+
+		assertEquals(List.of("java"), scan(keywords, "Experienced with Java."));
+		assertTrue(scan(keywords, "JavaScript developer, good communication").isEmpty());
+		assertTrue(scan(keywords, "Google, MongoDB, Objective-C++").isEmpty());
+	}
+
+	@Test
+	void scan_reportsOverlappingKeywords() {
+		Map<String, String> keywords = Map.of(
+				"spring", "spring",
+				"spring boot", "spring boot",
+				"boot", "boot",
+				"team lead", "team lead");
+
+		List<String> matches = scan(keywords, "Team lead, Spring Boot microservices");
+
+		assertEquals(4, matches.size());
+		assertTrue(matches.containsAll(List.of("team lead", "spring", "spring boot", "boot")));
+	}
+
+	@Test
+	void scan_matchesPunctuatedTechnologyNames() {
+		Map<String, String> keywords = Map.of("c++", "c++", "c#", "c#", ".net", ".net", "node.js", "node.js");
+
+		List<String> matches = scan(keywords, "Skills: C++, C#; .NET and Node.js.");
+
+		assertEquals(List.of("c++", "c#", ".net", "node.js"), matches);
+		assertTrue(scan(keywords, "nodejs, asp.net").isEmpty());
+	}
+
+	@Test
+	void scan_keywordsAreNormalizedLikeText() {
+		assertEquals(List.of("spring boot"), scan(Map.of("Spring  Boot", "spring boot"), "spring boot"));
+	}
+}
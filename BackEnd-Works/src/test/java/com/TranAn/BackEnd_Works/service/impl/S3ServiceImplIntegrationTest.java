@@ -0,0 +1,74 @@
+package com.TranAn.BackEnd_Works.service.impl;
+
+import com.TranAn.BackEnd_Works.config.network.S3Config;
+import com.TranAn.BackEnd_Works.service.S3Service;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Upload thật lên dịch vụ tương thích S3 (MinIO, LocalStack...). Chỉ chạy khi có {@code aws.s3.endpoint}, ví dụ:
+ * <pre>
+ * mvn test -Dtest=S3ServiceImplIntegrationTest -Daws.s3.endpoint=http://localhost:9000 -Daws.region=us-east-1
+ *     -Daws.access-key=minioadmin -Daws.secret-key=minioadmin -Daws.s3.bucket-name=talentbridge-test
+ * </pre>
+ */
+@EnabledIfSystemProperty(named = "aws.s3.endpoint", matches = ".+")
+@SpringBootTest(classes = { S3Config.class, S3ServiceImpl.class }, properties = {
+		"aws.s3.multipart-threshold-mb=5",
+		"aws.s3.part-size-mb=5" })
+class S3ServiceImplIntegrationTest {
+
+	private static final int MB = 1024 * 1024;
+
+	@Autowired
+	private S3Service s3Service;
+	@Autowired
+	private S3Client s3Client;
+
+	@Value("${aws.s3.bucket-name}")
+	private String bucket;
+	@Value("${aws.s3.endpoint}")
+	private String endpoint;
+
+	@BeforeEach
+	void createBucket() {
+		if (s3Client.listBuckets().buckets().stream().noneMatch(existing -> existing.name().equals(bucket)))
+			s3Client.createBucket(builder -> builder.bucket(bucket));
+	}
+
+	// 1MB đi bằng một lệnh PUT, 12MB chia thành 3 phần multipart (5MB + 5MB + 2MB)
+	@ParameterizedTest
+	@ValueSource(ints = { MB, 12 * MB })
+	void uploadFile_storesContentAndUrlFollowsEndpoint(int size) {
+		byte[] content = new byte[size];
+		new Random(size).nextBytes(content);
+		MockMultipartFile file = new MockMultipartFile("file", "cv.pdf", "application/pdf", content);
+		String fileName = UUID.randomUUID() + ".pdf";
+
+		String url = s3Service.uploadFile(file, "it", fileName, true);
+
+		assertTrue(url.startsWith(endpoint), url);
+		byte[] stored = s3Client.getObjectAsBytes(builder -> builder.bucket(bucket).key("it/" + fileName))
+				.asByteArray();
+		assertArrayEquals(content, stored);
+
+		s3Service.deleteFileByUrl(url);
+		assertThrows(NoSuchKeyException.class,
+				() -> s3Client.headObject(builder -> builder.bucket(bucket).key("it/" + fileName)));
+	}
+}
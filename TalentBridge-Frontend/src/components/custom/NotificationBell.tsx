@@ -11,7 +11,9 @@ import {
     getLatestNotifications,
     getUnreadCount,
     markAsRead,
+    notificationKey,
     markAllAsRead,
+    openNotificationStream,
     type NotificationDto,
 } from "@/services/notificationApi";
 
@@ -95,13 +97,62 @@ export function NotificationBell({ className, darkTheme = false }: NotificationB
         }
     }, []);
 
-    // Fetch on mount and periodically
+    // Fetch on mount, then receive new notifications over SSE instead of polling
     useEffect(() => {
         fetchNotifications();
 
-        // Poll every 30 seconds
-        const interval = setInterval(fetchNotifications, 30000);
-        return () => clearInterval(interval);
+        let source: EventSource | null = null;
+        let retryTimer: ReturnType<typeof setTimeout> | undefined;
+        let closed = false;
+
+        const scheduleReconnect = () => {
+            if (closed) return;
+
+            // Token may have expired: refetch through axios (which refreshes the token), then reconnect
+            clearTimeout(retryTimer);
+            retryTimer = setTimeout(async () => {
+                await fetchNotifications();
+                if (!closed) connect();
+            }, 5000);
+        };
+
+        const connect = async () => {
+            try {
+                source = await openNotificationStream();
+            } catch (error) {
+                // Not logged in yet or the ticket request failed: keep retrying instead of giving up
+                console.error("Failed to open notification stream:", error);
+                scheduleReconnect();
+                return;
+            }
+            if (closed) {
+                source.close();
+                return;
+            }
+
+            source.addEventListener("notification", (event) => {
+                const notification = JSON.parse((event as MessageEvent).data) as NotificationDto;
+                setNotifications((prev) =>
+                    [
+                        notification,
+                        ...prev.filter((n) => notificationKey(n) !== notificationKey(notification)),
+                    ].slice(0, 10)
+                );
+                setUnreadCount((prev) => prev + 1);
+            });
+
+            source.onerror = () => {
+                source?.close();
+                scheduleReconnect();
+            };
+        };
+
+        connect();
+        return () => {
+            closed = true;
+            source?.close();
+            clearTimeout(retryTimer);
+        };
     }, [fetchNotifications]);
 
     // Handle click on notification
@@ -109,11 +160,13 @@ export function NotificationBell({ className, darkTheme = false }: NotificationB
         setIsLoading(true);
         try {
             if (!notification.isRead) {
-                await markAsRead(notification.id);
+                await markAsRead(notification.id, notification.broadcast);
                 setUnreadCount((prev) => Math.max(0, prev - 1));
                 setNotifications((prev) =>
                     prev.map((n) =>
-                        n.id === notification.id ? { ...n, isRead: true } : n
+                        notificationKey(n) === notificationKey(notification)
+                            ? { ...n, isRead: true }
+                            : n
                     )
                 );
             }
@@ -211,7 +264,7 @@ export function NotificationBell({ className, darkTheme = false }: NotificationB
                             const style = getNotificationStyle(notification.type);
                             return (
                                 <div
-                                    key={notification.id}
+                                    key={notificationKey(notification)}
                                     onClick={() => handleNotificationClick(notification)}
                                     className={`group relative flex cursor-pointer gap-4 px-5 py-4 transition-all duration-200 hover:bg-gray-50 ${!notification.isRead
                                         ? "bg-gradient-to-r from-orange-50/80 to-transparent"
@@ -67,6 +67,32 @@ const processQueue = (error: unknown, token: string | null = null) => {
 
 let isRefreshing = false;
 
+// ============================================================
+// Làm mới access token cho request không đi qua axios (vd. fetch stream),
+// dùng chung hàng đợi với interceptor để không gọi refresh hai lần song song
+// ============================================================
+export const refreshAccessToken = async (): Promise<void> => {
+  if (isRefreshing) {
+    return new Promise<void>((resolve, reject) => {
+      failedQueue.push({ resolve, reject });
+    });
+  }
+
+  isRefreshing = true;
+
+  try {
+    const res = (await refreshTokenApi()).data.data;
+    dispatchRef(updateTokenManually(res));
+    processQueue(null, res.accessToken);
+  } catch (refreshError) {
+    dispatchRef(logout());
+    processQueue(refreshError, null);
+    throw refreshError;
+  } finally {
+    isRefreshing = false;
+  }
+};
+
 axiosClient.interceptors.response.use(
   (response) => response,
   async (error: AxiosError) => {
@@ -181,8 +181,8 @@ export function ApplySection({ jobId, jobTitle, endDate, isActive }: ApplySectio
       const formData = new FormData();
       formData.append("pdfFile", selectedFile);
 
-      const res = await analyzeResumePreview(formData, jobId);
-      setAnalysisResult(res.data.data);
+      const result = await analyzeResumePreview(formData, jobId);
+      setAnalysisResult(result);
       toast.success("Phân tích CV hoàn tất!");
     } catch (error) {
       toast.error(getErrorMessage(error, "Không thể phân tích CV"));
@@ -54,6 +54,9 @@ export function ResumeTable({
             <TableHead className="text-center font-bold text-white">
               Người nộp
             </TableHead>
+            <TableHead className="text-center font-bold text-white">
+              Độ phù hợp
+            </TableHead>
             <TableHead className="text-center font-bold text-white">
               Ngày nộp
             </TableHead>
@@ -71,7 +74,7 @@ export function ResumeTable({
         <TableBody>
           {isLoading ? (
             <TableRow>
-              <TableCell colSpan={8}>
+              <TableCell colSpan={9}>
                 <div className="flex justify-center py-6">
                   <LoadingSpinner />
                 </div>
@@ -79,7 +82,7 @@ export function ResumeTable({
             </TableRow>
           ) : resumes.length === 0 ? (
             <TableRow>
-              <TableCell colSpan={8}>
+              <TableCell colSpan={9}>
                 <EmptyState
                   title="Không tìm thấy hồ sơ xin việc nào"
                   description="Chưa có ai nộp hồ sơ cả"
@@ -110,6 +113,9 @@ export function ResumeTable({
                 <TableCell className="text-center">
                   {resume.user.email}
                 </TableCell>
+                <TableCell className="text-center">
+                  {resume.screeningScore != null ? `${resume.screeningScore}%` : "—"}
+                </TableCell>
                 <TableCell className="text-center">
                   {formatISO(resume.createdAt)}
                 </TableCell>
@@ -100,8 +100,8 @@ export function ViewResumeDialog({
 
     setIsAnalyzing(true);
     try {
-      const res = await analyzeResume(resume.id);
-      setAnalysisResult(res.data.data);
+      const result = await analyzeResume(resume.id);
+      setAnalysisResult(result);
       toast.success("Phân tích CV hoàn tất!");
     } catch (error) {
       toast.error(getErrorMessage(error, "Không thể phân tích CV"));
@@ -2,11 +2,12 @@ import { Button } from "@/components/ui/button";
 import { Card, CardContent, CardHeader, CardTitle } from "@/components/ui/card";
 import { Input } from "@/components/ui/input";
 import {
+  ChatStreamError,
   clearChatHistory,
   createChatSession,
   getAllChatSessions,
   getChatHistory,
-  sendChatMessage,
+  streamChatMessage,
 } from "@/services/chatApi";
 import type { ChatMessageDto, ChatSessionDto } from "@/types/chat.d.ts";
 import { Bot, Loader2, MessageSquare, Send, Trash2, Settings, History, X } from "lucide-react";
@@ -126,31 +127,49 @@ export default function UserChatPage() {
     };
     setMessages((prev) => [...prev, userMsg]);
 
+    // Message của AI được hiển thị dần theo từng token nhận được
+    const aiMsgId = Date.now() + 1;
+    const aiMsg: ChatMessageDto = {
+      id: aiMsgId,
+      role: "ASSISTANT",
+      content: "",
+      createdAt: new Date().toISOString(),
+      createdBy: "assistant",
+    };
+
     try {
       setIsLoading(true);
-      const response = await sendChatMessage({
-        question: userMessage,
-        sessionId: currentSessionId,
-      });
-
-      // Thêm response từ AI
-      const aiMsg: ChatMessageDto = {
-        id: Date.now() + 1,
-        role: "ASSISTANT",
-        content: response.data as string,
-        createdAt: new Date().toISOString(),
-        createdBy: "assistant",
-      };
       setMessages((prev) => [...prev, aiMsg]);
 
+      const saved = await streamChatMessage(
+        {
+          question: userMessage,
+          sessionId: currentSessionId,
+        },
+        (token) =>
+          setMessages((prev) =>
+            prev.map((msg) =>
+              msg.id === aiMsgId ? { ...msg, content: msg.content + token } : msg,
+            ),
+          ),
+      );
+
+      // Thay bằng message đã lưu trên server
+      setMessages((prev) => prev.map((msg) => (msg.id === aiMsgId ? saved : msg)));
+
       // Reload sessions để cập nhật lastMessage
       await loadSessions();
     } catch (error: any) {
       toast.error(
-        error.response?.data?.message || "Không thể gửi tin nhắn. Vui lòng thử lại",
+        error.message || "Không thể gửi tin nhắn. Vui lòng thử lại",
       );
-      // Xóa message user nếu lỗi
-      setMessages((prev) => prev.filter((msg) => msg.id !== userMsg.id));
+      if (error instanceof ChatStreamError && error.accepted) {
+        // Server đã lưu message của user: chỉ bỏ câu trả lời dở dang, giữ message để khớp lịch sử trên server
+        setMessages((prev) => prev.filter((msg) => msg.id !== aiMsgId));
+      } else {
+        // Server chưa nhận message: xóa message user và câu trả lời dở dang
+        setMessages((prev) => prev.filter((msg) => msg.id !== userMsg.id && msg.id !== aiMsgId));
+      }
     } finally {
       setIsLoading(false);
     }
@@ -1,4 +1,4 @@
-import axiosClient from "@/lib/axiosClient";
+import axiosClient, { refreshAccessToken } from "@/lib/axiosClient";
 import type { ApiResponse } from "@/types/apiResponse.d.ts";
 import type {
   ChatRequest,
@@ -31,6 +31,99 @@ export const sendChatMessage = (data: ChatRequest & { files?: File[] }) => {
   });
 };
 
+/**
+ * Lỗi khi stream câu trả lời. accepted = true nghĩa là server đã nhận và lưu message của user
+ * (lỗi xảy ra trong lúc AI trả lời), UI cần giữ lại message đó
+ */
+export class ChatStreamError extends Error {
+  readonly accepted: boolean;
+
+  constructor(message: string, accepted: boolean) {
+    super(message);
+    this.name = "ChatStreamError";
+    this.accepted = accepted;
+  }
+}
+
+const postChatStream = (formData: FormData, signal?: AbortSignal) => {
+  const accessToken = localStorage.getItem("access_token");
+  return fetch(`${axiosClient.defaults.baseURL ?? ""}/chat-message/stream`, {
+    method: "POST",
+    body: formData,
+    credentials: "include",
+    headers: {
+      Accept: "text/event-stream",
+      ...(accessToken ? { Authorization: `Bearer ${accessToken}` } : {}),
+    },
+    signal,
+  });
+};
+
+/**
+ * Gửi tin nhắn tới AI và nhận câu trả lời dạng stream (SSE)
+ * Yêu cầu quyền: POST /api/chat-message
+ * onToken được gọi với từng đoạn câu trả lời; Promise trả về message đã lưu khi AI trả lời xong
+ * (dùng fetch vì EventSource không gửi được POST/multipart; fetch không qua interceptor của axios
+ * nên tự làm mới token và gửi lại một lần khi access token hết hạn)
+ */
+export const streamChatMessage = async (
+  data: ChatRequest & { files?: File[] },
+  onToken: (token: string) => void,
+  signal?: AbortSignal,
+): Promise<ChatMessageDto> => {
+  const formData = new FormData();
+  formData.append("question", data.question);
+  formData.append("sessionId", data.sessionId);
+  data.files?.forEach((file) => formData.append("files", file));
+
+  let response = await postChatStream(formData, signal);
+  let body = response.ok ? null : await response.json().catch(() => null);
+
+  const isUnauthorized =
+    response.status === 401 &&
+    (body?.errorCode === "UNAUTHORIZED" || body?.errorCode === "ACCESS_DENIED");
+  if (isUnauthorized) {
+    await refreshAccessToken();
+    response = await postChatStream(formData, signal);
+    body = response.ok ? null : await response.json().catch(() => null);
+  }
+
+  if (!response.ok || !response.body) {
+    throw new ChatStreamError(body?.message || "Không thể gửi tin nhắn. Vui lòng thử lại", false);
+  }
+
+  const reader = response.body.pipeThrough(new TextDecoderStream()).getReader();
+  let buffer = "";
+
+  for (;;) {
+    const { value, done } = await reader.read();
+    if (done) break;
+    buffer += value.replace(/\r\n?/g, "\n");
+
+    // Mỗi sự kiện SSE kết thúc bằng một dòng trống
+    let boundary;
+    while ((boundary = buffer.indexOf("\n\n")) >= 0) {
+      const rawEvent = buffer.slice(0, boundary);
+      buffer = buffer.slice(boundary + 2);
+
+      let event = "message";
+      const dataLines: string[] = [];
+      for (const line of rawEvent.split("\n")) {
+        if (line.startsWith("event:")) event = line.slice(6).trim();
+        else if (line.startsWith("data:")) dataLines.push(line.slice(5).replace(/^ /, ""));
+      }
+      if (dataLines.length === 0) continue;
+
+      const payload = JSON.parse(dataLines.join("\n"));
+      if (event === "token") onToken(payload.content);
+      else if (event === "done") return payload as ChatMessageDto;
+      else if (event === "error") throw new ChatStreamError(payload.message, true);
+    }
+  }
+
+  throw new ChatStreamError("Kết nối bị gián đoạn trước khi AI trả lời xong", true);
+};
+
 /**
  * Lấy lịch sử chat theo sessionId
  * Yêu cầu quyền: GET /api/chat-history
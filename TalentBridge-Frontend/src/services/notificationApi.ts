@@ -18,6 +18,8 @@ export interface NotificationDto {
     referenceId?: number;
     createdAt: string;
     sender?: NotificationSender;
+    // Thông báo nhóm (gửi theo role/công ty) có dãy id riêng với thông báo cá nhân
+    broadcast?: boolean;
 }
 
 export interface UnreadCountResponse {
@@ -58,12 +60,20 @@ export const getUnreadCount = () => {
     );
 };
 
+/**
+ * Khóa duy nhất của thông báo (id của thông báo cá nhân và thông báo nhóm có thể trùng nhau)
+ */
+export const notificationKey = (notification: NotificationDto) =>
+    `${notification.broadcast ? "broadcast" : "personal"}-${notification.id}`;
+
 /**
  * Đánh dấu 1 thông báo đã đọc
  */
-export const markAsRead = (notificationId: number) => {
+export const markAsRead = (notificationId: number, broadcast: boolean = false) => {
     return axiosClient.put<ApiResponse<string>>(
-        `/notifications/${notificationId}/read`
+        `/notifications/${notificationId}/read`,
+        null,
+        { params: { broadcast } }
     );
 };
 
@@ -73,3 +83,21 @@ export const markAsRead = (notificationId: number) => {
 export const markAllAsRead = () => {
     return axiosClient.put<ApiResponse<string>>("/notifications/read-all");
 };
+
+/**
+ * Mở kết nối SSE nhận thông báo mới theo thời gian thực.
+ * EventSource không gửi được header Authorization nên xin ticket dùng một lần qua axios
+ * (tự làm mới token khi hết hạn) rồi truyền ticket qua query thay cho access token
+ */
+export const openNotificationStream = async () => {
+    const res = await axiosClient.post<ApiResponse<{ ticket: string }>>(
+        "/notifications/stream-ticket"
+    );
+    const ticket = res.data.data?.ticket;
+    if (!ticket) throw new Error("Missing notification stream ticket");
+
+    const params = new URLSearchParams({ ticket });
+    return new EventSource(
+        `${axiosClient.defaults.baseURL ?? ""}/notifications/stream?${params.toString()}`
+    );
+};
@@ -132,16 +132,61 @@ export interface CVAnalysisResponse {
   resumeId?: number;
 }
 
+export interface CVAnalysisJobResponse {
+  jobId: string;
+  status: "QUEUED" | "RUNNING" | "COMPLETED" | "FAILED";
+  result?: CVAnalysisResponse;
+  error?: string;
+  submittedAt: string;
+  completedAt?: string;
+}
+
+const ANALYSIS_POLL_INTERVAL_MS = 2000;
+const ANALYSIS_POLL_TIMEOUT_MS = 5 * 60 * 1000;
+
+export const getAnalysisJob = (jobId: string) => {
+  return axiosClient.get<ApiResponse<CVAnalysisJobResponse>>(
+    `/resumes/analysis-jobs/${jobId}`,
+  );
+};
+
+// Phân tích chạy trong hàng đợi phía server: hỏi trạng thái định kỳ tới khi có kết quả
+const waitForAnalysis = async (
+  job: CVAnalysisJobResponse,
+): Promise<CVAnalysisResponse> => {
+  const deadline = Date.now() + ANALYSIS_POLL_TIMEOUT_MS;
+  let current = job;
+
+  while (current.status === "QUEUED" || current.status === "RUNNING") {
+    if (Date.now() > deadline) {
+      throw new Error("Phân tích CV mất quá nhiều thời gian, vui lòng thử lại");
+    }
+    await new Promise((resolve) =>
+      setTimeout(resolve, ANALYSIS_POLL_INTERVAL_MS),
+    );
+    current = (await getAnalysisJob(current.jobId)).data.data;
+  }
+
+  if (current.status === "FAILED" || !current.result) {
+    throw new Error(current.error || "Không thể phân tích CV");
+  }
+  return current.result;
+};
+
 // API phân tích CV đã nộp (dành cho Recruiter)
-export const analyzeResume = (resumeId: number) => {
-  return axiosClient.post<ApiResponse<CVAnalysisResponse>>(
+export const analyzeResume = async (resumeId: number) => {
+  const res = await axiosClient.post<ApiResponse<CVAnalysisJobResponse>>(
     `/resumes/${resumeId}/analyze`,
   );
+  return waitForAnalysis(res.data.data);
 };
 
 // API phân tích CV preview trước khi nộp (dành cho User)
-export const analyzeResumePreview = (formData: FormData, jobId: number) => {
-  return axiosClient.post<ApiResponse<CVAnalysisResponse>>(
+export const analyzeResumePreview = async (
+  formData: FormData,
+  jobId: number,
+) => {
+  const res = await axiosClient.post<ApiResponse<CVAnalysisJobResponse>>(
     `/resumes/analyze-preview?jobId=${jobId}`,
     formData,
     {
@@ -150,4 +195,5 @@ export const analyzeResumePreview = (formData: FormData, jobId: number) => {
       },
     },
   );
+  return waitForAnalysis(res.data.data);
 };
@@ -17,6 +17,7 @@ export interface ResumeForDisplayResponseDto {
   id: number;
   status: string;
   pdfUrl: string;
+  screeningScore?: number | null;
   user: UserForResume;
   job: JobForResume;
   company: CompanyForResume;